@@ -0,0 +1,255 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Writer that compares the characters written against a given text instead of
+ * storing them. Stops at the first character that differs by throwing a {@link
+ * DifferenceException}, so whoever produces the output can short-circuit right away.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class CompareWriter
+    extends Writer
+{
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The text to compare against. */
+    private final String _text;
+
+    /** Was a difference found? */
+    private boolean _different;
+
+    /** The current line (1-based). */
+    private int _line = 1;
+
+    /** Offset of the first character of the current line. */
+    private int _lineStart;
+
+    /** Number of characters that matched so far. */
+    private int _offset;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new CompareWriter object.
+     *
+     * @param text the text to compare the output against.
+     */
+    public CompareWriter(String text)
+    {
+        _text = text;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the column of the first difference or the current position, if no
+     * difference was found yet.
+     *
+     * @return the column (1-based).
+     */
+    public int getColumn()
+    {
+        return _offset - _lineStart + 1;
+    }
+
+
+    /**
+     * Indicates whether the output written equals the text. Only meaningful once all
+     * output has been written.
+     *
+     * @return <code>true</code> if the output equals the text.
+     */
+    public boolean isEqual()
+    {
+        return !_different && (_offset == _text.length());
+    }
+
+
+    /**
+     * Returns the line of the first difference or the current position, if no
+     * difference was found yet.
+     *
+     * @return the line (1-based).
+     */
+    public int getLine()
+    {
+        return _line;
+    }
+
+
+    /**
+     * Returns the offset of the first difference or the current position, if no
+     * difference was found yet.
+     *
+     * @return the offset (0-based).
+     */
+    public int getOffset()
+    {
+        return _offset;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close()
+    {
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void flush()
+    {
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DifferenceException if the characters differ from the text.
+     */
+    public void write(
+        char[] cbuf,
+        int    off,
+        int    len)
+      throws IOException
+    {
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            compare(cbuf[i]);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DifferenceException if the characters differ from the text.
+     */
+    public void write(
+        String str,
+        int    off,
+        int    len)
+      throws IOException
+    {
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            compare(str.charAt(i));
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws DifferenceException if the character differs from the text.
+     */
+    public void write(int c)
+      throws IOException
+    {
+        compare((char) c);
+    }
+
+
+    /**
+     * Compares the given character with the character at the current offset.
+     *
+     * @param c the character written.
+     *
+     * @throws DifferenceException if the characters differ.
+     */
+    private void compare(char c)
+      throws DifferenceException
+    {
+        if (_different || (_offset == _text.length()) || (_text.charAt(_offset) != c))
+        {
+            _different = true;
+
+            throw new DifferenceException(_line, getColumn());
+        }
+
+        _offset++;
+
+        switch (c)
+        {
+            case '\n' :
+
+                // a DOS line separator was already counted with its carriage return
+                if ((_offset < 2) || (_text.charAt(_offset - 2) != '\r'))
+                {
+                    _line++;
+                }
+
+                _lineStart = _offset;
+
+                break;
+
+            case '\r' :
+                _line++;
+                _lineStart = _offset;
+
+                break;
+        }
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Signals that the output differs from the text.
+     */
+    public static final class DifferenceException
+        extends IOException
+    {
+        /**
+         * Creates a new DifferenceException object.
+         *
+         * @param line line of the first difference.
+         * @param column column of the first difference.
+         */
+        public DifferenceException(
+            int line,
+            int column)
+        {
+            super("output differs at " /* NOI18N */ + line + ':' + column);
+        }
+    }
+}
@@ -0,0 +1,564 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.hunsicker.util.Diff;
+
+
+/**
+ * Writer that writes a unified diff between a given text and the characters written
+ * rather than the characters themselves.
+ * 
+ * <p>
+ * The output is consumed line by line and followed along the text as long as both
+ * agree. A line that differs opens a changed region which is kept until the output
+ * agrees with the text again for a number of consecutive lines. The region is then
+ * compared with {@link Diff} and written out as a hunk right away. Thus only the
+ * changed regions are ever held in memory, never the whole output.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class DiffWriter
+    extends Writer
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The number of context lines written around every change. */
+    private static final int CONTEXT = 3;
+
+    /** The number of agreeing lines that close a changed region. */
+    private static final int SYNC = (2 * CONTEXT) + 1;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The ids of the changed output lines, grows as needed. */
+    private int[] _changedIds = new int[64];
+
+    /** The changed output lines. */
+    private final List _changed = new ArrayList();
+
+    /** Maps every distinct line of the text to its id. */
+    private final Map _ids = new HashMap();
+
+    /** Maps the hash of line windows to the position of their first occurrence. */
+    private final Map _windows = new HashMap();
+
+    /** The writer to write the diff to. */
+    private final Writer _out;
+
+    /** Holds the characters of the current output line. */
+    private final StringBuffer _line = new StringBuffer(128);
+
+    /** The label of the text. */
+    private final String _original;
+
+    /** The label of the output. */
+    private final String _revised;
+
+    /** The lines of the text, including their line separators. */
+    private final String[] _lines;
+
+    /** The ids of the lines of the text. */
+    private final int[] _lineIds;
+
+    /** Chains all line windows with equal hashes, in ascending order. */
+    private final int[] _nextWindow;
+
+    /** Was a header written already? */
+    private boolean _differs;
+
+    /** Are we within a changed region? */
+    private boolean _inRegion;
+
+    /** The end of the context lines written so far. */
+    private int _written;
+
+    /** The next line of the text expected. */
+    private int _next;
+
+    /** The number of complete output lines. */
+    private int _outputLines;
+
+    /** The first line of the text within the changed region. */
+    private int _regionStart;
+
+    /** The first output line within the changed region. */
+    private int _regionOutputStart;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new DiffWriter object.
+     *
+     * @param out the writer to write the diff to.
+     * @param text the text to compare the output against.
+     * @param original the label of the text.
+     * @param revised the label of the output.
+     */
+    public DiffWriter(
+        Writer out,
+        String text,
+        String original,
+        String revised)
+    {
+        _out = out;
+        _original = original;
+        _revised = revised;
+        _lines = split(text);
+        _lineIds = new int[_lines.length];
+
+        for (int i = 0; i < _lines.length; i++)
+        {
+            Integer id = (Integer) _ids.get(_lines[i]);
+
+            if (id == null)
+            {
+                id = new Integer(_ids.size());
+                _ids.put(_lines[i], id);
+            }
+
+            _lineIds[i] = id.intValue();
+        }
+
+        _nextWindow = new int[Math.max(0, (_lines.length - SYNC) + 1)];
+
+        // index the windows backwards, so every chain is in ascending order
+        for (int i = _nextWindow.length - 1; i >= 0; i--)
+        {
+            Integer hash = new Integer(hash(_lineIds, i));
+            Integer first = (Integer) _windows.put(hash, new Integer(i));
+            _nextWindow[i] = (first == null) ? (-1)
+                                             : first.intValue();
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the output written differs from the text. Only meaningful once
+     * the writer has been closed.
+     *
+     * @return <code>true</code> if a diff was written.
+     */
+    public boolean isDifferent()
+    {
+        return _differs;
+    }
+
+
+    /**
+     * Finishes the diff. Writes the last changed region, if any, but does not close the
+     * underlying writer.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void close()
+      throws IOException
+    {
+        if (_line.length() > 0)
+        {
+            addLine();
+        }
+
+        if (_inRegion)
+        {
+            writeHunk(_regionStart, _lines.length, _regionOutputStart);
+            _inRegion = false;
+        }
+        else if (_next < _lines.length)
+        {
+            _changed.clear();
+            writeHunk(_next, _lines.length, _outputLines);
+        }
+
+        _next = _lines.length;
+        _out.flush();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void flush()
+      throws IOException
+    {
+        _out.flush();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(
+        char[] cbuf,
+        int    off,
+        int    len)
+      throws IOException
+    {
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            add(cbuf[i]);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(
+        String str,
+        int    off,
+        int    len)
+      throws IOException
+    {
+        for (int i = off, end = off + len; i < end; i++)
+        {
+            add(str.charAt(i));
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(int c)
+      throws IOException
+    {
+        add((char) c);
+    }
+
+
+    /**
+     * Returns the hash of the line window that starts at the given position.
+     *
+     * @param ids the line ids.
+     * @param start the first line of the window.
+     *
+     * @return the hash of the window.
+     */
+    private static int hash(
+        int[] ids,
+        int   start)
+    {
+        int hash = 1;
+
+        for (int i = start, end = start + SYNC; i < end; i++)
+        {
+            hash = (31 * hash) + ids[i];
+        }
+
+        return hash;
+    }
+
+
+    /**
+     * Splits the given text into lines. The lines keep their line separators. As with
+     * <code>diff</code> and <code>patch</code>, only a line feed ends a line, so a
+     * carriage return before it is part of the line and a text with carriage returns
+     * only is a single line.
+     *
+     * @param text the text.
+     *
+     * @return the lines of the text.
+     */
+    private static String[] split(String text)
+    {
+        List lines = new ArrayList();
+        int start = 0;
+
+        for (int i = text.indexOf('\n'); i > -1; i = text.indexOf('\n', start))
+        {
+            lines.add(text.substring(start, i + 1));
+            start = i + 1;
+        }
+
+        if (start < text.length())
+        {
+            lines.add(text.substring(start));
+        }
+
+        return (String[]) lines.toArray(new String[lines.size()]);
+    }
+
+
+    /**
+     * Adds the given output character.
+     *
+     * @param c the character.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void add(char c)
+      throws IOException
+    {
+        _line.append(c);
+
+        if (c == '\n')
+        {
+            addLine();
+        }
+    }
+
+
+    /**
+     * Completes the current output line and follows it along the text.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void addLine()
+      throws IOException
+    {
+        String line = _line.toString();
+        _line.setLength(0);
+
+        Integer id = (Integer) _ids.get(line);
+        int lineId = (id == null) ? (-1)
+                                  : id.intValue();
+        _outputLines++;
+
+        if (!_inRegion)
+        {
+            if ((_next < _lines.length) && (_lineIds[_next] == lineId))
+            {
+                _next++;
+
+                return;
+            }
+
+            _inRegion = true;
+            _regionStart = _next;
+            _regionOutputStart = _outputLines - 1;
+            _changed.clear();
+        }
+
+        int size = _changed.size();
+
+        if (size == _changedIds.length)
+        {
+            int[] ids = new int[size * 2];
+            System.arraycopy(_changedIds, 0, ids, 0, size);
+            _changedIds = ids;
+        }
+
+        _changed.add(line);
+        _changedIds[size++] = lineId;
+
+        if (size >= SYNC)
+        {
+            int start = size - SYNC;
+            int match = findWindow(start);
+
+            if (match != -1)
+            {
+                // the last lines agree with the text again, so the region is complete
+                for (int i = size - 1; i >= start; i--)
+                {
+                    _changed.remove(i);
+                }
+
+                writeHunk(_regionStart, match, _regionOutputStart);
+                _next = match + SYNC;
+                _inRegion = false;
+            }
+        }
+    }
+
+
+    /**
+     * Finds the first window of the text within the changed region that agrees with
+     * the changed lines starting at the given position.
+     *
+     * @param start position of the first changed line to agree.
+     *
+     * @return the position of the window in the text, <code>-1</code> if no window
+     *         agrees.
+     */
+    private int findWindow(int start)
+    {
+        for (int i = start, end = start + SYNC; i < end; i++)
+        {
+            if (_changedIds[i] == -1)
+            {
+                return -1;
+            }
+        }
+
+        Integer first = (Integer) _windows.get(new Integer(hash(_changedIds, start)));
+
+        if (first == null)
+        {
+            return -1;
+        }
+
+        for (int pos = first.intValue(); pos != -1; pos = _nextWindow[pos])
+        {
+            if (pos < _regionStart)
+            {
+                continue;
+            }
+
+            boolean equal = true;
+
+            for (int i = 0; i < SYNC; i++)
+            {
+                if (_lineIds[pos + i] != _changedIds[start + i])
+                {
+                    equal = false;
+
+                    break;
+                }
+            }
+
+            if (equal)
+            {
+                return pos;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Writes a hunk for the current changed region.
+     *
+     * @param start the first line of the text within the region.
+     * @param end the end of the region in the text (exclusive).
+     * @param outputStart the first output line within the region.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void writeHunk(
+        int start,
+        int end,
+        int outputStart)
+      throws IOException
+    {
+        int size = _changed.size();
+        int[] original = new int[end - start];
+        int[] revised = new int[size];
+        System.arraycopy(_lineIds, start, original, 0, original.length);
+        System.arraycopy(_changedIds, 0, revised, 0, size);
+
+        boolean[] deleted = new boolean[original.length];
+        boolean[] inserted = new boolean[size];
+        Diff.compare(original, revised, deleted, inserted);
+
+        int leading = start - Math.max(_written, start - CONTEXT);
+        int trailing = Math.min(CONTEXT, _lines.length - end);
+
+        if (!_differs)
+        {
+            _out.write("--- " /* NOI18N */ + _original + '\n');
+            _out.write("+++ " /* NOI18N */ + _revised + '\n');
+            _differs = true;
+        }
+
+        int originalLength = leading + original.length + trailing;
+        int revisedLength = leading + size + trailing;
+        int originalStart = (start - leading) + ((originalLength > 0) ? 1
+                                                                      : 0);
+        int revisedStart = (outputStart - leading) + ((revisedLength > 0) ? 1
+                                                                          : 0);
+
+        _out.write(
+            "@@ -" /* NOI18N */ + originalStart + ',' + originalLength + " +" /* NOI18N */
+            + revisedStart + ',' + revisedLength + " @@\n" /* NOI18N */);
+
+        for (int i = start - leading; i < start; i++)
+        {
+            writeLine(' ', _lines[i]);
+        }
+
+        for (int i = 0, j = 0; (i < original.length) || (j < size);)
+        {
+            if ((i < original.length) && deleted[i])
+            {
+                writeLine('-', _lines[start + i++]);
+            }
+            else if ((j < size) && inserted[j])
+            {
+                writeLine('+', (String) _changed.get(j++));
+            }
+            else
+            {
+                writeLine(' ', _lines[start + i]);
+                i++;
+                j++;
+            }
+        }
+
+        for (int i = end, last = end + trailing; i < last; i++)
+        {
+            writeLine(' ', _lines[i]);
+        }
+
+        _written = end + trailing;
+        _changed.clear();
+    }
+
+
+    /**
+     * Writes the given line of a hunk. The line is written with its own line
+     * separator, so carriage returns are kept.
+     *
+     * @param prefix the line prefix.
+     * @param line the line, including its line separator.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void writeLine(
+        char   prefix,
+        String line)
+      throws IOException
+    {
+        _out.write(prefix);
+        _out.write(line);
+
+        if (!line.endsWith("\n" /* NOI18N */))
+        {
+            // the terminator only ends the hunk line and is removed by the marker
+            _out.write('\n');
+            _out.write("\\ No newline at end of file\n" /* NOI18N */);
+        }
+    }
+}
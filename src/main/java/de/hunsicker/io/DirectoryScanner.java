@@ -32,17 +32,42 @@ package de.hunsicker.io;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.hunsicker.util.ResourceBundleFactory;
 
 
 /**
  * Class for scanning a directory for files/directories that match a certain filter.
+ * 
+ * <p>
+ * The directory trees are walked by several threads at once (see {@link
+ * #setThreadCount}), every thread takes the next directory that is waiting to be
+ * listed. A directory is listed with {@link Files#walkFileTree(Path, Set, int,
+ * java.nio.file.FileVisitor)} which hands the attributes of every entry to the
+ * visitor, so the filters never need to query the file system again. The files
+ * found are put into a blocking queue where consumers can take them from (see
+ * {@link #take}) while the scan is still running. If a capacity is given (see {@link
+ * #setCapacity}), the scan waits while the queue is full, so a slow consumer does
+ * not pile up the whole tree in memory.
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.3 $
@@ -57,22 +82,34 @@ public class DirectoryScanner
 
     private static final String BUNDLE_NAME = "de.hunsicker.io.Bundle" /* NOI18N */;
 
+    /** Marks the end of the found files, taken once the scan has finished. */
+    private static final File END = new File("" /* NOI18N */);
+
+    /** Marks the end of the directories, taken once all directories were listed. */
+    private static final Directory STOP = new Directory(null, 0);
+
+    /** Follow links to directories, just like File.isDirectory() does. */
+    private static final Set FOLLOW_LINKS = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+
     //~ Instance variables ---------------------------------------------------------------
 
     /** Used filters. */
     private Filters _filters;
 
-    /** Object to synchronize processes on. */
-    volatile Object _lock = new Object();
+    /** The directories waiting to be listed. */
+    private final BlockingQueue _directories = new LinkedBlockingQueue();
+
+    /** Number of directories waiting to be or being listed. */
+    private final AtomicInteger _pending = new AtomicInteger();
 
     /** Found files. */
-    private Queue _queue;
+    private BlockingQueue _queue = new LinkedBlockingQueue();
 
     /** Directories to search. */
     private File[] _dirs;
 
     /** Are we finished? */
-    private boolean _finished;
+    private volatile boolean _finished;
 
     /**
      * The directory depth we scan. Defaults to <code>0</code> (Only the current
@@ -80,6 +117,9 @@ public class DirectoryScanner
      */
     private int _levels = 0;
 
+    /** The number of threads that walk the directory trees. */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -162,7 +202,6 @@ public class DirectoryScanner
         Set directories,
         int levels)
     {
-        _queue = new Queue();
         setTargets(directories);
         _levels = levels;
         _filters = new Filters();
@@ -170,6 +209,35 @@ public class DirectoryScanner
 
     //~ Methods --------------------------------------------------------------------------
 
+    /**
+     * Sets the maximum number of files the queue holds while scanning. Once the queue is
+     * full, the scan waits until files are taken. Defaults to no limit.
+     * 
+     * <p>
+     * Only use a limit if the files are consumed while the scan is running, otherwise
+     * the scan never finishes. Must be set before the scan is started.
+     * </p>
+     *
+     * @param capacity the maximum number of files in the queue.
+     *
+     * @throws IllegalArgumentException if <code>capacity &lt; 1</code>
+     *
+     * @since 1.1
+     */
+    public void setCapacity(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1 -- " + capacity);
+        }
+
+        BlockingQueue queue =
+            new LinkedBlockingQueue(Math.max(capacity, _queue.size()));
+        _queue.drainTo(queue);
+        _queue = queue;
+    }
+
+
     /**
      * Indicates whether the queue with the found files is empty.
      *
@@ -177,10 +245,9 @@ public class DirectoryScanner
      */
     public boolean isEmpty()
     {
-        synchronized (_lock)
-        {
-            return _queue.isEmpty();
-        }
+        Object head = _queue.peek();
+
+        return (head == null) || (head == END);
     }
 
 
@@ -191,10 +258,10 @@ public class DirectoryScanner
      */
     public File[] getFiles()
     {
-        synchronized (_lock)
-        {
-            return _queue.toArray();
-        }
+        List files = new ArrayList(_queue);
+        files.remove(END);
+
+        return (File[]) files.toArray(new File[files.size()]);
     }
 
 
@@ -219,10 +286,7 @@ public class DirectoryScanner
      */
     public boolean isFinished()
     {
-        synchronized (_lock)
-        {
-            return _finished;
-        }
+        return _finished;
     }
 
 
@@ -316,7 +380,7 @@ public class DirectoryScanner
 
             if (!((File) file).isDirectory())
             {
-                _queue.push((File) file);
+                _queue.offer(file);
                 targets.remove(file);
             }
         }
@@ -326,6 +390,22 @@ public class DirectoryScanner
     }
 
 
+    /**
+     * Sets the number of threads that walk the directory trees. Defaults to the number
+     * of available processors.
+     *
+     * @param threadCount the number of threads. Values below <code>1</code> are treated
+     *        as <code>1</code>.
+     *
+     * @since 1.1
+     */
+    public void setThreadCount(int threadCount)
+    {
+        _threadCount = (threadCount < 1) ? 1
+                                         : threadCount;
+    }
+
+
     /**
      * Adds the given file filter.
      *
@@ -354,27 +434,32 @@ public class DirectoryScanner
      */
     public Iterator iterator()
     {
-        synchronized (_lock)
-        {
-            return _queue.iterator();
-        }
+        return Arrays.asList(getFiles()).iterator();
     }
 
 
     /**
      * Returns and removes the file at the top of the internal file queue.
      *
-     * @return the file at the top of the queue.
+     * @return the file at the top of the queue, <code>null</code> if the queue is
+     *         empty.
      *
      * @see #isEmpty
      * @see #take
      */
     public File pop()
     {
-        synchronized (_lock)
+        File file = (File) _queue.poll();
+
+        if (file == END)
         {
-            return _queue.pop();
+            // leave the mark for the other consumers
+            _queue.offer(END);
+
+            return null;
         }
+
+        return file;
     }
 
 
@@ -404,33 +489,93 @@ public class DirectoryScanner
      */
     public void reset()
     {
+        _queue.clear();
+        _directories.clear();
+        _finished = false;
     }
 
 
     /**
      * Starts the scanning process. All files matching the given filters will be
      * seamlessly added to the internal queue where they can be accessed via {@link
-     * #pop} or {@link #take} calls.
+     * #pop} or {@link #take} calls. Returns when the scan has finished; the calling
+     * thread takes part in the scan.
      */
     public void run()
     {
         try
         {
             _finished = false;
+            _directories.clear();
+            _pending.set(0);
 
             for (int i = 0; i < _dirs.length; i++)
             {
                 if (_dirs[i].isDirectory())
                 {
-                    scanDirectory(_dirs[i]);
+                    _pending.incrementAndGet();
+                    _directories.offer(new Directory(_dirs[i].toPath(), 0));
+                }
+            }
+
+            if (_pending.get() == 0)
+            {
+                _directories.offer(STOP);
+            }
+
+            Thread[] threads = new Thread[_threadCount - 1];
+
+            for (int i = 0; i < threads.length; i++)
+            {
+                threads[i] =
+                    new Thread(
+                        new Runnable()
+                        {
+                            public void run()
+                            {
+                                walk();
+                            }
+                        }, "DirectoryScanner-" /* NOI18N */ + (i + 1));
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+
+            walk();
+
+            for (int i = 0; i < threads.length; i++)
+            {
+                try
+                {
+                    threads[i].join();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    _directories.offer(STOP);
+
+                    for (int j = 0; j < threads.length; j++)
+                    {
+                        threads[j].interrupt();
+                    }
+
+                    break;
                 }
             }
         }
         finally
         {
-            synchronized (_lock)
+            _finished = true;
+
+            try
+            {
+                _queue.put(END);
+            }
+            catch (InterruptedException ex)
             {
-                _finished = true;
+                // the scan was cancelled, drop the files nobody took to make room
+                Thread.currentThread().interrupt();
+                _queue.clear();
+                _queue.offer(END);
             }
 
             synchronized (this)
@@ -443,27 +588,31 @@ public class DirectoryScanner
 
     /**
      * Returns and removes the file at the top of the internal file queue. If the queue
-     * is empty, waits until one element is available, so this is in fact a blocking
-     * {@link #pop}.
+     * is empty, waits until one element is available or the scan has finished, so this
+     * is in fact a blocking {@link #pop}.
      *
-     * @return the file at the top of the queue.
+     * @return the file at the top of the queue, <code>null</code> if the scan has
+     *         finished and all files were taken.
      *
-     * @throws InterruptedException if the queue contains no elements.
+     * @throws InterruptedException if the current thread was interrupted while
+     *         waiting.
      *
      * @see #pop
      */
     public File take()
       throws InterruptedException
     {
-        synchronized (_lock)
+        File file = (File) _queue.take();
+
+        if (file == END)
         {
-            while (_queue.isEmpty())
-            {
-                _lock.wait();
-            }
+            // leave the mark for the other consumers
+            _queue.offer(END);
+
+            return null;
         }
 
-        return pop();
+        return file;
     }
 
 
@@ -503,114 +652,171 @@ public class DirectoryScanner
 
 
     /**
-     * Calls {@link #scanDirectory(File, String, int)}.
+     * Adds the given file to the queue. Waits while the queue is full.
      *
-     * @param dir directory to process.
+     * @param file the file found.
+     *
+     * @throws InterruptedException if the current thread was interrupted while
+     *         waiting.
      */
-    private void scanDirectory(File dir)
+    private void push(File file)
+      throws InterruptedException
     {
-        scanDirectory(dir, dir.getPath(), 0);
+        _queue.put(file);
     }
 
 
     /**
-     * Searches recursively all directories.
+     * Lists the given directory. Found files are added to the queue, subdirectories
+     * are put in line to be listed.
      *
-     * @param dir directory to search.
-     * @param rootDir root directory of the search.
-     * @param depth level that is currently be processed (0 based).
+     * @param directory the directory to list.
+     *
+     * @throws InterruptedException if the current thread was interrupted while
+     *         waiting for room in the queue.
      */
-    private void scanDirectory(
-        File   dir,
-        String rootDir,
-        int    depth)
+    private void scan(final Directory directory)
+      throws InterruptedException
     {
-        File[] dirEntries = null;
+        final File dir = directory.path.toFile();
+        final List files = new ArrayList();
 
-        if (((dirEntries = dir.listFiles(_filters)) != null) && (depth <= _levels))
+        try
         {
-            for (int i = 0; i < dirEntries.length; i++)
-            {
-                // recursion one level up
-                if (dirEntries[i].isDirectory())
-                {
-                    scanDirectory(dirEntries[i], rootDir, depth + 1);
-                }
-                else
+            // with a depth of 1 every entry (directories too) is passed to
+            // visitFile() along with the attributes read by the directory listing
+            Files.walkFileTree(
+                directory.path, FOLLOW_LINKS, 1,
+                new SimpleFileVisitor()
                 {
-                    _queue.push(dirEntries[i]);
-                }
-            }
-        }
-    }
-
-    //~ Inner Classes --------------------------------------------------------------------
+                    public FileVisitResult visitFile(
+                        Object              file,
+                        BasicFileAttributes attributes)
+                    {
+                        Path entry = (Path) file;
+                        boolean isDirectory = attributes.isDirectory();
+
+                        if (
+                            !_filters.accept(
+                                dir, entry.getFileName().toString(), isDirectory))
+                        {
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        if (isDirectory)
+                        {
+                            if (directory.depth < _levels)
+                            {
+                                _pending.incrementAndGet();
+                                _directories.offer(
+                                    new Directory(entry, directory.depth + 1));
+                            }
+                        }
+                        else
+                        {
+                            files.add(entry.toFile());
+                        }
+
+                        return FileVisitResult.CONTINUE;
+                    }
 
-    /**
-     * Stores all found directories/files.
-     */
-    private class Queue
-    {
-        LinkedList list;
 
-        /**
-         * Creates a new Queue object.
-         */
-        public Queue()
-        {
-            this.list = new LinkedList();
-        }
+                    public FileVisitResult visitFileFailed(
+                        Object      file,
+                        IOException ex)
+                    {
+                        return FileVisitResult.CONTINUE; // e.g. a dangling link
+                    }
 
 
-        private Queue(LinkedList list)
+                    public FileVisitResult postVisitDirectory(
+                        Object      file,
+                        IOException ex)
+                    {
+                        // directory not readable, skip just like File.listFiles() would
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+        }
+        catch (IOException ex)
         {
-            this.list = new LinkedList(list);
+            ;
         }
 
-        public boolean isEmpty()
+        for (int i = 0, size = files.size(); i < size; i++)
         {
-            return this.list.isEmpty();
+            push((File) files.get(i));
         }
+    }
 
 
-        public Iterator iterator()
+    /**
+     * Lists directories until no directory is left to be listed or the current thread
+     * was interrupted.
+     */
+    void walk()
+    {
+        for (;;)
         {
-            Queue stack = new Queue(this.list);
+            Directory directory;
 
-            return stack.list.iterator();
-        }
+            try
+            {
+                directory = (Directory) _directories.take();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                _directories.offer(STOP);
 
+                return;
+            }
 
-        public File pop()
-        {
-            return (File) this.list.removeLast();
-        }
+            if (directory == STOP)
+            {
+                // leave the mark for the other threads
+                _directories.offer(STOP);
 
+                return;
+            }
 
-        public void push(File file)
-        {
-            this.list.add(file);
+            try
+            {
+                scan(directory);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                _directories.offer(STOP);
 
-            synchronized (_lock)
+                return;
+            }
+            finally
             {
-                _lock.notify();
+                if (_pending.decrementAndGet() == 0)
+                {
+                    _directories.offer(STOP);
+                }
             }
         }
+    }
 
+    //~ Inner Classes --------------------------------------------------------------------
 
-        public int size()
-        {
-            return this.list.size();
-        }
-
+    /**
+     * A directory waiting to be listed.
+     */
+    private static final class Directory
+    {
+        final Path path;
+        final int depth;
 
-        public File[] toArray()
+        public Directory(
+            Path path,
+            int  depth)
         {
-            Queue stack = new Queue(this.list);
-            File[] files = new File[stack.list.size()];
-            stack.list.toArray(files);
-
-            return files;
+            this.path = path;
+            this.depth = depth;
         }
     }
 }
@@ -98,13 +98,31 @@ public final class ExtensionFilter
         File   dir,
         String name)
     {
-        File file = new File(dir, name);
-
-        if (file.isDirectory() || name.endsWith(_ext))
+        if (name.endsWith(_ext))
         {
             return true;
         }
 
-        return false;
+        return new File(dir, name).isDirectory();
+    }
+
+
+    /**
+     * Tests if a specified file should be included in a file list. Unlike {@link
+     * #accept(File,String)} this method never queries the file system, the caller
+     * already knows the file type.
+     *
+     * @param name the name of the file.
+     * @param directory <code>true</code> if the file denotes a directory.
+     *
+     * @return <code>true</code> if the given file was accepted.
+     *
+     * @since 1.1
+     */
+    public boolean accept(
+        String  name,
+        boolean directory)
+    {
+        return directory || name.endsWith(_ext);
     }
 }
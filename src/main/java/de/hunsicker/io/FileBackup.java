@@ -30,24 +30,33 @@
  */
 package de.hunsicker.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import de.hunsicker.util.ResourceBundleFactory;
 
 
 /**
  * Handles backup generation for files.
+ * 
+ * <p>
+ * Files are copied with {@link FileChannel#transferTo}, so the operating system can
+ * copy the contents without moving them through the Java heap. The revisions found in
+ * a backup directory are kept in memory; the directory is only listed again if it
+ * was changed by someone else (i.e. its modification time changed).
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.3 $
@@ -71,6 +80,9 @@ public class FileBackup
      */
     public static final int SIMPLE = 1;
 
+    /** The revision indexes of the backup directories, keyed by directory. */
+    private static final Map INDEXES = new HashMap();
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -145,20 +157,10 @@ public class FileBackup
         int    backupLevel)
       throws IOException
     {
-        // ensure that target directory exists
-        if (!directory.exists())
-        {
-            if (!directory.mkdirs())
-            {
-                Object[] args = { directory };
-                throw new IOException(
-                    MessageFormat.format(
-                        ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
-                            "COULD_NOT_CREATE_DIRECTORY" /* NOI18N */), args));
-            }
-        }
+        ensureDirectoryExists(directory);
 
-        int highestBackup = getLatestRevision(filename, directory);
+        RevisionIndex index = getIndex(directory);
+        int highestBackup = index.getLatestRevision(filename);
         File backup =
             new File(
                 directory + File.separator + getVersionName(filename, highestBackup + 1));
@@ -177,7 +179,9 @@ public class FileBackup
             }
         }
 
-        removeObsoleteRevisions(highestBackup + 1, backupLevel, filename, directory);
+        index.addRevision(filename, highestBackup + 1);
+        index.removeObsoleteRevisions(highestBackup + 1, backupLevel, filename);
+        index.update();
 
         return backup;
     }
@@ -208,18 +212,7 @@ public class FileBackup
         int    backupLevel)
       throws IOException
     {
-        // ensure that target directory exists
-        if (!directory.exists())
-        {
-            if (!directory.mkdirs())
-            {
-                Object[] args = { directory };
-                throw new IOException(
-                    MessageFormat.format(
-                        ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
-                            "COULD_NOT_CREATE_DIRECTORY" /* NOI18N */), args));
-            }
-        }
+        ensureDirectoryExists(directory);
 
         File backup = null;
 
@@ -243,14 +236,17 @@ public class FileBackup
 
             case NUMBERED :
 
-                int highestBackup = getLatestRevision(file.getName(), directory);
+                RevisionIndex index = getIndex(directory);
+                int highestBackup = index.getLatestRevision(file.getName());
                 backup =
                     new File(
                         directory + File.separator
                         + getVersionName(file, highestBackup + 1));
                 copy(file, backup);
-                removeObsoleteRevisions(
-                    highestBackup + 1, backupLevel, file.getName(), directory);
+                index.addRevision(file.getName(), highestBackup + 1);
+                index.removeObsoleteRevisions(
+                    highestBackup + 1, backupLevel, file.getName());
+                index.update();
 
                 break;
         }
@@ -260,42 +256,91 @@ public class FileBackup
 
 
     /**
-     * Returns the revision number of the latest revision found for the given filename.
+     * Deletes the given backup file. Use this method rather than {@link File#delete}
+     * to remove backups created by this class, so the backup directory need not be
+     * read again for the next backup.
      *
-     * @param filename filename to check for revision numbers.
-     * @param dir directory to search.
+     * @param backup the backup file to delete.
      *
-     * @return revision number of the latest backup; returns <code>0</code> if no backup
-     *         could be found.
+     * @return <code>true</code> if the file was deleted.
+     *
+     * @since 1.1
      */
-    private static int getLatestRevision(
-        String filename,
-        File   dir)
+    public static synchronized boolean delete(File backup)
     {
-        if (dir == null)
+        if (!backup.delete())
         {
-            return 0;
+            return false;
         }
 
-        File[] files = dir.listFiles();
-        int result = 0;
+        RevisionIndex index =
+            (RevisionIndex) INDEXES.get(backup.getAbsoluteFile().getParentFile());
 
-        for (int i = 0; i < files.length; i++)
+        if (index != null)
         {
-            String name = files[i].getName();
+            String name = backup.getName();
+            int revision = getRevision(name);
 
-            if (name.startsWith(filename))
+            if (revision > 0)
             {
-                int revision = getRevision(name);
-
-                if (revision > result)
-                {
-                    result = revision;
-                }
+                index.removeRevision(getBaseName(name), revision);
             }
+
+            index.update();
         }
 
-        return result;
+        return true;
+    }
+
+
+    /**
+     * Returns the name of the given backup filename without the revision part.
+     *
+     * @param name a backup filename that ends with ~REVISION~.
+     *
+     * @return the filename the backup was created for, <code>null</code> if the
+     *         filename does not end with a revision.
+     */
+    private static String getBaseName(String name)
+    {
+        int end = name.length() - 1;
+
+        if ((end < 2) || (name.charAt(end) != '~'))
+        {
+            return null;
+        }
+
+        int start = name.lastIndexOf('~', end - 1);
+
+        if ((start < 1) || !isNumber(name.substring(start + 1, end)))
+        {
+            return null;
+        }
+
+        return name.substring(0, start);
+    }
+
+
+    /**
+     * Returns the revision index of the given directory. The directory is read (again)
+     * if it wasn't read before or was changed in the meantime.
+     *
+     * @param directory the backup directory.
+     *
+     * @return the revision index of the directory.
+     */
+    private static RevisionIndex getIndex(File directory)
+    {
+        File key = directory.getAbsoluteFile();
+        RevisionIndex index = (RevisionIndex) INDEXES.get(key);
+
+        if ((index == null) || (index.lastModified != key.lastModified()))
+        {
+            index = new RevisionIndex(key);
+            INDEXES.put(key, index);
+        }
+
+        return index;
     }
 
 
@@ -353,11 +398,18 @@ public class FileBackup
 
             if (isNumber(result))
             {
-                int revision = Integer.parseInt(result);
+                try
+                {
+                    int revision = Integer.parseInt(result);
 
-                if (revision > 0)
+                    if (revision > 0)
+                    {
+                        return revision;
+                    }
+                }
+                catch (NumberFormatException ex)
                 {
-                    return revision;
+                    ;
                 }
             }
         }
@@ -405,7 +457,8 @@ public class FileBackup
 
 
     /**
-     * Copies the given source file to the given destination.
+     * Copies the given source file to the given destination. The contents are
+     * transferred channel to channel, the modification time is kept.
      *
      * @param source source file.
      * @param target destination target file.
@@ -417,66 +470,198 @@ public class FileBackup
         File target)
       throws IOException
     {
-        InputStream in = null;
-        OutputStream out = null;
+        FileInputStream in = null;
+        FileOutputStream out = null;
 
         try
         {
-            in = new BufferedInputStream(new FileInputStream(source));
-            out = new BufferedOutputStream(new FileOutputStream(target));
+            in = new FileInputStream(source);
+            out = new FileOutputStream(target);
 
-            byte[] buffer = new byte[8 * 1024];
-            int count = 0;
+            FileChannel from = in.getChannel();
+            FileChannel to = out.getChannel();
 
-            do
+            for (long position = 0, size = from.size(); position < size;)
             {
-                out.write(buffer, 0, count);
-                count = in.read(buffer, 0, buffer.length);
+                long count = from.transferTo(position, size - position, to);
+
+                if (count <= 0)
+                {
+                    break; // the file was truncated in the meantime
+                }
+
+                position += count;
             }
-            while (count != -1);
 
             out.close();
+            out = null;
             target.setLastModified(source.lastModified());
         }
         finally
         {
-            in.close();
-            out.close();
+            if (in != null)
+            {
+                in.close();
+            }
+
+            if (out != null)
+            {
+                out.close();
+            }
         }
     }
 
 
     /**
-     * Removes all obsolete revisions for the given filename in the given directory.
+     * Ensures that the given directory exists.
      *
-     * @param currentRevision revision number of the latest revision.
-     * @param backupLevel number of revisions to hold.
-     * @param filename filename to check for revision numbers.
-     * @param directory directory which holds the backups.
+     * @param directory the directory.
+     *
+     * @throws IOException if the directory could not be created.
      */
-    private static void removeObsoleteRevisions(
-        int    currentRevision,
-        int    backupLevel,
-        String filename,
-        File   directory)
+    private static void ensureDirectoryExists(File directory)
+      throws IOException
     {
-        File[] files = directory.listFiles();
-
-        if (backupLevel > 0)
+        if (!directory.exists())
         {
-            // delete old revisions
-            for (int i = 0; i < files.length; i++)
+            if (!directory.mkdirs())
             {
-                String name = files[i].getName();
+                Object[] args = { directory };
+                throw new IOException(
+                    MessageFormat.format(
+                        ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
+                            "COULD_NOT_CREATE_DIRECTORY" /* NOI18N */), args));
+            }
+        }
+    }
 
-                if (name.startsWith(filename))
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Holds the revisions found in a backup directory, so the directory need not be
+     * listed for every backup.
+     */
+    private static final class RevisionIndex
+    {
+        /** The backup directory. */
+        final File directory;
+
+        /** Maps filenames to the sorted set of their revision numbers. */
+        final Map revisions = new HashMap();
+
+        /** The modification time of the directory when the index was last updated. */
+        long lastModified;
+
+        public RevisionIndex(File directory)
+        {
+            this.directory = directory;
+            this.lastModified = directory.lastModified();
+
+            String[] names = directory.list();
+
+            if (names != null)
+            {
+                for (int i = 0; i < names.length; i++)
                 {
-                    if (getRevision(name) <= (currentRevision - backupLevel))
+                    String filename = getBaseName(names[i]);
+
+                    if (filename != null)
                     {
-                        files[i].delete();
+                        int revision = getRevision(names[i]);
+
+                        if (revision > 0)
+                        {
+                            addRevision(filename, revision);
+                        }
                     }
                 }
             }
         }
+
+        /**
+         * Returns the revision number of the latest revision found for the given
+         * filename.
+         *
+         * @param filename filename to check for revision numbers.
+         *
+         * @return revision number of the latest backup; returns <code>0</code> if no
+         *         backup could be found.
+         */
+        public int getLatestRevision(String filename)
+        {
+            SortedSet set = (SortedSet) this.revisions.get(filename);
+
+            return ((set == null) || set.isEmpty()) ? 0
+                                                    : ((Integer) set.last()).intValue();
+        }
+
+
+        public void addRevision(
+            String filename,
+            int    revision)
+        {
+            SortedSet set = (SortedSet) this.revisions.get(filename);
+
+            if (set == null)
+            {
+                set = new TreeSet();
+                this.revisions.put(filename, set);
+            }
+
+            set.add(new Integer(revision));
+        }
+
+
+        public void removeRevision(
+            String filename,
+            int    revision)
+        {
+            SortedSet set = (SortedSet) this.revisions.get(filename);
+
+            if (set != null)
+            {
+                set.remove(new Integer(revision));
+            }
+        }
+
+
+        /**
+         * Removes all obsolete revisions for the given filename.
+         *
+         * @param currentRevision revision number of the latest revision.
+         * @param backupLevel number of revisions to hold.
+         * @param filename filename to check for revision numbers.
+         */
+        public void removeObsoleteRevisions(
+            int    currentRevision,
+            int    backupLevel,
+            String filename)
+        {
+            SortedSet set = (SortedSet) this.revisions.get(filename);
+
+            if ((backupLevel > 0) && (set != null))
+            {
+                // delete old revisions
+                SortedSet obsolete =
+                    set.headSet(new Integer(currentRevision - backupLevel + 1));
+
+                for (Iterator i = obsolete.iterator(); i.hasNext();)
+                {
+                    int revision = ((Integer) i.next()).intValue();
+                    new File(this.directory, getVersionName(filename, revision)).delete();
+                    i.remove();
+                }
+            }
+        }
+
+
+        /**
+         * Records the current modification time of the directory after it was changed
+         * by us.
+         */
+        public void update()
+        {
+            this.lastModified = this.directory.lastModified();
+        }
     }
 }
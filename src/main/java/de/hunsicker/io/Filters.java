@@ -138,6 +138,63 @@ public class Filters
     }
 
 
+    /**
+     * Tests if a specified file should be included in a file list. Used when the file
+     * type is already known, so neither the strict policy nor the {@link
+     * ExtensionFilter} instances need to query the file system.
+     *
+     * @param dir the directory in which the file was found.
+     * @param name the name of the file.
+     * @param directory <code>true</code> if the file denotes a directory.
+     *
+     * @return <code>true</code> if and only if the name should be included in the file
+     *         list.
+     *
+     * @since 1.1
+     */
+    public boolean accept(
+        File    dir,
+        String  name,
+        boolean directory)
+    {
+        FilenameFilter[] filters = _filters;
+
+        if (_policy == POLICY_STRICT)
+        {
+            // recurse into directories
+            if (directory)
+            {
+                return true;
+            }
+
+            for (int i = 0; i < filters.length; i++)
+            {
+                if (!accept(filters[i], dir, name, directory))
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        if (filters.length == 0)
+        {
+            return true;
+        }
+
+        for (int i = 0; i < filters.length; i++)
+        {
+            if (accept(filters[i], dir, name, directory))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
     /**
      * Adds the given filter to the filter list.
      *
@@ -193,6 +250,31 @@ public class Filters
     }
 
 
+    /**
+     * Asks the given filter whether the file should be accepted.
+     *
+     * @param filter the filter to ask.
+     * @param dir the directory in which the file was found.
+     * @param name the name of the file.
+     * @param directory <code>true</code> if the file denotes a directory.
+     *
+     * @return <code>true</code> if the filter accepts the file.
+     */
+    private static boolean accept(
+        FilenameFilter filter,
+        File           dir,
+        String         name,
+        boolean        directory)
+    {
+        if (filter instanceof ExtensionFilter)
+        {
+            return ((ExtensionFilter) filter).accept(name, directory);
+        }
+
+        return filter.accept(dir, name);
+    }
+
+
     /**
      * Gibt an, ob die angegebene Datei akzeptiert wird oder nicht. Die Datei wird dann
      * akzeptiert, wenn ein oder mehrere Filter die Datei akzeptieren.
@@ -30,14 +30,12 @@
  */
 package de.hunsicker.jalopy;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -49,7 +47,14 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.text.DateFormat;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -61,7 +66,9 @@ import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
+import de.hunsicker.io.CompareWriter;
 import de.hunsicker.io.Copy;
+import de.hunsicker.io.DiffWriter;
 import de.hunsicker.io.FileBackup;
 import de.hunsicker.io.FileFormat;
 import de.hunsicker.io.IoHelper;
@@ -72,12 +79,17 @@ import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 import de.hunsicker.jalopy.language.JavaRecognizer;
 import de.hunsicker.jalopy.language.antlr.Node;
 import de.hunsicker.jalopy.language.NodeFactory;
+import de.hunsicker.jalopy.language.Position;
+import de.hunsicker.jalopy.language.Recognizer;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.printer.MemberCache;
 import de.hunsicker.jalopy.printer.NodeWriter;
 import de.hunsicker.jalopy.printer.PrinterFactory;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.Environment;
+import de.hunsicker.jalopy.storage.FormatCache;
 import de.hunsicker.jalopy.storage.History;
 import de.hunsicker.jalopy.storage.Loggers;
 import de.hunsicker.util.Version;
@@ -143,6 +155,12 @@ import org.apache.log4j.spi.LoggingEvent;
  * You should rather create one instance of this class per thread.
  * </p>
  *
+ * <p>
+ * All state of a formatting run (the code convention snapshot, the encoding, the
+ * printing context and the node factory) is kept per instance, so several instances
+ * may safely format different files concurrently, one instance per thread.
+ * </p>
+ *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.15 $
  */
@@ -162,6 +180,16 @@ public final class Jalopy
     /** Indicates the illegal mode where no processing can take place. */
     private static final int ILLEGAL = 0;
 
+    /** The initial number of characters the input buffer holds. */
+    private static final int INPUT_CAPACITY = 8 * 1024;
+
+    /**
+     * The maximum size of an input buffer that is kept after a run. Larger buffers
+     * are dropped, so a single huge file does not pin its memory for the lifetime of
+     * the instance.
+     */
+    private static final int MAX_RETAINED_INPUT = 64 * 1024;
+
     /** Indicates a reader input. */
     private static final int READER_INPUT = 16;
 
@@ -216,6 +244,9 @@ public final class Jalopy
     /** The code inspector. */
     private CodeInspector _inspector;
 
+    /** The code convention of the current run. */
+    private CompiledConvention _settings;
+
     /** Default backup directory. */
     private File _backupDir;
 
@@ -240,6 +271,9 @@ public final class Jalopy
     /** The last generated Java AST. */
     private JavaNode _tree;
 
+    /** Position of the first difference the last check found, if any. */
+    private Position _difference;
+
     /** Our recognizer. */
     private final JavaRecognizer _recognizer;
 
@@ -258,12 +292,48 @@ public final class Jalopy
     /** Input source reader. */
     private Reader _inputReader;
 
+    /** Input source stream if specified as a file. */
+    private FileInputStream _inputStream;
+
+    /** The encoding of the input source if specified as a file. */
+    private Charset _inputCharset;
+
+    /** The raw contents of the input source if specified as a file. */
+    private byte[] _inputBytes = EMPTY_BYTE_ARRAY;
+
+    /** The number of valid bytes in {@link #_inputBytes}. */
+    private int _inputByteCount;
+
+    /** The contents of the input source. */
+    private char[] _input = new char[INPUT_CAPACITY];
+
+    /**
+     * The number of valid characters in {@link #_input}, <code>-1</code> if the
+     * input source has not been read yet.
+     */
+    private int _inputLength = -1;
+
+    /** Knows the already formatted sources, <code>null</code> if disabled. */
+    private FormatCache _formatCache;
+
+    /** The format cache key of the current input source. */
+    private String _formatKey;
+
+    /** Holds the printed members of the last runs, <code>null</code> if disabled. */
+    private MemberCache _members;
+
     /** Appender which <em>spies</em> for logging events. */
     private final SpyAppender _spy;
 
     /** Run status. */
     State _state = State.UNDEFINED;
 
+    /**
+     * The thread that currently drives this instance. Only logging events issued by
+     * this thread affect the run status.
+     */
+    private volatile Thread _runner;
+
     /**
      * The encoding to use for formatting. If <code>null</code> the platform's default
      * encoding will be used.
@@ -297,6 +367,9 @@ public final class Jalopy
     /** Is the code inspector enabled. */
     private boolean _inspect;
 
+    /** Indicates whether a tree was handed out since the nodes were last released. */
+    private boolean _treeShared;
+
     /** Number of backups to hold. */
     private int _backupLevel;
 
@@ -465,6 +538,36 @@ public final class Jalopy
     }
 
 
+    /**
+     * Sets the cache that records the results of formatting runs. Input sources that
+     * the cache knows to be formatted already are skipped without being parsed, unless
+     * formatting is forced, the code inspector is enabled or a destination directory
+     * was specified.
+     *
+     * @param cache the format cache to use, <code>null</code> disables caching.
+     *
+     * @see FormatCache#getInstance
+     * @since 1.1
+     */
+    public void setFormatCache(FormatCache cache)
+    {
+        _formatCache = cache;
+    }
+
+
+    /**
+     * Returns the cache that records the results of formatting runs.
+     *
+     * @return the format cache in use, <code>null</code> if caching is disabled.
+     *
+     * @since 1.1
+     */
+    public FormatCache getFormatCache()
+    {
+        return _formatCache;
+    }
+
+
     /**
      * Sets the history method to use.
      *
@@ -489,6 +592,58 @@ public final class Jalopy
     }
 
 
+    /**
+     * Enables or disables incremental formatting. If enabled, the printed output of
+     * every class member is remembered and written again without printing on later
+     * runs of the same file, as long as the member and the code convention did not
+     * change. Useful if a file is formatted again and again, e.g. from within an
+     * editor. Disabling discards all remembered output.
+     *
+     * @param enabled if <code>true</code> incremental formatting will be enabled.
+     *
+     * @since 1.1
+     */
+    public void setIncremental(boolean enabled)
+    {
+        if (!enabled)
+        {
+            _members = null;
+        }
+        else if (_members == null)
+        {
+            _members = new MemberCache();
+        }
+    }
+
+
+    /**
+     * Determines whether incremental formatting is enabled.
+     *
+     * @return <code>true</code> if incremental formatting is enabled.
+     *
+     * @since 1.1
+     */
+    public boolean isIncremental()
+    {
+        return _members != null;
+    }
+
+
+    /**
+     * Returns the cache used for incremental formatting, e.g. to query its hit rate.
+     *
+     * @return the member cache, <code>null</code> if incremental formatting is
+     *         disabled.
+     *
+     * @see #setIncremental
+     * @since 1.1
+     */
+    public MemberCache getMemberCache()
+    {
+        return _members;
+    }
+
+
     /**
      * Enables or disables the code inspector during formatting runs. You can always
      * perform inspection using <code>inspect()</code> methods.
@@ -518,6 +673,25 @@ public final class Jalopy
     }
 
 
+    /**
+     * Sets the number of threads the code inspector may use to inspect a single file.
+     * The rule groups are then checked concurrently. This only pays off for large
+     * files when there are idle processors, i.e. not when several files are formatted
+     * in parallel anyway.
+     *
+     * @param threadCount number of threads, defaults to <code>1</code>.
+     *
+     * @throws IllegalArgumentException if <code><em>threadCount</em> &lt; 1</code>
+     *
+     * @see #setInspect
+     * @since 1.1
+     */
+    public void setInspectorThreadCount(int threadCount)
+    {
+        _inspector.setThreadCount(threadCount);
+    }
+
+
     /**
      * Returns the version information.
      *
@@ -587,6 +761,20 @@ public final class Jalopy
     }
 
 
+    /**
+     * Returns the position of the first difference the last {@link #check} found.
+     *
+     * @return the position in the input source where the formatted output starts to
+     *         differ, <code>null</code> if no difference was found.
+     *
+     * @since 1.1
+     */
+    public Position getDifference()
+    {
+        return _difference;
+    }
+
+
     /**
      * Returns the current state info.
      *
@@ -838,6 +1026,7 @@ public final class Jalopy
         _inputFileChecksum = null;
         _inputString = input;
         _inputReader = new BufferedReader(new StringReader(input));
+        _inputLength = -1;
 
         if (!hasInput())
         {
@@ -884,6 +1073,7 @@ public final class Jalopy
         _inputFile = new File(path);
         _inputFileChecksum = null;
         _inputReader = new BufferedReader(new InputStreamReader(input));
+        _inputLength = -1;
 
         if (!hasInput())
         {
@@ -929,6 +1119,7 @@ public final class Jalopy
         _inputFile = new File(path);
         _inputFileChecksum = null;
         _inputReader = input;
+        _inputLength = -1;
 
         if (!hasInput())
         {
@@ -950,9 +1141,13 @@ public final class Jalopy
     public void setInput(File input)
       throws FileNotFoundException
     {
-        _inputReader = getBufferedReader(input, _encoding);
+        _inputStream = new FileInputStream(input);
+        _inputCharset =
+            (_encoding != null) ? Charset.forName(_encoding)
+                                : Charset.defaultCharset();
         _inputFile = input.getAbsoluteFile();
         _inputFileChecksum = null;
+        _inputLength = -1;
 
         if (!hasInput())
         {
@@ -993,6 +1188,46 @@ public final class Jalopy
     }
 
 
+    /**
+     * Checks whether the (via {@link #setInput(File)}) specified input source is
+     * formatted according to the current code convention.
+     *
+     * <p>
+     * The input source is printed into a sink that compares the output against the
+     * original input and printing stops at the first character that differs. Nothing is
+     * ever written: no output target needs to be specified (any given one is ignored),
+     * no backup is created and neither the history nor the format cache is updated.
+     * </p>
+     *
+     * @return <code>true</code> if formatting would leave the input source unchanged.
+     *         Returns <code>false</code> if it would not or if errors occured during
+     *         the run (use {@link #getState} to tell the two apart).
+     *
+     * @throws IllegalStateException if no input source has been specified.
+     *
+     * @see #getDifference
+     * @since 1.1
+     */
+    public boolean check()
+    {
+        _difference = null;
+
+        CompareWriter sink = (CompareWriter) compare(null);
+
+        if (sink == null)
+        {
+            return false;
+        }
+
+        if (!sink.isEqual())
+        {
+            _difference = new Position(sink.getLine(), sink.getColumn());
+        }
+
+        return _difference == null;
+    }
+
+
     /**
      * Cleans up the backup directory. All empty directories will be deleted. Only takes
      * affect if no backup copies should be kept.
@@ -1009,6 +1244,44 @@ public final class Jalopy
     }
 
 
+    /**
+     * Writes a unified diff of the changes formatting would apply to the (via {@link
+     * #setInput(File)}) specified input source.
+     *
+     * <p>
+     * The diff is computed while printing and every hunk is written as soon as the
+     * output agrees with the input again, so only the changed regions are held in
+     * memory. As with {@link #check}, nothing else is written and any output target
+     * given is ignored.
+     * </p>
+     *
+     * @param output the writer to write the diff to. The writer is flushed, but not
+     *        closed.
+     *
+     * @return <code>true</code> if formatting would change the input source, i.e. a
+     *         diff was written. Returns <code>false</code> if it would not or if
+     *         errors occured during the run (use {@link #getState} to tell the two
+     *         apart).
+     *
+     * @throws IllegalStateException if no input source has been specified.
+     * @throws NullPointerException if <code><em>output</em> == null</code>
+     *
+     * @see #check
+     * @since 1.1
+     */
+    public boolean diff(Writer output)
+    {
+        if (output == null)
+        {
+            throw new NullPointerException();
+        }
+
+        DiffWriter sink = (DiffWriter) compare(output);
+
+        return (sink != null) && sink.isDifferent();
+    }
+
+
     /**
      * Formats the (via {@link #setInput(File)}) specified input source and writes the
      * formatted result to the specified target.
@@ -1049,6 +1322,8 @@ public final class Jalopy
             throw new IllegalStateException("no input source specified");
         }
 
+        _runner = Thread.currentThread();
+
         try
         {
             if (!isDirty()) // input source up-to-date, no formatting necessary
@@ -1062,9 +1337,20 @@ public final class Jalopy
                 return false;
             }
 
+            if (isFormatted()) // input source known to be formatted already
+            {
+                _args[0] = _inputFile;
+                Loggers.IO.l7dlog(
+                    Level.INFO, "FILE_FOUND_CACHE" /* NOI18N */, _args, null);
+                _state = State.OK;
+                cleanup();
+
+                return false;
+            }
+
             if ((_state != State.PARSED) || (_state != State.INSPECTED))
             {
-                tree = parse();
+                tree = parseInput();
 
                 if (_state == State.ERROR)
                 {
@@ -1094,9 +1380,9 @@ public final class Jalopy
             Loggers.IO.l7dlog(Level.ERROR, "UNKNOWN_ERROR" /* NOI18N */, _args, ex);
         }
         finally {
-            //todo add togglable 
-            //_factory.clear();
             cleanup();
+
+            releaseNodes();
         }
         
 
@@ -1120,7 +1406,7 @@ public final class Jalopy
         {
             try
             {
-                tree = parse();
+                tree = parseInput();
 
                 if (_state == State.ERROR)
                 {
@@ -1174,6 +1460,8 @@ public final class Jalopy
                 throw new IllegalArgumentException("not a root node -- " + tree);
         }
 
+        _runner = Thread.currentThread();
+
         long start = 0;
 
         if (Loggers.IO.isDebugEnabled())
@@ -1183,13 +1471,25 @@ public final class Jalopy
             Loggers.IO.l7dlog(Level.DEBUG, "FILE_INSPECT" /* NOI18N */, _args, null);
         }
 
-        _inspector.inspect(tree, (_outputFile != null) ? _outputFile
-                                                       : _inputFile);
+        _inspector.setTiming(Loggers.IO.isDebugEnabled());
+        _inspector.inspect(
+            tree, (_outputFile != null) ? _outputFile
+                                        : _inputFile, getSettings());
 
         if (Loggers.IO.isDebugEnabled())
         {
             long stop = System.currentTimeMillis();
             Loggers.IO.debug(_inputFile + ":0:0:inspecting took " + (stop - start));
+
+            for (
+                Iterator i = _inspector.getTimings().entrySet().iterator(); i.hasNext();)
+            {
+                Entry entry = (Entry) i.next();
+                Loggers.IO.debug(
+                    _inputFile + ":0:0:rule " + entry.getKey() + " took "
+                    + (((Long) entry.getValue()).longValue() / 1000)
+                    + " microseconds");
+            }
         }
 
         if (_state != State.ERROR)
@@ -1215,9 +1515,35 @@ public final class Jalopy
      * @since 1.0b8
      */
     public JavaNode parse()
+    {
+        JavaNode tree = parseInput();
+
+        // the caller may keep the tree, so its nodes must never be reused
+        _treeShared = true;
+
+        return tree;
+    }
+
+
+    /**
+     * Parses the specified input source. The nodes of the tree are reused once the run
+     * has finished.
+     *
+     * @return The root node of the created Java AST. May or may not return
+     *         <code>null</code> if the input source could not be successfully parsed.
+     *
+     * @throws IllegalStateException if no input source has been specified.
+     *
+     * @see #parse
+     * @see #releaseNodes
+     * @since 1.1
+     */
+    private JavaNode parseInput()
     {
         long start = 0;
+        _runner = Thread.currentThread();
         _state = State.RUNNING;
+        _recognizer.setSettings(getSettings());
 
         if (Loggers.IO.isDebugEnabled())
         {
@@ -1234,7 +1560,8 @@ public final class Jalopy
                 case FILE_WRITER :
                     _args[0] = _inputFile;
                     Loggers.IO.l7dlog(Level.INFO, "FILE_PARSE" /* NOI18N */, _args, null);
-                    _recognizer.parse(_inputReader, _inputFile.getAbsolutePath());
+                    readInput();
+                    _recognizer.parse(_input, _inputLength, _inputFile.getAbsolutePath());
 
                     break;
 
@@ -1248,7 +1575,8 @@ public final class Jalopy
                 case READER_WRITER :
                     _args[0] = _inputFile;
                     Loggers.IO.l7dlog(Level.INFO, "FILE_PARSE" /* NOI18N */, _args, null);
-                    _recognizer.parse(_inputReader, _inputFile.getAbsolutePath());
+                    readInput();
+                    _recognizer.parse(_input, _inputLength, _inputFile.getAbsolutePath());
 
                     break;
 
@@ -1302,7 +1630,11 @@ public final class Jalopy
 
             return tree;
         }
-        
+        catch (IOException ex)
+        {
+            // read errors surface the same way as when the lexer read the input
+            throw new Recognizer.ParseException(ex);
+        }
         finally
         {
             cleanupRecognizer();
@@ -1397,8 +1729,6 @@ public final class Jalopy
         FileFormat format,
         boolean    check)
     {
-        String defaultEncoding = null;
-
         try
         {
             _args[0] = _inputFile;
@@ -1412,14 +1742,6 @@ public final class Jalopy
                 return false;
             }
 
-            if (_encoding != null)
-            {
-                // store the current default encoding
-                defaultEncoding = System.getProperty("file.encoding" /* NOI18N */);
-
-                // now set the encoding to use by Jalopy
-                System.setProperty("file.encoding" /* NOI18N */, _encoding);
-            }
             if (_inspect)
             {
                 inspect(tree);
@@ -1469,7 +1791,7 @@ public final class Jalopy
             {
                 // we have to release the file locks prior to changing the
                 // timestamp
-                _inputReader.close();
+                closeInput();
 
                 if (_outputWriter != null)
                 {
@@ -1493,7 +1815,7 @@ public final class Jalopy
             // delete the backup if the user don't want backup copies
             if (!_holdBackup && (_backupFile != null) && _backupFile.exists())
             {
-                _backupFile.delete();
+                FileBackup.delete(_backupFile);
 
                 if (Loggers.IO.isDebugEnabled())
                 {
@@ -1517,12 +1839,6 @@ public final class Jalopy
         }
         finally
         {
-            if (defaultEncoding != null)
-            {
-                // restore the default encoding
-                System.setProperty("file.encoding" /* NOI18N */, defaultEncoding);
-            }
-
             cleanup();
         }
 
@@ -1747,29 +2063,10 @@ public final class Jalopy
                         _inputFileChecksum = new Adler32();
                     }
 
-                    InputStream in = null;
-
-                    try
-                    {
-                        in = new BufferedInputStream(new FileInputStream(_inputFile));
-
-                        byte[] buffer = new byte[8 * 1024];
-                        int count = 0;
-
-                        do
-                        {
-                            _inputFileChecksum.update(buffer, 0, count);
-                            count = in.read(buffer, 0, buffer.length);
-                        }
-                        while (count != -1);
-                    }
-                    finally
-                    {
-                        if (in != null)
-                        {
-                            in.close();
-                        }
-                    }
+                    // the contents are read only once for both the checksum and
+                    // the parser
+                    readInput();
+                    _inputFileChecksum.update(_inputBytes, 0, _inputByteCount);
 
                     return _inputFileChecksum.getValue() != entry.getModification();
                 }
@@ -1783,48 +2080,43 @@ public final class Jalopy
         }
         else if (_historyPolicy == History.Policy.COMMENT)
         {
-            BufferedReader in = null;
+            readInput();
 
-            try
+            int end = 0;
+
+            while (
+                (end < _inputLength) && (_input[end] != '\n') && (_input[end] != '\r'))
             {
-                in = getBufferedReader(_inputFile, _encoding);
+                end++;
+            }
 
-                String line = in.readLine().trim();
-                in.close();
+            String line = new String(_input, 0, end).trim();
 
-                // we only check the very first line
-                if (
-                    line.startsWith("// %") && line.endsWith("%")
-                    && (line.indexOf("modified") == -1))
-                {
-                    int start = line.indexOf('%') + 1;
-                    int stop = line.indexOf(':');
-                    long lastmod = Long.parseLong(line.substring(start, stop));
+            // we only check the very first line
+            if (
+                line.startsWith("// %") && line.endsWith("%")
+                && (line.indexOf("modified") == -1))
+            {
+                int start = line.indexOf('%') + 1;
+                int stop = line.indexOf(':');
+                long lastmod = Long.parseLong(line.substring(start, stop));
 
-                    // the input file is up-to-date
-                    if (lastmod >= _inputFile.lastModified())
+                // the input file is up-to-date
+                if (lastmod >= _inputFile.lastModified())
+                {
+                    if (_destination != null)
                     {
-                        if (_destination != null)
-                        {
-                            String packageName =
-                                line.substring(stop + 1, line.length() - 1);
-                            copyInputToOutput(
-                                _inputFile, _destination, packageName, lastmod);
-                        }
-
-                        return false;
+                        String packageName =
+                            line.substring(stop + 1, line.length() - 1);
+                        copyInputToOutput(
+                            _inputFile, _destination, packageName, lastmod);
                     }
-                }
 
-                return true;
-            }
-            finally
-            {
-                if (in != null)
-                {
-                    in.close();
+                    return false;
                 }
             }
+
+            return true;
         }
         else
         {
@@ -1833,6 +2125,89 @@ public final class Jalopy
     }
 
 
+    /**
+     * Indicates whether the input source is known to be formatted already, according to
+     * the format cache. Determines the cache key of the input source as a side effect,
+     * so the result of the run can be recorded.
+     *
+     * @return <code>true</code> if the input source does not change on formatting and
+     *         the run can be skipped.
+     *
+     * @throws IOException if an I/O error occured.
+     *
+     * @since 1.1
+     */
+    private boolean isFormatted()
+      throws IOException
+    {
+        if ((_formatCache == null) || _force || _inspect)
+        {
+            return false;
+        }
+
+        String content = null;
+
+        switch (_mode)
+        {
+            case FILE_INPUT :
+            case FILE_FILE :
+            case FILE_STRING :
+            case FILE_WRITER :
+            case STRING_INPUT :
+            case STRING_STRING :
+            case STRING_WRITER :
+                readInput();
+                content = getInputContents();
+
+                break;
+
+            default :
+                return false;
+        }
+
+        CompiledConvention settings = getSettings();
+        String[] variables = settings.getVariableNames();
+
+        // only the variables the templates refer to may influence the output; the
+        // file path does as well if it is printed
+        _formatKey =
+            FormatCache.createKey(
+                getVersion().toString(), settings,
+                Environment.getInstance().toString(variables),
+                (Arrays.binarySearch(variables, Environment.Variable.FILE.getName()) > -1)
+                ? _inputFile.getAbsolutePath()
+                : _inputFile.getName(), content);
+
+        if (_destination != null)
+        {
+            return false;
+        }
+
+        if (!_formatCache.isFormatted(_formatKey, content))
+        {
+            return false;
+        }
+
+        switch (_mode)
+        {
+            case FILE_FILE :
+
+                // nothing to do if the file would be overwritten with itself
+                return _outputFile.getAbsoluteFile().equals(_inputFile);
+
+            case STRING_STRING :
+            case FILE_STRING :
+                _outputString.setLength(0);
+                _outputString.append(content);
+
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+
     /**
      * Returns the line separator for the given file format.
      *
@@ -1855,6 +2230,27 @@ public final class Jalopy
     }
 
 
+    /**
+     * Returns the code convention of the current run. The snapshot is taken on first
+     * access and kept until the run has finished, so parsing, inspecting and printing
+     * all use the same settings, even if the code convention is changed meanwhile
+     * (e.g. by the settings dialog).
+     *
+     * @return the code convention of the current run.
+     *
+     * @since 1.1
+     */
+    private CompiledConvention getSettings()
+    {
+        if (_settings == null)
+        {
+            _settings = Convention.getInstance().compile();
+        }
+
+        return _settings;
+    }
+
+
     /**
      * Sets the local macro variables.
      *
@@ -1980,11 +2376,8 @@ public final class Jalopy
     {
         try
         {
-            if (_inputReader != null)
-            {
-                _inputReader.close();
-                _inputReader = null;
-            }
+            closeInput();
+            _inputReader = null;
         }
         catch (IOException ignored)
         {
@@ -2008,14 +2401,30 @@ public final class Jalopy
         _issues.clear();
         _inputFile = null;
         _inputString = null;
+        _inputLength = -1;
+        _inputByteCount = 0;
+
+        if (_input.length > MAX_RETAINED_INPUT)
+        {
+            _input = new char[INPUT_CAPACITY];
+        }
+
+        if (_inputBytes.length > MAX_RETAINED_INPUT)
+        {
+            _inputBytes = EMPTY_BYTE_ARRAY;
+        }
+
         _outputStringBuffer = null;
         _outputString = null;
         _outputFile = null;
         _backupFile = null;
         _packageName = null;
         _inputFileFormat = null;
+        _formatKey = null;
+        _settings = null;
         _tree = null;
 
+        _recognizer.setSettings(null);
         cleanupRecognizer();
     }
 
@@ -2031,6 +2440,107 @@ public final class Jalopy
     }
 
 
+    /**
+     * Prints the input source into a sink that compares the output against the input
+     * instead of writing it.
+     *
+     * @param output the writer to write a unified diff to. If <code>null</code>, the
+     *        output is only compared and printing stops at the first difference.
+     *
+     * @return the sink, either a {@link DiffWriter} or a {@link CompareWriter}, or
+     *         <code>null</code> if errors occured.
+     *
+     * @throws IllegalStateException if no input source has been specified.
+     *
+     * @since 1.1
+     */
+    private Writer compare(Writer output)
+    {
+        if (!hasInput())
+        {
+            throw new IllegalStateException("no input source specified");
+        }
+
+        _runner = Thread.currentThread();
+
+        try
+        {
+            readInput();
+
+            String content = getInputContents();
+            JavaNode tree = parseInput();
+
+            if (_state == State.ERROR)
+            {
+                return null;
+            }
+
+            if (_inspect)
+            {
+                inspect(tree);
+            }
+
+            String path = _inputFile.getPath();
+            Writer sink =
+                (output == null) ? (Writer) new CompareWriter(content)
+                                 : new DiffWriter(output, content, path, path);
+            _now = System.currentTimeMillis();
+
+            Environment environment = Environment.getInstance().copy();
+
+            // printed members must not be recorded as the run may stop halfway
+            NodeWriter out =
+                createNodeWriter(
+                    sink, _packageName, _inputFileFormat, environment, null);
+
+            try
+            {
+                PrinterFactory.create(tree, out).print(tree, out);
+            }
+            catch (CompareWriter.DifferenceException ignored)
+            {
+                ;
+            }
+            finally
+            {
+                unsetLocalVariables(environment);
+                out.close();
+            }
+
+            if (_state == State.ERROR)
+            {
+                return null;
+            }
+
+            if (
+                (_state == State.PARSED) || (_state == State.INSPECTED)
+                || (_state == State.RUNNING))
+            {
+                _state = State.OK;
+            }
+
+            return sink;
+        }
+        catch (Throwable ex)
+        {
+            _state = State.ERROR;
+            _args[0] = _inputFile;
+            _args[1] =
+                (ex.getMessage() == null) ? ex.getClass().getName()
+                                          : ex.getMessage();
+            Loggers.IO.l7dlog(Level.ERROR, "UNKNOWN_ERROR" /* NOI18N */, _args, ex);
+
+            return null;
+        }
+        finally
+        {
+            cleanup();
+
+            releaseNodes();
+        }
+    }
+
+
     /**
      * In case the given input file is up-to-date but the user specified a certain output
      * destination target, this method copies the input file into the destination
@@ -2146,6 +2656,51 @@ public final class Jalopy
     }
 
 
+    /**
+     * Creates the writer to print the current input source with.
+     *
+     * @param writer the writer to print into.
+     * @param packageName the package name of the input source.
+     * @param format the detected file format of the input source.
+     * @param environment the environment to set the local variables of the input
+     *        source in.
+     * @param members cache with the printed members, <code>null</code> if printed
+     *        members should not be recorded.
+     *
+     * @return a new writer.
+     *
+     * @throws IOException if an I/O error occured.
+     *
+     * @since 1.1
+     */
+    private NodeWriter createNodeWriter(
+        Writer      writer,
+        String      packageName,
+        FileFormat  format,
+        Environment environment,
+        MemberCache members)
+      throws IOException
+    {
+        NodeWriter out =
+            new NodeWriter(
+                writer, _factory, getSettings(),
+                _inputFile.getAbsolutePath(), _issues,
+                getLineSeparator(_outputFileFormat, format), format.toString());
+
+        out.setTracking(_recognizer.hasAnnotations() || _recognizer.hasPosition());
+
+        setLocalVariables(
+            environment, _inputFile, packageName, _outputFileFormat.getName(),
+            out.getIndentSize());
+        out.setEnvironment(environment);
+        out.setMemberCache(members);
+
+        addCommentHistoryEntry(packageName, out);
+
+        return out;
+    }
+
+
     /**
      * Initializes the default startup values.
      */
@@ -2281,20 +2836,17 @@ public final class Jalopy
             outputWriter = _outputWriter;
         }
 
-        NodeWriter out =
-            new NodeWriter(
-                outputWriter,_factory, _inputFile.getAbsolutePath(), _issues,
-                getLineSeparator(_outputFileFormat, format), format.toString());
+        FormatCache.DigestWriter digestWriter = null;
 
-        out.setTracking(_recognizer.hasAnnotations() || _recognizer.hasPosition());
+        if (_formatKey != null)
+        {
+            digestWriter = new FormatCache.DigestWriter(outputWriter);
+            outputWriter = digestWriter;
+        }
 
         Environment environment = Environment.getInstance().copy();
-        setLocalVariables(
-            environment, _inputFile, packageName, _outputFileFormat.getName(),
-            out.getIndentSize());
-        out.setEnvironment(environment);
-
-        addCommentHistoryEntry(packageName, out);
+        NodeWriter out =
+            createNodeWriter(outputWriter, packageName, format, environment, _members);
 
         long start = 0;
 
@@ -2361,6 +2913,11 @@ public final class Jalopy
                 }
             }
 
+            if ((digestWriter != null) && (_state != State.ERROR))
+            {
+                _formatCache.add(_formatKey, digestWriter.getDigest());
+            }
+
             addFileHistoryEntry(packageName, checksumWriter);
         }
         finally
@@ -2384,60 +2941,185 @@ public final class Jalopy
 
 
     /**
-     * Return a buffered reader from <code>file</code> using <code>encoding</code>. If 
+     * Return a buffered writer to <code>file</code> using <code>encoding</code>. If 
      * the encoding is <code>null</code>, then the default encoding will be used.
      *
-     * @param file input file
+     * @param file output file
      * @param encoding file character encoding
-     * @return a buffered reader 
+     * @return a buffered writer 
      */
-    private static BufferedReader getBufferedReader(File file, String encoding)
-      throws FileNotFoundException
+    private static BufferedWriter getBufferedWriter(File file, String encoding)
+      throws IOException
+    {
+        BufferedWriter writer;
+
+        if (encoding != null) 
+        {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), encoding));
+        }
+        else 
+        {
+            writer = new BufferedWriter(new FileWriter(file));
+        }
+        
+        return writer;
+    }
+
+
+    /**
+     * Closes the input source.
+     *
+     * @throws IOException if an I/O error occured.
+     *
+     * @since 1.1
+     */
+    private void closeInput()
+      throws IOException
+    {
+        if (_inputStream != null)
+        {
+            _inputStream.close();
+            _inputStream = null;
+        }
+
+        if (_inputReader != null)
+        {
+            _inputReader.close();
+        }
+    }
+
+
+    /**
+     * Ensures that the input array can hold the given number of characters.
+     *
+     * @param capacity the number of characters.
+     *
+     * @since 1.1
+     */
+    private void ensureInputCapacity(int capacity)
+    {
+        if (_input.length < capacity)
+        {
+            char[] temp = new char[Math.max(capacity, _input.length * 2)];
+            System.arraycopy(_input, 0, temp, 0, _input.length);
+            _input = temp;
+        }
+    }
+
+
+    /**
+     * Returns the contents of the input source. The input source must have been read
+     * with {@link #readInput} before.
+     *
+     * @return the contents of the input source.
+     *
+     * @since 1.1
+     */
+    private String getInputContents()
     {
-        BufferedReader reader;
+        return (_inputString != null) ? _inputString
+                                      : new String(_input, 0, _inputLength);
+    }
 
-        try 
+
+    /**
+     * Reads the whole input source into memory, if not done already. Files are read
+     * with a single bulk read and decoded in one go; the raw bytes are kept for the
+     * checksum history. The parser, the format cache and the history all take the
+     * input from memory afterwards, so the input source is only read once per run.
+     *
+     * @throws IOException if an I/O error occured.
+     *
+     * @since 1.1
+     */
+    private void readInput()
+      throws IOException
+    {
+        if (_inputLength > -1)
         {
-            if (encoding != null) 
+            return;
+        }
+
+        if (_inputStream != null)
+        {
+            FileChannel channel = _inputStream.getChannel();
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE)
             {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
+                throw new IOException("file too large -- " + _inputFile);
             }
-            else 
+
+            if (_inputBytes.length < size)
             {
-                reader = new BufferedReader(new FileReader(file));
+                _inputBytes = new byte[(int) size];
             }
+
+            ByteBuffer bytes = ByteBuffer.wrap(_inputBytes, 0, (int) size);
+
+            while (bytes.hasRemaining() && (channel.read(bytes) != -1))
+            {
+                ;
+            }
+
+            _inputByteCount = bytes.position();
+            closeInput();
+            bytes.flip();
+
+            // decode with the same error handling as an InputStreamReader
+            CharsetDecoder decoder =
+                _inputCharset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ensureInputCapacity(
+                (int) (_inputByteCount * (double) decoder.maxCharsPerByte()) + 1);
+
+            CharBuffer chars = CharBuffer.wrap(_input);
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            _inputLength = chars.position();
         }
-        catch (UnsupportedEncodingException e) {
-            throw new FileNotFoundException("Unsupported encoding " + encoding);
+        else if (_inputString != null)
+        {
+            ensureInputCapacity(_inputString.length());
+            _inputString.getChars(0, _inputString.length(), _input, 0);
+            _inputLength = _inputString.length();
+        }
+        else
+        {
+            int length = 0;
+
+            for (
+                int count = _inputReader.read(_input, 0, _input.length);
+                count != -1;
+                count = _inputReader.read(_input, length, _input.length - length))
+            {
+                length += count;
+                ensureInputCapacity(length + 1);
+            }
+
+            _inputReader.close();
+            _inputLength = length;
         }
-        
-        return reader;
     }
 
 
     /**
-     * Return a buffered writer to <code>file</code> using <code>encoding</code>. If 
-     * the encoding is <code>null</code>, then the default encoding will be used.
+     * Releases the nodes and tokens of the last run for reuse. If a tree was handed out
+     * by {@link #parse}, they are left to the caller instead.
      *
-     * @param file output file
-     * @param encoding file character encoding
-     * @return a buffered writer 
+     * @since 1.1
      */
-    private static BufferedWriter getBufferedWriter(File file, String encoding)
-      throws IOException
+    private void releaseNodes()
     {
-        BufferedWriter writer;
-
-        if (encoding != null) 
+        if (_treeShared)
         {
-            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), encoding));
+            _factory.detach();
+            _treeShared = false;
         }
-        else 
+        else
         {
-            writer = new BufferedWriter(new FileWriter(file));
+            _factory.clear();
         }
-        
-        return writer;
     }
 
 
@@ -2462,7 +3144,7 @@ public final class Jalopy
             {
                 Copy.file(backup, original, true);
                 original.setLastModified(backup.lastModified());
-                backup.delete();
+                FileBackup.delete(backup);
             }
             catch (IOException ex)
             {
@@ -2563,6 +3245,19 @@ public final class Jalopy
 
         public void append(LoggingEvent ev)
         {
+            // the appender is shared by all loggers, so ignore events that other
+            // instances produce in other threads
+            if (Thread.currentThread() != _runner)
+            {
+                return;
+            }
+
+            if (_members != null)
+            {
+                // members that log messages must be printed every time
+                _members.messageLogged();
+            }
+
             switch (ev.getLevel().toInt())
             {
                 case Priority.WARN_INT :
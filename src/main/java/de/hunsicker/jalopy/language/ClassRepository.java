@@ -32,23 +32,32 @@ package de.hunsicker.jalopy.language;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import de.hunsicker.io.DirectoryScanner;
 import de.hunsicker.io.ExtensionFilter;
@@ -68,6 +77,19 @@ import org.apache.log4j.Level;
  * declarations</em>.
  * 
  * <p>
+ * The known types are kept in an immutable index that maps every package to the
+ * sorted names of its types. The index is rebuilt (only for the affected packages)
+ * whenever locations are loaded or unloaded and published atomically, so queries never
+ * block and may freely be issued from several threads.
+ * </p>
+ * 
+ * <p>
+ * The type names of Java archives are persisted in compact type files that are named
+ * after a digest of the archive's contents. These files are shared by all
+ * projects, so an archive that is used by several projects is only indexed once.
+ * </p>
+ * 
+ * <p>
  * This class is thread-safe.
  * </p>
  *
@@ -90,16 +112,29 @@ public class ClassRepository
     private static final String[] EMPTY_STRING_ARRAY = new String[0];
     private static final String EXT_CLASS = ".class" /* NOI18N */;
     private static final String EXT_JAR = ".jar" /* NOI18N */;
+    private static final String EXT_TYPES = ".types" /* NOI18N */;
     private static final String EXT_ZIP = ".zip" /* NOI18N */;
 
+    /** The directory below the settings directory that holds the type files. */
+    private static final String NAME_TYPES = "types" /* NOI18N */;
+
+    /** The magic number that starts every type file (&quot;JTYP&quot;). */
+    private static final int TYPES_MAGIC = 0x4A545950;
+
+    /** The version of the type file format. */
+    private static final int TYPES_VERSION = 1;
+
+    /** The maximal number of threads used to index locations. */
+    private static final int MAX_THREADS = 8;
+
+    /** Time span (in ms) after which unused repository and type files are removed. */
+    private static final long MAX_UNUSED = 1000L * 60 * 60 * 24 * 15;
+
     /** Sole instance. */
     private static final ClassRepository INSTANCE = new ClassRepository();
 
     //~ Instance variables ---------------------------------------------------------------
 
-    /** The current code convention. */
-    private Convention _settings;
-
     /** Our working directory. */
     private File _repositoryDirectory;
 
@@ -107,7 +142,7 @@ public class ClassRepository
     private List _infos = new ArrayList(); // List of <ClassRepositoryEntry.Info>
 
     /** The current contents. */
-    private String[] _content = EMPTY_STRING_ARRAY;
+    private volatile Index _index = Index.EMPTY;
 
     //~ Constructors ---------------------------------------------------------------------
 
@@ -119,8 +154,6 @@ public class ClassRepository
      */
     private ClassRepository()
     {
-        _settings = Convention.getInstance();
-
         File directory = getWorkingDir();
 
         if (!directory.exists())
@@ -156,9 +189,9 @@ public class ClassRepository
      * @return active contents. The repository can be empty in which case an empty array
      *         will be returned. This method never returns <code>null</code>.
      */
-    public synchronized String[] getContent()
+    public String[] getContent()
     {
-        return _content;
+        return _index.getContent();
     }
 
 
@@ -167,9 +200,9 @@ public class ClassRepository
      *
      * @return <code>true</code> if the repository is currently empty.
      */
-    public synchronized boolean isEmpty()
+    public boolean isEmpty()
     {
-        return _content.length == 0;
+        return _index.size == 0;
     }
 
 
@@ -186,6 +219,27 @@ public class ClassRepository
     }
 
 
+    /**
+     * Returns the names of all types that reside in the given package. Types of
+     * sub-packages are not included.
+     *
+     * @param packageName a package name.
+     *
+     * @return the sorted (unqualified) type names of the package. Returns an empty array
+     *         if the package is not contained in the repository. This method never
+     *         returns <code>null</code>.
+     *
+     * @since 1.1
+     */
+    public String[] getPackageTypes(String packageName)
+    {
+        String[] types = (String[]) _index.packages.get(packageName);
+
+        return (types != null) ? types
+                               : EMPTY_STRING_ARRAY;
+    }
+
+
     /**
      * Returns the current size of the repository.
      *
@@ -195,7 +249,22 @@ public class ClassRepository
      */
     public int getSize()
     {
-        return _content.length;
+        return _index.size;
+    }
+
+
+    /**
+     * Indicates whether the given type is contained in the repository.
+     *
+     * @param typeName a fully qualified type name.
+     *
+     * @return <code>true</code> if the repository contains the given type.
+     *
+     * @since 1.1
+     */
+    public boolean contains(String typeName)
+    {
+        return _index.contains(typeName);
     }
 
 
@@ -253,19 +322,28 @@ public class ClassRepository
                 location.getName().endsWith(EXT_JAR)
                 || location.getName().endsWith(EXT_ZIP))
             {
-                JarFile archive = new JarFile(location);
+                // only the central directory is read, no entry is ever inflated
+                ZipFile archive = new ZipFile(location);
 
-                for (Enumeration enumerator = archive.entries(); enumerator.hasMoreElements();)
+                try
                 {
-                    JarEntry entry = (JarEntry) enumerator.nextElement();
-                    String path = entry.getName();
-
-                    if (path.endsWith(EXT_CLASS))
+                    for (Enumeration enumerator = archive.entries();
+                        enumerator.hasMoreElements();)
                     {
-                        path = path.replace('/', '.');
-                        createEntryImpl(location, path, types, false);
+                        ZipEntry entry = (ZipEntry) enumerator.nextElement();
+                        String path = entry.getName();
+
+                        if (path.endsWith(EXT_CLASS))
+                        {
+                            path = path.replace('/', '.');
+                            createEntryImpl(location, path, types, false);
+                        }
                     }
                 }
+                finally
+                {
+                    archive.close();
+                }
             }
             else
             {
@@ -330,19 +408,18 @@ public class ClassRepository
     public synchronized void load(File location)
       throws IOException
     {
-        ClassRepositoryEntry entry = loadEntry(location);
+        Loader loader = prepareEntry(location);
 
-        if (entry == null)
+        if (loader == null)
         {
             return;
         }
 
+        ClassRepositoryEntry entry = loadEntry(loader);
+        loader.info.setLoaded(true);
+
         Set data = entry.getData();
-        Set temp = new HashSet(_content.length + data.size());
-        temp.addAll(Arrays.asList(_content));
-        temp.addAll(data);
-        _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-        Arrays.sort(_content);
+        _index = _index.add(data);
 
         if (Loggers.IO.isDebugEnabled())
         {
@@ -353,7 +430,10 @@ public class ClassRepository
 
 
     /**
-     * Loads the contents of the given locations into memory.
+     * Loads the contents of the given locations into memory. The locations are indexed
+     * in parallel. If some of the locations could not be loaded, the contents of all
+     * others are nonetheless added before the first error is reported. If the current
+     * thread is interrupted while waiting for the others, nothing is added.
      *
      * @param locations locations to add (of type {@link java.io.File &lt;File&gt;}).
      *
@@ -367,31 +447,95 @@ public class ClassRepository
             return;
         }
 
-        Set data = new HashSet(1000);
+        List loaders = new ArrayList(locations.size());
 
         for (Iterator i = locations.iterator(); i.hasNext();)
         {
-            File location = (File) i.next();
-            ClassRepositoryEntry entry = loadEntry(location);
+            Loader loader = prepareEntry((File) i.next());
 
-            if (entry != null)
+            if (loader != null)
+            {
+                loaders.add(loader);
+            }
+        }
+
+        if (loaders.isEmpty())
+        {
+            return;
+        }
+
+        LoaderQueue queue =
+            new LoaderQueue((Loader[]) loaders.toArray(new Loader[loaders.size()]));
+        int numThreads =
+            Math.min(
+                loaders.size(),
+                Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+        Thread[] threads = new Thread[numThreads - 1];
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] =
+                new Thread(
+                    new LoaderTask(queue), "ClassRepository-" + (i + 1) /* NOI18N */);
+            threads[i].start();
+        }
+
+        // the current thread does its share of the work, too
+        new LoaderTask(queue).run();
+
+        try
+        {
+            for (int i = 0; i < threads.length; i++)
+            {
+                threads[i].join();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            // the threads may still be loading, so none of the results can be used
+            queue.cancel();
+            Thread.currentThread().interrupt();
+
+            return;
+        }
+
+        Set data = new HashSet(1000);
+        Throwable failure = null;
+
+        for (int i = 0, size = loaders.size(); i < size; i++)
+        {
+            Loader loader = (Loader) loaders.get(i);
+
+            if (loader.entry != null)
             {
-                data.addAll(entry.getData());
+                data.addAll(loader.entry.getData());
+                loader.info.setLoaded(true);
 
                 if (Loggers.IO.isDebugEnabled())
                 {
                     Loggers.IO.debug(
-                        "ClassRepository: Loaded " + data.size() + " classes from "
-                        + location);
+                        "ClassRepository: Loaded " + loader.entry.getData().size()
+                        + " classes from " + loader.info.getLocation());
                 }
             }
+            else if (failure == null)
+            {
+                failure = loader.failure;
+            }
         }
 
         if (!data.isEmpty())
         {
-            data.addAll(Arrays.asList(_content));
-            _content = (String[]) data.toArray(EMPTY_STRING_ARRAY);
-            Arrays.sort(_content);
+            _index = _index.add(data);
+        }
+
+        if (failure instanceof IOException)
+        {
+            throw (IOException) failure;
+        }
+        else if (failure != null)
+        {
+            throw new ChainingRuntimeException(failure);
         }
     }
 
@@ -434,10 +578,7 @@ public class ClassRepository
 
         ClassRepositoryEntry entry = createEntry(template);
         Set data = entry.getData();
-        Set temp = new HashSet(Arrays.asList(_content));
-        temp.removeAll(data);
-        _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-        Arrays.sort(_content);
+        _index = _index.remove(data);
 
         // update the info
         ClassRepositoryEntry.Info info =
@@ -511,20 +652,18 @@ public class ClassRepository
 
         if (!data.isEmpty())
         {
-            Set temp = new HashSet(Arrays.asList(_content));
-            temp.removeAll(data);
-            _content = (String[]) temp.toArray(EMPTY_STRING_ARRAY);
-            Arrays.sort(_content);
+            _index = _index.remove(data);
         }
     }
 
 
     /**
-     * Returns the current working directory where all repository files are stored.
+     * Returns the current working directory where all repository files are stored. The
+     * directory is read from the code convention once and is shared by all runs.
      *
      * @return working directory.
      */
-    private File getWorkingDir()
+    File getWorkingDir()
     {
         if (_repositoryDirectory == null)
         {
@@ -533,7 +672,7 @@ public class ClassRepository
              */
             _repositoryDirectory =
                 new File(
-                    _settings.get(
+                    Convention.getInstance().get(
                         ConventionKeys.CLASS_REPOSITORY_DIRECTORY,
                         Convention.getRepositoryDirectory().getAbsolutePath()));
         }
@@ -637,149 +776,162 @@ public class ClassRepository
 
 
     /**
-     * Loads the entry from the given location.
+     * Returns the digest that identifies the contents of the given archive. Only the
+     * central directory of the archive is digested: as it holds the name, size and
+     * CRC-32 checksum of every entry, there is no need to read the whole file.
      *
-     * @param location location where the entry is stored.
+     * @param archive a Java archive.
      *
-     * @return the entry. Returns <code>null</code> if the entry is up-to-date.
+     * @return the archive digest, made up of the archive length and the CRC-32 and
+     *         Adler-32 checksums of its central directory.
      *
-     * @throws IOException if the entry could not be loaded.
+     * @throws IOException if an I/O error occurred.
      */
-    private ClassRepositoryEntry loadEntry(File location)
+    private static String digest(File archive)
       throws IOException
     {
-        // either the user has deleted/renamed the .jar since the first
-        // initialization or the project was newly created
-        if (!location.exists())
-        {
-            if (
-                location.getName().endsWith(".jar")
-                || location.getName().endsWith(".zip"))
-            {
-                // for .jars this always means an error
-                throw new IOException("File not found -- " + location);
-            }
-            
-            if (!location.mkdirs())
-            {
-                throw new IOException("Directory not found -- " + location);
-            }
-            
-            if (Loggers.IO.isDebugEnabled())
-            {
-                Loggers.IO.debug(
-                    "ClassRepository: Created new directory: " + location);
-            }
-        }
-
-        ClassRepositoryEntry.Info template = new ClassRepositoryEntry.Info(location);
-        ClassRepositoryEntry.Info info = template;
-        ClassRepositoryEntry entry = null;
+        Checksum crc = new CRC32();
+        Checksum adler = new Adler32();
+        RandomAccessFile file = new RandomAccessFile(archive, "r" /* NOI18N */);
+        long length;
 
-        // location already registered
-        if (_infos.contains(template))
+        try
         {
-            info = (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
+            length = file.length();
 
-            if (Loggers.IO.isDebugEnabled())
+            byte[] directory = readCentralDirectory(file, length);
+
+            if (directory != null)
             {
-                Loggers.IO.debug("ClassRepository: Already registered: " + info);
+                crc.update(directory, 0, directory.length);
+                adler.update(directory, 0, directory.length);
             }
-
-            // already loaded in memory
-            if (info.isLoaded())
+            else
             {
-                if (Loggers.IO.isDebugEnabled())
+                // no valid (or a ZIP64) archive, digest everything
+                byte[] buf = new byte[16384];
+                file.seek(0);
+
+                for (int read = file.read(buf); read > -1; read = file.read(buf))
                 {
-                    Loggers.IO.debug("ClassRepository: Alread loaded: " + info);
+                    crc.update(buf, 0, read);
+                    adler.update(buf, 0, read);
                 }
+            }
+        }
+        finally
+        {
+            file.close();
+        }
 
-                // always rescan directories as the contents might have changed
-                if (location.isDirectory())
-                {
-                    if (Loggers.IO.isDebugEnabled())
-                    {
-                        Loggers.IO.debug("ClassRepository: Create new: " + info);
-                        Loggers.IO.debug("ClassRepository: Save to disk: " + info);
-                    }
+        return Long.toHexString(length) + '-' + Long.toHexString(crc.getValue()) + '-'
+        + Long.toHexString(adler.getValue());
+    }
 
-                    entry = createEntry(info);
 
-                    saveToDisk(entry);
-                }
-                else
-                {
-                    if (location.lastModified() == info.getLocation().lastModified())
-                    {
-                        if (Loggers.IO.isDebugEnabled())
-                        {
-                            Loggers.IO.debug("ClassRepository: Up to date: " + info);
-                        }
+    /**
+     * Returns the type file for the given archive digest.
+     *
+     * @param digest the digest of an archive.
+     *
+     * @return the type file.
+     */
+    private static File getTypesFile(String digest)
+    {
+        return new File(getTypesDir(), digest + EXT_TYPES);
+    }
 
-                        // no changes detected, nothing to do
-                        return entry;
-                    }
 
-                    if (Loggers.IO.isDebugEnabled())
-                    {
-                        Loggers.IO.debug("ClassRepository: Create new: " + info);
-                        Loggers.IO.debug("ClassRepository: Save to disk: " + info);
-                    }
+    /**
+     * Returns the directory where the type files are stored. The directory is shared by
+     * all projects.
+     *
+     * @return type files directory.
+     */
+    private static File getTypesDir()
+    {
+        return new File(Convention.getSettingsDirectory(), NAME_TYPES);
+    }
 
-                    entry = createEntry(info);
 
-                    saveToDisk(entry);
-                }
-            }
-            else
-            {
-                // always rescan directories as the contents might have changed
-                if (location.isDirectory())
-                {
-                    if (Loggers.IO.isDebugEnabled())
-                    {
-                        Loggers.IO.debug("ClassRepository: Create new: " + info);
-                        Loggers.IO.debug("ClassRepository: Save to disk: " + info);
-                    }
+    /**
+     * Indexes the given location and saves the created entry. The type names of
+     * archives are taken from the shared type file, if an archive with the same
+     * contents was already indexed.
+     *
+     * @param info the information to create an entry upon.
+     *
+     * @return the created entry.
+     *
+     * @throws IOException if an I/O error occurred.
+     */
+    private ClassRepositoryEntry indexEntry(ClassRepositoryEntry.Info info)
+      throws IOException
+    {
+        if (Loggers.IO.isDebugEnabled())
+        {
+            Loggers.IO.debug("ClassRepository: Create new: " + info);
+            Loggers.IO.debug("ClassRepository: Save to disk: " + info);
+        }
 
-                    entry = createEntry(info);
+        // always rescan directories as the contents might have changed
+        if (info.getLocation().isDirectory())
+        {
+            ClassRepositoryEntry entry = createEntry(info);
+            saveToDisk(entry, null);
 
-                    saveToDisk(entry);
-                }
-                else
-                {
-                    if (Loggers.IO.isDebugEnabled())
-                    {
-                        Loggers.IO.debug("ClassRepository: Load from disk: " + info);
-                    }
+            return entry;
+        }
 
-                    // load from persistent storage
-                    entry =
-                        loadFromDisk(
-                            new File(
-                                getWorkingDir() + File.separator + info.getFilename()));
-                }
-            }
+        String digest = digest(info.getLocation());
+        Set types = loadTypes(getTypesFile(digest));
+        ClassRepositoryEntry entry = null;
+
+        if (types != null)
+        {
+            entry = new ClassRepositoryEntry(info, types);
         }
         else
         {
-            _infos.add(template);
+            entry = createEntry(info);
+            saveTypes(getTypesFile(digest), entry.getData());
+        }
+
+        saveToDisk(entry, digest);
+
+        return entry;
+    }
 
+
+    /**
+     * Loads the entry for the given loader.
+     *
+     * @param loader the loader as returned by {@link #prepareEntry}.
+     *
+     * @return the entry.
+     *
+     * @throws IOException if the entry could not be loaded.
+     */
+    private ClassRepositoryEntry loadEntry(Loader loader)
+      throws IOException
+    {
+        if (loader.file != null)
+        {
             if (Loggers.IO.isDebugEnabled())
             {
-                Loggers.IO.debug("ClassRepository: Create new: " + info);
-                Loggers.IO.debug("ClassRepository: Save to disk: " + info);
+                Loggers.IO.debug("ClassRepository: Load from disk: " + loader.info);
             }
 
-            entry = createEntry(template);
+            // load from persistent storage
+            ClassRepositoryEntry entry = loadFromDisk(loader.file);
 
-            saveToDisk(entry);
+            if (entry != null)
+            {
+                return entry;
+            }
         }
 
-        info = (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
-        info.setLoaded(true);
-
-        return entry;
+        return indexEntry(loader.info);
     }
 
 
@@ -788,7 +940,8 @@ public class ClassRepository
      *
      * @param file the file where the entry is stored in.
      *
-     * @return the loaded entry.
+     * @return the loaded entry. Returns <code>null</code> if the type file the entry
+     *         refers to is no longer available.
      *
      * @throws IOException if an I/O error occured.
      * @throws ChainingRuntimeException If an error occurs
@@ -803,9 +956,25 @@ public class ClassRepository
         {
             ClassRepositoryEntry entry = new ClassRepositoryEntry();
             entry.info = (ClassRepositoryEntry.Info) in.readObject();
-            entry.data = (Set) in.readObject();
+
+            Object data = in.readObject();
             in.close(); // so we can update the timestamp
 
+            if (data instanceof String)
+            {
+                // the entry refers to a type file
+                entry.data = loadTypes(getTypesFile((String) data));
+
+                if (entry.data == null)
+                {
+                    return null;
+                }
+            }
+            else
+            {
+                entry.data = (Set) data;
+            }
+
             // we use this timestamp as the last access mark
             file.setLastModified(System.currentTimeMillis());
 
@@ -823,73 +992,734 @@ public class ClassRepository
 
 
     /**
-     * Loads all existing repository infos from persisent storage.
+     * Loads the type names stored in the given type file.
+     *
+     * @param file a type file.
+     *
+     * @return the type names along with the package markers. Returns <code>null</code>
+     *         if the file does not exist or could not be read.
      */
-    private void preload()
+    private static Set loadTypes(File file)
     {
-        try
+        if (!file.exists())
         {
-            File[] files = getWorkingDir().listFiles(new ExtensionFilter(EXT_REPOSITORY));
-            long now = System.currentTimeMillis();
+            return null;
+        }
 
-            /**
-             * @todo make user configurable
-             */
-            long delta = 1000 * 60 * 60 * 24 * 15;
+        try
+        {
+            DataInputStream in =
+                new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
 
-            for (int i = 0; i < files.length; i++)
+            try
             {
-                ClassRepositoryEntry.Info info = loadInfo(files[i]);
-                _infos.add(info);
+                if ((in.readInt() != TYPES_MAGIC) || (in.readInt() != TYPES_VERSION))
+                {
+                    return null;
+                }
 
-                if ((files[i].lastModified() + delta) < now)
+                Set result = new HashSet(in.readInt());
+
+                for (int i = 0, packages = in.readInt(); i < packages; i++)
                 {
-                    // remove repository file not used for a long time
-                    if (!files[i].delete())
+                    String packageName = in.readUTF();
+                    String prefix = EMPTY_STRING;
+
+                    if (!EMPTY_STRING.equals(packageName))
                     {
-                        Object[] args = { files[i] };
-                        Loggers.IO.l7dlog(
-                            Level.INFO, "IMPORT_DELETE_UNUSED_ERR", args, null);
+                        result.add(packageName + '#');
+                        prefix = packageName + '.';
+                    }
+
+                    for (int j = 0, types = in.readInt(); j < types; j++)
+                    {
+                        result.add(prefix + in.readUTF());
                     }
                 }
+
+                in.close(); // so we can update the timestamp
+
+                // we use this timestamp as the last access mark
+                file.setLastModified(System.currentTimeMillis());
+
+                return result;
+            }
+            finally
+            {
+                in.close();
             }
         }
-        catch (Throwable ex)
+        catch (IOException ex)
         {
-            _infos.clear();
-            Loggers.IO.warn(
-                "Error preloading the class repository, no import optimizaton available",
-                ex);
+            Loggers.IO.warn("ClassRepository: Damaged type file: " + file, ex);
+
+            return null;
         }
     }
 
 
     /**
-     * Saves the given entry.
+     * Prepares the loading of the given location. Registers the location, if necessary,
+     * and determines how its entry has to be loaded.
      *
-     * @param entry the entry to save.
+     * @param location location where the entry is stored.
      *
-     * @throws IOException if an I/O error occured.
+     * @return the loader for the entry. Returns <code>null</code> if the entry is
+     *         up-to-date.
+     *
+     * @throws IOException if the location does not exist.
      */
-    private void saveToDisk(ClassRepositoryEntry entry)
+    private Loader prepareEntry(File location)
       throws IOException
     {
-        ClassRepositoryEntry.Info info = entry.getInfo();
-        ObjectOutputStream out =
-            new ObjectOutputStream(
-                new BufferedOutputStream(
-                    new FileOutputStream(
-                        getWorkingDir() + File.separator + entry.getInfo().getFilename())));
-
-        try
-        {
-            // first the metadata
+        // either the user has deleted/renamed the .jar since the first
+        // initialization or the project was newly created
+        if (!location.exists())
+        {
+            if (
+                location.getName().endsWith(".jar")
+                || location.getName().endsWith(".zip"))
+            {
+                // for .jars this always means an error
+                throw new IOException("File not found -- " + location);
+            }
+            
+            if (!location.mkdirs())
+            {
+                throw new IOException("Directory not found -- " + location);
+            }
+            
+            if (Loggers.IO.isDebugEnabled())
+            {
+                Loggers.IO.debug(
+                    "ClassRepository: Created new directory: " + location);
+            }
+        }
+
+        ClassRepositoryEntry.Info template = new ClassRepositoryEntry.Info(location);
+
+        // location not registered yet
+        if (!_infos.contains(template))
+        {
+            _infos.add(template);
+
+            return new Loader(template, null);
+        }
+
+        ClassRepositoryEntry.Info info =
+            (ClassRepositoryEntry.Info) _infos.get(_infos.indexOf(template));
+
+        if (Loggers.IO.isDebugEnabled())
+        {
+            Loggers.IO.debug("ClassRepository: Already registered: " + info);
+        }
+
+        // always rescan directories as the contents might have changed
+        if (location.isDirectory())
+        {
+            return new Loader(info, null);
+        }
+
+        // already loaded in memory
+        if (info.isLoaded())
+        {
+            if (Loggers.IO.isDebugEnabled())
+            {
+                Loggers.IO.debug("ClassRepository: Alread loaded: " + info);
+            }
+
+            if (location.lastModified() == info.getLocation().lastModified())
+            {
+                if (Loggers.IO.isDebugEnabled())
+                {
+                    Loggers.IO.debug("ClassRepository: Up to date: " + info);
+                }
+
+                // no changes detected, nothing to do
+                return null;
+            }
+
+            return new Loader(info, null);
+        }
+
+        return new Loader(
+            info, new File(getWorkingDir() + File.separator + info.getFilename()));
+    }
+
+
+    /**
+     * Loads all existing repository infos from persisent storage. Repository and type
+     * files not used for a long time are removed.
+     */
+    private void preload()
+    {
+        try
+        {
+            File[] files = getWorkingDir().listFiles(new ExtensionFilter(EXT_REPOSITORY));
+            long now = System.currentTimeMillis();
+
+            for (int i = 0; i < files.length; i++)
+            {
+                ClassRepositoryEntry.Info info = loadInfo(files[i]);
+                _infos.add(info);
+
+                if ((files[i].lastModified() + MAX_UNUSED) < now)
+                {
+                    // remove repository file not used for a long time
+                    if (!files[i].delete())
+                    {
+                        Object[] args = { files[i] };
+                        Loggers.IO.l7dlog(
+                            Level.INFO, "IMPORT_DELETE_UNUSED_ERR", args, null);
+                    }
+                }
+            }
+
+            files = getTypesDir().listFiles(new ExtensionFilter(EXT_TYPES));
+
+            for (int i = 0; (files != null) && (i < files.length); i++)
+            {
+                if ((files[i].lastModified() + MAX_UNUSED) < now)
+                {
+                    // remove type file not used for a long time
+                    if (!files[i].delete())
+                    {
+                        Object[] args = { files[i] };
+                        Loggers.IO.l7dlog(
+                            Level.INFO, "IMPORT_DELETE_UNUSED_ERR", args, null);
+                    }
+                }
+            }
+        }
+        catch (Throwable ex)
+        {
+            _infos.clear();
+            Loggers.IO.warn(
+                "Error preloading the class repository, no import optimizaton available",
+                ex);
+        }
+    }
+
+
+    /**
+     * Reads the central directory of the given archive.
+     *
+     * @param file the archive.
+     * @param length the length of the archive.
+     *
+     * @return the central directory. Returns <code>null</code> if the end of central
+     *         directory record could not be found or the archive is a ZIP64 archive.
+     *
+     * @throws IOException if an I/O error occurred.
+     */
+    private static byte[] readCentralDirectory(
+        RandomAccessFile file,
+        long             length)
+      throws IOException
+    {
+        // the end record is 22 bytes plus a comment of up to 65535 bytes
+        int tailLength = (int) Math.min(length, 22 + 65535);
+        byte[] tail = new byte[tailLength];
+        file.seek(length - tailLength);
+        file.readFully(tail);
+
+        for (int i = tailLength - 22; i >= 0; i--)
+        {
+            if (
+                (tail[i] == 0x50) && (tail[i + 1] == 0x4B) && (tail[i + 2] == 0x05)
+                && (tail[i + 3] == 0x06))
+            {
+                long size = readUnsignedInt(tail, i + 12);
+                long offset = readUnsignedInt(tail, i + 16);
+
+                if (
+                    (size == 0xFFFFFFFFL) || (offset == 0xFFFFFFFFL)
+                    || ((offset + size) > length))
+                {
+                    return null;
+                }
+
+                byte[] directory = new byte[(int) size];
+                file.seek(offset);
+                file.readFully(directory);
+
+                return directory;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Reads an unsigned little-endian integer.
+     *
+     * @param buf the buffer to read from.
+     * @param offset the offset of the integer.
+     *
+     * @return the integer value.
+     */
+    private static long readUnsignedInt(
+        byte[] buf,
+        int    offset)
+    {
+        return (buf[offset] & 0xFFL) | ((buf[offset + 1] & 0xFFL) << 8)
+        | ((buf[offset + 2] & 0xFFL) << 16) | ((buf[offset + 3] & 0xFFL) << 24);
+    }
+
+
+    /**
+     * Saves the given entry.
+     *
+     * @param entry the entry to save.
+     * @param digest the digest of the type file that holds the entry data. If
+     *        <code>null</code>, the data is stored along with the entry.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void saveToDisk(
+        ClassRepositoryEntry entry,
+        String               digest)
+      throws IOException
+    {
+        ClassRepositoryEntry.Info info = entry.getInfo();
+        ObjectOutputStream out =
+            new ObjectOutputStream(
+                new BufferedOutputStream(
+                    new FileOutputStream(
+                        getWorkingDir() + File.separator + entry.getInfo().getFilename())));
+
+        try
+        {
+            // first the metadata
             out.writeObject(info);
-            out.writeObject(entry.getData());
+
+            if (digest != null)
+            {
+                out.writeObject(digest);
+            }
+            else
+            {
+                out.writeObject(entry.getData());
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Saves the given type names to the given type file. The names are grouped by
+     * package, so every package name is stored only once.
+     *
+     * @param file the type file.
+     * @param data the type names along with the package markers.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void saveTypes(
+        File file,
+        Set  data)
+      throws IOException
+    {
+        Map packages = Index.split(data);
+        File directory = file.getParentFile();
+
+        if (!directory.exists() && !directory.mkdirs() && !directory.exists())
+        {
+            throw new IOException("could not create directory -- " + directory);
+        }
+
+        // the same archive might be indexed concurrently, so we write to a
+        // temporary file first and move it in place afterwards
+        File temp = File.createTempFile(NAME_TYPES, null, directory);
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+
+        try
+        {
+            out.writeInt(TYPES_MAGIC);
+            out.writeInt(TYPES_VERSION);
+            out.writeInt(data.size());
+            out.writeInt(packages.size());
+
+            for (Iterator i = packages.entrySet().iterator(); i.hasNext();)
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+                Set types = (Set) entry.getValue();
+                out.writeUTF((String) entry.getKey());
+                out.writeInt(types.size());
+
+                for (Iterator j = types.iterator(); j.hasNext();)
+                {
+                    out.writeUTF((String) j.next());
+                }
+            }
         }
         finally
         {
             out.close();
         }
+
+        if (!temp.renameTo(file))
+        {
+            temp.delete();
+
+            // another thread or process was faster
+            if (!file.exists())
+            {
+                throw new IOException("could not create type file -- " + file);
+            }
+        }
+    }
+
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Immutable snapshot of the repository contents. Maps package names to the sorted
+     * names of the types they contain. Updates create a new snapshot that shares the
+     * type arrays of all unaffected packages with its predecessor.
+     *
+     * @since 1.1
+     */
+    private static final class Index
+    {
+        /** The empty index. */
+        static final Index EMPTY = new Index(Collections.EMPTY_MAP);
+
+        /** Maps package names to their sorted type names. */
+        final Map packages; // Map of <String:String[]>
+
+        /** The number of entries (types and package markers). */
+        final int size;
+
+        /** The flattened contents, created on demand. */
+        private volatile String[] _content;
+
+        /**
+         * Creates a new Index object.
+         *
+         * @param packages the package mappings.
+         */
+        private Index(Map packages)
+        {
+            this.packages = packages;
+
+            int count = 0;
+
+            for (Iterator i = packages.entrySet().iterator(); i.hasNext();)
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+
+                if (!EMPTY_STRING.equals(entry.getKey()))
+                {
+                    // the package marker
+                    count++;
+                }
+
+                count += ((String[]) entry.getValue()).length;
+            }
+
+            this.size = count;
+        }
+
+        /**
+         * Returns the flattened, sorted contents as stored in the repository entries:
+         * all fully qualified type names plus a marker entry (<code>name#</code>) for
+         * every package.
+         *
+         * @return the index contents.
+         */
+        public String[] getContent()
+        {
+            String[] content = _content;
+
+            if (content == null)
+            {
+                List result = new ArrayList(this.size);
+
+                for (Iterator i = this.packages.entrySet().iterator(); i.hasNext();)
+                {
+                    Map.Entry entry = (Map.Entry) i.next();
+                    String packageName = (String) entry.getKey();
+                    String[] types = (String[]) entry.getValue();
+
+                    if (EMPTY_STRING.equals(packageName))
+                    {
+                        result.addAll(Arrays.asList(types));
+                    }
+                    else
+                    {
+                        result.add(packageName + '#');
+
+                        for (int j = 0; j < types.length; j++)
+                        {
+                            result.add(packageName + '.' + types[j]);
+                        }
+                    }
+                }
+
+                content = (String[]) result.toArray(EMPTY_STRING_ARRAY);
+                Arrays.sort(content);
+                _content = content;
+            }
+
+            return content;
+        }
+
+
+        /**
+         * Returns a new index that additionally contains the given types.
+         *
+         * @param data the types to add.
+         *
+         * @return the updated index.
+         */
+        public Index add(Set data)
+        {
+            Map packages = new HashMap(this.packages);
+
+            for (Iterator i = split(data).entrySet().iterator(); i.hasNext();)
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+                Set types = (Set) entry.getValue();
+                String[] existing = (String[]) packages.get(entry.getKey());
+
+                if (existing != null)
+                {
+                    types.addAll(Arrays.asList(existing));
+
+                    if (types.size() == existing.length)
+                    {
+                        continue;
+                    }
+                }
+
+                packages.put(entry.getKey(), toSortedArray(types));
+            }
+
+            return new Index(packages);
+        }
+
+
+        /**
+         * Indicates whether the given type is contained in this index.
+         *
+         * @param typeName a fully qualified type name.
+         *
+         * @return <code>true</code> if the index contains the given type.
+         */
+        public boolean contains(String typeName)
+        {
+            String[] types =
+                (String[]) this.packages.get(StringHelper.getPackageName(typeName));
+
+            return (types != null)
+            && (Arrays.binarySearch(types, StringHelper.getClassName(typeName)) > -1);
+        }
+
+
+        /**
+         * Returns a new index that no longer contains the given types.
+         *
+         * @param data the types to remove.
+         *
+         * @return the updated index.
+         */
+        public Index remove(Set data)
+        {
+            Map packages = new HashMap(this.packages);
+
+            for (Iterator i = split(data).entrySet().iterator(); i.hasNext();)
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+                String[] existing = (String[]) packages.get(entry.getKey());
+
+                if (existing == null)
+                {
+                    continue;
+                }
+
+                Set types = new HashSet(Arrays.asList(existing));
+                types.removeAll((Set) entry.getValue());
+
+                if (types.isEmpty())
+                {
+                    packages.remove(entry.getKey());
+                }
+                else if (types.size() < existing.length)
+                {
+                    packages.put(entry.getKey(), toSortedArray(types));
+                }
+            }
+
+            return new Index(packages);
+        }
+
+
+        /**
+         * Groups the given repository entry data by package. Package markers are
+         * skipped.
+         *
+         * @param data repository entry data (fully qualified type names).
+         *
+         * @return map with the package names as keys and the sets of the unqualified
+         *         type names as values.
+         */
+        private static Map split(Set data)
+        {
+            Map result = new HashMap(); // Map of <String:Set>
+
+            for (Iterator i = data.iterator(); i.hasNext();)
+            {
+                String typeName = (String) i.next();
+
+                if (typeName.endsWith("#" /* NOI18N */))
+                {
+                    continue;
+                }
+
+                String packageName = StringHelper.getPackageName(typeName);
+                Set types = (Set) result.get(packageName);
+
+                if (types == null)
+                {
+                    types = new HashSet();
+                    result.put(packageName, types);
+                }
+
+                types.add(StringHelper.getClassName(typeName));
+            }
+
+            return result;
+        }
+
+
+        /**
+         * Returns the given type names as a sorted array.
+         *
+         * @param types the type names.
+         *
+         * @return sorted array with the type names.
+         */
+        private static String[] toSortedArray(Set types)
+        {
+            String[] result = (String[]) types.toArray(EMPTY_STRING_ARRAY);
+            Arrays.sort(result);
+
+            return result;
+        }
+    }
+
+
+    /**
+     * Loads the entry of a single location. Loaders are prepared while holding the
+     * repository lock and executed afterwards, possibly in parallel.
+     *
+     * @since 1.1
+     */
+    private final class Loader
+    {
+        /** The entry info. */
+        final ClassRepositoryEntry.Info info;
+
+        /** The repository file to load the entry from, <code>null</code> to index. */
+        final File file;
+
+        /** The loaded entry. */
+        ClassRepositoryEntry entry;
+
+        /** The exception that stopped the loading, if any. */
+        Throwable failure;
+
+        public Loader(
+            ClassRepositoryEntry.Info info,
+            File                      file)
+        {
+            this.info = info;
+            this.file = file;
+        }
+
+        public void run()
+        {
+            try
+            {
+                this.entry = loadEntry(this);
+            }
+            catch (Throwable ex)
+            {
+                this.failure = ex;
+            }
+        }
+    }
+
+
+    /**
+     * Hands out the loaders to the loading threads.
+     *
+     * @since 1.1
+     */
+    private static final class LoaderQueue
+    {
+        final Loader[] loaders;
+        int next;
+        boolean canceled;
+
+        public LoaderQueue(Loader[] loaders)
+        {
+            this.loaders = loaders;
+        }
+
+        public synchronized Loader next()
+        {
+            if (this.canceled || (this.next == this.loaders.length))
+            {
+                return null;
+            }
+
+            return this.loaders[this.next++];
+        }
+
+
+        public synchronized void cancel()
+        {
+            this.canceled = true;
+        }
+    }
+
+
+    /**
+     * Runs loaders until the queue is exhausted.
+     *
+     * @since 1.1
+     */
+    private static final class LoaderTask
+        implements Runnable
+    {
+        final LoaderQueue queue;
+
+        public LoaderTask(LoaderQueue queue)
+        {
+            this.queue = queue;
+        }
+
+        public void run()
+        {
+            for (Loader loader = this.queue.next(); loader != null;
+                loader = this.queue.next())
+            {
+                if (Thread.currentThread().isInterrupted())
+                {
+                    this.queue.cancel();
+
+                    break;
+                }
+
+                loader.run();
+            }
+        }
     }
 }
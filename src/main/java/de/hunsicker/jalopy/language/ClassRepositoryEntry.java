@@ -40,9 +40,6 @@ import java.io.Serializable;
 import java.util.Collections;
 import java.util.Set;
 
-import de.hunsicker.jalopy.storage.Convention;
-import de.hunsicker.jalopy.storage.ConventionKeys;
-
 
 /**
  * Represents a repository entry for a given Java library. An entry consists of meta
@@ -383,10 +380,7 @@ public class ClassRepositoryEntry
         private String genFilename(String newFilename)
         {
             File file =
-                new File(
-                    Convention.getInstance().get(
-                        ConventionKeys.CLASS_REPOSITORY_DIRECTORY,
-                        Convention.getRepositoryDirectory().getAbsolutePath()) + newFilename);
+                new File(ClassRepository.getInstance().getWorkingDir(), newFilename);
 
             if (file.exists())
             {
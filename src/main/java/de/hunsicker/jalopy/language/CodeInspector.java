@@ -35,15 +35,17 @@ import java.lang.reflect.Modifier;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import antlr.CommonHiddenStreamToken;
 import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -69,15 +71,16 @@ public final class CodeInspector
     /** Collection type names. */
     private static final List _collectionTypes = new ArrayList(28); // List of <String>
 
-    /** The cache with the regular expression patterns. */
-    private static final HashMap _patternMap = new HashMap(30);
+    /**
+     * The cache with the compiled regular expression patterns, shared by all
+     * instances.
+     */
+    private static final Map _patterns = new ConcurrentHashMap(30); // Map of <String>:<Pattern>
 
     /** The name for ResourceBundle lookup. */
     private static final String BUNDLE_NAME =
         "de.hunsicker.jalopy.language.Bundle" /* NOI18N */;
 
-    /** The code convention. */
-    protected static final Convention _settings = Convention.getInstance();
     private static final String STR_boolean = "boolean" /* NOI18N */;
     private static final String STR_Object = "Object" /* NOI18N */;
     private static final String STR_equals = "equals" /* NOI18N */;
@@ -136,6 +139,76 @@ public final class CodeInspector
     private static final String STR_NAMING_CONVENTION = "NAMING_CONVENTION" /* NOI18N */;
     private static final String EMPTY_STRING = "" /* NOI18N */;
 
+    /** Rule group: naming conventions. */
+    private static final int GROUP_NAMING = 1;
+
+    /** Rule group: contracts of java.lang.Object and type design. */
+    private static final int GROUP_CONTRACTS = 2;
+
+    /** Rule group: declared types. */
+    private static final int GROUP_TYPES = 4;
+
+    /** Rule group: exception handling. */
+    private static final int GROUP_EXCEPTIONS = 8;
+
+    /** Rule group: statements and expressions. */
+    private static final int GROUP_STATEMENTS = 16;
+
+    /** All rule groups. */
+    private static final int GROUP_ALL = 31;
+
+    /** The number of rule groups. */
+    private static final int GROUP_COUNT = 5;
+
+    /*
+     * The rules, numbered in the order they are checked for a single node
+     */
+    private static final int RULE_VARIABLE_TYPE = 0;
+    private static final int RULE_COLLECTION_COMMENT = 1;
+    private static final int RULE_VARIABLE_NAME = 2;
+    private static final int RULE_METHOD_CALL = 3;
+    private static final int RULE_ASSIGNMENT = 4;
+    private static final int RULE_CATCH = 5;
+    private static final int RULE_FINALLY = 6;
+    private static final int RULE_LABEL_NAME = 7;
+    private static final int RULE_OBJECT_EQUALS = 8;
+    private static final int RULE_RETURN_TYPE = 9;
+    private static final int RULE_PARAMETERS = 10;
+    private static final int RULE_THROWS = 11;
+    private static final int RULE_METHOD_NAME = 12;
+    private static final int RULE_ARRAY_RETURN_TYPE = 13;
+    private static final int RULE_CLASS = 14;
+    private static final int RULE_CLASS_NAME = 15;
+    private static final int RULE_INTERFACE = 16;
+    private static final int RULE_INTERFACE_NAME = 17;
+    private static final int RULE_PACKAGE_NAME = 18;
+    private static final int RULE_STRING_LITERAL = 19;
+
+    /** The number of rules. */
+    private static final int RULE_COUNT = 20;
+
+    /** The group every rule belongs to, indexed by rule. */
+    private static final int[] RULE_GROUPS =
+    {
+        GROUP_TYPES, GROUP_TYPES, GROUP_NAMING, GROUP_STATEMENTS, GROUP_STATEMENTS,
+        GROUP_EXCEPTIONS, GROUP_EXCEPTIONS, GROUP_NAMING, GROUP_CONTRACTS, GROUP_TYPES,
+        GROUP_TYPES, GROUP_EXCEPTIONS, GROUP_NAMING, GROUP_TYPES, GROUP_CONTRACTS,
+        GROUP_NAMING, GROUP_CONTRACTS, GROUP_NAMING, GROUP_NAMING, GROUP_STATEMENTS
+    };
+
+    /** The names of the rules as reported by {@link #getTimings}, indexed by rule. */
+    private static final String[] RULE_NAMES =
+    {
+        "variableType" /* NOI18N */, "collectionComment" /* NOI18N */,
+        "variableName" /* NOI18N */, "methodCall" /* NOI18N */, "assignment" /* NOI18N */,
+        "catch" /* NOI18N */, "finally" /* NOI18N */, "labelName" /* NOI18N */,
+        "objectEquals" /* NOI18N */, "returnType" /* NOI18N */, "parameters" /* NOI18N */,
+        "throws" /* NOI18N */, "methodName" /* NOI18N */, "arrayReturnType" /* NOI18N */,
+        "class" /* NOI18N */, "className" /* NOI18N */, "interface" /* NOI18N */,
+        "interfaceName" /* NOI18N */, "packageName" /* NOI18N */,
+        "stringLiteral" /* NOI18N */
+    };
+
     static
     {
         _favorableTypes.add("Vector" /* NOI18N */);
@@ -204,12 +277,39 @@ public final class CodeInspector
      */
     private Map _issues; // Map of <JavaNode>:<Object>
 
-    /** The pattern matcher. */
-    //private final PatternMatcher _matcher = new Perl5Matcher();
+    /**
+     * The issues found by a worker of a parallel inspection, <code>null</code> if
+     * issues are added to the issue map right away.
+     */
+    private List _found; // List of <Issue>
+
+    /** The code convention snapshot used for the current inspection. */
+    private CompiledConvention _settings;
+
+    /** The time spent in the different rules, <code>null</code> if not measured. */
+    private long[] _times;
 
     /** Helper array used to store the arguments for the message formatter. */
     protected final String[] _args = new String[3];
-	
+
+    /** The rule groups to check. */
+    private int _groups = GROUP_ALL;
+
+    /** The rule that is currently checked. */
+    private int _rule;
+
+    /** The number of issues added by the current rule for the current node. */
+    private int _sequence;
+
+    /** The number of threads to use. */
+    private int _threadCount = 1;
+
+    /** Should the time spent in the different rules be measured? */
+    private boolean _timing;
+
+    /** The number of visited nodes. */
+    private int _visits;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -222,15 +322,95 @@ public final class CodeInspector
         _issues = issues;
     }
 
+
+    /**
+     * Creates a new CodeInspector object that checks some rule groups on behalf of the
+     * given inspector.
+     *
+     * @param parent the inspector that spawns the worker.
+     * @param groups the rule groups to check.
+     */
+    private CodeInspector(
+        CodeInspector parent,
+        int           groups)
+    {
+        _found = new ArrayList(30);
+        _settings = parent._settings;
+        _groups = groups;
+
+        if (parent._times != null)
+        {
+            _times = new long[RULE_COUNT];
+        }
+    }
+
     //~ Methods --------------------------------------------------------------------------
 
-	private Pattern getPattern(String pattern) {
-		if (_patternMap.get(pattern)==null) {
-			_patternMap.put(pattern,Pattern.compile(pattern));
-		}
-		
-		return (Pattern) _patternMap.get(pattern);
-	}
+    /**
+     * Sets the number of threads to use for inspection. The rule groups (naming,
+     * contracts, type usage, exception handling, statements) are distributed over the
+     * threads, and every thread walks the tree for its groups.
+     *
+     * @param threadCount number of threads, defaults to <code>1</code>.
+     *
+     * @throws IllegalArgumentException if <code><em>threadCount</em> &lt; 1</code>
+     *
+     * @since 1.1
+     */
+    public void setThreadCount(int threadCount)
+    {
+        if (threadCount < 1)
+        {
+            throw new IllegalArgumentException("threadCount < 1 -- " + threadCount);
+        }
+
+        _threadCount = threadCount;
+    }
+
+
+    /**
+     * Enables or disables measuring the time spent in the different rules.
+     *
+     * @param enabled if <code>true</code> the time spent in every rule will be measured.
+     *
+     * @see #getTimings
+     * @since 1.1
+     */
+    public void setTiming(boolean enabled)
+    {
+        _timing = enabled;
+    }
+
+
+    /**
+     * Returns the time spent in the different rules during the last inspection. With
+     * several threads, the times are summed up over all threads.
+     *
+     * @return map with the rule names as keys and the time spent (in nanoseconds, of
+     *         type {@link Long}) as values, in the order the rules are checked. Returns
+     *         an empty map if timing was not enabled.
+     *
+     * @see #setTiming
+     * @since 1.1
+     */
+    public Map getTimings()
+    {
+        if (_times == null)
+        {
+            return Collections.EMPTY_MAP;
+        }
+
+        Map result = new LinkedHashMap(RULE_COUNT * 2);
+
+        for (int i = 0; i < RULE_COUNT; i++)
+        {
+            result.put(RULE_NAMES[i], new Long(_times[i]));
+        }
+
+        return result;
+    }
+
+
     /**
      * Inspects the given Java parse tree for code convention violations and coding
      * weaknesses.
@@ -242,7 +422,120 @@ public final class CodeInspector
         AST  tree,
         File file)
     {
-        walk(tree);
+        inspect(tree, file, Convention.getInstance().compile());
+    }
+
+
+    /**
+     * Inspects the given Java parse tree for code convention violations and coding
+     * weaknesses.
+     *
+     * @param tree root node of the parse tree.
+     * @param file the file that is inspected.
+     * @param settings the code convention to check against.
+     *
+     * @since 1.1
+     */
+    public void inspect(
+        AST                tree,
+        File               file,
+        CompiledConvention settings)
+    {
+        _settings = settings;
+        _times = _timing ? new long[RULE_COUNT]
+                         : null;
+        _visits = 0;
+        reset();
+
+        int numThreads = Math.min(_threadCount, GROUP_COUNT);
+
+        if (numThreads == 1)
+        {
+            _groups = GROUP_ALL;
+            walk(tree);
+
+            return;
+        }
+
+        int[] groups = new int[numThreads];
+
+        for (int i = 0; i < GROUP_COUNT; i++)
+        {
+            groups[i % numThreads] |= (1 << i);
+        }
+
+        InspectorTask[] tasks = new InspectorTask[numThreads];
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            tasks[i] = new InspectorTask(new CodeInspector(this, groups[i]), tree);
+        }
+
+        Thread[] threads = new Thread[numThreads - 1];
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(tasks[i + 1], "CodeInspector-" + (i + 1) /* NOI18N */);
+            threads[i].start();
+        }
+
+        // the current thread does its share of the work, too
+        tasks[0].run();
+
+        boolean interrupted = false;
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            try
+            {
+                threads[i].join();
+            }
+            catch (InterruptedException ex)
+            {
+                // the workers only touch their own state, so better wait for them
+                interrupted = true;
+                i--;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        List found = new ArrayList(30);
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            if (tasks[i].failure instanceof RuntimeException)
+            {
+                throw (RuntimeException) tasks[i].failure;
+            }
+            else if (tasks[i].failure instanceof Error)
+            {
+                throw (Error) tasks[i].failure;
+            }
+
+            CodeInspector worker = tasks[i].inspector;
+            found.addAll(worker._found);
+
+            if (_times != null)
+            {
+                for (int j = 0; j < RULE_COUNT; j++)
+                {
+                    _times[j] += worker._times[j];
+                }
+            }
+        }
+
+        // restore the order a single walk would have reported the issues in
+        Collections.sort(found);
+
+        for (int i = 0, size = found.size(); i < size; i++)
+        {
+            Issue issue = (Issue) found.get(i);
+            putIssue(issue.node, issue.message);
+        }
     }
 
 
@@ -251,64 +544,57 @@ public final class CodeInspector
      */
     public void visit(AST node)
     {
+        _visits++;
+
         switch (node.getType())
         {
             case JavaTokenTypes.VARIABLE_DEF :
 
                 AST type = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.TYPE);
                 String returnType = type.getFirstChild().getText();
-
-                if (
-                    _settings.getBoolean(ConventionKeys.TIP_REFER_BY_INTERFACE, false)
-                    && _favorableTypes.contains(returnType))
-                {
-                    addIssue(node, STR_REFER_BY_INTERFACE, _args);
-                }
-
-                checkCollectionReturnType((JavaNode) node, returnType);
-
-                String name = type.getNextSibling().getText();
-                checkVariableName(node, name);
+                check(RULE_VARIABLE_TYPE, node, returnType);
+                check(RULE_COLLECTION_COMMENT, node, returnType);
+                check(RULE_VARIABLE_NAME, node, type.getNextSibling().getText());
 
                 break;
 
             case JavaTokenTypes.METHOD_CALL :
-                checkMethodCall(node);
+                check(RULE_METHOD_CALL, node, null);
 
                 break;
 
             case JavaTokenTypes.ASSIGN :
-                checkAssignment(node);
+                check(RULE_ASSIGNMENT, node, null);
 
                 break;
 
             case JavaTokenTypes.LITERAL_catch :
-                checkCatch(node);
+                check(RULE_CATCH, node, null);
 
                 break;
 
             case JavaTokenTypes.LITERAL_finally :
-                checkFinally(node);
+                check(RULE_FINALLY, node, null);
 
                 break;
 
             case JavaTokenTypes.LABELED_STAT :
-                checkLabelName(node);
+                check(RULE_LABEL_NAME, node, null);
 
                 break;
 
             case JavaTokenTypes.METHOD_DEF :
 
                 Method method = new Method(node);
-                checkObjectEquals(node, method);
-                checkReturnType(node, method);
-                checkParameters(node, method);
-                checkThrows(node, method);
-                checkMethodName(node, method);
+                check(RULE_OBJECT_EQUALS, node, method);
+                check(RULE_RETURN_TYPE, node, method);
+                check(RULE_PARAMETERS, node, method);
+                check(RULE_THROWS, node, method);
+                check(RULE_METHOD_NAME, node, method);
 
                 if (!method.isAbstract())
                 {
-                    checkArrayReturnType(node, method);
+                    check(RULE_ARRAY_RETURN_TYPE, node, method);
                 }
 
                 break;
@@ -316,30 +602,30 @@ public final class CodeInspector
             case JavaTokenTypes.CTOR_DEF :
 
                 Constructor ctor = new Constructor(node);
-                checkParameters(node, ctor);
-                checkThrows(node, ctor);
+                check(RULE_PARAMETERS, node, ctor);
+                check(RULE_THROWS, node, ctor);
 
                 break;
 
             case JavaTokenTypes.CLASS_DEF :
-                checkClass(node);
-                checkClassName(node);
+                check(RULE_CLASS, node, null);
+                check(RULE_CLASS_NAME, node, null);
 
                 break;
 
             case JavaTokenTypes.INTERFACE_DEF :
-                checkInterface(node);
-                checkInterfaceName(node);
+                check(RULE_INTERFACE, node, null);
+                check(RULE_INTERFACE_NAME, node, null);
 
                 break;
 
             case JavaTokenTypes.PACKAGE_DEF :
-                checkPackageName(node);
+                check(RULE_PACKAGE_NAME, node, null);
 
                 break;
 
             case JavaTokenTypes.STRING_LITERAL :
-                checkStringLiteral(node);
+                check(RULE_STRING_LITERAL, node, null);
 
                 break;
         }
@@ -490,6 +776,30 @@ public final class CodeInspector
     }
 
 
+    /**
+     * Returns the compiled pattern for the given regular expression. Every expression
+     * is compiled only once and shared by all instances.
+     *
+     * @param regexp a regular expression.
+     *
+     * @return the compiled pattern.
+     */
+    private Pattern getPattern(String regexp)
+    {
+        Pattern pattern = (Pattern) _patterns.get(regexp);
+
+        if (pattern == null)
+        {
+            // patterns are immutable, so it does not hurt if several threads happen to
+            // compile the same one
+            pattern = Pattern.compile(regexp);
+            _patterns.put(regexp, pattern);
+        }
+
+        return pattern;
+    }
+
+
     /**
      * Indicates whether the given object represents a substituted &quot;<code>public
      * boolean equals(java.lang.Object o)</code>&quot; method (e.g. &quot;public boolean
@@ -585,36 +895,155 @@ public final class CodeInspector
         String   resourceKey,
         Object[] args)
     {
-        if (!_issues.containsKey(node))
+        String message =
+            MessageFormat.format(
+                ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(resourceKey), args);
+
+        if (_found != null)
         {
-            _issues.put(
-                node,
-                MessageFormat.format(
-                    ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(resourceKey),
-                    args));
+            _found.add(new Issue(node, message, _visits, _rule, _sequence++));
         }
         else
         {
-            Object value = _issues.get(node);
+            putIssue(node, message);
+        }
+    }
 
-            if (value instanceof List)
-            {
-                List issuesForNode = (List) value;
-                issuesForNode.add(
-                    MessageFormat.format(
-                        ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
-                            resourceKey), args));
-            }
-            else
-            {
-                List issuesForNode = new ArrayList(4);
-                issuesForNode.add(value);
-                issuesForNode.add(
-                    MessageFormat.format(
-                        ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
-                            resourceKey), args));
-                _issues.put(node, issuesForNode);
-            }
+
+    /**
+     * Checks the given rule for the given node, provided the rule belongs to one of the
+     * groups this inspector checks.
+     *
+     * @param rule the rule to check.
+     * @param node the node to check.
+     * @param data additional data the rule needs: the type name or the variable name
+     *        for VARIABLE_DEF nodes, the method or constructor object for METHOD_DEF and
+     *        CTOR_DEF nodes.
+     *
+     * @since 1.1
+     */
+    private void check(
+        int    rule,
+        AST    node,
+        Object data)
+    {
+        if ((_groups & RULE_GROUPS[rule]) == 0)
+        {
+            return;
+        }
+
+        _rule = rule;
+        _sequence = 0;
+
+        long start = (_times != null) ? System.nanoTime()
+                                      : 0;
+
+        switch (rule)
+        {
+            case RULE_VARIABLE_TYPE :
+                checkVariableType(node, (String) data);
+
+                break;
+
+            case RULE_COLLECTION_COMMENT :
+                checkCollectionReturnType((JavaNode) node, (String) data);
+
+                break;
+
+            case RULE_VARIABLE_NAME :
+                checkVariableName(node, (String) data);
+
+                break;
+
+            case RULE_METHOD_CALL :
+                checkMethodCall(node);
+
+                break;
+
+            case RULE_ASSIGNMENT :
+                checkAssignment(node);
+
+                break;
+
+            case RULE_CATCH :
+                checkCatch(node);
+
+                break;
+
+            case RULE_FINALLY :
+                checkFinally(node);
+
+                break;
+
+            case RULE_LABEL_NAME :
+                checkLabelName(node);
+
+                break;
+
+            case RULE_OBJECT_EQUALS :
+                checkObjectEquals(node, (Method) data);
+
+                break;
+
+            case RULE_RETURN_TYPE :
+                checkReturnType(node, (Method) data);
+
+                break;
+
+            case RULE_PARAMETERS :
+                checkParameters(node, (Constructor) data);
+
+                break;
+
+            case RULE_THROWS :
+                checkThrows(node, (Constructor) data);
+
+                break;
+
+            case RULE_METHOD_NAME :
+                checkMethodName(node, (Method) data);
+
+                break;
+
+            case RULE_ARRAY_RETURN_TYPE :
+                checkArrayReturnType(node, (Method) data);
+
+                break;
+
+            case RULE_CLASS :
+                checkClass(node);
+
+                break;
+
+            case RULE_CLASS_NAME :
+                checkClassName(node);
+
+                break;
+
+            case RULE_INTERFACE :
+                checkInterface(node);
+
+                break;
+
+            case RULE_INTERFACE_NAME :
+                checkInterfaceName(node);
+
+                break;
+
+            case RULE_PACKAGE_NAME :
+                checkPackageName(node);
+
+                break;
+
+            case RULE_STRING_LITERAL :
+                checkStringLiteral(node);
+
+                break;
+        }
+
+        if (_times != null)
+        {
+            _times[rule] += System.nanoTime() - start;
         }
     }
 
@@ -2006,6 +2435,60 @@ SEARCH:
         }
     }
 
+
+
+    /**
+     * Checks whether the given variable type represents an interface (base) type.
+     *
+     * @param node a VARIABLE_DEF node.
+     * @param typeName the type name of the variable declaration.
+     *
+     * @since 1.1
+     */
+    private void checkVariableType(
+        AST    node,
+        String typeName)
+    {
+        if (
+            _settings.getBoolean(ConventionKeys.TIP_REFER_BY_INTERFACE, false)
+            && _favorableTypes.contains(typeName))
+        {
+            addIssue(node, STR_REFER_BY_INTERFACE, _args);
+        }
+    }
+
+
+    /**
+     * Adds the given issue to the issue map.
+     *
+     * @param node node to add the issue for.
+     * @param message the issue message.
+     *
+     * @since 1.1
+     */
+    private void putIssue(
+        AST    node,
+        String message)
+    {
+        Object value = _issues.get(node);
+
+        if (value == null)
+        {
+            _issues.put(node, message);
+        }
+        else if (value instanceof List)
+        {
+            ((List) value).add(message);
+        }
+        else
+        {
+            List issuesForNode = new ArrayList(4);
+            issuesForNode.add(value);
+            issuesForNode.add(message);
+            _issues.put(node, issuesForNode);
+        }
+    }
+
     //~ Inner Classes --------------------------------------------------------------------
 
     /**
@@ -2112,6 +2595,93 @@ SEARCH:
     }
 
 
+    /**
+     * Walks the tree for one worker of a parallel inspection.
+     *
+     * @since 1.1
+     */
+    private static final class InspectorTask
+        implements Runnable
+    {
+        final AST tree;
+        final CodeInspector inspector;
+        Throwable failure;
+
+        public InspectorTask(
+            CodeInspector inspector,
+            AST           tree)
+        {
+            this.inspector = inspector;
+            this.tree = tree;
+        }
+
+        public void run()
+        {
+            try
+            {
+                this.inspector.walk(this.tree);
+            }
+            catch (Throwable ex)
+            {
+                this.failure = ex;
+            }
+        }
+    }
+
+
+    /**
+     * An issue found by a worker of a parallel inspection. Issues are ordered the way
+     * a single walk over the tree would have found them.
+     *
+     * @since 1.1
+     */
+    private static final class Issue
+        implements Comparable
+    {
+        final AST node;
+        final String message;
+        final int rule;
+        final int sequence;
+        final int visit;
+
+        public Issue(
+            AST    node,
+            String message,
+            int    visit,
+            int    rule,
+            int    sequence)
+        {
+            this.node = node;
+            this.message = message;
+            this.visit = visit;
+            this.rule = rule;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Object o)
+        {
+            Issue other = (Issue) o;
+
+            if (this.visit != other.visit)
+            {
+                return (this.visit < other.visit) ? (-1)
+                                                  : 1;
+            }
+
+            if (this.rule != other.rule)
+            {
+                return (this.rule < other.rule) ? (-1)
+                                                : 1;
+            }
+
+            return (this.sequence < other.sequence) ? (-1)
+                                                    : ((this.sequence == other.sequence)
+                                                       ? 0
+                                                       : 1);
+        }
+    }
+
+
     /**
      * Represents a METHOD_DEF node.
      */
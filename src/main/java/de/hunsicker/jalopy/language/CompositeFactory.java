@@ -30,34 +30,62 @@
  */
 package de.hunsicker.jalopy.language;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Vector;
 
 import de.hunsicker.jalopy.language.antlr.ExtendedToken;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
+import de.hunsicker.jalopy.language.antlr.JavadocLexer;
+import de.hunsicker.jalopy.language.antlr.JavadocParser;
 import de.hunsicker.jalopy.language.antlr.Node;
 
 /**
  * This class creates instances of all the Factories used to generate JavaNodes, Nodes, &
  * Extended Tokens. It is also responsible for maintaining and clearing the cache for these
  * factories
+ * 
+ * <p>
+ * The cache works like an arena: every object created is kept, and {@link #clear}
+ * marks all of them as free again. The factories then hand out the cached objects
+ * before they create new ones, so a worker that formats many files seldom allocates
+ * nodes and tokens. Every cache holds at most {@link #MAX_CACHED} objects; objects
+ * beyond that are left to the garbage collector. When released, a cache only keeps as
+ * many objects as recent runs needed, and never more than {@link #MAX_RETAINED}, so an
+ * idle factory holds little memory. Use {@link #detach} instead of {@link #clear} if
+ * the objects created so far are still referenced elsewhere.
+ * </p>
+ * 
+ * <p>
+ * A factory is meant to be used by a single thread (i.e. one Jalopy instance) and
+ * therefore does not synchronize.
+ * </p>
  */
 public class CompositeFactory {
+    /** The maximum number of objects cached per type. */
+    public static final int MAX_CACHED = 65536;
+
+    /** The maximum number of objects per type kept once the objects are released. */
+    public static final int MAX_RETAINED = 8192;
+
     /**TODO DOCUMENT ME!*/
     private ExtendedTokenFactory extendedTokenFactory = null;
 
     /**TODO DOCUMENT ME!*/
     private JavaNodeFactory javaNodeFactory = null;
 
-    /**TODO DOCUMENT ME!*/
-    private final Map cacheMap;
+    /** The caches of the types not created by one of our factories. */
+    private final Map cacheMap; // Map of <Class>:<Cache>
 
-    /**TODO DOCUMENT ME!*/
-    private final Map reuseMap;
+    /** The cache of the tokens. */
+    private final Cache tokenCache;
+
+    /** The cache of the Java nodes. */
+    private final Cache javaNodeCache;
+
+    /** The cache of the nodes. */
+    private final Cache nodeCache;
 
     /**TODO DOCUMENT ME!*/
     private NodeFactory nodeFactory = null;
@@ -131,7 +159,9 @@ public class CompositeFactory {
      */
     public CompositeFactory() {
         this.cacheMap = new HashMap();
-        this.reuseMap = new HashMap();
+        this.tokenCache = new Cache();
+        this.javaNodeCache = new Cache();
+        this.nodeCache = new Cache();
         this.extendedTokenFactory = new ExtendedTokenFactory(this);
         this.javaNodeFactory = new JavaNodeFactory(this);
         this.nodeFactory = new NodeFactory(this);
@@ -145,71 +175,93 @@ public class CompositeFactory {
      */
     public void addCached(Class  class1,
                           Object cached) {
-        synchronized (cacheMap) {
-            List cache = (List)cacheMap.get(class1);
-
-            if (cache == null) {
-                cache = new Vector();
-                cacheMap.put(class1, cache);
-                reuseMap.put(class1, new Vector());
-            } // end if
-            cache.add(cached);
-        } // end synchronized
+        getCache(class1, true).add(cached);
     } // end addCached()
 
     /**
-     * Clears all objects that were created in the factories
+     * Releases all objects that were created in the factories for reuse. The objects
+     * must not be used anymore afterwards. They are reset when they are handed out again.
      */
     public void clear() {
-        List cache = null;
-
-        //        List reuseList = null;
-        Object item = null;
-
-        // For each of the types clear the contents
-        synchronized (cacheMap) {
-            for (Iterator i = cacheMap.entrySet().iterator(); i.hasNext();) {
-                Map.Entry entry = (Entry)i.next();
-
-                //            reuseList = (List) reuseMap.get(entry.getKey());
-                cache = (List)entry.getValue();
-
-                for (Iterator l = cache.iterator(); l.hasNext();) {
-                    item = l.next();
-                    if (item instanceof Node) {
-                        ((Node)item).clear();
-                    } // end if
-                    else if (item instanceof ExtendedToken) {
-                        ((ExtendedToken)item).clear();
-                    } // end else if
-                    //                reuseList.add(item);
-                    l.remove();
-                } // end for
-            } // end for
-        } // end synchronized
+        this.tokenCache.clear();
+        this.javaNodeCache.clear();
+        this.nodeCache.clear();
+
+        for (Iterator i = cacheMap.values().iterator(); i.hasNext();) {
+            ((Cache)i.next()).clear();
+        } // end for
     } // end clear()
 
+    /**
+     * Forgets all objects that were created in the factories so far, so they are never
+     * handed out again and may be used as long as needed.
+     *
+     * @since 1.1
+     */
+    public void detach() {
+        this.tokenCache.detach();
+        this.javaNodeCache.detach();
+        this.nodeCache.detach();
+
+        for (Iterator i = cacheMap.values().iterator(); i.hasNext();) {
+            ((Cache)i.next()).detach();
+        } // end for
+    } // end detach()
+
     /**
      * A factory calls this method to return an object that was cached
      *
      * @param class1 The class used to index
      *
-     * @return
+     * @return a released object, reset to the state of a newly created one. Returns
+     *         <code>null</code> if no released object is available.
      */
     public Object getCached(Class class1) {
-        return null;
-        // Commented out, just allow the objects to be created by the factories and let
-        // the GC take care of removing them
-        //        List cache = (List) reuseMap.get(class1);
-        //        Object result= null;
-        //        if (cache!=null && !cache.isEmpty()) {
-        //            result = cache.remove(0);
-        //            addCached(class1, result);
-        //        }
-        //        
-        //        return result;
+        Cache cache = getCache(class1, false);
+        Object result = (cache != null) ? cache.next()
+                                        : null;
+
+        if (result instanceof Node) {
+            ((Node)result).recycle();
+        } // end if
+        else if (result instanceof ExtendedToken) {
+            ((ExtendedToken)result).recycle();
+        } // end else if
+
+        return result;
     } // end getCached()
 
+    /**
+     * Returns the cache for the given type.
+     *
+     * @param class1 The class used to index
+     * @param create if <code>true</code> a missing cache will be created
+     *
+     * @return the cache. Returns <code>null</code> if no cache exists and
+     *         <em>create</em> is <code>false</code>.
+     */
+    private Cache getCache(Class   class1,
+                           boolean create) {
+        if (class1 == JavaNodeFactory.class) {
+            return javaNodeCache;
+        } // end if
+        else if (class1 == ExtendedTokenFactory.class) {
+            return tokenCache;
+        } // end else if
+        else if (class1 == NodeFactory.class) {
+            return nodeCache;
+        } // end else if
+
+        Cache cache = (Cache)cacheMap.get(class1);
+
+        if (cache == null && create) {
+            cache = new Cache();
+            cacheMap.put(class1, cache);
+        } // end if
+
+        return cache;
+    } // end getCache()
+
     /**
      * Returns the local copy of the token factory
      *
@@ -238,11 +290,20 @@ public class CompositeFactory {
     } // end getNodeFactory()
 
     /**
-     * Returns the Recognizer
+     * Returns the Recognizer for Javadoc comments. The recognizer is created on first
+     * access, so files without Javadoc comments to parse never set it up.
      *
      * @return The Recognizer
      */
     public Recognizer getRecognizer() {
+        if (recognizer == null) {
+            JavadocLexer lexer = new JavadocLexer(this);
+            JavadocParser parser = (JavadocParser)lexer.getParser();
+
+            recognizer = new Recognizer(parser, lexer);
+            parser.setRecognizer(recognizer);
+        } // end if
+
         return recognizer;
     } // end getRecognizer()
 
@@ -254,4 +315,92 @@ public class CompositeFactory {
     public void setJavadocRecognizer(Recognizer recognizer) {
         this.recognizer = recognizer;
     } // end setJavadocRecognizer()
+
+    /**
+     * Holds the objects of one type. The objects below the mark are in use, the ones
+     * above it have been released and can be handed out again.
+     *
+     * @since 1.1
+     */
+    private static final class Cache {
+        /** The initial capacity. */
+        private static final int INITIAL_CAPACITY = 256;
+
+        /** The cached objects. */
+        private Object[] items = new Object[INITIAL_CAPACITY];
+
+        /** The number of cached objects. */
+        private int size;
+
+        /** The number of cached objects in use. */
+        private int used;
+
+        /** The number of objects recent runs needed, halved with every release. */
+        private int demand;
+
+        /**
+         * Adds a newly created object, which is in use.
+         *
+         * @param item the object
+         */
+        public void add(Object item) {
+            if (size == MAX_CACHED) {
+                return;
+            } // end if
+
+            if (size == items.length) {
+                Object[] grown = new Object[Math.min(size * 2, MAX_CACHED)];
+                System.arraycopy(items, 0, grown, 0, size);
+                items = grown;
+            } // end if
+
+            // objects are handed out in order, so every cached object is in use now
+            items[size++] = item;
+            used = size;
+        } // end add()
+
+        /**
+         * Releases all objects. Drops the objects beyond the recent demand.
+         */
+        public void clear() {
+            // decays, so a single large run does not pin its objects forever
+            demand = Math.max(used, demand / 2);
+
+            int keep = Math.min(demand, MAX_RETAINED);
+
+            if (size > keep) {
+                if (items.length > Math.max(2 * keep, INITIAL_CAPACITY)) {
+                    Object[] shrunk = new Object[Math.max(keep, INITIAL_CAPACITY)];
+                    System.arraycopy(items, 0, shrunk, 0, keep);
+                    items = shrunk;
+                } // end if
+                else {
+                    Arrays.fill(items, keep, size, null);
+                } // end else
+
+                size = keep;
+            } // end if
+
+            used = 0;
+        } // end clear()
+
+        /**
+         * Forgets all objects.
+         */
+        public void detach() {
+            items = new Object[INITIAL_CAPACITY];
+            size = 0;
+            used = 0;
+        } // end detach()
+
+        /**
+         * Returns the next released object.
+         *
+         * @return released object, <code>null</code> if all cached objects are in use
+         */
+        public Object next() {
+            return (used < size) ? items[used++]
+                                 : null;
+        } // end next()
+    } // end Cache
 } // end CompositeFactory
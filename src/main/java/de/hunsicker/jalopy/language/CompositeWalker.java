@@ -0,0 +1,202 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.language;
+
+import antlr.collections.AST;
+
+
+/**
+ * Walks a tree once on behalf of several other walkers. Every walker registers the
+ * node types it is interested in and is only handed the nodes of these types, so a
+ * single traversal serves all of them. A walker that stops is left out for the rest
+ * of the walk; the walk ends as soon as every walker has stopped.
+ * 
+ * <p>
+ * The registered walkers must not alter the tree structure in their
+ * <code>visit</code> methods, as they all see the tree in the same pass. Walkers that
+ * rewrite the tree have to defer the work until after the walk.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+final class CompositeWalker
+    extends TreeWalker
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    private static final TreeWalker[] EMPTY_WALKER_ARRAY = new TreeWalker[0];
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The walkers interested in every node. */
+    private TreeWalker[] _all = EMPTY_WALKER_ARRAY;
+
+    /** The registered walkers. */
+    private TreeWalker[] _walkers = EMPTY_WALKER_ARRAY;
+
+    /** The walkers interested in specific node types, indexed by type. */
+    private TreeWalker[][] _types = new TreeWalker[0][];
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Determines whether no walkers have been registered.
+     *
+     * @return <code>true</code> if no walkers have been registered.
+     */
+    public boolean isEmpty()
+    {
+        return _walkers.length == 0;
+    }
+
+
+    /**
+     * Registers the given walker.
+     *
+     * @param walker walker to register.
+     * @param types the node types the walker should be handed. If <code>null</code>,
+     *        the walker is handed every node.
+     */
+    public void add(
+        TreeWalker walker,
+        int[]      types)
+    {
+        _walkers = append(_walkers, walker);
+
+        if (types == null)
+        {
+            _all = append(_all, walker);
+
+            return;
+        }
+
+        for (int i = 0; i < types.length; i++)
+        {
+            int type = types[i];
+
+            if (type >= _types.length)
+            {
+                TreeWalker[][] temp = new TreeWalker[type + 1][];
+                System.arraycopy(_types, 0, temp, 0, _types.length);
+                _types = temp;
+            }
+
+            _types[type] =
+                append(
+                    (_types[type] == null) ? EMPTY_WALKER_ARRAY
+                                           : _types[type], walker);
+        }
+    }
+
+
+    /**
+     * Resets and unregisters all walkers.
+     */
+    public void clear()
+    {
+        reset();
+        _all = EMPTY_WALKER_ARRAY;
+        _walkers = EMPTY_WALKER_ARRAY;
+        _types = new TreeWalker[0][];
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        super.reset();
+
+        for (int i = 0; i < _walkers.length; i++)
+        {
+            _walkers[i].reset();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void visit(AST node)
+    {
+        for (int i = 0; i < _all.length; i++)
+        {
+            if (!_all[i].stop)
+            {
+                _all[i].visit(node);
+            }
+        }
+
+        int type = node.getType();
+
+        if ((type >= 0) && (type < _types.length))
+        {
+            TreeWalker[] walkers = _types[type];
+
+            if (walkers != null)
+            {
+                for (int i = 0; i < walkers.length; i++)
+                {
+                    if (!walkers[i].stop)
+                    {
+                        walkers[i].visit(node);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < _walkers.length; i++)
+        {
+            if (!_walkers[i].stop)
+            {
+                return;
+            }
+        }
+
+        stop();
+    }
+
+
+    private static TreeWalker[] append(
+        TreeWalker[] walkers,
+        TreeWalker   walker)
+    {
+        TreeWalker[] result = new TreeWalker[walkers.length + 1];
+        System.arraycopy(walkers, 0, result, 0, walkers.length);
+        result[walkers.length] = walker;
+
+        return result;
+    }
+}
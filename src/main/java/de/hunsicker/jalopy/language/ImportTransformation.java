@@ -47,6 +47,7 @@ import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -100,15 +101,20 @@ final class ImportTransformation
     private static final String STAR = "*" /* NOI18N */;
     static final String DOT = "." /* NOI18N */;
     private static final String DELIMETER_ENTRY = "|" /* NOI18N */;
-    private static final Object[] _args = new Object[4];
 
     //~ Instance variables ---------------------------------------------------------------
 
+    /** The arguments of the logging messages. */
+    private final Object[] _args = new Object[4];
+
     private final ImportNodeComparator COMP_IMPORT = new ImportNodeComparator();
 
     /** The first CLASS_DEF node, if any. */
     private AST _class;
 
+    /** The code convention of the transformation in progress. */
+    private CompiledConvention _current;
+
     /** The package node of the tree, if any. */
     private JavaNode _packageNameNode;
 
@@ -127,6 +133,9 @@ final class ImportTransformation
     /** Holds the reported unqualified identifiers. */
     private final List _unqualIdents; // List of <String>
 
+    /** The code convention to use, <code>null</code> to use the global one. */
+    private CompiledConvention _settings;
+
     /** The name of the file currently being processed. */
     private String _filename;
 
@@ -169,16 +178,18 @@ final class ImportTransformation
     {
         try
         {
-            Convention settings = Convention.getInstance();
+            _current =
+                (_settings != null) ? _settings
+                                    : Convention.getInstance().compile();
 
             ImportPolicy importPolicy =
                 ImportPolicy.valueOf(
-                    settings.get(
+                    _current.get(
                         ConventionKeys.IMPORT_POLICY, ConventionDefaults.IMPORT_POLICY));
             boolean expand = importPolicy == ImportPolicy.EXPAND;
             boolean collapse = importPolicy == ImportPolicy.COLLAPSE;
             _sortImports =
-                settings.getBoolean(
+                _current.getBoolean(
                     ConventionKeys.IMPORT_SORT, ConventionDefaults.IMPORT_SORT);
 
             // we only can expand/collapse if our repository is available
@@ -292,6 +303,21 @@ final class ImportTransformation
     }
 
 
+    /**
+     * Sets the code convention to use.
+     *
+     * @param settings the code convention of the current run, <code>null</code> to
+     *        take a snapshot of the global code convention whenever the
+     *        transformation is applied.
+     *
+     * @since 1.1
+     */
+    void setSettings(CompiledConvention settings)
+    {
+        _settings = settings;
+    }
+
+
     /**
      * Walks over the given node. Only links in children for IMPORT nodes. Walking ends
      * after the last IMPORT node.
@@ -497,52 +523,12 @@ final class ImportTransformation
      */
     private List getPackageTypes(String packageName)
     {
-        if (packageName == null)
-        {
-            return Collections.EMPTY_LIST;
-        }
-
-        String[] content = ClassRepository.getInstance().getContent();
-
-        if (content.length == 0)
+        if ((packageName == null) || EMPTY_STRING.equals(packageName))
         {
             return Collections.EMPTY_LIST;
         }
 
-        // search the start marker for the package (that is why we have
-        // added the '#' marker!)
-        int startOffset = Arrays.binarySearch(content, packageName + '#');
-        List result = new ArrayList(20);
-
-        // we found a marker...
-        if (startOffset > -1)
-        {
-            int depth = StringHelper.occurs('.', packageName) + 1;
-
-            // so search from the next entry on
-            for (int i = startOffset + 1; i < content.length; i++)
-            {
-                // as long as the type starts with the package name
-                if (content[i].startsWith(packageName))
-                {
-                    // and resides in the exact same package, not a
-                    // sub-package
-                    //
-                    //   java.util      --> OK
-                    //   java.util.jar  --> SKIP
-                    if (StringHelper.occurs('.', content[i]) == depth)
-                    {
-                        result.add(StringHelper.getClassName(content[i]));
-                    }
-                }
-                else
-                {
-                    break;
-                }
-            }
-        }
-
-        return result;
+        return Arrays.asList(ClassRepository.getInstance().getPackageTypes(packageName));
     }
 
 
@@ -718,6 +704,7 @@ final class ImportTransformation
         _packageName = EMPTY_STRING;
         _packageNameNode = null;
         _class = null;
+        _current = null;
         _root = null;
         _filename = null;
         _line = 0;
@@ -1015,10 +1002,9 @@ final class ImportTransformation
             return;
         }
 
-        //Convention settings = Convention.getInstance();
         ImportPolicy importPolicy =
             ImportPolicy.valueOf(
-                Convention.getInstance().get(
+                _current.get(
                     ConventionKeys.IMPORT_POLICY, ConventionDefaults.IMPORT_POLICY));
         boolean report = importPolicy == ImportPolicy.EXPAND;
         String filename = _root.getText();
@@ -1194,7 +1180,7 @@ final class ImportTransformation
         StringBuffer buf = new StringBuffer(50);
         String defaultPackageName = _packageName;
         JavaNode template =  (JavaNode) _factory.create(JavaTokenTypes.IMPORT, EMPTY_STRING);
-        String[] repository = ClassRepository.getInstance().getContent();
+        ClassRepository repository = ClassRepository.getInstance();
         List result = new ArrayList(20);
         Map conflicts = new HashMap(20);
 
@@ -1217,7 +1203,7 @@ final class ImportTransformation
                 buf.setLength(0);
 
                 // check if this single-type is contained in the repository
-                if (Arrays.binarySearch(repository, template.getText()) > -1)
+                if (repository.contains(template.getText()))
                 {
                     // don't add an already existing declaration
                     if (
@@ -1285,7 +1271,7 @@ CHECK:
                                     node.getText().substring(0, node.getText().indexOf(type))
                                     + type.substring(0, type.lastIndexOf('.'));
 
-                                if (Arrays.binarySearch(repository, name) > -1)
+                                if (repository.contains(name))
                                 {
                                     node.setText(name);
 
@@ -1461,7 +1447,7 @@ CHECK:
         {
             List info =
                 decodeGroupingInfo(
-                    Convention.getInstance().get(
+                    _current.get(
                         ConventionKeys.IMPORT_GROUPING, ConventionDefaults.IMPORT_GROUPING));
             COMP_IMPORT.identifiers = info;
             Collections.sort(imports, COMP_IMPORT);
@@ -43,6 +43,7 @@ import de.hunsicker.jalopy.language.antlr.JavaLexer;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 import de.hunsicker.jalopy.language.antlr.JavadocParser;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -73,8 +74,11 @@ public final class JavaRecognizer extends Recognizer
    /** Indicates JDK version 1.4. */
    public static final int JDK_1_4 = JavaLexer.JDK_1_4;
 
-   /** The code convention. */
-   private Convention _settings;
+   /** The code convention to use, <code>null</code> to use the global one. */
+   private CompiledConvention _convention;
+
+   /** The code convention of the current input source. */
+   private CompiledConvention _settings;
 
    /** List with the annotations for the current input source. */
    List _annotations = Collections.EMPTY_LIST;  // List of <Annotation>
@@ -83,19 +87,22 @@ public final class JavaRecognizer extends Recognizer
    Position _position;
 
    /** Resolves wildcard imports. */
-   private Transformation _importTrans;
+   private ImportTransformation _importTrans;
 
    /**
     * Checks whether debug logging calls are enclosing with a boolean
     * expression .
     */
-   private Transformation _loggingTransformation;
+   private LoggerTransformation _loggingTransformation;
 
    /** Inserts a serial version UID for serializable classes. */
    private Transformation _serialTrans;
 
    /** Sorts the AST tree. */
-   private Transformation _sortTrans;
+   private SortTransformation _sortTrans;
+
+   /** Walks the tree once on behalf of all passes that need a full walk. */
+   private final CompositeWalker _walker = new CompositeWalker();
 
    /**
     * DOCUMENT ME!
@@ -117,8 +124,6 @@ public final class JavaRecognizer extends Recognizer
     */
    public JavaRecognizer(CompositeFactory factory)
    {
-      _settings = Convention.getInstance();
-
       JavaLexer l = new JavaLexer(factory);
       this.lexer = l;
 
@@ -191,20 +196,6 @@ public final class JavaRecognizer extends Recognizer
 
       if(!_transformed)
       {
-         boolean trackAnnotations = !_annotations.isEmpty();
-
-         if(_trackPosition || trackAnnotations)
-         {
-            PositionTracker tracker = new PositionTracker();
-
-            if(trackAnnotations)
-            {
-               tracker.annotation = (Annotation)_annotations.get(0);
-            }
-
-            tracker.walk(super.getParseTree());
-         }
-
          transform();
          _transformed = true;
       }
@@ -312,6 +303,21 @@ public final class JavaRecognizer extends Recognizer
       return _position != null;
    }
 
+   /**
+    * Sets the code convention to use for parsing and transforming. Changes
+    * made to the global code convention are not seen until another convention
+    * is set.
+    *
+    * @param settings the code convention, <code>null</code> to take a
+    *        snapshot of the global code convention for every input source.
+    *
+    * @since 1.1
+    */
+   public void setSettings(CompiledConvention settings)
+   {
+      _convention = settings;
+   }
+
    /**
     * {@inheritDoc}
     *
@@ -322,6 +328,39 @@ public final class JavaRecognizer extends Recognizer
     * @throws ParseException DOCUMENT ME!
     */
    public void parse(Reader in, String filename)
+   {
+      parse(in, null, 0, filename);
+   }
+
+   /**
+    * Parses the given characters. The lexer reads directly from the array, so
+    * this is the preferred method if the input source has already been read
+    * into memory.
+    *
+    * @param chars the characters of the input source. The array is not copied
+    *        and must not be changed until parsing has finished.
+    * @param length the number of valid characters in <em>chars</em>.
+    * @param filename the name of the input source.
+    *
+    * @throws IllegalStateException if the parser is currently running.
+    *
+    * @since 1.1
+    */
+   public void parse(char[] chars, int length, String filename)
+   {
+      parse(null, chars, length, filename);
+   }
+
+   /**
+    * Parses the given input source, either a reader or a character array.
+    *
+    * @param in reader to read from, <code>null</code> if <em>chars</em> is given.
+    * @param chars the characters to read from, <code>null</code> if <em>in</em>
+    *        is given.
+    * @param length the number of valid characters in <em>chars</em>.
+    * @param filename the name of the input source.
+    */
+   private void parse(Reader in, char[] chars, int length, String filename)
    {
       if(this.running)
       {
@@ -331,6 +370,10 @@ public final class JavaRecognizer extends Recognizer
       this.finished    = false;
       this.running     = true;
       _transformed     = false;
+      _settings        = (_convention != null) ? _convention
+                                               : Convention.getInstance().compile();
+      _importTrans.setSettings(_settings);
+      _sortTrans.setSettings(_settings);
 
       // update the parsers/lexer driving settings prior to parsing
       JavaParser javaParser = (JavaParser)this.parser;
@@ -353,15 +396,27 @@ public final class JavaRecognizer extends Recognizer
       javaLexer.formatMLComments = _settings.getBoolean(ConventionKeys.COMMENT_FORMAT_MULTI_LINE,
             ConventionDefaults.COMMENT_FORMAT_MULTI_LINE);
 
-      JavadocParser javadocParser = javaLexer.getJavadocParser();
-      javadocParser.setCustomStandardTags(decodeTags(_settings.get(
-               ConventionKeys.COMMENT_JAVADOC_TAGS_STANDARD,
-               ConventionDefaults.COMMENT_JAVADOC_TAGS_STANDARD)));
-      javadocParser.setCustomInlineTags(decodeTags(_settings.get(
-               ConventionKeys.COMMENT_JAVADOC_TAGS_INLINE,
-               ConventionDefaults.COMMENT_JAVADOC_TAGS_INLINE)));
+      // the Javadoc parser is only needed (and created) if Javadoc comments
+      // should be parsed
+      if(javaLexer.parseJavadocComments)
+      {
+         JavadocParser javadocParser = javaLexer.getJavadocParser();
+         javadocParser.setCustomStandardTags(decodeTags(_settings.get(
+                  ConventionKeys.COMMENT_JAVADOC_TAGS_STANDARD,
+                  ConventionDefaults.COMMENT_JAVADOC_TAGS_STANDARD)));
+         javadocParser.setCustomInlineTags(decodeTags(_settings.get(
+                  ConventionKeys.COMMENT_JAVADOC_TAGS_INLINE,
+                  ConventionDefaults.COMMENT_JAVADOC_TAGS_INLINE)));
+      }
 
-      this.lexer.setInputBuffer(in);
+      if(chars != null)
+      {
+         javaLexer.setInputBuffer(chars, length);
+      }
+      else
+      {
+         this.lexer.setInputBuffer(in);
+      }
 
       /**
        * This private class slightly skews the way comments appear in the token
@@ -675,39 +730,90 @@ public final class JavaRecognizer extends Recognizer
 
    /**
     * Applies the registered transformations to the AST.
+    *
+    * <p>
+    * All passes that need to visit the whole tree (position and annotation
+    * tracking, the collection of logging calls) share a single walk that is
+    * performed before any transformation alters the tree. The transformations
+    * are then applied in a fixed order: imports, serial version UID, sorting and
+    * finally the logging calls collected during the walk. Neither of the former
+    * transformations recreates method call nodes, so the collected nodes are
+    * still valid when the logging transformation gets applied.
+    * </p>
+    *
+    * <p>
+    * With the default settings neither tracking nor the logging
+    * transformation is enabled, so no shared walk takes place. The import and
+    * serial version UID transformations walk the tree on their own, as they
+    * only descend into the import and type declarations, never into method
+    * bodies.
+    * </p>
     */
    private void transform()
    {
       AST tree = this.parser.getParseTree();
 
-      if(tree != null)
+      if(tree == null)
+      {
+         return;
+      }
+
+      boolean trackAnnotations = !_annotations.isEmpty();
+
+      if(_trackPosition || trackAnnotations)
       {
-         try
+         PositionTracker tracker = new PositionTracker();
+
+         if(trackAnnotations)
          {
-            _importTrans.apply(tree);
+            tracker.annotation = (Annotation)_annotations.get(0);
+         }
 
-            if(_settings.getBoolean(ConventionKeys.INSERT_SERIAL_UID,
-                    ConventionDefaults.INSERT_SERIAL_UID))
-            {
-               _serialTrans.apply(tree);
-            }
+         _walker.add(tracker, null);
+      }
 
-            if(_settings.getBoolean(ConventionKeys.SORT, ConventionDefaults.SORT))
-            {
-               _sortTrans.apply(tree);
-            }
+      boolean logging = _settings.getBoolean(
+            ConventionKeys.INSERT_LOGGING_CONDITIONAL,
+            ConventionDefaults.INSERT_LOGGING_CONDITIONAL);
 
-            if(_settings.getBoolean(ConventionKeys.INSERT_LOGGING_CONDITIONAL,
-                    ConventionDefaults.INSERT_LOGGING_CONDITIONAL))
-            {
-               _loggingTransformation.apply(tree);
-            }
+      if(logging)
+      {
+         _walker.add(_loggingTransformation, LoggerTransformation.NODE_TYPES);
+      }
+
+      try
+      {
+         if(!_walker.isEmpty())
+         {
+            _walker.walk(tree);
          }
-         catch(TransformationException ex)
+
+         _importTrans.apply(tree);
+
+         if(_settings.getBoolean(ConventionKeys.INSERT_SERIAL_UID,
+                 ConventionDefaults.INSERT_SERIAL_UID))
          {
-            Object[] args = {this.parser.getFilename()};
-            Loggers.IO.l7dlog(Level.ERROR, "TRANS_ERROR", args, ex);
+            _serialTrans.apply(tree);
          }
+
+         if(_settings.getBoolean(ConventionKeys.SORT, ConventionDefaults.SORT))
+         {
+            _sortTrans.apply(tree);
+         }
+
+         if(logging)
+         {
+            _loggingTransformation.rewrite();
+         }
+      }
+      catch(TransformationException ex)
+      {
+         Object[] args = {this.parser.getFilename()};
+         Loggers.IO.l7dlog(Level.ERROR, "TRANS_ERROR", args, ex);
+      }
+      finally
+      {
+         _walker.clear();
       }
    }
 
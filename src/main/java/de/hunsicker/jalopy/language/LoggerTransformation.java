@@ -66,6 +66,9 @@ final class LoggerTransformation
     private static final String LOCALIZED_LOG = "l7dlog";
     private static final String PRIORITY_DEBUG = "Priority.DEBUG";
 
+    /** The node types the transformation is interested in. */
+    static final int[] NODE_TYPES = { JavaTokenTypes.METHOD_CALL };
+
     //~ Instance variables ---------------------------------------------------------------
 
     private List _calls = new ArrayList(50); // List of <JavaNode>
@@ -85,38 +88,62 @@ final class LoggerTransformation
         try
         {
             walk(tree);
+            rewrite();
+        }
+        finally
+        {
+            reset();
+        }
+    }
 
-            for (int i = 0, size = _calls.size(); i < size; i++)
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        super.reset();
+        _calls.clear();
+    }
+
+
+    /**
+     * Adds the enclosing boolean expressions for the debug logging calls found during
+     * the last walk. The walk may either be performed by this transformation (as part
+     * of {@link #apply}) or by a {@link CompositeWalker} that feeds all nodes of the
+     * types in {@link #NODE_TYPES} into {@link #visit}. Callers have to {@link
+     * #reset} the transformation afterwards.
+     *
+     * @since 1.1
+     */
+    void rewrite()
+    {
+        for (int i = 0, size = _calls.size(); i < size; i++)
+        {
+            AST node = (AST) _calls.get(i);
+            AST name = node.getFirstChild();
+
+            switch (name.getType())
             {
-                AST node = (AST) _calls.get(i);
-                AST name = node.getFirstChild();
+                case JavaTokenTypes.DOT :
 
-                switch (name.getType())
-                {
-                    case JavaTokenTypes.DOT :
+                    AST firstPart = name.getFirstChild();
+                    AST lastPart = firstPart.getNextSibling();
+                    String methodName = lastPart.getText();
 
-                        AST firstPart = name.getFirstChild();
-                        AST lastPart = firstPart.getNextSibling();
-                        String methodName = lastPart.getText();
+                    if (isDebugCall(node, methodName))
+                    {
+                        JavaNode expr = ((JavaNode) node).getParent();
 
-                        if (isDebugCall(node, methodName))
+                        if (!isEnclosed(expr,firstPart))
                         {
-                            JavaNode expr = ((JavaNode) node).getParent();
-
-                            if (!isEnclosed(expr,firstPart))
-                            {
-                                addConditional(expr, firstPart);
-                            }
+                            addConditional(expr, firstPart);
                         }
+                    }
 
-                        break;
-                }
+                    break;
             }
         }
-        finally
-        {
-            _calls.clear();
-        }
     }
 
 
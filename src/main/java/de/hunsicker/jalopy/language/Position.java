@@ -47,7 +47,13 @@ public final class Position
 
     //~ Constructors ---------------------------------------------------------------------
 
-    Position(
+    /**
+     * Creates a new Position object.
+     *
+     * @param line the line (1-based).
+     * @param column the column (1-based).
+     */
+    public Position(
         int line,
         int column)
     {
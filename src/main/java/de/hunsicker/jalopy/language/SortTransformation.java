@@ -42,6 +42,7 @@ import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.ExtendedToken;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -72,6 +73,9 @@ final class SortTransformation
     
     CompositeFactory _factory = null;
 
+    /** The code convention to use, <code>null</code> to use the global one. */
+    private CompiledConvention _settings;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -90,7 +94,7 @@ final class SortTransformation
     public void apply(AST tree)
       throws TransformationException
     {
-        Convention settings = Convention.getInstance();
+        CompiledConvention settings = getSettings();
         boolean sortModifiers = settings.getBoolean(
                             ConventionKeys.SORT_MODIFIERS, 
                             ConventionDefaults.SORT_MODIFIERS);
@@ -105,6 +109,20 @@ final class SortTransformation
     }
 
 
+    /**
+     * Sets the code convention to use.
+     *
+     * @param settings the code convention of the current run, <code>null</code> to
+     *        take a snapshot of the global code convention whenever a tree is sorted.
+     *
+     * @since 1.1
+     */
+    void setSettings(CompiledConvention settings)
+    {
+        _settings = settings;
+    }
+
+
     /**
      * Sorts the given tree.
      *
@@ -120,6 +138,7 @@ final class SortTransformation
             return;
         }
 
+        CompiledConvention settings = getSettings();
         AST first = null;
 LOOP:
 
@@ -143,11 +162,25 @@ LOOP:
             AST declaration = first; declaration != null;
             declaration = declaration.getNextSibling())
         {
-            sortDeclarations(declaration, comp, 1);
+            sortDeclarations(declaration, comp, 1, settings);
         }
     }
 
 
+    /**
+     * Returns the code convention to use.
+     *
+     * @return the code convention of the current run.
+     *
+     * @since 1.1
+     */
+    private CompiledConvention getSettings()
+    {
+        return (_settings != null) ? _settings
+                                   : Convention.getInstance().compile();
+    }
+
+
     /**
      * Determines whether the given declaration node contains the <code>static</code>
      * modifier.
@@ -191,6 +224,7 @@ LOOP:
      *        node of the siblings list.
      * @param indent current indentation length.
      * @param maxwidth the maximum line length.
+     * @param settings the code convention to use.
      *
      * @return the last node that was added. Returns the given node if no nodes were
      *         added.
@@ -198,11 +232,12 @@ LOOP:
      * @throws IllegalArgumentException if <em>node</em> contains an invalid node.
      */
     private JavaNode addSiblings(
-        List     nodes,
-        JavaNode node,
-        boolean  addSeparator,
-        int      indent,
-        int      maxwidth)
+        List               nodes,
+        JavaNode           node,
+        boolean            addSeparator,
+        int                indent,
+        int                maxwidth,
+        CompiledConvention settings)
     {
         JavaNode cur = node;
 
@@ -237,7 +272,6 @@ LOOP:
                     next.setHiddenBefore(comment);
                 }
 
-                Convention settings = Convention.getInstance();
                 String fillCharacter =
                     settings.get(ConventionKeys.SEPARATOR_FILL_CHARACTER, "\u00b7");
 
@@ -402,6 +436,7 @@ LOOP:
      *        INTERFACE_DEF.
      * @param comp comparator to use for sorting.
      * @param level the current recursion level (1-based).
+     * @param settings the code convention to use.
      *
      * @return the updated node.
      *
@@ -409,9 +444,10 @@ LOOP:
      *         type.
      */
     private AST sortDeclarations(
-        AST        node,
-        Comparator comp,
-        int        level)
+        AST                node,
+        Comparator         comp,
+        int                level,
+        CompiledConvention settings)
     {
         JavaNode lcurly = null;
 
@@ -512,12 +548,12 @@ LOOP:
                     break;
 
                 case JavaTokenTypes.CLASS_DEF :
-                    classes.add(sortDeclarations(child, comp, level + 1));
+                    classes.add(sortDeclarations(child, comp, level + 1, settings));
 
                     break;
 
                 case JavaTokenTypes.INTERFACE_DEF :
-                    interfaces.add(sortDeclarations(child, comp, level + 1));
+                    interfaces.add(sortDeclarations(child, comp, level + 1, settings));
 
                     break;
 
@@ -530,7 +566,7 @@ LOOP:
                 break;
 
                 case JavaTokenTypes.ENUM_DEF :
-                    enums.add(sortDeclarations(child, comp, level + 1));
+                    enums.add(sortDeclarations(child, comp, level + 1, settings));
                 break;
                 case JavaTokenTypes.ENUM_CONSTANT_DEF :
                     enumdef.add(child);
@@ -547,8 +583,6 @@ LOOP:
             }
         }
 
-        Convention settings = Convention.getInstance();
-
         if (
             settings.getBoolean(
                 ConventionKeys.SORT_VARIABLE, ConventionDefaults.SORT_VARIABLE))
@@ -639,7 +673,7 @@ LOOP:
             current =
                 addSiblings(
                     enumdef, current, addSeparator,
-                    indent * level, maxwidth);
+                    indent * level, maxwidth, settings);
             
         } // end if
         for (
@@ -650,7 +684,7 @@ LOOP:
             current =
                 addSiblings(
                     (List) nodemap.get(nextToken), current, addSeparator,
-                    indent * level, maxwidth);
+                    indent * level, maxwidth, settings);
         }
 
         current.setNextSibling(rcurly);
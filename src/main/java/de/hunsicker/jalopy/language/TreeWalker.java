@@ -30,6 +30,10 @@
  */
 package de.hunsicker.jalopy.language;
 
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import antlr.collections.AST;
 
 
@@ -86,17 +90,37 @@ import antlr.collections.AST;
  *     }
  * }
  * </pre>
+ * 
+ * <p>
+ * As long as neither {@link #walkNode} nor {@link #walkChildren} are overwritten, the
+ * tree is walked with an explicit stack rather than by recursion, so even very deep
+ * trees (e.g. generated expressions with thousands of operands) cannot exhaust the
+ * thread stack. Walkers that overwrite them are walked recursively, which is fine as
+ * long as they only descend into declarations (as {@link ImportTransformation} and
+ * {@link SerializableTransformation} do).
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.3 $
  */
 public abstract class TreeWalker
 {
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /**
+     * Maps walker classes to whether they may be walked iteratively (Map of
+     * &lt;Class&gt;:&lt;Boolean&gt;).
+     */
+    private static final Map ITERATIVE = new ConcurrentHashMap();
+
     //~ Instance variables ---------------------------------------------------------------
 
     /** Indicates a stop. */
     protected boolean stop;
 
+    /** Does the walker use the default traversal? */
+    private final boolean _iterative;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -104,6 +128,7 @@ public abstract class TreeWalker
      */
     protected TreeWalker()
     {
+        _iterative = isIterative(getClass());
     }
 
     //~ Methods --------------------------------------------------------------------------
@@ -185,10 +210,117 @@ public abstract class TreeWalker
      */
     protected void walkNode(AST node)
     {
-        if (!this.stop)
+        if (_iterative)
+        {
+            walkTree(node);
+        }
+        else if (!this.stop)
         {
             visit(node);
             walkChildren(node);
         }
     }
+
+
+    /**
+     * Determines whether the given walker class uses the default traversal, i.e.
+     * overwrites neither {@link #walkNode} nor {@link #walkChildren}.
+     *
+     * @param type a walker class.
+     *
+     * @return <code>true</code> if the class may be walked iteratively.
+     */
+    private static boolean isIterative(Class type)
+    {
+        Boolean result = (Boolean) ITERATIVE.get(type);
+
+        if (result == null)
+        {
+            result = Boolean.TRUE;
+
+            for (Class c = type; c != TreeWalker.class; c = c.getSuperclass())
+            {
+                if (declares(c, "walkNode" /* NOI18N */)
+                    || declares(c, "walkChildren" /* NOI18N */))
+                {
+                    result = Boolean.FALSE;
+
+                    break;
+                }
+            }
+
+            ITERATIVE.put(type, result);
+        }
+
+        return result.booleanValue();
+    }
+
+
+    private static boolean declares(
+        Class  type,
+        String method)
+    {
+        try
+        {
+            type.getDeclaredMethod(method, new Class[] { AST.class });
+
+            return true;
+        }
+        catch (NoSuchMethodException ex)
+        {
+            return false;
+        }
+    }
+
+
+    /**
+     * Walks over the given node and all its descendants in the same order as {@link
+     * #walkNode} and {@link #walkChildren} would, but keeps the path to the current
+     * node on an explicit stack.
+     *
+     * @param node a node of the tree.
+     */
+    private void walkTree(AST node)
+    {
+        if (this.stop)
+        {
+            return;
+        }
+
+        visit(node);
+
+        // the ancestors of the current node below the given node, their siblings are
+        // walked once their children are done
+        ArrayList path = null;
+        AST child = node.getFirstChild();
+
+        for (;;)
+        {
+            if (child != null)
+            {
+                if (this.stop)
+                {
+                    return;
+                }
+
+                visit(child);
+
+                if (path == null)
+                {
+                    path = new ArrayList();
+                }
+
+                path.add(child);
+                child = child.getFirstChild();
+            }
+            else if ((path == null) || path.isEmpty())
+            {
+                return;
+            }
+            else
+            {
+                child = ((AST) path.remove(path.size() - 1)).getNextSibling();
+            }
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.language.antlr;
+
+import antlr.CharScanner;
+import antlr.InputBuffer;
+
+
+/**
+ * An input buffer that feeds the lexer from a character array holding the whole
+ * input source. Unlike {@link antlr.CharBuffer}, no characters are pulled through a
+ * reader one at a time and no lookahead queue has to be maintained: marks are simply
+ * positions in the array.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class CharArrayInputBuffer
+    extends InputBuffer
+{
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The characters of the input source. */
+    private char[] _chars;
+
+    /** The number of valid characters. */
+    private int _length;
+
+    /** The position of the next character to consume. */
+    private int _position;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new CharArrayInputBuffer object.
+     *
+     * @param chars the characters of the input source. The array is not copied and
+     *        must not be changed while the buffer is in use.
+     * @param length the number of valid characters in <em>chars</em>.
+     */
+    public CharArrayInputBuffer(
+        char[] chars,
+        int    length)
+    {
+        _chars = chars;
+        _length = length;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getLAChars()
+    {
+        return new String(_chars, _position, _length - _position);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getMarkedChars()
+    {
+        return new String(_chars, 0, _position);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void consume()
+    {
+        _position++;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void fill(int amount)
+    {
+        // the whole input is already available
+    }
+
+
+    /**
+     * Returns the character at the given lookahead position. Returns {@link
+     * CharScanner#EOF_CHAR} for positions beyond the end of the input, just like
+     * {@link antlr.CharBuffer} does.
+     *
+     * @param i the lookahead position (<code>&gt;= 1</code>).
+     *
+     * @return the character.
+     */
+    public char LA(int i)
+    {
+        int index = (_position + i) - 1;
+
+        return (index < _length) ? _chars[index]
+                                 : CharScanner.EOF_CHAR;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int mark()
+    {
+        this.nMarkers++;
+
+        return _position;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset()
+    {
+        this.nMarkers = 0;
+        _position = 0;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rewind(int mark)
+    {
+        _position = mark;
+        this.nMarkers--;
+    }
+}
@@ -288,5 +288,26 @@ public abstract class ExtendedToken
         this.line = -1;
         this.col = -1;
     }
-    
+
+
+    /**
+     * Restores the state of a newly created token, so that the token can be handed out
+     * again by a factory.
+     *
+     * @since 1.1
+     */
+    public void recycle()
+    {
+        this.endColumn = 0;
+        this.endLine = 0;
+        this.comment = null;
+        this.text = null;
+        this.attached = false;
+        this.hiddenBefore = null;
+        this.hiddenAfter = null;
+        this.nlAfter = 0;
+        this.line = 0;
+        this.col = 0;
+        this.type = INVALID_TYPE;
+    }
 }
@@ -82,9 +82,6 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     /** The file separator for the file format. */
     private String _lineSeparator = System.getProperty("line.separator");
 
-    /** The Javadoc recognizer. */
-    private Recognizer _recognizer;
-
     /** Logging. */
     private Logger _logger = Logger.getLogger("de.hunsicker.jalopy.language.java");
 
@@ -109,8 +106,8 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     /** The use Java parser. */
     private JavaParser _parser;
 
-    /** The used Javadoc parser. */
-    private JavadocParser _javadocParser;
+    /** The replacement text for tabs in comments, created for the current tab size. */
+    private String _tabReplacement = "";
 
     private CompositeFactory _factory = null;;
     
@@ -174,25 +171,21 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     {
         this(new StringReader(""), factory);
 
-        JavadocLexer lexer = new JavadocLexer(factory);
-        _javadocParser = (JavadocParser)lexer.getParser();
-        _recognizer = new Recognizer(_javadocParser, lexer);
-        _javadocParser.setRecognizer(_recognizer);
-        factory.setJavadocRecognizer(_recognizer);
-
         _parser = new JavaParser(this);
         _parser.setASTFactory(factory.getJavaNodeFactory());
     }
 
     /**
-     * Returns the internal parser for Javadoc comments.
+     * Returns the internal parser for Javadoc comments. The parser is only created
+     * on first access, as Javadoc comments are captured as raw text during lexing and
+     * only parsed when they are printed.
      *
      * @return the internal parser for Javadoc comments.
      */
     
     public JavadocParser getJavadocParser()
     {
-        return _javadocParser;
+        return (JavadocParser)_factory.getRecognizer().getParser();
     }
     
 
@@ -556,6 +549,19 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
         setInputBuffer(new CharBuffer(in));
     }
 
+    /**
+     * Sets the input buffer to use.
+     *
+     * @param chars the characters of the input source.
+     * @param length the number of valid characters in <em>chars</em>.
+     *
+     * @since 1.1
+     */
+    public void setInputBuffer(char[] chars, int length)
+    {
+        setInputBuffer(new CharArrayInputBuffer(chars, length));
+    }
+
     /**
      * Resets the lexer.
      *
@@ -645,8 +651,8 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
         return buf.toString();
     }
     protected Token makeJavaDoc(Token node, String newText) throws TokenStreamIOException {
-        node.setText(newText);
-        boolean javadoc = node.getText().trim().startsWith("/**");
+        // the comment text always starts with "/*", so no need to trim
+        boolean javadoc = newText.startsWith("/**");
         
         // we found a Javadoc comment
         if (javadoc)
@@ -657,56 +663,20 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
                 // feature as much as I do (and explictly enabled it)
                 if (this.parseJavadocComments)
                 {
-                    String t = node.getText();
-
-                    if (t.indexOf('\t') > -1)
-                    {
-                        t = StringHelper.replace(t, "\t", StringHelper.repeat(SPACE, getTabSize()));
-                    }
-                    // TODO Decide if this is required...
-                    //t = removeLeadingWhitespace(t, node.getColumn() -1, _lineSeparator);
-                    node.setText(t);
+                    // keep the raw text, the comment is only parsed by the
+                    // printer if its structure is actually needed
+                    String t = expandTabs(newText);
                     
                     Node comment = (Node) _factory.getJavaNodeFactory().create(JAVADOC_COMMENT);
                     comment.setText(t);
                     node = _factory.getExtendedTokenFactory().create(JavaTokenTypes.JAVADOC_COMMENT, t);
                     ((ExtendedToken)node).comment = comment;
-//                    try
-//                    {
-//                        String t = node.getText();
-//                        _recognizer.setLine(node.getLine());
-//                        _recognizer.setColumn(node.getColumn());
-//                        _recognizer.parse(t, getFilename());
-//                        Node comment = (Node)_recognizer.getParseTree();
-//
-//                        // ignore empty comments
-//                        if (comment != JavadocParser.EMPTY_JAVADOC_COMMENT)
-//                        {
-//                            node = _factory.getExtendedTokenFactory().create(JavaTokenTypes.JAVADOC_COMMENT, t);
-//                            ((ExtendedToken)node).comment = comment;
-//                            comment.setText(t);
-//                            
-//                        }
-//                        else {
-//                            node.setType(Token.SKIP);
-//                        }
-//                    }
-//                    catch (IOException ex)
-//                    {
-//                        throw new TokenStreamIOException(ex);
-//                    }
                 }
                 else
                 {
                     // XXX only if not in tab mode
                     // replace tabs
-
-                    String t = node.getText();
-
-                    if (t.indexOf('\t') > -1)
-                    {
-                        t = StringHelper.replace(t, "\t", StringHelper.repeat(SPACE, getTabSize()));
-                    }
+                    String t = expandTabs(newText);
 
                     t = removeLeadingWhitespace(t, node.getColumn() -1, _lineSeparator);
 
@@ -724,13 +694,8 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
         {
             if (!this.removeMLComments)
             {
-                String t = node.getText();
-
                 // replace tabs
-                if (t.indexOf('\t') > -1)
-                {
-                    t = StringHelper.replace(t, "\t", StringHelper.repeat(SPACE, getTabSize()));
-                }
+                String t = expandTabs(newText);
 
                 // in case we don't format multi-line comments, we have
                 // to remove the leading whitespace for each line
@@ -748,6 +713,49 @@ public class JavaLexer extends InternalJavaLexer implements Lexer
     }
 
 
+    /**
+     * Replaces all tabs of the given comment with spaces, according to the current
+     * tab size.
+     *
+     * @param comment a comment.
+     *
+     * @return the comment with all tabs replaced. Returns the comment itself if it
+     *         does not contain any tabs.
+     *
+     * @since 1.1
+     */
+    private String expandTabs(String comment)
+    {
+        int offset = comment.indexOf('\t');
+
+        if (offset == -1)
+        {
+            return comment;
+        }
+
+        if (_tabReplacement.length() != getTabSize())
+        {
+            _tabReplacement = StringHelper.repeat(SPACE, getTabSize());
+        }
+
+        StringBuffer buf = new StringBuffer(comment.length() + (4 * getTabSize()));
+        int start = 0;
+
+        do
+        {
+            buf.append(comment, start, offset);
+            buf.append(_tabReplacement);
+            start = offset + 1;
+            offset = comment.indexOf('\t', start);
+        }
+        while (offset > -1);
+
+        buf.append(comment, start, comment.length());
+
+        return buf.toString();
+    }
+
+
     /**
      * Returns the individual lines of the given multi-line comment.
      *
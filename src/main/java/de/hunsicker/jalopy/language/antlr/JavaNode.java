@@ -416,6 +416,19 @@ public abstract class JavaNode
     }
 
 
+    /**
+     * Indicates whether annotations are attached to this node.
+     *
+     * @return <code>true</code> if at least one annotation is attached to this node.
+     *
+     * @since 1.1
+     */
+    public boolean hasAnnotations()
+    {
+        return !_annotations.isEmpty();
+    }
+
+
     /**
      * Indicates whether comments appear before of this node.
      *
@@ -559,4 +572,19 @@ public abstract class JavaNode
         this.prevSibling = null;
         super.clear();
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void recycle()
+    {
+        super.recycle();
+        this.parent = null;
+        this.prevSibling = null;
+        this.newLine = 0;
+        this.newColumn = 0;
+        _annotations = Collections.EMPTY_LIST;
+        _position = null;
+    }
 }
@@ -52,7 +52,6 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Properties;
 import de.hunsicker.util.Lcs;
 import java.io.FileInputStream;
@@ -107,6 +106,12 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     /** Holds all valid inline tag names. */
     private Set _inlineTags = new HashSet(); // Set of <String>
 
+    /** Dictionary of the valid tag names, created on demand. */
+    private Lcs.Dictionary _standardDictionary;
+
+    /** Dictionary of the valid inline tag names, created on demand. */
+    private Lcs.Dictionary _inlineDictionary;
+
     /** The token types for the parser/lexer. */
     private Map _tokenTypes; // Map of <String>
 
@@ -283,6 +288,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
         //if (force || STANDARD_TAGS.lastModified() > _standardStamp)
         if (force)
         {
+            _standardDictionary = null;
             _standardTags.clear();
             _standardTags.add("@author");
             _standardTags.add("@deprecated");
@@ -312,6 +318,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
         //if (force || INLINE_TAGS.lastModified() > _inlineStamp)
         if (force)
         {
+            _inlineDictionary = null;
             _inlineTags.clear();
             _inlineTags.add("@docRoot");
             _inlineTags.add("@inheritDoc");
@@ -333,6 +340,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     public void setCustomStandardTags(Collection tags)
     {
         _standardTags.addAll(tags);
+        _standardDictionary = null;
     }
 
     /**
@@ -343,6 +351,7 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
     public void setCustomInlineTags(Collection tags)
     {
         _inlineTags.addAll(tags);
+        _inlineDictionary = null;
     }
 
     /**
@@ -428,38 +437,27 @@ public class JavadocParser extends InternalJavadocParser implements Parser{
      */
     String getTag(String text, String type)
     {
-        Set tags = null;
+        Lcs.Dictionary tags = null;
 
         if (type == TYPE_STANDARD)
-            tags = _standardTags;
-        else
-            tags = _inlineTags;
-
-        if (tags.contains(text))
         {
-            return text;
-        }
-
-        Lcs lcs = new Lcs();
+            if (_standardDictionary == null)
+                _standardDictionary = new Lcs.Dictionary(_standardTags);
 
-        for (Iterator i = tags.iterator(); i.hasNext();)
+            tags = _standardDictionary;
+        }
+        else
         {
-            String tag = (String)i.next();
-
-            lcs.init(text, tag);
+            if (_inlineDictionary == null)
+                _inlineDictionary = new Lcs.Dictionary(_inlineTags);
 
-            double similarity = lcs.getPercentage();
-
-            // XXX evaluate whether this is appropriate
-            if (similarity > 70.0)
-            {
-                // mispelled tag found
-                return tag;
-            }
+            tags = _inlineDictionary;
         }
 
-        // no match found means invalid tag
-        return null;
+        // returns the text itself for a valid tag and a similar tag for a
+        // mispelled one; no match found means invalid tag
+        // XXX evaluate whether the similarity threshold is appropriate
+        return tags.getMatch(text, 70.0);
     }
 
     /**
@@ -635,4 +635,26 @@ public abstract class Node
         this.nlAfter = 0;
         
     }
+
+
+    /**
+     * Restores the state of a newly created node, so that the node can be handed out
+     * again by a factory.
+     *
+     * @since 1.1
+     */
+    public void recycle()
+    {
+        this.down = null;
+        this.right = null;
+        this.hiddenAfter = null;
+        this.hiddenBefore = null;
+        this.text = null;
+        this.startColumn = 0;
+        this.endColumn = 0;
+        this.startLine = 0;
+        this.endLine = 0;
+        this.type = 0;
+        this.nlAfter = 0;
+    }
 }
@@ -44,6 +44,7 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -121,15 +122,21 @@ public abstract class AbstractPlugin
     /** Pane to display on top of all other components. */
     GlassPane _glassPane;
 
-    /** Used as a monitor to synchronize processes. */
-    final Object _lock = new Object();
-
     /** Progress monitor for long running operations. */
     private ProgressMonitor _progressMonitor;
+
+    /** Delivers the messages to the appender on a dedicated thread. */
+    private AsyncSwingAppender _logging;
     final Object[] _args = new Object[3];
 
-    /** Number of running formatting threads. */
-    int _threadCount;
+    /**
+     * The Jalopy instances used by the additional formatting threads. Kept between
+     * runs, so the instances can be reused.
+     */
+    private final List _workers = new ArrayList(); // List of <Jalopy>
+
+    /** The combined state of all files processed by the last batch run. */
+    private Jalopy.State _batchState;
 
     /** When did the worker thread start? */
     long _start;
@@ -214,6 +221,11 @@ public abstract class AbstractPlugin
             return Jalopy.State.UNDEFINED;
         }
 
+        if (_batchState != null)
+        {
+            return _batchState;
+        }
+
         return this.jalopy.getState();
     }
 
@@ -293,8 +305,9 @@ public abstract class AbstractPlugin
     public final synchronized void performAction(final AbstractPlugin.Action action)
     {
         // clear the message window
-        this.appender.clear();
+        _logging.clear();
 
+        _batchState = null;
         _worker = new ActionWorker(action);
         _worker.start();
 
@@ -518,12 +531,13 @@ public abstract class AbstractPlugin
 
         if (_progressMonitor != null)
         {
-            _args[0] = file.getName();
+            // several threads may format at the same time, so don't use _args here
+            Object[] args = { file.getName() };
 
             _progressMonitor.setText(
                 MessageFormat.format(
                     ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(
-                        "MSG_FORMATTING_FILE" /* NOI18N */), _args));
+                        "MSG_FORMATTING_FILE" /* NOI18N */), args));
 
             if (_progressMonitor instanceof ProgressMonitorImpl)
             {
@@ -546,6 +560,9 @@ public abstract class AbstractPlugin
 
                 if ((content != null) && (content.length() > 0))
                 {
+                    // editor views are formatted again and again, so only print the
+                    // members that changed since the last run
+                    newJalopy.setIncremental(true);
                     newJalopy.setInput(content, file.getFile().getAbsolutePath());
 
                     List annotations = editor.detachAnnotations();
@@ -581,7 +598,9 @@ public abstract class AbstractPlugin
 
                     // only update the editor view if no errors showed up
                     // and the content has changed
-                    if (getState() != Jalopy.State.ERROR && !content.equals(textBuf.toString()))
+                    if (
+                        (newJalopy.getState() != Jalopy.State.ERROR)
+                        && !content.equals(textBuf.toString()))
                     {
                         try
                         {
@@ -645,6 +664,13 @@ public abstract class AbstractPlugin
     /**
      * Formats the given files.
      *
+     * <p>
+     * If the user enabled multi-threaded execution, the files are put into a queue,
+     * largest files first, and every thread takes the next file from the queue as soon
+     * as it has finished its last one. Thus no thread sits idle while there is still
+     * work left, no matter how the file sizes are distributed.
+     * </p>
+     *
      * @param newJalopy the Jalopy instance to use for formatting.
      * @param files list with the files to format.
      * @param checkThreading if <code>true</code> checks whether the user enabled the
@@ -682,72 +708,154 @@ public abstract class AbstractPlugin
                 Convention.getInstance().getInt(
                     ConventionKeys.THREAD_COUNT, ConventionDefaults.THREAD_COUNT);
 
-            if (!checkThreading || (numThreads == 1) || (size == 1))
+            if (!checkThreading || (numThreads < 1))
             {
-                for (Iterator i = files.iterator(); i.hasNext();)
-                {
-                    // the user canceled the program execution
-                    if (_progressMonitor.isCanceled())
-                    {
-                        return;
-                    }
+                numThreads = 1;
+            }
+            else if (numThreads > size)
+            {
+                numThreads = size;
+            }
 
-                    ProjectFile file = (ProjectFile) i.next();
-                    format(file, newJalopy);
+            ProjectFile[] work = (ProjectFile[]) files.toArray(new ProjectFile[size]);
 
-                    synchronized (_progressMonitor)
-                    {
-                        _progressMonitor.setProgress(_progressMonitor.getProgress() + 1);
-                    }
-                }
-            }
-            else
+            if (numThreads > 1)
             {
-                List workList =
-                    (files instanceof List) ? (List) files
-                                            : new ArrayList(files);
-                int amount = 1;
+                // start with the largest files, so no thread gets stuck with a huge
+                // file at the very end while all others are already done
+                SizedFile[] sized = new SizedFile[size];
 
-                if (numThreads < size)
-                {
-                    amount = size / numThreads;
-                }
-                else
+                for (int i = 0; i < size; i++)
                 {
-                    numThreads = size;
+                    sized[i] = new SizedFile(work[i]);
                 }
 
-                // the number of threads to span
-                _threadCount = numThreads - 1;
+                Arrays.sort(sized);
 
-                for (int i = 0, threshold = numThreads - 1; i < threshold; i++)
+                for (int i = 0; i < size; i++)
                 {
-                    Jalopy j = new Jalopy();
-                    configureJalopy(j);
-
-                    Collection part = workList.subList(i * amount, (i + 1) * amount);
-                    new FormatThread(j, part).start();
+                    work[i] = sized[i].file;
                 }
+            }
 
-                Collection rest = workList.subList((numThreads - 1) * amount, size);
-                formatSeveral(newJalopy, rest, false);
+            WorkQueue queue = new WorkQueue(work);
+            FormatTask[] tasks = new FormatTask[numThreads];
+            Thread[] threads = new Thread[numThreads - 1];
 
-                try
+            for (int i = 0; i < threads.length; i++)
+            {
+                tasks[i + 1] = new FormatTask(getWorker(i), queue);
+                threads[i] = new Thread(tasks[i + 1], "Jalopy-" + (i + 1) /* NOI18N */);
+                threads[i].start();
+            }
+
+            // the current thread does its share of the work, too
+            tasks[0] = new FormatTask(newJalopy, queue);
+            tasks[0].run();
+
+            try
+            {
+                for (int i = 0; i < threads.length; i++)
                 {
-                    synchronized (_lock)
-                    {
-                        while (_threadCount > 0)
-                        {
-                            _lock.wait();
-                        }
-                    }
+                    threads[i].join();
                 }
-                catch (InterruptedException ignored)
+            }
+            catch (InterruptedException ex)
+            {
+                queue.cancel();
+                Thread.currentThread().interrupt();
+            }
+
+            Jalopy.State state = null;
+            Throwable failure = null;
+
+            for (int i = 0; i < tasks.length; i++)
+            {
+                state = combine(state, tasks[i].state);
+
+                if (failure == null)
                 {
-                    ;
+                    failure = tasks[i].failure;
                 }
             }
+
+            synchronized (this)
+            {
+                _batchState = combine(_batchState, state);
+            }
+
+            if (failure instanceof IOException)
+            {
+                throw (IOException) failure;
+            }
+            else if (failure instanceof InvocationTargetException)
+            {
+                throw (InvocationTargetException) failure;
+            }
+            else if (failure != null)
+            {
+                throw new ChainingRuntimeException(failure);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the Jalopy instance to be used by the formatting thread with the given
+     * index. Instances are created on demand and reused for further runs.
+     *
+     * @param index index of the formatting thread.
+     *
+     * @return the configured Jalopy instance.
+     */
+    private Jalopy getWorker(int index)
+    {
+        Jalopy result;
+
+        synchronized (_workers)
+        {
+            while (_workers.size() <= index)
+            {
+                _workers.add(new Jalopy());
+            }
+
+            result = (Jalopy) _workers.get(index);
         }
+
+        configureJalopy(result);
+
+        return result;
+    }
+
+
+    /**
+     * Combines the two given states into the one that is more severe.
+     *
+     * @param state1 a state, may be <code>null</code>.
+     * @param state2 another state, may be <code>null</code>.
+     *
+     * @return the more severe of the two states.
+     */
+    private static Jalopy.State combine(
+        Jalopy.State state1,
+        Jalopy.State state2)
+    {
+        if ((state1 == null) || (state2 == Jalopy.State.ERROR))
+        {
+            return state2;
+        }
+
+        if ((state2 == null) || (state1 == Jalopy.State.ERROR))
+        {
+            return state1;
+        }
+
+        if ((state1 == Jalopy.State.WARN) || (state2 == Jalopy.State.WARN))
+        {
+            return Jalopy.State.WARN;
+        }
+
+        return state2;
     }
 
 
@@ -763,7 +871,8 @@ public abstract class AbstractPlugin
 
     /**
      * Initializes the logging system. This method is called upon the creation of the
-     * object.
+     * object. The messages are delivered to the appender asynchronously, so the
+     * formatting threads never wait for the user interface.
      */
     private void initLogging()
     {
@@ -773,7 +882,8 @@ public abstract class AbstractPlugin
             this.appender = new DefaultAppender();
         }
 
-        Loggers.initialize(this.appender);
+        _logging = new AsyncSwingAppender(this.appender);
+        Loggers.initialize(_logging);
     }
 
     //~ Inner Classes --------------------------------------------------------------------
@@ -990,6 +1100,12 @@ public abstract class AbstractPlugin
                 displayError(ex, getMainWindow());
                 notifyAll();
             }
+            finally
+            {
+                // let the appender catch up with all messages of the run (not on the
+                // event dispatch thread, the appender might need it)
+                _logging.flush();
+            }
 
             return null;
         }
@@ -1062,40 +1178,119 @@ public abstract class AbstractPlugin
 
 
     /**
-     * Helper to format several files in a dedicated thread.
+     * Formats the files of a work queue until the queue is empty or the run was
+     * canceled.
      */
-    private class FormatThread
-        extends Thread
+    private class FormatTask
+        implements Runnable
     {
-        Collection files; // Collection of <ProjectFile>
         Jalopy jalopy;
+        WorkQueue queue;
+
+        /** The combined state of all files formatted. */
+        Jalopy.State state;
 
-        public FormatThread(
-            Jalopy     jalopy,
-            Collection files)
+        /** The exception that stopped the task, if any. */
+        Throwable failure;
+
+        public FormatTask(
+            Jalopy    jalopy,
+            WorkQueue queue)
         {
-            this.files = files;
             this.jalopy = jalopy;
+            this.queue = queue;
         }
 
         public void run()
         {
             try
             {
-                formatSeveral(jalopy, files, false);
+                for (
+                    ProjectFile file = this.queue.next(); file != null;
+                    file = this.queue.next())
+                {
+                    // the user canceled the program execution
+                    if (_progressMonitor.isCanceled() || Thread.interrupted())
+                    {
+                        this.queue.cancel();
+
+                        break;
+                    }
+
+                    format(file, this.jalopy);
+                    this.state = combine(this.state, this.jalopy.getState());
+
+                    synchronized (_progressMonitor)
+                    {
+                        _progressMonitor.setProgress(_progressMonitor.getProgress() + 1);
+                    }
+                }
             }
-            catch (Exception ex)
+            catch (Throwable ex)
             {
-                throw new ChainingRuntimeException(ex);
+                this.failure = ex;
+                this.state = Jalopy.State.ERROR;
+                this.queue.cancel();
             }
-            finally
+        }
+    }
+
+
+    /**
+     * The files that are still to be formatted. Hands out the files in the order
+     * given, one at a time, to whatever thread asks first.
+     */
+    private static final class WorkQueue
+    {
+        final ProjectFile[] files;
+        int next;
+        boolean canceled;
+
+        public WorkQueue(ProjectFile[] files)
+        {
+            this.files = files;
+        }
+
+        public synchronized ProjectFile next()
+        {
+            if (this.canceled || (this.next == this.files.length))
             {
-                synchronized (_lock)
-                {
-                    _threadCount--;
-                    _lock.notify();
-                }
+                return null;
             }
+
+            return this.files[this.next++];
+        }
+
+
+        public synchronized void cancel()
+        {
+            this.canceled = true;
+        }
+    }
+
+
+    /**
+     * A project file along with its size. Orders by descending size.
+     */
+    private static final class SizedFile
+        implements Comparable
+    {
+        final ProjectFile file;
+        final long size;
+
+        public SizedFile(ProjectFile file)
+        {
+            this.file = file;
+            this.size = file.getFile().length();
+        }
+
+        public int compareTo(Object o)
+        {
+            long other = ((SizedFile) o).size;
+
+            return (this.size > other) ? (-1)
+                                       : ((this.size == other) ? 0
+                                                               : 1);
         }
     }
 
@@ -0,0 +1,451 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.plugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Layout;
+import org.apache.log4j.spi.ErrorHandler;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
+
+
+/**
+ * Appender which hands the log statements over to another appender on a dedicated
+ * thread.
+ * 
+ * <p>
+ * The logging threads only put the events into a bounded ring buffer and return.
+ * A single thread takes them from the buffer and delivers them in batches, so the
+ * messages are formatted and displayed off the formatting threads and several
+ * formatting threads never wait on each other because of logging. If the buffer is
+ * full, the logging threads wait until there is room again; no message gets lost.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class AsyncSwingAppender
+    implements SwingAppender
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The number of events the buffer holds, a power of two. */
+    private static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    /** The maximum number of events delivered in one go. */
+    private static final int BATCH_SIZE = 64;
+
+    /** Time to wait before looking for events or room again, in nanoseconds. */
+    private static final long IDLE_NANOS = 10000000L;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The sequence number every slot of the buffer expects next. */
+    private final AtomicLongArray _sequences = new AtomicLongArray(CAPACITY);
+
+    /** The sequence number of the next event to put into the buffer. */
+    private final AtomicLong _tail = new AtomicLong();
+
+    /** The appender to deliver the events to. */
+    private final SwingAppender _appender;
+
+    /** The buffered events. */
+    private final LoggingEvent[] _events = new LoggingEvent[CAPACITY];
+
+    /** The thread that delivers the events. */
+    private volatile Thread _thread;
+
+    /** Events with a lower sequence number are dropped rather than delivered. */
+    private volatile long _cleared;
+
+    /** The number of events taken from the buffer. */
+    private volatile long _delivered;
+
+    /** Indicates whether the appender was closed. */
+    private volatile boolean _closed;
+
+    /** Indicates whether the delivering thread waits for events. */
+    private volatile boolean _idle;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new AsyncSwingAppender object.
+     *
+     * @param appender the appender to deliver the events to.
+     *
+     * @throws NullPointerException if <code>appender == null</code>
+     */
+    public AsyncSwingAppender(SwingAppender appender)
+    {
+        if (appender == null)
+        {
+            throw new NullPointerException();
+        }
+
+        _appender = appender;
+
+        for (int i = 0; i < CAPACITY; i++)
+        {
+            _sequences.set(i, i);
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the appender the events are delivered to.
+     *
+     * @return the wrapped appender.
+     */
+    public SwingAppender getAppender()
+    {
+        return _appender;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setErrorHandler(ErrorHandler handler)
+    {
+        _appender.setErrorHandler(handler);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public ErrorHandler getErrorHandler()
+    {
+        return _appender.getErrorHandler();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Filter getFilter()
+    {
+        return _appender.getFilter();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLayout(Layout layout)
+    {
+        _appender.setLayout(layout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Layout getLayout()
+    {
+        return _appender.getLayout();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setName(String name)
+    {
+        _appender.setName(name);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return _appender.getName();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addFilter(Filter filter)
+    {
+        _appender.addFilter(filter);
+    }
+
+
+    /**
+     * Drops all events not yet delivered and clears the wrapped appender.
+     */
+    public void clear()
+    {
+        _cleared = _tail.get();
+        _appender.clear();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clearFilters()
+    {
+        _appender.clearFilters();
+    }
+
+
+    /**
+     * Delivers the events still buffered, stops the delivering thread and closes the
+     * wrapped appender.
+     */
+    public void close()
+    {
+        flush();
+
+        synchronized (this)
+        {
+            _closed = true;
+
+            if (_thread != null)
+            {
+                LockSupport.unpark(_thread);
+                _thread = null;
+            }
+        }
+
+        _appender.close();
+    }
+
+
+    /**
+     * Puts the given event into the buffer. Waits if the buffer is full.
+     *
+     * @param ev logging event.
+     */
+    public void doAppend(LoggingEvent ev)
+    {
+        if (_closed)
+        {
+            return;
+        }
+
+        if (
+            _appender instanceof AppenderSkeleton
+            && !((AppenderSkeleton) _appender).isAsSevereAsThreshold(ev.getLevel()))
+        {
+            return;
+        }
+
+        // capture what depends on the logging thread
+        ev.getThreadName();
+        ev.getNDC();
+
+        Thread thread = _thread;
+
+        if (thread == null)
+        {
+            thread = start();
+        }
+
+        for (;;)
+        {
+            long tail = _tail.get();
+            int index = (int) tail & MASK;
+            long sequence = _sequences.get(index);
+
+            if (sequence == tail)
+            {
+                if (_tail.compareAndSet(tail, tail + 1))
+                {
+                    _events[index] = ev;
+                    _sequences.set(index, tail + 1);
+
+                    break;
+                }
+            }
+            else if (sequence < tail)
+            {
+                // the buffer is full
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(IDLE_NANOS / 10);
+            }
+        }
+
+        if (_idle)
+        {
+            LockSupport.unpark(thread);
+        }
+    }
+
+
+    /**
+     * Waits until all events buffered so far were delivered and notifies the wrapped
+     * appender that a run was finished.
+     */
+    public void done()
+    {
+        flush();
+        _appender.done();
+    }
+
+
+    /**
+     * Waits until all events buffered so far were delivered. Must not be called on a
+     * thread the wrapped appender itself waits for (e.g. the event dispatch thread, if
+     * the appender uses <code>invokeAndWait()</code>).
+     */
+    public void flush()
+    {
+        long tail = _tail.get();
+
+        while ((_delivered < tail) && !_closed)
+        {
+            LockSupport.unpark(_thread);
+            LockSupport.parkNanos(IDLE_NANOS / 10);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean requiresLayout()
+    {
+        return _appender.requiresLayout();
+    }
+
+
+    /**
+     * Delivers the buffered events until the appender is closed.
+     */
+    void deliver()
+    {
+        LoggingEvent[] batch = new LoggingEvent[BATCH_SIZE];
+        long head = 0;
+
+        while (!_closed)
+        {
+            long first = head;
+            int count = 0;
+
+            while (count < BATCH_SIZE)
+            {
+                int index = (int) head & MASK;
+
+                if (_sequences.get(index) != (head + 1))
+                {
+                    break;
+                }
+
+                batch[count++] = _events[index];
+                _events[index] = null;
+                _sequences.set(index, head + CAPACITY);
+                head++;
+            }
+
+            if (count == 0)
+            {
+                _idle = true;
+
+                // look again, an event might have been put in meanwhile
+                if (_sequences.get((int) head & MASK) != (head + 1))
+                {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+
+                _idle = false;
+
+                continue;
+            }
+
+            long cleared = _cleared;
+
+            for (int i = 0; i < count; i++)
+            {
+                if ((first + i) >= cleared)
+                {
+                    try
+                    {
+                        _appender.doAppend(batch[i]);
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        ErrorHandler handler = _appender.getErrorHandler();
+
+                        if (handler != null)
+                        {
+                            handler.error(
+                                "Failed to deliver event" /* NOI18N */, ex, 0, batch[i]);
+                        }
+                    }
+                }
+
+                batch[i] = null;
+            }
+
+            _delivered = head;
+        }
+    }
+
+
+    /**
+     * Starts the delivering thread, if not already running.
+     *
+     * @return the delivering thread.
+     */
+    private synchronized Thread start()
+    {
+        if (_thread == null)
+        {
+            _thread =
+                new Thread(
+                    new Runnable()
+                    {
+                        public void run()
+                        {
+                            deliver();
+                        }
+                    }, "Jalopy-Logging" /* NOI18N */);
+            _thread.setDaemon(true);
+            _thread.start();
+        }
+
+        return _thread;
+    }
+}
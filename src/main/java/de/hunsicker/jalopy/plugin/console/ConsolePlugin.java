@@ -0,0 +1,1283 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.plugin.console;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import de.hunsicker.io.DirectoryScanner;
+import de.hunsicker.io.ExtensionFilter;
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.language.Position;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionDefaults;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+import de.hunsicker.jalopy.storage.Loggers;
+import de.hunsicker.util.ResourceBundleFactory;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.ConsoleAppender;
+import org.apache.log4j.Level;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.LoggingEvent;
+
+
+/**
+ * Headless command line front-end that formats or checks whole source trees.
+ *
+ * <p>
+ * The given directories are searched recursively for Java source files in the
+ * background. The files are formatted as they are found by as many threads as there
+ * are processors, every thread with its own Jalopy instance. In check mode nothing is
+ * written, the run just reports the files that would be formatted.
+ * </p>
+ *
+ * <p>
+ * The outcome is reflected in the exit code (see {@link #EXIT_OK}, {@link
+ * #EXIT_UNFORMATTED} and {@link #EXIT_ERROR}) and may be written to a JSON or JUnit
+ * XML report along with the time spent on every file, so build servers can pick it
+ * up.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class ConsolePlugin
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Exit code if all files could be processed and no file needs formatting. */
+    public static final int EXIT_OK = 0;
+
+    /** Exit code if some files would be formatted (check mode only). */
+    public static final int EXIT_UNFORMATTED = 1;
+
+    /** Exit code if some files could not be processed or the usage was wrong. */
+    public static final int EXIT_ERROR = 2;
+
+    /** Report format that produces a JSON document. */
+    public static final String REPORT_JSON = "json" /* NOI18N */;
+
+    /** Report format that produces a JUnit XML test report. */
+    public static final String REPORT_JUNIT = "junit" /* NOI18N */;
+
+    private static final String BUNDLE_NAME =
+        "de.hunsicker.jalopy.plugin.console.Bundle" /* NOI18N */;
+
+    /** Holds the file result currently processed by a thread. */
+    static final ThreadLocal CURRENT = new ThreadLocal();
+
+    /** Orders results by path. */
+    private static final Comparator PATH_ORDER = new PathComparator();
+
+    /** The number of found files that may wait for a formatting thread. */
+    private static final int QUEUE_CAPACITY = 256;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The files and directories to process. */
+    private final List _targets = new ArrayList();
+
+    /** Should files only be checked, but not written? */
+    private boolean _check;
+
+    /** Should a unified diff be printed instead of writing files? */
+    private boolean _diff;
+
+    /** The encoding of the source files, <code>null</code> for the platform default. */
+    private String _encoding;
+
+    /** The report file, <code>null</code> if no report should be written. */
+    private File _report;
+
+    /** The report format. */
+    private String _reportFormat;
+
+    /** Should only errors be printed? */
+    private boolean _quiet;
+
+    /** The number of formatting threads. */
+    private int _threadCount = Runtime.getRuntime().availableProcessors();
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new ConsolePlugin object.
+     */
+    public ConsolePlugin()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Sets whether files should only be checked. In check mode no files are written.
+     *
+     * @param check if <code>true</code> files are only checked.
+     */
+    public void setCheck(boolean check)
+    {
+        _check = check;
+    }
+
+
+    /**
+     * Sets whether a unified diff of the changes should be printed instead of writing
+     * the files. Implies check mode.
+     *
+     * @param diff if <code>true</code> a diff is printed.
+     */
+    public void setDiff(boolean diff)
+    {
+        _diff = diff;
+
+        if (diff)
+        {
+            _check = true;
+        }
+    }
+
+
+    /**
+     * Sets the encoding of the source files.
+     *
+     * @param encoding a valid encoding name, <code>null</code> means the platform's
+     *        default encoding.
+     */
+    public void setEncoding(String encoding)
+    {
+        _encoding = encoding;
+    }
+
+
+    /**
+     * Sets whether only errors should be printed.
+     *
+     * @param quiet if <code>true</code> only errors are printed.
+     */
+    public void setQuiet(boolean quiet)
+    {
+        _quiet = quiet;
+    }
+
+
+    /**
+     * Sets the report to write after the run.
+     *
+     * @param file the report file, <code>null</code> to write no report.
+     * @param format the report format, either {@link #REPORT_JSON} or {@link
+     *        #REPORT_JUNIT}. If <code>null</code>, the format is derived from the
+     *        extension of the file.
+     *
+     * @throws IllegalArgumentException if an invalid report format was given.
+     */
+    public void setReport(
+        File   file,
+        String format)
+    {
+        if (format == null)
+        {
+            format =
+                ((file != null) && file.getName().endsWith(".xml" /* NOI18N */))
+                ? REPORT_JUNIT
+                : REPORT_JSON;
+        }
+        else if (!REPORT_JSON.equals(format) && !REPORT_JUNIT.equals(format))
+        {
+            throw new IllegalArgumentException(
+                message("MSG_INVALID_REPORT_FORMAT" /* NOI18N */, new Object[] { format }));
+        }
+
+        _report = file;
+        _reportFormat = format;
+    }
+
+
+    /**
+     * Sets the number of threads to format with.
+     *
+     * @param threadCount the number of threads. Values below <code>1</code> are treated
+     *        as <code>1</code>.
+     */
+    public void setThreadCount(int threadCount)
+    {
+        _threadCount = (threadCount < 1) ? 1
+                                         : threadCount;
+    }
+
+
+    /**
+     * Adds a file or directory to process. Directories are searched recursively for
+     * Java source files.
+     *
+     * @param target a file or directory.
+     */
+    public void addTarget(File target)
+    {
+        _targets.add(target);
+    }
+
+
+    /**
+     * Runs the command line front-end and exits the virtual machine with the resulting
+     * exit code.
+     *
+     * @param argv the command line arguments.
+     */
+    public static void main(String[] argv)
+    {
+        System.exit(execute(argv));
+    }
+
+
+    /**
+     * Parses the given command line arguments and runs the front-end.
+     *
+     * @param argv the command line arguments.
+     *
+     * @return the exit code.
+     */
+    public static int execute(String[] argv)
+    {
+        ConsolePlugin console = new ConsolePlugin();
+        String convention = null;
+        String reportFile = null;
+        String reportFormat = null;
+        Level level = Level.WARN;
+
+        try
+        {
+            for (int i = 0; i < argv.length; i++)
+            {
+                String arg = argv[i];
+
+                if (!arg.startsWith("-" /* NOI18N */) || "-".equals(arg))
+                {
+                    console.addTarget(new File(arg));
+                }
+                else if ("-n".equals(arg) || "--check".equals(arg))
+                {
+                    console.setCheck(true);
+                }
+                else if ("-d".equals(arg) || "--diff".equals(arg))
+                {
+                    console.setDiff(true);
+                }
+                else if ("-q".equals(arg) || "--quiet".equals(arg))
+                {
+                    console.setQuiet(true);
+                    level = Level.ERROR;
+                }
+                else if ("-v".equals(arg) || "--verbose".equals(arg))
+                {
+                    level = Level.INFO;
+                }
+                else if ("-h".equals(arg) || "--help".equals(arg))
+                {
+                    System.out.println(message("MSG_USAGE" /* NOI18N */, null));
+
+                    return EXIT_OK;
+                }
+                else if ("-c".equals(arg) || "--convention".equals(arg))
+                {
+                    convention = value(argv, i++);
+                }
+                else if ("-e".equals(arg) || "--encoding".equals(arg))
+                {
+                    console.setEncoding(value(argv, i++));
+                }
+                else if ("-r".equals(arg) || "--report".equals(arg))
+                {
+                    reportFile = value(argv, i++);
+                }
+                else if ("--report-format".equals(arg))
+                {
+                    reportFormat = value(argv, i++);
+                }
+                else if ("-t".equals(arg) || "--threads".equals(arg))
+                {
+                    String count = value(argv, i++);
+
+                    try
+                    {
+                        console.setThreadCount(Integer.parseInt(count));
+                    }
+                    catch (NumberFormatException ex)
+                    {
+                        throw new IllegalArgumentException(
+                            message(
+                                "MSG_INVALID_NUMBER" /* NOI18N */,
+                                new Object[] { arg, count }));
+                    }
+                }
+                else
+                {
+                    throw new IllegalArgumentException(
+                        message("MSG_UNKNOWN_OPTION" /* NOI18N */, new Object[] { arg }));
+                }
+            }
+
+            if (console._targets.isEmpty())
+            {
+                throw new IllegalArgumentException(
+                    message("MSG_NO_TARGETS" /* NOI18N */, null));
+            }
+
+            if (reportFile != null)
+            {
+                console.setReport(new File(reportFile), reportFormat);
+            }
+        }
+        catch (IllegalArgumentException ex)
+        {
+            System.err.println(ex.getMessage());
+            System.err.println();
+            System.err.println(message("MSG_USAGE" /* NOI18N */, null));
+
+            return EXIT_ERROR;
+        }
+
+        try
+        {
+            if (convention != null)
+            {
+                Jalopy.setConvention(convention);
+            }
+
+            // stack traces are only of interest when the user asks for details
+            final boolean traces = level == Level.INFO;
+            PatternLayout layout =
+                new PatternLayout("[%p] %m\n" /* NOI18N */)
+                {
+                    public boolean ignoresThrowable()
+                    {
+                        return traces;
+                    }
+                };
+            ConsoleAppender appender =
+                new ConsoleAppender(layout, "System.err" /* NOI18N */);
+            appender.setThreshold(level);
+            Loggers.initialize(appender);
+
+            return console.run();
+        }
+        catch (IOException ex)
+        {
+            System.err.println(ex.getMessage());
+
+            return EXIT_ERROR;
+        }
+    }
+
+
+    /**
+     * Formats or checks all targets and writes the report, if requested.
+     *
+     * @return the exit code.
+     *
+     * @throws IOException if the report could not be written.
+     */
+    public int run()
+      throws IOException
+    {
+        long start = System.nanoTime();
+        int threadCount = Math.max(1, _threadCount);
+
+        // the directories are scanned in the background and every thread takes the
+        // next file from the scanner as soon as it has finished its last one, so
+        // formatting starts with the first file found
+        DirectoryScanner scanner = createScanner();
+        Thread scan = new Thread(scanner, "Jalopy-Scanner" /* NOI18N */);
+        scan.setDaemon(true);
+        scan.start();
+
+        Set seen = Collections.synchronizedSet(new HashSet());
+        Queue done = new ConcurrentLinkedQueue();
+        ResultAppender appender = new ResultAppender();
+        Loggers.ALL.addAppender(appender);
+
+        try
+        {
+            Thread[] threads = new Thread[threadCount - 1];
+
+            for (int i = 0; i < threads.length; i++)
+            {
+                threads[i] =
+                    new Thread(
+                        new FormatTask(scanner, seen, done),
+                        "Jalopy-" /* NOI18N */ + (i + 1));
+                threads[i].start();
+            }
+
+            new FormatTask(scanner, seen, done).run();
+
+            for (int i = 0; i < threads.length; i++)
+            {
+                try
+                {
+                    threads[i].join();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        finally
+        {
+            Loggers.ALL.removeAppender(appender);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Result[] results = (Result[]) done.toArray(new Result[done.size()]);
+        Arrays.sort(results, PATH_ORDER);
+
+        int formatted = 0;
+        int failed = 0;
+
+        // keep the diff clean
+        PrintStream info = _diff ? System.err
+                                 : System.out;
+
+        for (int i = 0; i < results.length; i++)
+        {
+            Result result = results[i];
+
+            if (result.diff != null)
+            {
+                System.out.print(result.diff);
+            }
+
+            if (result.status == Result.FAILED)
+            {
+                failed++;
+                System.err.println(
+                    message("MSG_FILE_FAILED" /* NOI18N */, new Object[] { result.file }));
+            }
+            else if (result.status != Result.UNCHANGED)
+            {
+                formatted++;
+
+                if (!_quiet)
+                {
+                    info.println(
+                        message(
+                            _check ? "MSG_FILE_UNFORMATTED" /* NOI18N */
+                                   : "MSG_FILE_FORMATTED" /* NOI18N */,
+                            new Object[] { result.getLocation() }));
+                }
+            }
+        }
+
+        if (!_quiet)
+        {
+            Object[] args =
+            {
+                new Integer(results.length), new Integer(_check ? 0
+                                                                : formatted),
+                new Integer(_check ? formatted
+                                   : 0), new Integer(failed),
+                new Long(elapsed / 1000000L), new Integer(threadCount)
+            };
+            info.println(message("MSG_SUMMARY" /* NOI18N */, args));
+        }
+
+        if (_report != null)
+        {
+            writeReport(results, elapsed);
+        }
+
+        if (failed > 0)
+        {
+            return EXIT_ERROR;
+        }
+
+        return (_check && (formatted > 0)) ? EXIT_UNFORMATTED
+                                           : EXIT_OK;
+    }
+
+
+    /**
+     * Appends the given string as a JSON string literal.
+     *
+     * @param buf buffer to append to.
+     * @param str the string.
+     */
+    private static void appendJson(
+        StringBuffer buf,
+        String       str)
+    {
+        buf.append('"');
+
+        for (int i = 0, size = str.length(); i < size; i++)
+        {
+            char c = str.charAt(i);
+
+            switch (c)
+            {
+                case '"' :
+                case '\\' :
+                    buf.append('\\').append(c);
+
+                    break;
+
+                case '\n' :
+                    buf.append("\\n" /* NOI18N */);
+
+                    break;
+
+                case '\r' :
+                    buf.append("\\r" /* NOI18N */);
+
+                    break;
+
+                case '\t' :
+                    buf.append("\\t" /* NOI18N */);
+
+                    break;
+
+                default :
+
+                    if (c < ' ')
+                    {
+                        String hex = Integer.toHexString(c);
+                        buf.append("\\u0000" /* NOI18N */, 0, 6 - hex.length())
+                           .append(hex);
+                    }
+                    else
+                    {
+                        buf.append(c);
+                    }
+
+                    break;
+            }
+        }
+
+        buf.append('"');
+    }
+
+
+    /**
+     * Appends the given duration with three decimal places.
+     *
+     * @param buf buffer to append to.
+     * @param nanos duration in nanoseconds.
+     * @param unit nanoseconds per unit to express the duration in.
+     */
+    private static void appendTime(
+        StringBuffer buf,
+        long         nanos,
+        long         unit)
+    {
+        long thousandths = nanos / (unit / 1000L);
+        long fraction = thousandths % 1000L;
+        buf.append(thousandths / 1000L).append('.');
+
+        if (fraction < 100L)
+        {
+            buf.append((fraction < 10L) ? "00" /* NOI18N */
+                                        : "0" /* NOI18N */);
+        }
+
+        buf.append(fraction);
+    }
+
+
+    /**
+     * Appends the given string with all XML markup characters escaped.
+     *
+     * @param buf buffer to append to.
+     * @param str the string.
+     */
+    private static void appendXml(
+        StringBuffer buf,
+        String       str)
+    {
+        for (int i = 0, size = str.length(); i < size; i++)
+        {
+            char c = str.charAt(i);
+
+            switch (c)
+            {
+                case '<' :
+                    buf.append("&lt;" /* NOI18N */);
+
+                    break;
+
+                case '>' :
+                    buf.append("&gt;" /* NOI18N */);
+
+                    break;
+
+                case '&' :
+                    buf.append("&amp;" /* NOI18N */);
+
+                    break;
+
+                case '"' :
+                    buf.append("&quot;" /* NOI18N */);
+
+                    break;
+
+                default :
+
+                    // control characters are not allowed in XML 1.0
+                    if ((c < ' ') && (c != '\n') && (c != '\r') && (c != '\t'))
+                    {
+                        buf.append('?');
+                    }
+                    else
+                    {
+                        buf.append(c);
+                    }
+
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Creates a new Jalopy instance configured according to the current code
+     * convention.
+     *
+     * @return a new Jalopy instance.
+     */
+    private Jalopy createJalopy()
+    {
+        Jalopy jalopy = new Jalopy();
+        jalopy.setInspect(
+            Convention.getInstance().getBoolean(
+                ConventionKeys.INSPECTOR, ConventionDefaults.INSPECTOR));
+        jalopy.setEncoding(_encoding);
+        jalopy.setForce(true);
+
+        return jalopy;
+    }
+
+
+    /**
+     * Creates the scanner that finds the files to process. Directories are searched
+     * recursively.
+     *
+     * @return a new scanner for the current targets.
+     */
+    private DirectoryScanner createScanner()
+    {
+        Set targets = new HashSet();
+
+        for (int i = 0, size = _targets.size(); i < size; i++)
+        {
+            targets.add(((File) _targets.get(i)).getAbsoluteFile());
+        }
+
+        DirectoryScanner scanner = new DirectoryScanner(targets);
+        scanner.addFilter(new ExtensionFilter(".java" /* NOI18N */));
+        scanner.setCapacity(QUEUE_CAPACITY);
+
+        return scanner;
+    }
+
+
+    /**
+     * Formats the file of the given result and records the outcome.
+     *
+     * @param result the result of the file to format.
+     * @param jalopy Jalopy instance to use.
+     */
+    void format(
+        Result result,
+        Jalopy jalopy)
+    {
+        long start = System.nanoTime();
+        CURRENT.set(result);
+
+        try
+        {
+            if (_diff)
+            {
+                // the diff is computed while printing, nothing is written
+                jalopy.setInput(result.file);
+
+                StringWriter diff = new StringWriter();
+
+                if (jalopy.diff(diff))
+                {
+                    result.status = Result.UNFORMATTED;
+                    result.diff = diff.toString();
+                }
+                else
+                {
+                    result.status =
+                        (jalopy.getState() == Jalopy.State.ERROR) ? Result.FAILED
+                                                                  : Result.UNCHANGED;
+                }
+            }
+            else if (_check)
+            {
+                // the output is compared against the file while printing, so printing
+                // stops at the first difference and nothing is written
+                jalopy.setInput(result.file);
+
+                boolean formatted = jalopy.check();
+
+                if (jalopy.getState() == Jalopy.State.ERROR)
+                {
+                    result.status = Result.FAILED;
+                }
+                else if (formatted)
+                {
+                    result.status = Result.UNCHANGED;
+                }
+                else
+                {
+                    result.status = Result.UNFORMATTED;
+                    result.difference = jalopy.getDifference();
+                }
+            }
+            else
+            {
+                String content = read(result.file);
+
+                // hand the content over as a reader so the original file is neither
+                // backed up nor touched in any other way
+                jalopy.setInput(new StringReader(content), result.file.getPath());
+
+                StringBuffer output = new StringBuffer(content.length() + 1024);
+                jalopy.setOutput(output);
+                jalopy.format();
+
+                if (jalopy.getState() == Jalopy.State.ERROR)
+                {
+                    result.status = Result.FAILED;
+                }
+                else if (content.contentEquals(output))
+                {
+                    result.status = Result.UNCHANGED;
+                }
+                else
+                {
+                    write(result.file, output);
+                    result.status = Result.FORMATTED;
+                }
+            }
+        }
+        catch (Throwable ex)
+        {
+            result.status = Result.FAILED;
+            result.messages.add(
+                (ex.getMessage() == null) ? ex.getClass().getName()
+                                          : ex.getMessage());
+        }
+        finally
+        {
+            CURRENT.set(null);
+            result.time = System.nanoTime() - start;
+        }
+    }
+
+
+    /**
+     * Returns the localized message for the given key.
+     *
+     * @param key the message key.
+     * @param args the message arguments, may be <code>null</code>.
+     *
+     * @return the formatted message.
+     */
+    private static String message(
+        String   key,
+        Object[] args)
+    {
+        String pattern = ResourceBundleFactory.getBundle(BUNDLE_NAME).getString(key);
+
+        return (args == null) ? pattern
+                              : MessageFormat.format(pattern, args);
+    }
+
+
+    /**
+     * Returns the contents of the given file.
+     *
+     * @param file the file to read.
+     *
+     * @return the file contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private String read(File file)
+      throws IOException
+    {
+        Reader in =
+            (_encoding == null) ? new InputStreamReader(new FileInputStream(file))
+                                : new InputStreamReader(
+                new FileInputStream(file), _encoding);
+
+        try
+        {
+            StringBuffer buf = new StringBuffer((int) file.length());
+            char[] chars = new char[8 * 1024];
+
+            for (int count = in.read(chars); count != -1; count = in.read(chars))
+            {
+                buf.append(chars, 0, count);
+            }
+
+            return buf.toString();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+
+    /**
+     * Returns the value of the option at the given position.
+     *
+     * @param argv the command line arguments.
+     * @param index position of the option.
+     *
+     * @return the value following the option.
+     *
+     * @throws IllegalArgumentException if the option has no value.
+     */
+    private static String value(
+        String[] argv,
+        int      index)
+    {
+        if ((index + 1) == argv.length)
+        {
+            throw new IllegalArgumentException(
+                message("MSG_MISSING_VALUE" /* NOI18N */, new Object[] { argv[index] }));
+        }
+
+        return argv[index + 1];
+    }
+
+
+    /**
+     * Writes the given contents to the given file.
+     *
+     * @param file the file to write.
+     * @param contents the contents to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void write(
+        File         file,
+        StringBuffer contents)
+      throws IOException
+    {
+        Writer out =
+            new BufferedWriter(
+                (_encoding == null) ? new OutputStreamWriter(new FileOutputStream(file))
+                                    : new OutputStreamWriter(
+                    new FileOutputStream(file), _encoding));
+
+        try
+        {
+            out.write(contents.toString());
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Writes the report in the configured format.
+     *
+     * @param results the results, ordered by path.
+     * @param elapsed the time the whole run took, in nanoseconds.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void writeReport(
+        Result[] results,
+        long     elapsed)
+      throws IOException
+    {
+        StringBuffer buf = new StringBuffer(results.length * 128);
+
+        if (REPORT_JUNIT.equals(_reportFormat))
+        {
+            writeJunit(buf, results, elapsed);
+        }
+        else
+        {
+            writeJson(buf, results, elapsed);
+        }
+
+        File directory = _report.getAbsoluteFile().getParentFile();
+
+        if (directory != null)
+        {
+            directory.mkdirs();
+        }
+
+        Writer out =
+            new OutputStreamWriter(new FileOutputStream(_report), "UTF-8" /* NOI18N */);
+
+        try
+        {
+            out.write(buf.toString());
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Writes a JSON report.
+     *
+     * @param buf buffer to write to.
+     * @param results the results, ordered by path.
+     * @param elapsed the time the whole run took, in nanoseconds.
+     */
+    private void writeJson(
+        StringBuffer buf,
+        Result[]     results,
+        long         elapsed)
+    {
+        buf.append("{\n  \"version\": " /* NOI18N */);
+        appendJson(buf, Jalopy.getVersion().toString());
+        buf.append(",\n  \"check\": " /* NOI18N */).append(_check);
+        buf.append(",\n  \"time\": " /* NOI18N */);
+        appendTime(buf, elapsed, 1000000L);
+        buf.append(",\n  \"files\": [" /* NOI18N */);
+
+        for (int i = 0; i < results.length; i++)
+        {
+            Result result = results[i];
+            buf.append((i == 0) ? "\n    {\"file\": " /* NOI18N */
+                                : ",\n    {\"file\": " /* NOI18N */);
+            appendJson(buf, result.file.getPath());
+            buf.append(", \"status\": " /* NOI18N */);
+            appendJson(buf, result.status);
+            buf.append(", \"time\": " /* NOI18N */);
+            appendTime(buf, result.time, 1000000L);
+
+            if (result.difference != null)
+            {
+                buf.append(", \"line\": " /* NOI18N */)
+                   .append(result.difference.getLine());
+                buf.append(", \"column\": " /* NOI18N */)
+                   .append(result.difference.getColumn());
+            }
+
+            if (!result.messages.isEmpty())
+            {
+                buf.append(", \"messages\": [" /* NOI18N */);
+
+                for (int j = 0, size = result.messages.size(); j < size; j++)
+                {
+                    if (j > 0)
+                    {
+                        buf.append(", " /* NOI18N */);
+                    }
+
+                    appendJson(buf, (String) result.messages.get(j));
+                }
+
+                buf.append(']');
+            }
+
+            buf.append('}');
+        }
+
+        buf.append("\n  ]\n}\n" /* NOI18N */);
+    }
+
+
+    /**
+     * Writes a JUnit XML report. Every file is a test case that fails if the file would
+     * be formatted (check mode) and errs if the file could not be processed.
+     *
+     * @param buf buffer to write to.
+     * @param results the results, ordered by path.
+     * @param elapsed the time the whole run took, in nanoseconds.
+     */
+    private void writeJunit(
+        StringBuffer buf,
+        Result[]     results,
+        long         elapsed)
+    {
+        int failures = 0;
+        int errors = 0;
+
+        for (int i = 0; i < results.length; i++)
+        {
+            if (results[i].status == Result.FAILED)
+            {
+                errors++;
+            }
+            else if (results[i].status == Result.UNFORMATTED)
+            {
+                failures++;
+            }
+        }
+
+        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" /* NOI18N */);
+        buf.append("<testsuite name=\"jalopy\" tests=\"" /* NOI18N */)
+           .append(results.length);
+        buf.append("\" failures=\"" /* NOI18N */).append(failures);
+        buf.append("\" errors=\"" /* NOI18N */).append(errors);
+        buf.append("\" time=\"" /* NOI18N */);
+        appendTime(buf, elapsed, 1000000000L);
+        buf.append("\">\n" /* NOI18N */);
+
+        for (int i = 0; i < results.length; i++)
+        {
+            Result result = results[i];
+            buf.append("  <testcase classname=\"jalopy\" name=\"" /* NOI18N */);
+            appendXml(buf, result.file.getPath());
+            buf.append("\" time=\"" /* NOI18N */);
+            appendTime(buf, result.time, 1000000000L);
+
+            if (
+                (result.status != Result.FAILED)
+                && (result.status != Result.UNFORMATTED))
+            {
+                buf.append("\"/>\n" /* NOI18N */);
+
+                continue;
+            }
+
+            String element =
+                (result.status == Result.FAILED) ? "error" /* NOI18N */
+                                                 : "failure" /* NOI18N */;
+            buf.append("\">\n    <" /* NOI18N */).append(element);
+            buf.append(" message=\"" /* NOI18N */);
+            appendXml(buf, result.status);
+            buf.append("\">" /* NOI18N */);
+
+            if (result.difference != null)
+            {
+                appendXml(buf, result.getLocation());
+            }
+
+            for (int j = 0, size = result.messages.size(); j < size; j++)
+            {
+                if ((j > 0) || (result.difference != null))
+                {
+                    buf.append('\n');
+                }
+
+                appendXml(buf, (String) result.messages.get(j));
+            }
+
+            buf.append("</" /* NOI18N */).append(element);
+            buf.append(">\n  </testcase>\n" /* NOI18N */);
+        }
+
+        buf.append("</testsuite>\n" /* NOI18N */);
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Formats the files found by the scanner until the scan has finished.
+     */
+    private final class FormatTask
+        implements Runnable
+    {
+        final DirectoryScanner scanner;
+
+        /** The results of the processed files. */
+        final Queue done;
+
+        /** The files already taken, as a file may be given more than once. */
+        final Set seen;
+
+        public FormatTask(
+            DirectoryScanner scanner,
+            Set              seen,
+            Queue            done)
+        {
+            this.scanner = scanner;
+            this.seen = seen;
+            this.done = done;
+        }
+
+        public void run()
+        {
+            Jalopy jalopy = createJalopy();
+
+            try
+            {
+                for (
+                    File file = this.scanner.take(); file != null;
+                    file = this.scanner.take())
+                {
+                    if (this.seen.add(file))
+                    {
+                        Result result = new Result(file);
+                        format(result, jalopy);
+                        this.done.add(result);
+                    }
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    /**
+     * Orders results by path.
+     */
+    private static final class PathComparator
+        implements Comparator
+    {
+        public int compare(
+            Object o1,
+            Object o2)
+        {
+            return ((Result) o1).file.compareTo(((Result) o2).file);
+        }
+    }
+
+
+    /**
+     * The outcome of processing a single file.
+     */
+    static final class Result
+    {
+        /** The file could not be processed. */
+        static final String FAILED = "error" /* NOI18N */;
+
+        /** The file was formatted and written. */
+        static final String FORMATTED = "formatted" /* NOI18N */;
+
+        /** The file is formatted already. */
+        static final String UNCHANGED = "unchanged" /* NOI18N */;
+
+        /** The file would be formatted (check mode only). */
+        static final String UNFORMATTED = "unformatted" /* NOI18N */;
+
+        final File file;
+
+        /** The warnings and errors reported for the file. */
+        final List messages = new ArrayList(2);
+
+        /** Where the formatted output starts to differ (check mode only). */
+        Position difference;
+
+        /** The unified diff of the changes (diff mode only). */
+        String diff;
+        String status = FAILED;
+
+        /** The time spent on the file, in nanoseconds. */
+        long time;
+
+        public Result(File file)
+        {
+            this.file = file;
+        }
+
+        /**
+         * Returns the file location of the first difference, or just the file if
+         * unknown.
+         *
+         * @return the location.
+         */
+        public String getLocation()
+        {
+            return (this.difference == null) ? this.file.getPath()
+                                             : (this.file.getPath() + ':'
+                                             + this.difference);
+        }
+    }
+
+
+    /**
+     * Records the warnings and errors logged during a run with the file that is
+     * currently processed by the logging thread.
+     */
+    private static final class ResultAppender
+        extends AppenderSkeleton
+    {
+        public ResultAppender()
+        {
+            this.name = "JalopyResultAppender" /* NOI18N */;
+            setThreshold(Level.WARN);
+        }
+
+        public void close()
+        {
+        }
+
+
+        public boolean requiresLayout()
+        {
+            return false;
+        }
+
+
+        protected void append(LoggingEvent ev)
+        {
+            Result result = (Result) CURRENT.get();
+
+            if (result != null)
+            {
+                result.messages.add(ev.getRenderedMessage());
+            }
+        }
+    }
+}
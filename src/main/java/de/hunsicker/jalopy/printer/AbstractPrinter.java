@@ -42,7 +42,6 @@ import de.hunsicker.jalopy.language.antlr.ExtendedToken;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 import de.hunsicker.jalopy.language.antlr.Node;
-import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
 import de.hunsicker.jalopy.storage.Loggers;
@@ -141,20 +140,12 @@ abstract class AbstractPrinter
     static final String WHILE_SPACE = "while " /* NOI18N */;
     static final String QUESTION = "?" /* NOI18N */;
 
-    /** The code convention settings. */
-    protected static final Convention settings = Convention.getInstance();
-
     /** Indicates that <strong>no</strong> whitespace should be printed. */
     private static final boolean WHITESPACE_NO = false;
 
     /** Indicates that whitespace should be printed. */
     private static final boolean WHITESPACE_YES = true;
 
-    //~ Instance variables ---------------------------------------------------------------
-
-    /** Helper object that holds arguments for message formatting. */
-    private final Object[] _args = new Object[2];
-
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -267,7 +258,7 @@ abstract class AbstractPrinter
                 out.print(out.getString(length), JavaTokenTypes.WS);
             }
             else if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP)
                 && out.state.markers.isMarked()) // deep indentation
             {
@@ -309,7 +300,7 @@ abstract class AbstractPrinter
         if (out.mode == NodeWriter.MODE_DEFAULT)
         {
             if (
-                !AbstractPrinter.settings.getBoolean(
+                !out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP))
             {
                 /**
@@ -409,14 +400,17 @@ abstract class AbstractPrinter
      * source file.
      *
      * @param node a node.
+     * @param out stream to write to.
      *
      * @return number of blank lines before the given node as found in the parsed source
      *         file.
      */
-    int getOriginalBlankLines(JavaNode node)
+    int getOriginalBlankLines(
+        JavaNode   node,
+        NodeWriter out)
     {
         int keepLinesUpTo =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.BLANK_LINES_KEEP_UP_TO,
                 ConventionDefaults.BLANK_LINES_KEEP_UP_TO);
 
@@ -494,7 +488,7 @@ abstract class AbstractPrinter
             case JavaTokenTypes.RCURLY :
 
                 int blankLinesBeforeRcurly =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_BEFORE_BRACE_RIGHT,
                         ConventionDefaults.BLANK_LINES_BEFORE_BRACE_RIGHT);
 
@@ -565,8 +559,6 @@ abstract class AbstractPrinter
             if (out.issues.containsKey(node))
             {
                 Object value = out.issues.get(node);
-                _args[0] = out.filename;
-                _args[1] = String.valueOf(out.line);
 
                 StringBuffer buf = new StringBuffer(250);
 
@@ -691,7 +683,7 @@ abstract class AbstractPrinter
                  * @todo does this stuff still work in 1.0b9?
                  */
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.BRACE_NEWLINE_LEFT,
                         ConventionDefaults.BRACE_NEWLINE_LEFT))
                 {
@@ -776,7 +768,7 @@ abstract class AbstractPrinter
             // store the position where the first comment starts
             int offset =
                 out.column - 1
-                + AbstractPrinter.settings.getInt(
+                + out.settings.getInt(
                     ConventionKeys.INDENT_SIZE_COMMENT_ENDLINE,
                     ConventionDefaults.INDENT_SIZE_COMMENT_ENDLINE);
 
@@ -933,7 +925,7 @@ abstract class AbstractPrinter
 
         
         int linesToKeep =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.BLANK_LINES_KEEP_UP_TO,
                 ConventionDefaults.BLANK_LINES_KEEP_UP_TO);
         boolean keepLines = linesToKeep > -1;
@@ -1076,7 +1068,7 @@ abstract class AbstractPrinter
 
                         default :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_BEFORE_DECLARATION,
                                     ConventionDefaults.BLANK_LINES_BEFORE_DECLARATION);
 
@@ -1104,13 +1096,13 @@ abstract class AbstractPrinter
                             case JavaTokenTypes.CTOR_DEF :
                             case JavaTokenTypes.INSTANCE_INIT :
                             case JavaTokenTypes.STATIC_INIT :
-                                return AbstractPrinter.settings.getInt(
+                                return out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_BEFORE_BRACE_RIGHT,
                                     ConventionDefaults.BLANK_LINES_BEFORE_BRACE_RIGHT);
 
                             default :
                                 result =
-                                    AbstractPrinter.settings.getInt(
+                                    out.settings.getInt(
                                         ConventionKeys.BLANK_LINES_BEFORE_BRACE_RIGHT,
                                         ConventionDefaults.BLANK_LINES_BEFORE_BRACE_RIGHT);
 
@@ -1130,7 +1122,7 @@ abstract class AbstractPrinter
 
                         default :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_BEFORE_BLOCK,
                                     ConventionDefaults.BLANK_LINES_BEFORE_BLOCK);
 
@@ -1162,7 +1154,7 @@ abstract class AbstractPrinter
 
                         default :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_BEFORE_BLOCK,
                                     ConventionDefaults.BLANK_LINES_BEFORE_BLOCK);
 
@@ -1174,7 +1166,7 @@ abstract class AbstractPrinter
                 case JavaTokenTypes.LITERAL_case :
                 case JavaTokenTypes.LITERAL_default :
                     result =
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.BLANK_LINES_BEFORE_CASE_BLOCK,
                             ConventionDefaults.BLANK_LINES_BEFORE_CASE_BLOCK);
 
@@ -1184,7 +1176,7 @@ abstract class AbstractPrinter
                 case JavaTokenTypes.LITERAL_break :
                 case JavaTokenTypes.LITERAL_continue :
                     result =
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.BLANK_LINES_BEFORE_CONTROL,
                             ConventionDefaults.BLANK_LINES_BEFORE_CONTROL);
 
@@ -1195,7 +1187,7 @@ abstract class AbstractPrinter
                     if (JavaNodeHelper.isFreestandingBlock(node))
                     {
                         result =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_BEFORE_BLOCK,
                                 ConventionDefaults.BLANK_LINES_BEFORE_BLOCK);
                     }
@@ -1207,7 +1199,7 @@ abstract class AbstractPrinter
                 case JavaTokenTypes.LITERAL_finally :
 
                     if (
-                        !AbstractPrinter.settings.getBoolean(
+                        !out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_RIGHT,
                             ConventionDefaults.BRACE_NEWLINE_RIGHT))
                     {
@@ -1245,7 +1237,7 @@ abstract class AbstractPrinter
 
                         case JavaTokenTypes.METHOD_DEF :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_METHOD,
                                     ConventionDefaults.BLANK_LINES_AFTER_METHOD);
 
@@ -1276,7 +1268,7 @@ abstract class AbstractPrinter
 
                         case JavaTokenTypes.CTOR_DEF :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_METHOD,
                                     ConventionDefaults.BLANK_LINES_AFTER_METHOD);
 
@@ -1320,7 +1312,7 @@ OUTER:
 
                         case JavaTokenTypes.CLASS_DEF :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_CLASS,
                                     ConventionDefaults.BLANK_LINES_AFTER_CLASS);
 
@@ -1353,7 +1345,7 @@ OUTER:
                         // fall-through
                         case JavaTokenTypes.IMPORT :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_IMPORT,
                                     ConventionDefaults.BLANK_LINES_AFTER_IMPORT);
 
@@ -1398,7 +1390,7 @@ OUTER:
 
                         case JavaTokenTypes.INTERFACE_DEF :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_INTERFACE,
                                     ConventionDefaults.BLANK_LINES_AFTER_INTERFACE);
 
@@ -1414,7 +1406,7 @@ OUTER:
 
                         case JavaTokenTypes.IMPORT :
                             result =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.BLANK_LINES_AFTER_IMPORT,
                                     ConventionDefaults.BLANK_LINES_AFTER_IMPORT);
 
@@ -1484,7 +1476,7 @@ OUTER:
                     default :
 
                         int blankLinesAfterBlock =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_AFTER_BLOCK,
                                 ConventionDefaults.BLANK_LINES_AFTER_BLOCK);
 
@@ -1494,7 +1486,7 @@ OUTER:
                         }
 
                         /*
-                           if (!AbstractPrinter.settings.getBoolean(ConventionKeys.BRACE_NEWLINE_RIGHT,
+                           if (!out.settings.getBoolean(ConventionKeys.BRACE_NEWLINE_RIGHT,
                                                       ConventionDefaults.BRACE_NEWLINE_RIGHT))
                            {
                                switch (node.getPreviousSibling().getType())
@@ -1548,7 +1540,7 @@ OUTER:
                     default :
 
                         int blankLinesAfterDeclaration =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_AFTER_DECLARATION,
                                 ConventionDefaults.BLANK_LINES_AFTER_DECLARATION);
 
@@ -1569,7 +1561,7 @@ OUTER:
             case JavaTokenTypes.LCURLY :
 
                 int blankLinesAfterOpenCurly =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_AFTER_BRACE_LEFT,
                         ConventionDefaults.BLANK_LINES_AFTER_BRACE_LEFT);
 
@@ -1600,7 +1592,7 @@ OUTER:
 
             default :
 
-                int original = getOriginalBlankLines(node);
+                int original = getOriginalBlankLines(node, out);
 
                 if (original > result)
                 {
@@ -1637,7 +1629,7 @@ OUTER:
             case JavaTokenTypes.LCURLY :
 
                 int blankLinesAfterOpenCurly =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_AFTER_BRACE_LEFT,
                         ConventionDefaults.BLANK_LINES_AFTER_BRACE_LEFT);
 
@@ -1665,7 +1657,7 @@ OUTER:
 
                     default :
                         result =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE,
                                 ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE);
 
@@ -1676,7 +1668,7 @@ OUTER:
 
             case JavaTokenTypes.SPECIAL_COMMENT :
                 result =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE,
                         ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE);
 
@@ -1693,7 +1685,7 @@ OUTER:
 
                     default :
                         result =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_BEFORE_COMMENT_MULTI_LINE,
                                 ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_MULTI_LINE);
 
@@ -1713,7 +1705,7 @@ OUTER:
 
                     default :
                         result =
-                            AbstractPrinter.settings.getInt(
+                            out.settings.getInt(
                                 ConventionKeys.BLANK_LINES_BEFORE_COMMENT_JAVADOC,
                                 ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_JAVADOC);
 
@@ -1745,7 +1737,7 @@ OUTER:
             case JavaTokenTypes.PACKAGE_DEF :
 
                 int linesAfterPackage =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_AFTER_PACKAGE,
                         ConventionDefaults.BLANK_LINES_AFTER_PACKAGE);
 
@@ -1762,7 +1754,7 @@ OUTER:
         }
 
         int keepLinesUpTo =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.BLANK_LINES_KEEP_UP_TO,
                 ConventionDefaults.BLANK_LINES_KEEP_UP_TO);
 
@@ -1821,29 +1813,28 @@ OUTER:
                 return true;
         }
         */
-        JavaNode parent = node.getParent();
-
-        switch (parent.getType())
+        // walk up the tree until the answer is known
+        for (JavaNode parent = node.getParent();; node = parent, parent = node.getParent())
         {
-            case JavaTokenTypes.SLIST :
-            case JavaTokenTypes.OBJBLOCK :
-            case JavaTokenTypes.LCURLY :
-            case JavaTokenTypes.ROOT :
-                return true;
-
-            case JavaTokenTypes.MODIFIERS :
-                return parent.getFirstChild() == node;
+            switch (parent.getType())
+            {
+                case JavaTokenTypes.SLIST :
+                case JavaTokenTypes.OBJBLOCK :
+                case JavaTokenTypes.LCURLY :
+                case JavaTokenTypes.ROOT :
+                    return true;
 
-            case JavaTokenTypes.EXPR :
-            case JavaTokenTypes.METHOD_CALL :
-            case JavaTokenTypes.IMPORT :
-            case JavaTokenTypes.CLASS_DEF :
-            case JavaTokenTypes.INTERFACE_DEF :
-            case JavaTokenTypes.PACKAGE_DEF :
-                return false;
+                case JavaTokenTypes.MODIFIERS :
+                    return parent.getFirstChild() == node;
 
-            default :
-                return canHaveBlankLinesBefore(parent);
+                case JavaTokenTypes.EXPR :
+                case JavaTokenTypes.METHOD_CALL :
+                case JavaTokenTypes.IMPORT :
+                case JavaTokenTypes.CLASS_DEF :
+                case JavaTokenTypes.INTERFACE_DEF :
+                case JavaTokenTypes.PACKAGE_DEF :
+                    return false;
+            }
         }
     }
 
@@ -2168,7 +2159,7 @@ OUTER:
 
         if (
             (comment.getColumn() == 1)
-            && (!AbstractPrinter.settings.getBoolean(
+            && (!out.settings.getBoolean(
                 ConventionKeys.INDENT_FIRST_COLUMN_COMMENT,
                 ConventionDefaults.INDENT_FIRST_COLUMN_COMMENT)))
         {
@@ -2183,7 +2174,7 @@ OUTER:
         {
             out.print(
                 out.getString(
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.INDENT_SIZE_COMMENT_ENDLINE,
                         ConventionDefaults.INDENT_SIZE_COMMENT_ENDLINE)),
                 JavaTokenTypes.WS);
@@ -2233,7 +2224,7 @@ OUTER:
             out.setIndentLevel(indent);
         }
 
-        if (newlineAfter || shouldForceNewline(node, comment))
+        if (newlineAfter || shouldForceNewline(node, comment, out))
         {
             out.printNewline();
         }
@@ -2275,7 +2266,7 @@ OUTER:
         if (
             (comment.getType() == JavaTokenTypes.SPECIAL_COMMENT)
             || ((comment.getColumn() == 1)
-            && (!AbstractPrinter.settings.getBoolean(
+            && (!out.settings.getBoolean(
                 ConventionKeys.INDENT_FIRST_COLUMN_COMMENT,
                 ConventionDefaults.INDENT_FIRST_COLUMN_COMMENT))))
         {
@@ -2373,7 +2364,7 @@ OUTER:
         String[] lines = null;
 
         boolean format =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.COMMENT_FORMAT_MULTI_LINE,
                 ConventionDefaults.COMMENT_FORMAT_MULTI_LINE);
 
@@ -2446,13 +2437,15 @@ OUTER:
      *
      * @param node a node.
      * @param comment a comment.
+     * @param out stream to write to.
      *
      * @return <code>true</code> if the given comment makes a line break necessary after
      *         the given node.
      */
     private boolean shouldForceNewline(
         AST                     node,
-        CommonHiddenStreamToken comment)
+        CommonHiddenStreamToken comment,
+        NodeWriter              out)
     {
         switch (comment.getType())
         {
@@ -2461,7 +2454,7 @@ OUTER:
             case JavaTokenTypes.SEPARATOR_COMMENT :
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.BRACE_NEWLINE_LEFT,
                         ConventionDefaults.BRACE_NEWLINE_LEFT))
                 {
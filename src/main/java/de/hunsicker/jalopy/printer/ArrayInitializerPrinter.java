@@ -90,18 +90,18 @@ final class ArrayInitializerPrinter
         //   - custom user value : wrap if more than 'value' elements
         //
         int maxElementsPerLine =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_WRAP_ARRAY_ELEMENTS,
                 ConventionDefaults.LINE_WRAP_ARRAY_ELEMENTS);
         boolean wrapAsNeeded = maxElementsPerLine == 0;
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
         boolean bracesPadding =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_BRACES, ConventionDefaults.PADDING_BRACES);
         boolean spaceAfterComma =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA);
         int numElements = 0; // number of array elements
         int last = out.last;
@@ -165,7 +165,7 @@ final class ArrayInitializerPrinter
                     {
                         if (
                             (out.getIndentLength() != (out.column - 1))
-                            && (AbstractPrinter.settings.getBoolean(
+                            && (out.settings.getBoolean(
                                 ConventionKeys.BRACE_NEWLINE_LEFT,
                                 ConventionDefaults.BRACE_NEWLINE_LEFT)
                             && (((JavaNode) node).getParent().getType() != JavaTokenTypes.ARRAY_INIT)))
@@ -181,7 +181,7 @@ final class ArrayInitializerPrinter
                                 case JavaTokenTypes.ARRAY_DECLARATOR :
 
                                     if (
-                                        AbstractPrinter.settings.getBoolean(
+                                        out.settings.getBoolean(
                                             ConventionKeys.SPACE_BEFORE_BRACES,
                                             ConventionDefaults.SPACE_BEFORE_BRACES))
                                     {
@@ -205,7 +205,7 @@ final class ArrayInitializerPrinter
                     Marker marker = null;
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP))
                     {
                         if (!out.state.markers.isMarked())
@@ -306,7 +306,7 @@ final class ArrayInitializerPrinter
                                             wrapped = true;
                                             count = 1;
 
-                                            int blankLines = getOriginalBlankLines(child);
+                                            int blankLines = getOriginalBlankLines(child, out);
 
                                             if (blankLines > 0)
                                             {
@@ -316,7 +316,7 @@ final class ArrayInitializerPrinter
                                     }
                                     else
                                     {
-                                        int blankLines = getOriginalBlankLines(child);
+                                        int blankLines = getOriginalBlankLines(child, out);
 
                                         if (blankLines > 0)
                                         {
@@ -388,7 +388,7 @@ final class ArrayInitializerPrinter
             case JavaTokenTypes.ARRAY_DECLARATOR :
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.SPACE_BEFORE_BRACES,
                         ConventionDefaults.SPACE_BEFORE_BRACES))
                 {
@@ -86,7 +86,7 @@ final class ArrayTypePrinter
         AST child = node.getFirstChild();
 
         boolean bracketsAfterIdentifier =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.ARRAY_BRACKETS_AFTER_IDENT,
                 ConventionDefaults.ARRAY_BRACKETS_AFTER_IDENT);
 
@@ -99,7 +99,7 @@ final class ArrayTypePrinter
                     case JavaTokenTypes.EXPR :
 
                         if (
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.PADDING_BRACKETS,
                                 ConventionDefaults.PADDING_BRACKETS))
                         {
@@ -143,7 +143,7 @@ final class ArrayTypePrinter
                         else
                         {
                             if (
-                                AbstractPrinter.settings.getBoolean(
+                                out.settings.getBoolean(
                                     ConventionKeys.SPACE_BEFORE_BRACKETS_TYPES,
                                     ConventionDefaults.SPACE_BEFORE_BRACKETS_TYPES))
                             {
@@ -163,7 +163,7 @@ final class ArrayTypePrinter
         else // followed by an ARRAY_INIT
         {
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.SPACE_BEFORE_BRACKETS_TYPES,
                     ConventionDefaults.SPACE_BEFORE_BRACKETS_TYPES))
             {
@@ -30,8 +30,6 @@
  */
 package de.hunsicker.jalopy.printer;
 
-import java.io.IOException;
-
 import antlr.collections.AST;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -79,15 +77,12 @@ final class AssignmentOperatorPrinter
     /**
      * {@inheritDoc}
      */
-    public void print(
+    protected boolean isPadded(
         AST        node,
         NodeWriter out)
-      throws IOException
     {
-        super.print(
-            node,
-            AbstractPrinter.settings.getBoolean(
-                ConventionKeys.PADDING_ASSIGNMENT_OPERATORS,
-                ConventionDefaults.PADDING_ASSIGNMENT_OPERATORS), out);
+        return out.settings.getBoolean(
+            ConventionKeys.PADDING_ASSIGNMENT_OPERATORS,
+            ConventionDefaults.PADDING_ASSIGNMENT_OPERATORS);
     }
 }
@@ -111,31 +111,31 @@ final class AssignmentPrinter
         printCommentsBefore(node, out);
 
         boolean wrapLines =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
             && (out.mode == NodeWriter.MODE_DEFAULT);
         boolean preferWrapAfterLeftParen =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_AFTER_LEFT_PAREN,
                 ConventionDefaults.LINE_WRAP_AFTER_LEFT_PAREN);
         boolean preferWrapAfterAssign =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_AFTER_ASSIGN,
                 ConventionDefaults.LINE_WRAP_AFTER_ASSIGN);
         boolean padding =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_ASSIGNMENT_OPERATORS,
                 ConventionDefaults.PADDING_ASSIGNMENT_OPERATORS);
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
         boolean indentStandard =
-            !AbstractPrinter.settings.getBoolean(
+            !out.settings.getBoolean(
                 ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP);
         
-        boolean alignVarAssigns = AbstractPrinter.settings.getBoolean(
+        boolean alignVarAssigns = out.settings.getBoolean(
                             ConventionKeys.ALIGN_VAR_DECL_ASSIGNS,
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                             ConventionKeys.ALIGN_VAR_ASSIGNS,
                             ConventionDefaults.ALIGN_VAR_ASSIGNS));
 
@@ -150,11 +150,11 @@ final class AssignmentPrinter
                 if (
                     !wrapAfterAssign
                     && alignVarAssigns && 
-                        !((JavaNode)node).getParent().hasJavadocComment(AbstractPrinter.settings.getBoolean(
+                        !((JavaNode)node).getParent().hasJavadocComment(out.settings.getBoolean(
                 ConventionKeys.DONT_COMMENT_JAVADOC_WHEN_ML,
                 ConventionDefaults.DONT_COMMENT_JAVADOC_WHEN_ML)))
                 {
-                    if (isNewChunk(parent, JavaTokenTypes.VARIABLE_DEF))
+                    if (isNewChunk(parent, JavaTokenTypes.VARIABLE_DEF, out))
                     {
                         out.state.assignOffset = OFFSET_NONE;
                     }
@@ -195,13 +195,12 @@ final class AssignmentPrinter
                 }
                 else if (wrapLines)
                 {
-                    TestNodeWriter tester = out.testers.get();
-                    PrinterFactory.create(expr, out).print(expr, tester);
+                    int length = out.testers.measure(expr, out, lineLength - out.column);
 
                     if (
                         (preferWrapAfterAssign)
-                        && ((tester.length + out.column + (padding ? 3
-                                                                   : 1)) > lineLength))
+                        && ((length + out.column + (padding ? 3
+                                                            : 1)) > lineLength))
                     {
                         if (padding)
                         {
@@ -282,8 +281,6 @@ final class AssignmentPrinter
 
                     PrinterFactory.create(expr, out).print(expr, out);
 
-                    out.testers.release(tester);
-
                     if (marker != null)
                     {
                         out.state.markers.remove(marker);
@@ -324,7 +321,7 @@ final class AssignmentPrinter
         }
         else // assignment expression
         {
-            alignVarAssigns = AbstractPrinter.settings.getBoolean(
+            alignVarAssigns = out.settings.getBoolean(
                             ConventionKeys.ALIGN_VAR_ASSIGNS,
                             ConventionDefaults.ALIGN_VAR_ASSIGNS);
             AST rhs = printLeftHandSide(node, out);
@@ -373,7 +370,7 @@ final class AssignmentPrinter
                     {
                         JavaNode parent = ((JavaNode) node).getParent();
 
-                        if (isNewChunk(parent, JavaTokenTypes.ASSIGN) || out.state.anonymousInnerClass)
+                        if (isNewChunk(parent, JavaTokenTypes.ASSIGN, out) || out.state.anonymousInnerClass)
                         {
                             out.state.assignOffset = OFFSET_NONE;
                         }
@@ -472,12 +469,14 @@ final class AssignmentPrinter
      * @param node a VARIABLE_DEF or EXPR node.
      * @param type the node type for which the chunk state should be determined, either
      *        VARIABLE_DEF or ASSIGN.
+     * @param out stream to write to.
      *
      * @return <code>true</code> if the node marks a new chunk.
      */
     private boolean isNewChunk(
-        AST node,
-        int type)
+        AST        node,
+        int        type,
+        NodeWriter out)
     {
         JavaNode n = (JavaNode) node;
 
@@ -489,7 +488,7 @@ final class AssignmentPrinter
         }
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.CHUNKS_BY_COMMENTS, ConventionDefaults.CHUNKS_BY_COMMENTS))
         {
             if (n.hasCommentsBefore())
@@ -499,7 +498,7 @@ final class AssignmentPrinter
         }
 
         int maxLinesBetween =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.BLANK_LINES_KEEP_UP_TO,
                 ConventionDefaults.BLANK_LINES_KEEP_UP_TO);
 
@@ -508,7 +507,7 @@ final class AssignmentPrinter
         if (maxLinesBetween > 0)
         {
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.CHUNKS_BY_BLANK_LINES,
                     ConventionDefaults.CHUNKS_BY_BLANK_LINES))
             {
@@ -685,7 +684,7 @@ final class AssignmentPrinter
                 {
                     case JavaTokenTypes.VARIABLE_DEF :
 
-                        if (isNewChunk(next, JavaTokenTypes.VARIABLE_DEF))
+                        if (isNewChunk(next, JavaTokenTypes.VARIABLE_DEF, out))
                         {
                             out.state.assignOffset = OFFSET_NONE;
                         }
@@ -696,7 +695,7 @@ final class AssignmentPrinter
 
                         if (
                             !isAssignment(next)
-                            || isNewChunk(next, JavaTokenTypes.ASSIGN))
+                            || isNewChunk(next, JavaTokenTypes.ASSIGN, out))
                         {
                             out.state.assignOffset = OFFSET_NONE;
                         }
@@ -725,7 +724,7 @@ final class AssignmentPrinter
                             break;
                         }
 
-                        //boolean lastAssign = isNewChunk(next, JavaTokenTypes.ASSIGN); // last chunk
+                        //boolean lastAssign = isNewChunk(next, JavaTokenTypes.ASSIGN, out); // last chunk
                         int length = 0;
                         TestNodeWriter tester = out.testers.get();
 SEARCH:
@@ -752,7 +751,7 @@ SEARCH:
 
                                         if (t != null)
                                         {
-                                            if (isNewChunk(t, JavaTokenTypes.ASSIGN))
+                                            if (isNewChunk(t, JavaTokenTypes.ASSIGN, out))
                                             {
                                                 break SEARCH;
                                             }
@@ -799,7 +798,7 @@ SEARCH:
                         //boolean lastAssign = false;
                         TestNodeWriter tester = out.testers.get();
                         boolean alignVariables =
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.ALIGN_VAR_IDENTS,
                                 ConventionDefaults.ALIGN_VAR_IDENTS);
 SEARCH:
@@ -824,7 +823,7 @@ SEARCH:
                                             length = tester.length;
                                         }
 
-                                        if (isNewChunk(def, JavaTokenTypes.ASSIGN))
+                                        if (isNewChunk(def, JavaTokenTypes.ASSIGN, out))
                                         {
                                             break SEARCH;
                                         }
@@ -875,7 +874,7 @@ SEARCH:
 
                                     if (n != null)
                                     {
-                                        if (isNewChunk(n, JavaTokenTypes.VARIABLE_DEF))
+                                        if (isNewChunk(n, JavaTokenTypes.VARIABLE_DEF, out))
                                         {
                                             break SEARCH;
                                         }
@@ -46,6 +46,7 @@ import de.hunsicker.jalopy.language.antlr.Node;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
 import de.hunsicker.jalopy.storage.Environment;
+import de.hunsicker.jalopy.storage.Template;
 
 
 /**
@@ -103,13 +104,13 @@ abstract class BasicDeclarationPrinter
     {
         // TODO Template this out for CLASS DEFINITIONS
         String t =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CLASS,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CLASS).replaceAll("\\*/", "").trim();
         StringBuffer buf = new StringBuffer(t);
         
         String bottomText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM);
         String leadingSeparator = bottomText.substring(0, bottomText.indexOf('*') + 1);
@@ -120,13 +121,13 @@ abstract class BasicDeclarationPrinter
             buf.append(DELIMETER);
             addParameters(
                 buf, node,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM),
                 out.environment);
         }
 
-        String bottom =AbstractPrinter.settings.get(
+        String bottom =out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM);
         buf.append(bottom);
@@ -159,7 +160,7 @@ abstract class BasicDeclarationPrinter
 
                 if (
                     isEnabled(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.COMMENT_JAVADOC_METHOD_MASK,
                             ConventionDefaults.COMMENT_JAVADOC_METHOD_MASK), node))
                 {
@@ -172,7 +173,7 @@ abstract class BasicDeclarationPrinter
 
                 if (
                     isEnabled(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.COMMENT_JAVADOC_CTOR_MASK,
                             ConventionDefaults.COMMENT_JAVADOC_CTOR_MASK), node))
                 {
@@ -186,7 +187,7 @@ abstract class BasicDeclarationPrinter
 
                 if (
                     isEnabled(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.COMMENT_JAVADOC_VARIABLE_MASK,
                             ConventionDefaults.COMMENT_JAVADOC_VARIABLE_MASK), node))
                 {
@@ -199,7 +200,7 @@ abstract class BasicDeclarationPrinter
             case JavaTokenTypes.CLASS_DEF :
                 if (
                     isEnabled(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.COMMENT_JAVADOC_CLASS_MASK,
                             ConventionDefaults.COMMENT_JAVADOC_CLASS_MASK), node))
                 {
@@ -213,7 +214,7 @@ abstract class BasicDeclarationPrinter
 
                 if (
                     isEnabled(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.COMMENT_JAVADOC_CLASS_MASK,
                             ConventionDefaults.COMMENT_JAVADOC_CLASS_MASK), node))
                 {
@@ -238,13 +239,13 @@ abstract class BasicDeclarationPrinter
     {
         // TODO Template this out for INTERFACE DEFINITIONS
         String t =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_INTERFACE,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_INTERFACE).replaceAll("\\*/", "").trim();
         StringBuffer buf = new StringBuffer(t);
         
         String bottomText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM);
         String leadingSeparator = bottomText.substring(0, bottomText.indexOf('*') + 1);
@@ -255,14 +256,14 @@ abstract class BasicDeclarationPrinter
             buf.append(DELIMETER);
             addParameters(
                 buf, node,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM),
                 out.environment);
         }
 
         
-        buf.append(AbstractPrinter.settings.get(
+        buf.append(out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM));
 
@@ -290,7 +291,7 @@ abstract class BasicDeclarationPrinter
         Node comment = (Node) out.getJavaNodeFactory().create(JavaTokenTypes.JAVADOC_COMMENT, GENERATED_COMMENT);
         StringBuffer buf = new StringBuffer(150);
         String topText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_TOP,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_TOP).trim();
         buf.append(topText);
@@ -298,7 +299,7 @@ abstract class BasicDeclarationPrinter
 
         AST parameters = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.PARAMETERS);
         String bottomText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM);
         String leadingSeparator = bottomText.substring(0, bottomText.indexOf('*') + 1);
@@ -309,7 +310,7 @@ abstract class BasicDeclarationPrinter
             buf.append(DELIMETER);
             addParameters(
                 buf, node,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM),
                 out.environment);
@@ -323,7 +324,7 @@ abstract class BasicDeclarationPrinter
             buf.append(leadingSeparator);
             buf.append(DELIMETER);
             buf.append(
-                AbstractPrinter.settings.get(
+                out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_RETURN,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_RETURN));
             buf.append(DELIMETER);
@@ -341,7 +342,7 @@ abstract class BasicDeclarationPrinter
                 JavadocPrinter.getValidTypeNames(node, JavaTokenTypes.LITERAL_throws);
             addExceptions(
                 buf, types,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_EXCEPTION,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_EXCEPTION),
                 out.environment);
@@ -375,11 +376,11 @@ abstract class BasicDeclarationPrinter
         if (
             !out.state.anonymousInnerClass
             && (!out.state.innerClass
-            || AbstractPrinter.settings.getBoolean(
+            || out.settings.getBoolean(
                 ConventionKeys.COMMENT_JAVADOC_INNER_CLASS,
                 ConventionDefaults.COMMENT_JAVADOC_INNER_CLASS)))
         {
-            boolean hasJavadoc = node.hasJavadocComment(AbstractPrinter.settings.getBoolean(
+            boolean hasJavadoc = node.hasJavadocComment(out.settings.getBoolean(
                 ConventionKeys.DONT_COMMENT_JAVADOC_WHEN_ML,
                 ConventionDefaults.DONT_COMMENT_JAVADOC_WHEN_ML));
 
@@ -405,7 +406,7 @@ abstract class BasicDeclarationPrinter
                              */
 
                             /*
-                              if (AbstractPrinter.settings.getBoolean(ConventionKeys.COMMENT_JAVADOC_TRANSFORM,
+                              if (out.settings.getBoolean(ConventionKeys.COMMENT_JAVADOC_TRANSFORM,
                                                            ConventionDefaults.COMMENT_JAVADOC_TRANSFORM))
                             {
                             }
@@ -511,7 +512,7 @@ abstract class BasicDeclarationPrinter
     {
         Node comment = (Node) out.getJavaNodeFactory().create(JavaTokenTypes.JAVADOC_COMMENT, GENERATED_COMMENT);
         String topText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_TOP,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_TOP).trim();
         StringBuffer buf = new StringBuffer();
@@ -526,7 +527,7 @@ abstract class BasicDeclarationPrinter
 
         AST parameters = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.PARAMETERS);
         String bottomText =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM);
         String leadingSeparator = bottomText.substring(0, bottomText.indexOf('*') + 1);
@@ -537,7 +538,7 @@ abstract class BasicDeclarationPrinter
             buf.append(DELIMETER);
             addParameters(
                 buf, node,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM),
                 out.environment);
@@ -555,7 +556,7 @@ abstract class BasicDeclarationPrinter
                 JavadocPrinter.getValidTypeNames(node, JavaTokenTypes.LITERAL_throws);
             addExceptions(
                 buf, types,
-                AbstractPrinter.settings.get(
+                out.settings.getTemplate(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_EXCEPTION,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_EXCEPTION),
                 out.environment);
@@ -578,7 +579,7 @@ abstract class BasicDeclarationPrinter
      *
      * @param buf buffer to add the interpolated text to.
      * @param types EXCEPTION node.
-     * @param text exception template text
+     * @param template exception template
      * @param environment The enviroment
      *
      * @since 1.0b8
@@ -586,14 +587,14 @@ abstract class BasicDeclarationPrinter
     private void addExceptions(
         StringBuffer buf,
         List         types,
-        String       text,
+        Template     template,
         Environment  environment)
     {
         for (int i = 0, size = types.size(); i < size; i++)
         {
             String type = (String) types.get(i);
             environment.set(Environment.Variable.TYPE_EXCEPTION.getName(), type);
-            buf.append(environment.interpolate(text));
+            template.render(environment, buf);
             buf.append(DELIMETER);
             environment.unset(Environment.Variable.TYPE_EXCEPTION.getName());
         }
@@ -606,7 +607,7 @@ abstract class BasicDeclarationPrinter
      *
      * @param buf buffer to add the interpolated text to.
      * @param node PARAMETERS node.
-     * @param text exception template text
+     * @param template parameter template
      * @param environment The enviroment
      *
      * @since 1.0b8
@@ -614,7 +615,7 @@ abstract class BasicDeclarationPrinter
     private void addParameters(
         StringBuffer buf,
         AST          node,
-        String       text,
+        Template     template,
         Environment  environment)
     {
         AST parameters = JavaNodeHelper.getFirstChild(node, JavaTokenTypes.PARAMETERS);
@@ -627,7 +628,7 @@ abstract class BasicDeclarationPrinter
                     String type =
                         "<" + JavaNodeHelper.getFirstChild(child, JavaTokenTypes.IDENT).getText()+">";
                     environment.set(Environment.Variable.TYPE_PARAM.getName(), type);
-                    buf.append(environment.interpolate(text));
+                    template.render(environment, buf);
                     buf.append(DELIMETER);
                     environment.unset(Environment.Variable.TYPE_PARAM.getName());
             	}
@@ -645,7 +646,7 @@ abstract class BasicDeclarationPrinter
                         String type =
                             JavaNodeHelper.getFirstChild(child, JavaTokenTypes.IDENT).getText();
                         environment.set(Environment.Variable.TYPE_PARAM.getName(), type);
-                        buf.append(environment.interpolate(text));
+                        template.render(environment, buf);
                         buf.append(DELIMETER);
                         environment.unset(Environment.Variable.TYPE_PARAM.getName());
     
@@ -664,7 +665,7 @@ abstract class BasicDeclarationPrinter
     private void addVariableComment(JavaNode node, NodeWriter out)
     {
         String t =
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.COMMENT_JAVADOC_TEMPLATE_VARIABLE,
                 ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_VARIABLE);
         Node text = (Node) out.getJavaNodeFactory().create(JavadocTokenTypes.PCDATA, t);
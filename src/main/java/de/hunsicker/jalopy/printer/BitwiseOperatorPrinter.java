@@ -30,8 +30,6 @@
  */
 package de.hunsicker.jalopy.printer;
 
-import java.io.IOException;
-
 import antlr.collections.AST;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -77,15 +75,12 @@ final class BitwiseOperatorPrinter
     /**
      * {@inheritDoc}
      */
-    public void print(
+    protected boolean isPadded(
         AST        node,
         NodeWriter out)
-      throws IOException
     {
-        super.print(
-            node,
-            AbstractPrinter.settings.getBoolean(
-                ConventionKeys.PADDING_BITWISE_OPERATORS,
-                ConventionDefaults.PADDING_BITWISE_OPERATORS), out);
+        return out.settings.getBoolean(
+            ConventionKeys.PADDING_BITWISE_OPERATORS,
+            ConventionDefaults.PADDING_BITWISE_OPERATORS);
     }
 }
@@ -91,7 +91,7 @@ class BlockPrinter
         boolean newLineAfter = false;
 
         boolean treatDifferent =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_TREAT_DIFFERENT,
                 ConventionDefaults.BRACE_TREAT_DIFFERENT);
 
@@ -126,14 +126,14 @@ class BlockPrinter
 
         boolean freestanding = JavaNodeHelper.isFreestandingBlock(lcurly);
         boolean cuddleEmpty =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_EMPTY_CUDDLE, ConventionDefaults.BRACE_EMPTY_CUDDLE);
         boolean insertEmptyStatement =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_EMPTY_INSERT_STATEMENT,
                 ConventionDefaults.BRACE_EMPTY_INSERT_STATEMENT);
         boolean leftBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_LEFT, ConventionDefaults.BRACE_NEWLINE_LEFT);
 
         // do we print a SLIST or an OBJBLOCK?
@@ -231,7 +231,7 @@ class BlockPrinter
         boolean forceNewLineAfter =true;
 	    int wrapLineCount = Integer.MAX_VALUE;
         boolean removeBlockBraces =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_REMOVE_BLOCK, ConventionDefaults.BRACE_REMOVE_BLOCK);
 
         if (freestanding)
@@ -268,9 +268,9 @@ class BlockPrinter
             }
             switch(lcurly.getParent().getType()) {
                 case JavaTokenTypes.ANNOTATION:
-                    forceNewLineAfter = !AbstractPrinter.settings.getBoolean(ConventionKeys.ANON_LCURLY_NO_NEW_LINE,
+                    forceNewLineAfter = !out.settings.getBoolean(ConventionKeys.ANON_LCURLY_NO_NEW_LINE,
                                                                             ConventionDefaults.ANON_LCURLY_NO_NEW_LINE);
-                    wrapLineCount = AbstractPrinter.settings.getInt(
+                    wrapLineCount = out.settings.getInt(
                                                                         ConventionKeys.ANON_ALIGN_VALUES_WHEN_EXCEEDS,
                                                                         ConventionDefaults.ANON_ALIGN_VALUES_WHEN_EXCEEDS);
                     newLineAfter = false;
@@ -288,7 +288,7 @@ class BlockPrinter
                 case JavaTokenTypes.LITERAL_if :
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_REMOVE_IF_ELSE,
                             ConventionDefaults.BRACE_REMOVE_IF_ELSE))
                     {
@@ -305,7 +305,7 @@ class BlockPrinter
                 case JavaTokenTypes.LITERAL_for :
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_REMOVE_FOR,
                             ConventionDefaults.BRACE_REMOVE_FOR))
                     {
@@ -322,7 +322,7 @@ class BlockPrinter
                 case JavaTokenTypes.LITERAL_while :
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_REMOVE_WHILE,
                             ConventionDefaults.BRACE_REMOVE_WHILE))
                     {
@@ -339,7 +339,7 @@ class BlockPrinter
                 case JavaTokenTypes.LITERAL_do :
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_REMOVE_DO_WHILE,
                             ConventionDefaults.BRACE_REMOVE_DO_WHILE))
                     {
@@ -354,18 +354,18 @@ class BlockPrinter
                     break;
                 case JavaTokenTypes.LITERAL_enum:
                     newLineAfter = false;
-                	forceNewLineAfter = !AbstractPrinter.settings.getBoolean(ConventionKeys.ENUM_LCURLY_NO_NEW_LINE,
+                	forceNewLineAfter = !out.settings.getBoolean(ConventionKeys.ENUM_LCURLY_NO_NEW_LINE,
                                                                         ConventionDefaults.ENUM_LCURLY_NO_NEW_LINE);
-                    wrapLineCount = AbstractPrinter.settings.getInt(
+                    wrapLineCount = out.settings.getInt(
                                                                     ConventionKeys.ENUM_ALIGN_VALUES_WHEN_EXCEEDS,
                                                                     ConventionDefaults.ENUM_ALIGN_VALUES_WHEN_EXCEEDS);
                 	indent=true;
             	break;
             	
                 case JavaTokenTypes.AT:
-                	forceNewLineAfter = !AbstractPrinter.settings.getBoolean(ConventionKeys.ANON_DEF_LCURLY_NO_NEW_LINE,
+                	forceNewLineAfter = !out.settings.getBoolean(ConventionKeys.ANON_DEF_LCURLY_NO_NEW_LINE,
                                                                              ConventionDefaults.ANON_DEF_LCURLY_NO_NEW_LINE);
-                    wrapLineCount = AbstractPrinter.settings.getInt(
+                    wrapLineCount = out.settings.getInt(
                                                                     ConventionKeys.ANON_DEF_ALIGN_VALUES_WHEN_EXCEEDS,
                                                                     ConventionDefaults.ANON_DEF_ALIGN_VALUES_WHEN_EXCEEDS);
 	            	newLineAfter = false;
@@ -387,9 +387,9 @@ class BlockPrinter
                     default :
                         switch(lcurly.getParent().getType()) {
                             case JavaTokenTypes.ANNOTATION:
-                            	forceNewLineAfter = !AbstractPrinter.settings.getBoolean(ConventionKeys.ANON_LCURLY_NO_NEW_LINE,
+                            	forceNewLineAfter = !out.settings.getBoolean(ConventionKeys.ANON_LCURLY_NO_NEW_LINE,
                                                                                         ConventionDefaults.ANON_LCURLY_NO_NEW_LINE);
-                                wrapLineCount = AbstractPrinter.settings.getInt(
+                                wrapLineCount = out.settings.getInt(
                                                                                 ConventionKeys.ANON_ALIGN_VALUES_WHEN_EXCEEDS,
                                                                                 ConventionDefaults.ANON_ALIGN_VALUES_WHEN_EXCEEDS);
            	            	newLineAfter = false;
@@ -454,7 +454,18 @@ LOOP:
                     }
                     currentLine = out.line;
                     out.nextNewline = newLineAfter;
-                    PrinterFactory.create(child, out).print(child, out);
+
+                    if (
+                        (out.members != null)
+                        && (closeBraceType == JavaTokenTypes.OBJBLOCK)
+                        && (wrapLineCount == Integer.MAX_VALUE))
+                    {
+                        out.members.print(child, out);
+                    }
+                    else
+                    {
+                        PrinterFactory.create(child, out).print(child, out);
+                    }
                     if (currentLine == out.line) {
                         AST nextNode = child.getNextSibling();
                         if (newLineAfter && nextNode!=null && nextNode.getType()!=JavaTokenTypes.COMMA) {
@@ -480,9 +491,9 @@ LOOP:
             printCommentsBefore(rcurly, out);
 
             boolean rightBraceNewline =
-                isCloseBraceNewline(lcurly, closeBraceType, freestanding);
+                isCloseBraceNewline(lcurly, closeBraceType, freestanding, out);
             
-            boolean addCustomComment = AbstractPrinter.settings.getBoolean(
+            boolean addCustomComment = out.settings.getBoolean(
                 ConventionKeys.BRACE_ADD_COMMENT, ConventionDefaults.BRACE_ADD_COMMENT);
             
             int offset =
@@ -608,6 +619,7 @@ LOOP:
      * @param type the block type. Either OBJBLOCK or SLIST.
      * @param freestanding <code>true</code> indicates that the block is a freestanding
      *        block.
+     * @param out stream to write to.
      *
      * @return <code>true</code> if a line break should be printed after the closing
      *         brace.
@@ -615,9 +627,10 @@ LOOP:
      * @since 1.0b8
      */
     private boolean isCloseBraceNewline(
-        JavaNode node,
-        int      type,
-        boolean  freestanding)
+        JavaNode   node,
+        int        type,
+        boolean    freestanding,
+        NodeWriter out)
     {
         boolean rightBraceNewline = true;
 
@@ -641,7 +654,7 @@ LOOP:
                     case JavaTokenTypes.LITERAL_catch : // catch block
                     case JavaTokenTypes.LITERAL_finally : // finally block
                         rightBraceNewline =
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.BRACE_NEWLINE_RIGHT,
                                 ConventionDefaults.BRACE_NEWLINE_RIGHT);
 
@@ -653,7 +666,7 @@ LOOP:
                         {
                             case JavaTokenTypes.LITERAL_do : // do-while block
                                 rightBraceNewline =
-                                    AbstractPrinter.settings.getBoolean(
+                                    out.settings.getBoolean(
                                         ConventionKeys.BRACE_NEWLINE_RIGHT,
                                         ConventionDefaults.BRACE_NEWLINE_RIGHT);
 
@@ -680,7 +693,7 @@ LOOP:
                                 case JavaTokenTypes.LITERAL_catch :
                                 case JavaTokenTypes.LITERAL_finally :
                                     rightBraceNewline =
-                                        AbstractPrinter.settings.getBoolean(
+                                        out.settings.getBoolean(
                                             ConventionKeys.BRACE_NEWLINE_RIGHT,
                                             ConventionDefaults.BRACE_NEWLINE_RIGHT);
 
@@ -760,7 +773,7 @@ LOOP:
     {
         out.print(
             out.getString(
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.INDENT_SIZE_BRACE_CUDDLED,
                     ConventionDefaults.INDENT_SIZE_BRACE_CUDDLED)), JavaTokenTypes.WS);
         out.print(BRACES, type);
@@ -814,7 +827,7 @@ LOOP:
         out.print(SEMI, out.last);
         out.printNewline();
 
-        boolean newLineAfterBrace = isCloseBraceNewline(lcurly, type, freestanding);
+        boolean newLineAfterBrace = isCloseBraceNewline(lcurly, type, freestanding, out);
 
         int offset = out.printRightBrace(type, NodeWriter.NEWLINE_NO);
 
@@ -72,7 +72,7 @@ abstract class BlockStatementPrinter
         {
             // if no newline will be printed after labels
             if (
-                !AbstractPrinter.settings.getBoolean(
+                !out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_LABEL,
                     ConventionDefaults.LINE_WRAP_AFTER_LABEL))
             {
@@ -109,7 +109,7 @@ abstract class BlockStatementPrinter
       throws IOException
     {
         if ((out.mode == NodeWriter.MODE_DEFAULT)
-                && AbstractPrinter.settings.getBoolean(
+                && out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_PAREN_GROUPING,
                     ConventionDefaults.LINE_WRAP_PAREN_GROUPING))
         	 {
@@ -126,7 +126,6 @@ abstract class BlockStatementPrinter
         PrinterFactory.create(lparen, out).print(lparen, out);
 
         Marker marker = out.state.markers.add();
-        TestNodeWriter tester = null;
         AST expr = lparen.getNextSibling();
 
         boolean wrapped = false; // was line wrapping performed?
@@ -140,35 +139,33 @@ abstract class BlockStatementPrinter
             out.state.parenScope.addFirst(scope);
 
             int lineLength =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_LEFT_PAREN,
                     ConventionDefaults.LINE_WRAP_AFTER_LEFT_PAREN))
             {
                 if (!out.newline)
                 {
-                    tester = out.testers.get();
-                    PrinterFactory.create(expr, out).print(expr, tester);
+                    int length =
+                        out.testers.measure(expr, out, lineLength - out.column);
 
-                    if ((out.column + tester.length) > lineLength)
+                    if ((out.column + length) > lineLength)
                     {
                         out.printNewline();
                         printIndentation(out);
                         wrapped = true;
 
                         if (
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.LINE_WRAP_PARAMS_EXCEED,
                                 ConventionDefaults.LINE_WRAP_PARAMS_EXCEED))
                         {
                             scope.wrap = true;
                         }
                     }
-
-                    out.testers.release(tester);
                 }
                 else
                 {
@@ -176,28 +173,22 @@ abstract class BlockStatementPrinter
                     wrapped = true;
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.LINE_WRAP_PARAMS_EXCEED,
                             ConventionDefaults.LINE_WRAP_PARAMS_EXCEED))
                     {
                         scope.wrap = true;
                     }
                 }
-
-                tester = out.testers.get();
-                PrinterFactory.create(expr, out).print(expr, tester);
             }
 
-            if (tester == null)
-            {
-                tester = out.testers.get();
-                PrinterFactory.create(expr, out).print(expr, tester);
-            }
-
-            if (!wrapped && ((tester.length + out.column) > lineLength))
+            if (
+                !wrapped
+                && ((out.column + out.testers.measure(expr, out, lineLength - out.column))
+                > lineLength))
             {
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.LINE_WRAP_PARAMS_EXCEED,
                         ConventionDefaults.LINE_WRAP_PARAMS_EXCEED))
                 {
@@ -206,13 +197,11 @@ abstract class BlockStatementPrinter
 
                 wrapped = true;
             }
-
-            out.testers.release(tester);
         }
 
         // use continuation indentation within the parentheses?
         out.continuation =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_CONTINUATION_BLOCK,
                 ConventionDefaults.INDENT_CONTINUATION_BLOCK);
 
@@ -223,7 +212,7 @@ abstract class BlockStatementPrinter
 
         if (
             wrapped
-            && AbstractPrinter.settings.getBoolean(
+            && out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_BEFORE_RIGHT_PAREN,
                 ConventionDefaults.LINE_WRAP_BEFORE_RIGHT_PAREN))
         {
@@ -233,7 +222,7 @@ abstract class BlockStatementPrinter
             }
 
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP))
             {
                 printIndentation(-1, out);
@@ -250,7 +239,7 @@ abstract class BlockStatementPrinter
 
         boolean hasBraces = (body.getType() == JavaTokenTypes.SLIST);
         boolean leftBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_LEFT, ConventionDefaults.BRACE_NEWLINE_LEFT);
 
         if (!hasBraces && insertBraces && !leftBraceNewline)
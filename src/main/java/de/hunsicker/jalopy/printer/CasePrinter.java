@@ -98,7 +98,7 @@ final class CasePrinter
                 PrinterFactory.create(expr, out).print(expr, out);
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.SPACE_BEFORE_CASE_COLON,
                         ConventionDefaults.SPACE_BEFORE_CASE_COLON))
                 {
@@ -110,7 +110,7 @@ final class CasePrinter
                 AST colon = expr.getNextSibling();
 
                 AST block = node.getNextSibling();
-                boolean newline = isNewlineBefore(block);
+                boolean newline = isNewlineBefore(block, out);
 
                 if (
                     !printCommentsAfter(colon, NodeWriter.NEWLINE_NO, newline, out)
@@ -134,7 +134,7 @@ LOOP:
                     {
                         case JavaTokenTypes.COLON :
 
-                            boolean newline = isNewlineBefore(child.getNextSibling());
+                            boolean newline = isNewlineBefore(child.getNextSibling(), out);
 
                             if (
                                 !printCommentsAfter(
@@ -197,7 +197,7 @@ LOOP:
                 int offset = 1;
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.SPACE_BEFORE_CASE_COLON, false))
                 {
                     offset =
@@ -222,12 +222,15 @@ LOOP:
      * Determines whether a newline should be printed before the given block.
      *
      * @param node a SLIST node.
+     * @param out stream to write to.
      *
      * @return <code>true</code> if a newline should be printed before the node.
      *
      * @since 1.0b10
      */
-    private boolean isNewlineBefore(AST node)
+    private boolean isNewlineBefore(
+        AST        node,
+        NodeWriter out)
     {
         boolean result = false;
 
@@ -239,7 +242,7 @@ LOOP:
             {
                 case JavaTokenTypes.SLIST :
                     result =
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_LEFT,
                             ConventionDefaults.BRACE_NEWLINE_LEFT);
 
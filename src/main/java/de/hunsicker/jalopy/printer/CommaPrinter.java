@@ -88,7 +88,7 @@ final class CommaPrinter
         if (!printCommentsAfter(node, NodeWriter.NEWLINE_NO, NodeWriter.NEWLINE_NO, out))
         {
             if (!out.nextNewline && 
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA))
             {
                 out.print(SPACE, JavaTokenTypes.COMMA);
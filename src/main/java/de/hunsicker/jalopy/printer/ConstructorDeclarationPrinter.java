@@ -97,7 +97,7 @@ final class ConstructorDeclarationPrinter
         PrinterFactory.create(identifier, out).print(identifier, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_METHOD_DEF_PAREN,
                 ConventionDefaults.SPACE_BEFORE_METHOD_DEF_PAREN))
         {
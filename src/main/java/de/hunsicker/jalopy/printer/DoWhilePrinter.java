@@ -111,18 +111,18 @@ final class DoWhilePrinter
 
                 // insert braces manually
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.BRACE_INSERT_DO_WHILE,
                         ConventionDefaults.BRACE_INSERT_DO_WHILE))
                 {
                     out.printLeftBrace(
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_LEFT,
                             ConventionDefaults.BRACE_NEWLINE_LEFT), NodeWriter.NEWLINE_YES);
                     out.last = JavaTokenTypes.IDENT;
                     PrinterFactory.create(body, out).print(body, out);
                     out.printRightBrace(
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_RIGHT,
                             ConventionDefaults.BRACE_NEWLINE_RIGHT));
                 }
@@ -140,7 +140,7 @@ final class DoWhilePrinter
         {
             out.print(
                 out.getString(
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.INDENT_SIZE_BRACE_RIGHT_AFTER,
                         ConventionDefaults.INDENT_SIZE_BRACE_RIGHT_AFTER)),
                 JavaTokenTypes.WS);
@@ -154,7 +154,7 @@ final class DoWhilePrinter
         trackPosition((JavaNode) keyword, out.line, offset, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
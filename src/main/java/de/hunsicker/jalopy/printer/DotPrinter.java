@@ -92,10 +92,10 @@ final class DotPrinter
              * @todo add switch to disable wrapping along dots alltogether
              */
             boolean wrapLines =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP);
             boolean forceWrappingForChainedCalls =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_CHAINED_METHOD_CALL,
                     ConventionDefaults.LINE_WRAP_AFTER_CHAINED_METHOD_CALL);
 
@@ -137,44 +137,52 @@ final class DotPrinter
         TestNodeWriter tester = testers.get();
         tester.reset(out,false);
 
-        if (lastCall != call)
-        {
-            AST elist = dot.getNextSibling();
-            PrinterFactory.create(elist, tester).print(elist, tester);
-        }
-        else
-        {
-            AST elist = lastCall.getFirstChild().getNextSibling();
-            PrinterFactory.create(elist, tester).print(elist, tester);
-        }
-
-        AST child = dot.getFirstChild();
+        // a call that spans several lines never causes wrapping, so we can stop
+        // printing as soon as we encounter a line break
+        tester.setLimit(Integer.MAX_VALUE, Integer.MAX_VALUE, true);
 
-        switch (child.getType())
+        try
         {
-            case JavaTokenTypes.METHOD_CALL :
+            if (lastCall != call)
+            {
+                AST elist = dot.getNextSibling();
+                PrinterFactory.create(elist, tester).print(elist, tester);
+            }
+            else
+            {
+                AST elist = lastCall.getFirstChild().getNextSibling();
+                PrinterFactory.create(elist, tester).print(elist, tester);
+            }
 
-                AST next = child.getNextSibling();
-                PrinterFactory.create(next, tester).print(next, tester);
+            AST child = dot.getFirstChild();
 
-                break;
+            switch (child.getType())
+            {
+                case JavaTokenTypes.METHOD_CALL :
 
-            default : // means the last node in the AST (but the first call in
-                      // the chain)
-                PrinterFactory.create(child, tester).print(child, tester);
+                    AST next = child.getNextSibling();
+                    PrinterFactory.create(next, tester).print(next, tester);
 
-                break;
-        }
+                    break;
 
-        // add +1 for the dot
-        int result = tester.maxColumn + 1;
-        if (tester.line>1) {
-            result = -1;
-        }
+                default : // means the last node in the AST (but the first call in
+                          // the chain)
+                    PrinterFactory.create(child, tester).print(child, tester);
 
-        testers.release(tester);
+                    break;
+            }
 
-        return result;
+            // add +1 for the dot
+            return tester.maxColumn + 1;
+        }
+        catch (TestNodeWriter.LimitExceededException ex)
+        {
+            return -1;
+        }
+        finally
+        {
+            testers.release(tester);
+        }
     }
 
 
@@ -197,7 +205,7 @@ final class DotPrinter
     {
 
         boolean continuationIndent =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_CONTINUATION_OPERATOR,
                 ConventionDefaults.INDENT_CONTINUATION_OPERATOR);
 
@@ -214,7 +222,7 @@ final class DotPrinter
                 case JavaTokenTypes.METHOD_CALL :
 
                     boolean align =
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.ALIGN_METHOD_CALL_CHAINS,
                             ConventionDefaults.ALIGN_METHOD_CALL_CHAINS);
 
@@ -222,7 +230,7 @@ final class DotPrinter
                     {
                         // force wrap after each call?
                         if (
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.LINE_WRAP_AFTER_CHAINED_METHOD_CALL,
                                 ConventionDefaults.LINE_WRAP_AFTER_CHAINED_METHOD_CALL))
                         {
@@ -258,7 +266,7 @@ final class DotPrinter
                         else
                         {
                             int lineLength =
-                                AbstractPrinter.settings.getInt(
+                                out.settings.getInt(
                                     ConventionKeys.LINE_LENGTH,
                                     ConventionDefaults.LINE_LENGTH);
 
@@ -324,7 +332,7 @@ final class DotPrinter
             }
         }
         else if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_BEFORE_OPERATOR,
                 ConventionDefaults.LINE_WRAP_BEFORE_OPERATOR))
         {
@@ -336,7 +344,7 @@ final class DotPrinter
                 case JavaTokenTypes.METHOD_CALL : // last link of the chain (first in the tree)
 
                     int lineLength =
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
                     if ((out.column + 1) > lineLength)
@@ -377,10 +385,7 @@ SEEK_FORWARD:
                                 break;
                         }
 
-                        TestNodeWriter tester = out.testers.get();
-                        tester.reset(out, false);
-                        
-                        PrinterFactory.create(n, tester).print(n, tester);
+                        boolean exceeds = out.testers.exceedsLine(n, out, lineLength);
                         /*
                         TODO Figure out why this consumes so much memory
                         n = node.getNextSibling();
@@ -389,7 +394,7 @@ SEEK_FORWARD:
                         }
                         */
 
-                        if (tester.maxColumn > lineLength || tester.line>1)
+                        if (exceeds)
                         {
                             out.printNewline();
                             Marker current=out.state.markers.add(0,
@@ -405,8 +410,6 @@ SEEK_FORWARD:
 
                             printIndentation(out);
                         }
-
-                        out.testers.release(tester);
                     }
 
                     break;
@@ -446,7 +449,7 @@ SEEK_FORWARD:
         else if (
             out.continuation
             || (!out.continuation
-            && AbstractPrinter.settings.getBoolean(
+            && out.settings.getBoolean(
                 ConventionKeys.INDENT_CONTINUATION_OPERATOR,
                 ConventionDefaults.INDENT_CONTINUATION_OPERATOR)))
         {
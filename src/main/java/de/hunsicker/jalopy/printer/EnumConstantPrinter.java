@@ -73,13 +73,13 @@ public class EnumConstantPrinter extends BasicDeclarationPrinter {
      */
     public void print(AST node, NodeWriter out) throws IOException {
         TestNodeWriter tester = out.testers.get();
-        boolean spaceAfterComma = AbstractPrinter.settings.getBoolean(
+        boolean spaceAfterComma = out.settings.getBoolean(
                     ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA);
         
         tester.reset(out,false);
         printChildren(node,tester);
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
         if (tester.line>1 || tester.column> lineLength) {
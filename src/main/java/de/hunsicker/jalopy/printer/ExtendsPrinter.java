@@ -87,18 +87,18 @@ final class ExtendsPrinter
         if (first != null)
         {
             boolean wrapLines =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
                 && (out.mode == NodeWriter.MODE_DEFAULT);
             int lineLength =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
             boolean newlineBefore =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_BEFORE_EXTENDS,
                     ConventionDefaults.LINE_WRAP_BEFORE_EXTENDS);
             int indentSize =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.INDENT_SIZE_EXTENDS,
                     ConventionDefaults.INDENT_SIZE_EXTENDS);
             boolean indentCustom = indentSize > -1;
@@ -136,7 +136,7 @@ final class ExtendsPrinter
             TestNodeWriter tester = null;
 
             boolean wrapAll =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_TYPES_EXTENDS_EXCEED,
                     ConventionDefaults.LINE_WRAP_AFTER_TYPES_EXTENDS_EXCEED)
                 && (out.mode == NodeWriter.MODE_DEFAULT);
@@ -147,7 +147,7 @@ final class ExtendsPrinter
             }
 
             boolean forceWrapping =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_TYPES_EXTENDS,
                     ConventionDefaults.LINE_WRAP_AFTER_TYPES_EXTENDS);
 
@@ -171,10 +171,10 @@ final class ExtendsPrinter
             }
 
             boolean indentDeep =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP);
             String comma =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA)
                 ? COMMA_SPACE
                 : COMMA;
@@ -275,7 +275,7 @@ final class ExtendsPrinter
             }
 
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.BRACE_TREAT_DIFFERENT_IF_WRAPPED,
                     ConventionDefaults.BRACE_TREAT_DIFFERENT_IF_WRAPPED)
                 && (wrappedBefore || wrappedAfter))
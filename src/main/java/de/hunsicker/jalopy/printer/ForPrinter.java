@@ -94,7 +94,7 @@ final class ForPrinter
         int offset = 1;
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
@@ -151,12 +151,12 @@ final class ForPrinter
 
                 // insert braces manually
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.BRACE_INSERT_FOR,
                         ConventionDefaults.BRACE_INSERT_FOR))
                 {
                     out.printLeftBrace(
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_LEFT,
                             ConventionDefaults.BRACE_NEWLINE_LEFT), NodeWriter.NEWLINE_YES);
                     PrinterFactory.create(body, out).print(body, out);
@@ -202,10 +202,10 @@ final class ForPrinter
         AST forIter = secondSemi.getNextSibling();
 
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
         boolean indentDeep =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP);
         boolean firstWrap = false;
 
@@ -215,7 +215,7 @@ final class ForPrinter
             out.state.parenScope.addFirst(new ParenthesesScope(out.state.paramLevel));
 
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_LEFT_PAREN,
                     ConventionDefaults.LINE_WRAP_AFTER_LEFT_PAREN))
             {
@@ -254,16 +254,16 @@ final class ForPrinter
         printForInit(forInit, firstWrap, out);
 
         boolean wrapAll =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_PARAMS_EXCEED,
                 ConventionDefaults.LINE_WRAP_PARAMS_EXCEED);
         boolean spaceAfterSemi =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_SEMICOLON,
                 ConventionDefaults.SPACE_AFTER_SEMICOLON);
 
         out.continuation =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_CONTINUATION_BLOCK,
                 ConventionDefaults.INDENT_CONTINUATION_BLOCK);
 
@@ -345,7 +345,7 @@ final class ForPrinter
 
         if (
             (firstWrap || secondWrap || thirdWrap)
-            && AbstractPrinter.settings.getBoolean(
+            && out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_BEFORE_RIGHT_PAREN,
                 ConventionDefaults.LINE_WRAP_BEFORE_RIGHT_PAREN))
         {
@@ -395,7 +395,7 @@ final class ForPrinter
             printIndentation(out);
         }
         else if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_SEMICOLON,
                 ConventionDefaults.SPACE_AFTER_SEMICOLON))
         {
@@ -468,7 +468,7 @@ final class ForPrinter
             printIndentation(out);
         }
         else if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_SEMICOLON,
                 ConventionDefaults.SPACE_AFTER_SEMICOLON))
         {
@@ -476,7 +476,7 @@ final class ForPrinter
         }
 
         boolean spaceAfterComma =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_SEMICOLON);
         String comma = spaceAfterComma ? COMMA_SPACE
                                        : COMMA;
@@ -528,7 +528,7 @@ final class ForPrinter
             case JavaTokenTypes.ELIST :
 
                 boolean spaceAfterComma =
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.SPACE_AFTER_COMMA,
                         ConventionDefaults.SPACE_AFTER_COMMA);
                 String comma = spaceAfterComma ? COMMA_SPACE
@@ -615,7 +615,7 @@ final class ForPrinter
     {
         AST child = node.getFirstChild();
         boolean spaceAfterComma =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA);
         String comma = spaceAfterComma ? COMMA_SPACE
                                        : COMMA;
@@ -110,7 +110,7 @@ final class IfElsePrinter
         }
 
         boolean spaceBefore =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN);
 
@@ -130,7 +130,7 @@ final class IfElsePrinter
         AST lparen = node.getFirstChild();
 
         boolean insertBraces =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_INSERT_IF_ELSE,
                 ConventionDefaults.BRACE_INSERT_IF_ELSE);
 
@@ -138,10 +138,10 @@ final class IfElsePrinter
         AST body = rparen.getNextSibling();
 
         boolean leftBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_LEFT, ConventionDefaults.BRACE_NEWLINE_LEFT);
         boolean rightBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_RIGHT, ConventionDefaults.BRACE_NEWLINE_RIGHT);
         boolean hasBraces = body.getType() == JavaTokenTypes.SLIST;
 
@@ -195,7 +195,7 @@ final class IfElsePrinter
             {
                 out.print(
                     out.getString(
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.INDENT_SIZE_BRACE_RIGHT_AFTER,
                             ConventionDefaults.INDENT_SIZE_BRACE_RIGHT_AFTER)),
                     JavaTokenTypes.WS);
@@ -87,18 +87,18 @@ final class ImplementsPrinter
         if (first != null)
         {
             boolean wrapLines =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
                 && (out.mode == NodeWriter.MODE_DEFAULT);
             int lineLength =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
             boolean newlineBefore =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_BEFORE_IMPLEMENTS,
                     ConventionDefaults.LINE_WRAP_BEFORE_IMPLEMENTS);
             int indentSize =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.INDENT_SIZE_IMPLEMENTS,
                     ConventionDefaults.INDENT_SIZE_IMPLEMENTS);
             boolean indentCustom = indentSize > -1;
@@ -135,7 +135,7 @@ final class ImplementsPrinter
             TestNodeWriter tester = null;
 
             boolean wrapAll =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_TYPES_IMPLEMENTS_EXCEED,
                     ConventionDefaults.LINE_WRAP_AFTER_TYPES_IMPLEMENTS_EXCEED)
                 && (out.mode == NodeWriter.MODE_DEFAULT);
@@ -146,7 +146,7 @@ final class ImplementsPrinter
             }
 
             boolean forceWrapping =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_TYPES_IMPLEMENTS,
                     ConventionDefaults.LINE_WRAP_AFTER_TYPES_IMPLEMENTS);
 
@@ -170,10 +170,10 @@ final class ImplementsPrinter
             }
 
             boolean indentDeep =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP);
             String comma =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA)
                 ? COMMA_SPACE
                 : COMMA;
@@ -292,7 +292,7 @@ final class ImplementsPrinter
 
             if (
                 !out.state.newlineBeforeLeftBrace
-                && AbstractPrinter.settings.getBoolean(
+                && out.settings.getBoolean(
                     ConventionKeys.BRACE_TREAT_DIFFERENT_IF_WRAPPED,
                     ConventionDefaults.BRACE_TREAT_DIFFERENT_IF_WRAPPED)
                 && (wrappedBefore || wrappedAfter))
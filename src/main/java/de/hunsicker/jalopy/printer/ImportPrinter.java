@@ -117,12 +117,12 @@ final class ImportPrinter
                     // grouping of the declarations only makes sense if
                     // sorting is enabled
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.IMPORT_SORT, ConventionDefaults.IMPORT_SORT))
                     {
                         String nextName =
                             JavaNodeHelper.getDottedName(next.getFirstChild());
-                        int depth = getImportDepth(name);
+                        int depth = getImportDepth(name, out);
                         int offset = StringHelper.indexOf('.', name, depth);
 
                         // the declaration has a package name equal/greater
@@ -177,13 +177,16 @@ final class ImportPrinter
      * the number of packages/subpackages that are to group together.
      *
      * @param declaration declaration to check.
+     * @param out stream to write to.
      *
      * @return the import depth for the given import declaration.
      */
-    private int getImportDepth(String declaration)
+    private int getImportDepth(
+        String     declaration,
+        NodeWriter out)
     {
         int defaultGroupingDepth =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.IMPORT_GROUPING_DEPTH,
                 ConventionDefaults.IMPORT_GROUPING_DEPTH);
 
@@ -191,7 +194,7 @@ final class ImportPrinter
         if (defaultGroupingDepth > 0)
         {
             String info =
-                AbstractPrinter.settings.get(
+                out.settings.get(
                     ConventionKeys.IMPORT_GROUPING, ConventionDefaults.IMPORT_GROUPING);
 
             if (info.length() > 0)
@@ -252,7 +255,7 @@ final class ImportPrinter
                 case JavaTokenTypes.SL_COMMENT :
 
                     if (
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE,
                             ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_SINGLE_LINE) <= 0)
                     {
@@ -264,7 +267,7 @@ final class ImportPrinter
                 case JavaTokenTypes.JAVADOC_COMMENT :
 
                     if (
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.BLANK_LINES_BEFORE_COMMENT_JAVADOC,
                             ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_JAVADOC) <= 0)
                     {
@@ -276,7 +279,7 @@ final class ImportPrinter
                 case JavaTokenTypes.ML_COMMENT :
 
                     if (
-                        AbstractPrinter.settings.getInt(
+                        out.settings.getInt(
                             ConventionKeys.BLANK_LINES_BEFORE_COMMENT_MULTI_LINE,
                             ConventionDefaults.BLANK_LINES_BEFORE_COMMENT_MULTI_LINE) <= 0)
                     {
@@ -85,7 +85,7 @@ final class IndexOperatorPrinter
         AST expr = printLeftHandSide(node, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_BRACKETS,
                 ConventionDefaults.SPACE_BEFORE_BRACKETS))
         {
@@ -93,7 +93,7 @@ final class IndexOperatorPrinter
         }
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_BRACKETS, ConventionDefaults.PADDING_BRACKETS))
         {
             out.print(BRACKET_LEFT_SPACE, JavaTokenTypes.LBRACK);
@@ -32,6 +32,7 @@ package de.hunsicker.jalopy.printer;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 
 import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
@@ -42,6 +43,13 @@ import de.hunsicker.jalopy.storage.ConventionKeys;
 
 /**
  * Base class for infix operator printers.
+ * 
+ * <p>
+ * Chains of left-associative operators (e.g. <code>a + b + c + ...</code>) are
+ * printed without recursing into the left-hand side operators: the chain is walked
+ * down first and the operators are then printed from the innermost outwards. The
+ * stack usage thus does not depend on the length of the chain.
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.11 $
@@ -68,7 +76,7 @@ class InfixOperatorPrinter
         NodeWriter out)
       throws IOException
     {
-        print(node, true, out);
+        print(node, isPadded(node, out), out);
     }
 
 
@@ -87,6 +95,90 @@ class InfixOperatorPrinter
         boolean    paddOperator,
         NodeWriter out)
       throws IOException
+    {
+        Operation operation = analyze(node, paddOperator, out);
+        ArrayList chain = null; // List of <Operation>
+
+        // walk down the chain as long as the left-hand side is another infix
+        // operator, printing it right away would recurse once per operator
+        while (operation.lhsLeftParen == null)
+        {
+            JavaNode lhs = operation.lhs;
+            Printer printer = PrinterFactory.create(lhs, out);
+
+            if (!(printer instanceof InfixOperatorPrinter))
+            {
+                printer.print(lhs, out);
+
+                break;
+            }
+
+            if (chain == null)
+            {
+                chain = new ArrayList();
+            }
+
+            chain.add(operation);
+
+            InfixOperatorPrinter infix = (InfixOperatorPrinter) printer;
+            operation = infix.analyze(lhs, infix.isPadded(lhs, out), out);
+        }
+
+        if (operation.lhsLeftParen != null)
+        {
+            printWithParentheses(
+                operation.lhs, operation.lhsLeftParen, operation.lhsRightParen, out);
+        }
+
+        printImpl(operation, out);
+
+        if (chain != null)
+        {
+            for (int i = chain.size() - 1; i > -1; i--)
+            {
+                printImpl((Operation) chain.get(i), out);
+            }
+        }
+    }
+
+
+    /**
+     * Determines whether whitespace should be printed around the operator of the
+     * given node. The default implementation always returns <code>true</code>.
+     *
+     * @param node an operator node.
+     * @param out stream to write to.
+     *
+     * @return <code>true</code> if the operator should be padded.
+     *
+     * @since 1.1
+     */
+    protected boolean isPadded(
+        AST        node,
+        NodeWriter out)
+    {
+        return true;
+    }
+
+
+    /**
+     * Determines the operands of the given operator node and whether they have or need
+     * parentheses. Adds parentheses if the code convention asks for them.
+     *
+     * @param node the operator node.
+     * @param paddOperator if <code>true</code> a space will be printed before and after
+     *        the operator.
+     * @param out stream to write to.
+     *
+     * @return the operation to print.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private Operation analyze(
+        AST        node,
+        boolean    paddOperator,
+        NodeWriter out)
+      throws IOException
     {
         AST lhsLeftParen = null;
         AST lhsRightParen = null;
@@ -181,7 +273,7 @@ ITERATE:
         }
 
         boolean wrapLines =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP);
         boolean wrap = false; // actually perform line wrapping
 
@@ -191,14 +283,14 @@ ITERATE:
             // only perform line wrapping for certain operators
             wrap = canWrap(node, out);
 
-            printImpl(
+            return new Operation(
                 (JavaNode) node, lhs, rhs, lhsLeftParen, lhsRightParen, rhsLeftParen,
-                rhsRightParen, wrapLines && wrap, paddOperator, out);
+                rhsRightParen, wrapLines && wrap, paddOperator);
         }
         else
         {
             boolean insertParentheses =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INSERT_EXPRESSION_PARENTHESIS,
                     ConventionDefaults.INSERT_EXPRESSION_PARENTHESIS);
 
@@ -256,9 +348,9 @@ ITERATE:
                 wrap = canWrap(node, out);
             }
 
-            printImpl(
+            return new Operation(
                 (JavaNode) node, lhs, rhs, lhsLeftParen, lhsRightParen, rhsLeftParen,
-                rhsRightParen, wrapLines && wrap, paddOperator, out);
+                rhsRightParen, wrapLines && wrap, paddOperator);
         }
     }
     private void wrapNewLine(JavaNode lhs, NodeWriter out, boolean islhs) throws IOException {
@@ -266,7 +358,7 @@ ITERATE:
                 (out.mode == NodeWriter.MODE_DEFAULT)
                 &&out.newline==false
                 &&lhs.getFirstChild()!=null 
-                && AbstractPrinter.settings.getBoolean(
+                && out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_PAREN_GROUPING,
                     ConventionDefaults.LINE_WRAP_PAREN_GROUPING)) {
 //        	JavaNode parent = getParentByTypes((JavaNode) node,JavaTokenTypes.LITERAL_if);
@@ -299,48 +391,29 @@ ITERATE:
     }
 
     /**
-     * Does the actual printing.
+     * Does the actual printing. Outputs the operator and the right-hand side, the
+     * left-hand side has been printed already.
      *
-     * @param operator operator node to print.
-     * @param lhs left hand side expression.
-     * @param rhs right hand side expression.
-     * @param lhsLeftParen DOCUMENT ME!
-     * @param lhsRightParen DOCUMENT ME!
-     * @param rhsLeftParen DOCUMENT ME!
-     * @param rhsRightParen DOCUMENT ME!
-     * @param wrapLines if <code>true</code> performs line wrapping, if necessary.
-     * @param paddOperator if <code>true</code> adds padding whitespace around the
-     *        operator.
+     * @param operation the operation to print.
      * @param out stream to write to.
      *
      * @throws IOException if an I/O error occured.
      */
     private void printImpl(
-        JavaNode   operator,
-        JavaNode   lhs,
-        JavaNode   rhs,
-        AST        lhsLeftParen,
-        AST        lhsRightParen,
-        AST        rhsLeftParen,
-        AST        rhsRightParen,
-        boolean    wrapLines,
-        boolean    paddOperator,
+        Operation  operation,
         NodeWriter out)
       throws IOException
     {
-
-        if (lhsLeftParen == null)
-        {
-            PrinterFactory.create(lhs, out).print(lhs, out);
-        }
-        else
-        {
-            printWithParentheses(lhs, lhsLeftParen, lhsRightParen, out);
-        }
-
+        JavaNode operator = operation.operator;
+        JavaNode lhs = operation.lhs;
+        JavaNode rhs = operation.rhs;
+        AST rhsLeftParen = operation.rhsLeftParen;
+        AST rhsRightParen = operation.rhsRightParen;
+        boolean wrapLines = operation.wrapLines;
+        boolean paddOperator = operation.paddOperator;
         boolean continuation = out.continuation;
         boolean continuationIndent =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_CONTINUATION_OPERATOR,
                 ConventionDefaults.INDENT_CONTINUATION_OPERATOR);
 
@@ -369,7 +442,7 @@ ITERATE:
         }
 
         boolean wrapBeforeOperator =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_BEFORE_OPERATOR,
                 ConventionDefaults.LINE_WRAP_BEFORE_OPERATOR);
         boolean commentAfter = operator.hasCommentsAfter();
@@ -404,6 +477,9 @@ ITERATE:
         }
         else if (wrapLines)
         {
+            int lineLength =
+                out.settings.getInt(
+                    ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
             boolean wrapAll = false;
 
             if (!out.state.parenScope.isEmpty())
@@ -422,14 +498,12 @@ ITERATE:
 
                         if (!wrapped)
                         {
-                            TestNodeWriter tester = out.testers.get();
-                            PrinterFactory.create(rhs, out).print(rhs, tester);
+                            int length = out.testers.measure(rhs, out, lineLength - out.column);
                             wrapped =
                                 performWrap(
-                                    tester.length + ((rhsLeftParen != null) ? 2
-                                                                            : 0), operator,
+                                    length + ((rhsLeftParen != null) ? 2
+                                                                     : 0), operator,
                                     wrapBeforeOperator, paddOperator, out);
-                            out.testers.release(tester);
                         }
 
                         break;
@@ -446,14 +520,12 @@ ITERATE:
             {
                 if (!wrapped)
                 {
-                    TestNodeWriter tester = out.testers.get();
-                    PrinterFactory.create(rhs, out).print(rhs, tester);
+                    int length = out.testers.measure(rhs, out, lineLength - out.column);
                     wrapped =
                         performWrap(
-                            tester.length + ((rhsLeftParen != null) ? 2
-                                                                    : 0), operator,
+                            length + ((rhsLeftParen != null) ? 2
+                                                             : 0), operator,
                             wrapBeforeOperator, paddOperator, out);
-                    out.testers.release(tester);
                 }
             }
         }
@@ -544,4 +616,44 @@ ITERATE:
             out.continuation = false;
         }
     }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * An operator together with its operands, ready to be printed.
+     */
+    private static final class Operation
+    {
+        final AST lhsLeftParen;
+        final AST lhsRightParen;
+        final AST rhsLeftParen;
+        final AST rhsRightParen;
+        final JavaNode lhs;
+        final JavaNode operator;
+        final JavaNode rhs;
+        final boolean paddOperator;
+        final boolean wrapLines;
+
+        public Operation(
+            JavaNode operator,
+            JavaNode lhs,
+            JavaNode rhs,
+            AST      lhsLeftParen,
+            AST      lhsRightParen,
+            AST      rhsLeftParen,
+            AST      rhsRightParen,
+            boolean  wrapLines,
+            boolean  paddOperator)
+        {
+            this.operator = operator;
+            this.lhs = lhs;
+            this.rhs = rhs;
+            this.lhsLeftParen = lhsLeftParen;
+            this.lhsRightParen = lhsRightParen;
+            this.rhsLeftParen = rhsLeftParen;
+            this.rhsRightParen = rhsRightParen;
+            this.wrapLines = wrapLines;
+            this.paddOperator = paddOperator;
+        }
+    }
 }
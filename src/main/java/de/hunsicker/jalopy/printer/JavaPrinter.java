@@ -99,22 +99,22 @@ final class JavaPrinter
     {
         out.environment.set(
             Environment.Variable.CONVENTION.getName(),
-            AbstractPrinter.settings.get(
+            out.settings.get(
                 ConventionKeys.CONVENTION_NAME, ConventionDefaults.CONVENTION_NAME));
 
         try
         {
             History.Policy historyPolicy =
                 History.Policy.valueOf(
-                    AbstractPrinter.settings.get(
+                    out.settings.get(
                         ConventionKeys.HISTORY_POLICY, ConventionDefaults.HISTORY_POLICY));
             boolean useCommentHistory = (historyPolicy == History.Policy.COMMENT);
-            boolean useHeader = AbstractPrinter.settings.getBoolean(ConventionKeys.HEADER, false);
-            boolean ignoreHeaderIfExists = AbstractPrinter.settings.getBoolean(ConventionKeys.HEADER_IGNORE_IF_EXISTS, true);
+            boolean useHeader = out.settings.getBoolean(ConventionKeys.HEADER, false);
+            boolean ignoreHeaderIfExists = out.settings.getBoolean(ConventionKeys.HEADER_IGNORE_IF_EXISTS, true);
 
             if (((useHeader) && ( ! ignoreHeaderIfExists)) || useCommentHistory)
             {
-                removeHeader(node, useCommentHistory);
+                removeHeader(node, useCommentHistory, out);
             }
 
             if (useHeader)
@@ -125,13 +125,13 @@ final class JavaPrinter
             }
 
             boolean useFooter =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.FOOTER, ConventionDefaults.FOOTER);
-            boolean ignoreFooterIfExists = AbstractPrinter.settings.getBoolean(ConventionKeys.FOOTER_IGNORE_IF_EXISTS, true);
+            boolean ignoreFooterIfExists = out.settings.getBoolean(ConventionKeys.FOOTER_IGNORE_IF_EXISTS, true);
 
             if (useFooter && ( ! ignoreFooterIfExists))
             {
-                removeFooter(node);
+                removeFooter(node, out);
             }
 
             for (
@@ -159,13 +159,16 @@ final class JavaPrinter
      * Returns the identify keys as stored in the code convention.
      *
      * @param key code convention key.
+     * @param out stream to write to.
      *
      * @return identify keys. If no keys are stored, an empty array will be returned.
      */
-    private String[] getConventionKeys(Convention.Key key)
+    private String[] getConventionKeys(
+        Convention.Key key,
+        NodeWriter     out)
     {
         List keys = new ArrayList();
-        String str = AbstractPrinter.settings.get(key, EMPTY_STRING);
+        String str = out.settings.get(key, EMPTY_STRING);
 
         for (
             StringTokenizer tokens = new StringTokenizer(str, DELIMETER);
@@ -254,8 +257,8 @@ final class JavaPrinter
       throws IOException
     {
         String text =
-            out.environment.interpolate(
-                AbstractPrinter.settings.get(ConventionKeys.FOOTER_TEXT, EMPTY_STRING));
+            out.settings.getTemplate(ConventionKeys.FOOTER_TEXT, EMPTY_STRING).render(
+                out.environment);
         String[] footer = StringHelper.split(text, DELIMETER);
 
         if (footer.length > 0)
@@ -273,7 +276,7 @@ final class JavaPrinter
             }
 
             out.printBlankLines(
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.BLANK_LINES_BEFORE_FOOTER,
                     ConventionDefaults.BLANK_LINES_BEFORE_FOOTER));
 
@@ -288,7 +291,7 @@ final class JavaPrinter
             }
 
             int blankLinesAfter =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.BLANK_LINES_AFTER_FOOTER,
                     ConventionDefaults.BLANK_LINES_AFTER_FOOTER);
 
@@ -316,14 +319,14 @@ final class JavaPrinter
       throws IOException
     {
         String text =
-            out.environment.interpolate(
-                AbstractPrinter.settings.get(ConventionKeys.HEADER_TEXT, EMPTY_STRING));
+            out.settings.getTemplate(ConventionKeys.HEADER_TEXT, EMPTY_STRING).render(
+                out.environment);
         String[] header = StringHelper.split(text, DELIMETER);
 
         if (header.length > 0)
         {
             out.printBlankLines(
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.BLANK_LINES_BEFORE_HEADER,
                     ConventionDefaults.BLANK_LINES_BEFORE_HEADER));
 
@@ -334,7 +337,7 @@ final class JavaPrinter
             }
 
             out.printBlankLines(
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.BLANK_LINES_AFTER_HEADER,
                     ConventionDefaults.BLANK_LINES_AFTER_HEADER));
 
@@ -348,19 +351,22 @@ final class JavaPrinter
      * Comments are actually before this node not after it.
      *
      * @param root the root node of the Java AST.
+     * @param out stream to write to.
      *
      * @since 1.0b8
      */
-    private void removeFooter(AST root)
+    private void removeFooter(
+        AST        root,
+        NodeWriter out)
     {
         JavaNode eofNode = getLastElement(root);
 
         if (eofNode.hasCommentsBefore())
         {
-            String[] keys = getConventionKeys(ConventionKeys.FOOTER_KEYS);
+            String[] keys = getConventionKeys(ConventionKeys.FOOTER_KEYS, out);
             int count = 0;
             int smartModeLines =
-                AbstractPrinter.settings.getInt(ConventionKeys.FOOTER_SMART_MODE_LINES, 0);
+                out.settings.getInt(ConventionKeys.FOOTER_SMART_MODE_LINES, 0);
             boolean smartMode = smartModeLines > 0;
 
             for (
@@ -474,16 +480,20 @@ final class JavaPrinter
      * header, if any.
      *
      * @param node the root node of the tree.
+     * @param useCommentHistory whether the comment history header should be removed.
+     * @param out stream to write to.
      *
-     * @return true if the Header comment was removed, false if it was not
      * @since 1.0b8
      */
-    private void removeHeader(AST node, boolean useCommentHistory)
+    private void removeHeader(
+        AST        node,
+        boolean    useCommentHistory,
+        NodeWriter out)
     {
         JavaNode first = (JavaNode) node.getFirstChild();
-        String[] keys = getConventionKeys(ConventionKeys.HEADER_KEYS);
+        String[] keys = getConventionKeys(ConventionKeys.HEADER_KEYS, out);
         int smartModeLines =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.HEADER_SMART_MODE_LINES,
                 ConventionDefaults.HEADER_SMART_MODE_LINES);
         boolean smartMode = (smartModeLines > 0);
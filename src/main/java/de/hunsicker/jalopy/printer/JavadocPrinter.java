@@ -284,7 +284,7 @@ final class JavadocPrinter extends AbstractPrinter {
                                   (node.getType() == JavaTokenTypes.METHOD_DEF) ||
                                   (node.getType() == JavaTokenTypes.CTOR_DEF);
 
-        boolean formatJavadoc = AbstractPrinter.settings.getBoolean(
+        boolean formatJavadoc = out.settings.getBoolean(
             ConventionKeys.COMMENT_JAVADOC_PARSE,
             ConventionDefaults.COMMENT_JAVADOC_PARSE);
 
@@ -356,17 +356,17 @@ final class JavadocPrinter extends AbstractPrinter {
 //                        else {
 //                            return; //node.setType(Token.SKIP);
 //                        }
-            out.print(getTopString(node.getType()), JavadocTokenTypes.JAVADOC_COMMENT);
+            out.print(getTopString(node.getType(), out), JavadocTokenTypes.JAVADOC_COMMENT);
 
-            String bottomText = getBottomString(node.getType());
+            String bottomText = getBottomString(node.getType(), out);
             String asterix    = bottomText.substring(0, bottomText.indexOf('*') + 1);
 
-            asterix = getAsterix();
+            asterix = getAsterix(out);
 
             AST    firstTag   = null;
             String commentText = t;
 
-            if (!AbstractPrinter.settings.getBoolean(
+            if (!out.settings.getBoolean(
                 ConventionKeys.COMMENT_JAVADOC_PARSE_DESCRIPTION,
                 ConventionDefaults.JAVADOC_PARSE_DESCRIPTION)) {
                 TestNodeWriter dummy = out.testers.get();
@@ -408,7 +408,7 @@ final class JavadocPrinter extends AbstractPrinter {
 
             // any tags to print or check needed?
             if ((firstTag != EMPTY_NODE) ||
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                 ConventionKeys.COMMENT_JAVADOC_CHECK_TAGS,
                 ConventionDefaults.COMMENT_JAVADOC_CHECK_TAGS)) {
                 printTagSection(node, comment, firstTag, asterix, out);
@@ -667,7 +667,7 @@ LOOP:
                            NodeWriter out) {
         switch (type) {
             case JavaTokenTypes.LITERAL_throws:
-                if (!AbstractPrinter.settings.getBoolean(
+                if (!out.settings.getBoolean(
                     ConventionKeys.COMMENT_JAVADOC_CHECK_TAGS_THROWS,
                     ConventionDefaults.COMMENT_JAVADOC_CHECK_TAGS_THROWS)) {
                     return;
@@ -724,6 +724,11 @@ LOOP:
             } // end else
         } // end for
 
+        // the valid names to match misspelled names against, built once per list
+        Lcs.Dictionary dictionary = wrongOrObsolete.isEmpty()
+                                        ? null
+                                        : new Lcs.Dictionary(validNames);
+
         // create an empty list with as many empty slots as needed
         List result = new ArrayList(validNames);
 
@@ -778,7 +783,8 @@ LOOP:
 
                 // if the tag name was mispelled, it has been corrected, so add
                 // it to the list
-                correctTagName(tag, validNames, next, asterix, last, out);
+                correctTagName(
+                    tag, validNames, dictionary, next, asterix, last, out);
                 result.set(next, tag);
             } // end for
 
@@ -864,7 +870,8 @@ LOOP:
                 if ((tag == null) || (tag.getFirstChild() == null)) {
                     AST wrongTag = (AST)wrongOrObsolete.remove(0);
 
-                    correctTagName(wrongTag, validNames, i, asterix, last, out);
+                    correctTagName(
+                        wrongTag, validNames, dictionary, i, asterix, last, out);
                     tag = wrongTag;
                 } // end if
 
@@ -916,6 +923,7 @@ LOOP:
      *
      * @param wrongTag the tag node to correct.
      * @param validNames list with all valid tag names for the method/ctor.
+     * @param dictionary dictionary with the valid tag names.
      * @param index current index in the list of valid names.
      * @param asterix string to use as leading asterix.
      * @param last type of tag that was printed last.
@@ -923,12 +931,13 @@ LOOP:
      *
      * @return index of the corrected tag in the list with valid names.
      */
-    private int correctTagName(AST        wrongTag,
-                               List       validNames,
-                               int        index,
-                               String     asterix,
-                               int        last,
-                               NodeWriter out) {
+    private int correctTagName(AST            wrongTag,
+                               List           validNames,
+                               Lcs.Dictionary dictionary,
+                               int            index,
+                               String         asterix,
+                               int            last,
+                               NodeWriter     out) {
         AST child = wrongTag.getFirstChild();
 
         if (child != null) {
@@ -946,7 +955,7 @@ LOOP:
                 offset = text.length();
             } // end else
 
-            String match   = getMatch(oldName, validNames);
+            String match   = getMatch(oldName, dictionary);
             String newName = null;
 
             if (match != null) {
@@ -1007,14 +1016,14 @@ LOOP:
         if (typeName != null) {
             AST para = out.getJavaNodeFactory().create(
                 JavadocTokenTypes.PCDATA,
-                getTagTemplateText(node, typeName, type, environment));
+                getTagTemplateText(node, typeName, type, environment, out));
 
             tag.setFirstChild(para);
         } // end if
         else {
             AST description = out.getJavaNodeFactory().create(
                 JavadocTokenTypes.PCDATA,
-                getTagTemplateText(node, null, type, environment));
+                getTagTemplateText(node, null, type, environment, out));
 
             tag.setFirstChild(description);
         } // end else
@@ -1143,7 +1152,7 @@ LOOP:
                 break;
         } // end switch
 
-        int maxwidth = AbstractPrinter.settings.getInt(
+        int maxwidth = out.settings.getInt(
             ConventionKeys.LINE_LENGTH,
             ConventionDefaults.LINE_LENGTH) - 3 - out.getIndentLength() - length;
 
@@ -1189,12 +1198,14 @@ LOOP:
     /**
      * Returns the string to start successive Javadoc comment lines with.
      *
+     * @param out stream to write to.
+     *
      * @return the string to start successive Javadoc comment lines with.
      *
      * @since 1.0b8
      */
-    private String getAsterix() {
-        String text        = AbstractPrinter.settings.get(
+    private String getAsterix(NodeWriter out) {
+        String text        = out.settings.get(
             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM,
             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM);
         int    asterix     = text.indexOf('*');
@@ -1215,23 +1226,25 @@ LOOP:
      * Returns the string to end a Javadoc comment with.
      *
      * @param type type of the node to get the ending comment string for.
+     * @param out stream to write to.
      *
      * @return the string to end a Javadoc comment with (usually <code> &#42;/</code>).
      *
      * @since 1.0b8
      */
-    private String getBottomString(int type) {
+    private String getBottomString(int        type,
+                                   NodeWriter out) {
         switch (type) {
             case JavaTokenTypes.METHOD_DEF:
-                return AbstractPrinter.settings.get(
+                return out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_BOTTOM);
             case JavaTokenTypes.CTOR_DEF:
-                return AbstractPrinter.settings.get(
+                return out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_BOTTOM);
             case JavaTokenTypes.VARIABLE_DEF: {
-                String text = AbstractPrinter.settings.get(
+                String text = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_VARIABLE,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_VARIABLE).trim();
 
@@ -1243,7 +1256,7 @@ LOOP:
                 return " */";
             } // end case
             case JavaTokenTypes.CLASS_DEF: {
-                String text = AbstractPrinter.settings.get(
+                String text = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CLASS,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CLASS).trim();
 
@@ -1255,7 +1268,7 @@ LOOP:
                 return " */";
             } // end case
             case JavaTokenTypes.INTERFACE_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_INTERFACE,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_INTERFACE).trim();
                 int    offset = text.lastIndexOf(DELIMETER);
@@ -1294,38 +1307,20 @@ LOOP:
      * kind of 'fuzzy' as the strings must not be exactly similar.
      *
      * @param string the string to match.
-     * @param list list with strings to match against.
+     * @param dictionary dictionary with the strings to match against.
      *
      * @return Returns <code>null</code> if no match could be found.
      */
-    private String getMatch(String string,
-                            List   list) {
+    private String getMatch(String         string,
+                            Lcs.Dictionary dictionary) {
         if (string == null) {
             return null;
         } // end if
 
-        if (list.contains(string)) {
-            return string;
-        } // end if
-
-        Lcs lcs = new Lcs();
-
-        for (int i = 0, size = list.size(); i < size; i++) {
-            String tag = (String)list.get(i);
-
-            lcs.init(string, tag);
-
-            double similarity = lcs.getPercentage();
-
 /**
-             * @todo evaluate whether this is appropriate
-             */
-            if (similarity > 75.0) {
-                return tag;
-            } // end if
-        } // end for
-
-        return null;
+         * @todo evaluate whether this is appropriate
+         */
+        return dictionary.getMatch(string, 75.0);
     } // end getMatch()
 
     /**
@@ -1389,6 +1384,7 @@ LOOP:
      *        the exception. May be <code>null</code> for TAG_RETURN.
      * @param type parameter type. Either TAG_PARAM, TAG_RETURN or TAG_EXCEPTION/TAG_THROWS.
      * @param environment the environment.
+     * @param out stream to write to.
      *
      * @return template text for the given param type.
      *
@@ -1398,13 +1394,14 @@ LOOP:
     private String getTagTemplateText(AST         node,
                                       String      typeName,
                                       int         type,
-                                      Environment environment) {
+                                      Environment environment,
+                                      NodeWriter  out) {
         switch (type) {
             case JavadocTokenTypes.TAG_PARAM:
                 switch (node.getType()) {
                     case JavaTokenTypes.METHOD_DEF:
 
-                        String text = AbstractPrinter.settings.get(
+                        String text = out.settings.get(
                             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM,
                             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_PARAM);
 
@@ -1412,7 +1409,7 @@ LOOP:
                     case JavaTokenTypes.CTOR_DEF:
                     case JavaTokenTypes.CLASS_DEF: // TODO Update template form for class definition
                     case JavaTokenTypes.INTERFACE_DEF: // TODO Update template form for class definition
-                        text = AbstractPrinter.settings.get(
+                        text = out.settings.get(
                             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM,
                             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_PARAM);
 
@@ -1437,13 +1434,13 @@ LOOP:
                 switch (node.getType()) {
                     case JavaTokenTypes.METHOD_DEF:
 
-                        String text = AbstractPrinter.settings.get(
+                        String text = out.settings.get(
                             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_EXCEPTION,
                             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_EXCEPTION);
 
                     // fall through
                     case JavaTokenTypes.CTOR_DEF:
-                        text = AbstractPrinter.settings.get(
+                        text = out.settings.get(
                             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_EXCEPTION,
                             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_EXCEPTION);
 
@@ -1469,7 +1466,7 @@ LOOP:
                 switch (node.getType()) {
                     case JavaTokenTypes.METHOD_DEF:
 
-                        String text   = AbstractPrinter.settings.get(
+                        String text   = out.settings.get(
                             ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_RETURN,
                             ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_RETURN);
                         int    offset = text.indexOf('*');
@@ -1492,15 +1489,17 @@ LOOP:
      * Returns the string to start a Javadoc comment with.
      *
      * @param type type of the node to get the starting comment string for.
+     * @param out stream to write to.
      *
      * @return the string to start a Javadoc comment with (usually <code> /&#42;&#42;</code>).
      *
      * @since 1.0b8
      */
-    private String getTopString(int type) {
+    private String getTopString(int        type,
+                                NodeWriter out) {
         switch (type) {
             case JavaTokenTypes.METHOD_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_METHOD_TOP,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_METHOD_TOP);
                 int    offset = text.indexOf(DELIMETER);
@@ -1511,7 +1510,7 @@ LOOP:
                 return text;
             } // end case
             case JavaTokenTypes.CTOR_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CTOR_TOP,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CTOR_TOP);
                 int    offset = text.indexOf(DELIMETER);
@@ -1522,7 +1521,7 @@ LOOP:
                 return text;
             } // end case
             case JavaTokenTypes.VARIABLE_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_VARIABLE,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_VARIABLE).trim();
                 int    offset = text.indexOf(DELIMETER);
@@ -1533,7 +1532,7 @@ LOOP:
                 return "/**";
             } // end case
             case JavaTokenTypes.CLASS_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_CLASS,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_CLASS).trim();
                 int    offset = text.indexOf(DELIMETER);
@@ -1544,7 +1543,7 @@ LOOP:
                 return "/**";
             } // end case
             case JavaTokenTypes.INTERFACE_DEF: {
-                String text   = AbstractPrinter.settings.get(
+                String text   = out.settings.get(
                     ConventionKeys.COMMENT_JAVADOC_TEMPLATE_INTERFACE,
                     ConventionDefaults.COMMENT_JAVADOC_TEMPLATE_INTERFACE).trim();
                 int    offset = text.indexOf(DELIMETER);
@@ -1763,7 +1762,7 @@ LOOP:
                                    NodeWriter out,
                                    boolean    trim)
                             throws IOException {
-        int maxColumn = AbstractPrinter.settings.getInt(
+        int maxColumn = out.settings.getInt(
             ConventionKeys.LINE_LENGTH,
             ConventionDefaults.LINE_LENGTH);
 
@@ -1916,7 +1915,7 @@ SELECTION:
         switch (node.getType()) {
             case JavaTokenTypes.VARIABLE_DEF:
             case JavaTokenTypes.ENUM_CONSTANT_DEF:
-                if (AbstractPrinter.settings.getBoolean(
+                if (out.settings.getBoolean(
                     ConventionKeys.COMMENT_JAVADOC_FIELDS_SHORT,
                     ConventionDefaults.COMMENT_JAVADOC_FIELDS_SHORT)) {
                     if (printSingleLineDescription(node, comment, out)) {
@@ -2286,7 +2285,7 @@ SELECTION:
                                                NodeWriter out)
                                         throws IOException {
         StringBuffer buf      = new StringBuffer();
-        int          maxwidth = AbstractPrinter.settings.getInt(
+        int          maxwidth = out.settings.getInt(
             ConventionKeys.LINE_LENGTH,
             ConventionDefaults.LINE_LENGTH) - 3 - out.getIndentLength();
 
@@ -2638,7 +2637,7 @@ SELECTION:
         AST  returnTag        = null;
         List exceptionTags    = Collections.EMPTY_LIST;
 
-        boolean checkTags = AbstractPrinter.settings.getBoolean(
+        boolean checkTags = out.settings.getBoolean(
             ConventionKeys.COMMENT_JAVADOC_CHECK_TAGS,
             ConventionDefaults.COMMENT_JAVADOC_CHECK_TAGS);
 
@@ -2726,7 +2725,7 @@ SELECTION:
             } // end switch
         } // end for
 
-        int maxwidth = AbstractPrinter.settings.getInt(
+        int maxwidth = out.settings.getInt(
             ConventionKeys.LINE_LENGTH,
             ConventionDefaults.LINE_LENGTH) - out.getIndentLength() - 3;
 
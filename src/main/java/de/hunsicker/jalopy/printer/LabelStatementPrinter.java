@@ -100,10 +100,10 @@ final class LabelStatementPrinter
       throws IOException
     {
         boolean indentLabel =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_LABEL, ConventionDefaults.INDENT_LABEL);
         boolean lineWrapLabel =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_AFTER_LABEL,
                 ConventionDefaults.LINE_WRAP_AFTER_LABEL);
         AST identifier = node.getFirstChild();
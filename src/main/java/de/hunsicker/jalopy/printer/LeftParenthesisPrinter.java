@@ -88,7 +88,7 @@ final class LeftParenthesisPrinter
         printCommentsBefore(node, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_PAREN, ConventionDefaults.PADDING_PAREN))
         {
             out.print(LPAREN_SPACE, JavaTokenTypes.LPAREN);
@@ -102,7 +102,7 @@ final class LeftParenthesisPrinter
 
         if (
             (out.mode == NodeWriter.MODE_DEFAULT)
-            && AbstractPrinter.settings.getBoolean(
+            && out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_PAREN_GROUPING,
                 ConventionDefaults.LINE_WRAP_PAREN_GROUPING))
         {
@@ -189,7 +189,7 @@ ITERATION:
         }
 
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
         if ((out.column + tester.length) > lineLength)
@@ -197,7 +197,7 @@ ITERATION:
             out.printNewline();
 
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP))
             {
                 out.state.markers.add(
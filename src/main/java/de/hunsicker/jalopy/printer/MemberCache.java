@@ -0,0 +1,623 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import antlr.CommonHiddenStreamToken;
+import antlr.collections.AST;
+
+import de.hunsicker.jalopy.language.antlr.ExtendedToken;
+import de.hunsicker.jalopy.language.antlr.JavaNode;
+import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.CompiledConvention;
+import de.hunsicker.jalopy.storage.Environment;
+
+
+/**
+ * Remembers the printed output of class members across formatting runs, so members
+ * that did not change since the last run of a file need not be printed again.
+ *
+ * <p>
+ * A member is identified by its subtree (node types, texts, comments and their
+ * positions relative to the preceding member), its enclosing declarations and the
+ * state of the writer when printing starts. If the same member is printed again
+ * in the same state, the output of the last run is written instead and the writer
+ * state is advanced as if the member was printed. Members with annotations, a
+ * tracked position or reported issues are always printed, as are members whose
+ * printing logged messages (see {@link #messageLogged}), because replaying them would
+ * lose the messages.
+ * </p>
+ *
+ * <p>
+ * All entries are dropped as soon as the code convention, the environment or the
+ * line separator changes. Only the entries of the last run are kept for every file.
+ * This class is not thread-safe; use one instance per {@link
+ * de.hunsicker.jalopy.Jalopy Jalopy} object.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @since 1.1
+ */
+public final class MemberCache
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Delimeter between the parts of a key. */
+    private static final char DELIMETER = '|';
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The entries of the last run for every file (&lt;String&gt;:&lt;Map&gt;). */
+    private final Map _files = new HashMap();
+
+    /** The entries recorded during the current run (&lt;String&gt;:&lt;Entry&gt;). */
+    private Map _current;
+
+    /** The entries of the previous run of the current file. */
+    private Map _previous;
+
+    /** The code convention the cached output was printed with. */
+    private CompiledConvention _settings;
+
+    /** The environment the cached output was printed with. */
+    private String _environment;
+
+    /** The line separator the cached output was printed with. */
+    private String _lineSeparator;
+
+    /** Number of members written from the cache since creation. */
+    private int _hits;
+
+    /** Number of members printed since creation. */
+    private int _misses;
+
+    /** Number of messages logged since creation. */
+    private int _messages;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new MemberCache object.
+     */
+    public MemberCache()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the number of members that were written from the cache.
+     *
+     * @return number of cache hits.
+     */
+    public int getHits()
+    {
+        return _hits;
+    }
+
+
+    /**
+     * Returns the number of members that had to be printed.
+     *
+     * @return number of cache misses.
+     */
+    public int getMisses()
+    {
+        return _misses;
+    }
+
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear()
+    {
+        _files.clear();
+        _current = null;
+        _previous = null;
+        _settings = null;
+        _environment = null;
+        _lineSeparator = null;
+    }
+
+
+    /**
+     * Notifies the cache that a message was logged while formatting. Must be called for
+     * every message logged by the thread that prints.
+     */
+    public void messageLogged()
+    {
+        _messages++;
+    }
+
+
+    /**
+     * Prepares the cache for a new run with the given writer.
+     *
+     * @param out the writer of the run.
+     */
+    void begin(NodeWriter out)
+    {
+        // the date changes with every run, but only matters if used in a template
+        String environment =
+            out.settings.contains("$" + Environment.Variable.DATE.getName())
+            ? out.environment.toString()
+            : out.environment.toString(Environment.Variable.DATE);
+
+        if (
+            !out.settings.equals(_settings) || !environment.equals(_environment)
+            || !out.lineSeparator.equals(_lineSeparator))
+        {
+            _files.clear();
+            _settings = out.settings;
+            _environment = environment;
+            _lineSeparator = out.lineSeparator;
+        }
+
+        _previous = (Map) _files.get(out.filename);
+        _current = new HashMap();
+        _files.put(out.filename, _current);
+    }
+
+
+    /**
+     * Prints the given class member, either by replaying the output of the last run or
+     * by actually printing it.
+     *
+     * @param node a child of an <code>OBJBLOCK</code> node.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    void print(
+        AST        node,
+        NodeWriter out)
+      throws IOException
+    {
+        String key = (_current != null) ? createKey((JavaNode) node, out)
+                                        : null;
+
+        if (key == null)
+        {
+            PrinterFactory.create(node, out).print(node, out);
+
+            return;
+        }
+
+        Entry entry = (_previous != null) ? (Entry) _previous.get(key)
+                                          : null;
+
+        if (entry != null)
+        {
+            _hits++;
+            _current.put(key, entry);
+            out.getWriter().write(entry.output);
+            out.line += entry.lines;
+            out.restoreState(entry.state);
+
+            // only ever compared against nodes that follow the member
+            out.expression = entry.expression ? (JavaNode) node
+                                              : null;
+
+            return;
+        }
+
+        _misses++;
+
+        Writer target = out.getWriter();
+        Recorder recorder = new Recorder(target);
+        int line = out.line;
+        int messages = _messages;
+        out.setWriter(recorder);
+
+        try
+        {
+            PrinterFactory.create(node, out).print(node, out);
+        }
+        finally
+        {
+            out.setWriter(target);
+        }
+
+        if (isClean(out) && (_messages == messages))
+        {
+            entry = new Entry();
+            entry.output = recorder.buffer.toString();
+            entry.lines = out.line - line;
+            entry.state = out.saveState();
+            entry.expression = out.expression != null;
+            _current.put(key, entry);
+        }
+    }
+
+
+    /**
+     * Determines whether the given writer holds no state that could outlive a
+     * member.
+     *
+     * @param out the writer.
+     *
+     * @return <code>true</code> if the writer state can be fully captured by {@link
+     *         NodeWriter#saveState}.
+     */
+    private static boolean isClean(NodeWriter out)
+    {
+        return (out.pendingComment == null) && (out.state.markers.count() == 0)
+        && out.state.parentheses.isEmpty() && (out.state.parenScope.size() == 1)
+        && (((ParenthesesScope) out.state.parenScope.getFirst()).chainCall == null);
+    }
+
+
+    /**
+     * Appends the given tree to the key.
+     *
+     * @param node root of the tree.
+     * @param base the line positions are stored relative to this line.
+     * @param positions if <code>true</code> the positions are part of the key.
+     * @param out the writer.
+     * @param buf the key.
+     *
+     * @return <code>false</code> if the tree must not be cached.
+     */
+    private static boolean appendTree(
+        AST          node,
+        int          base,
+        boolean      positions,
+        NodeWriter   out,
+        StringBuffer buf)
+    {
+        if (!(node instanceof JavaNode))
+        {
+            return false;
+        }
+
+        JavaNode n = (JavaNode) node;
+
+        if (
+            (n.getPosition() != null) || n.hasAnnotations()
+            || ((out.issues != null) && out.issues.containsKey(n)))
+        {
+            return false;
+        }
+
+        buf.append('(');
+        buf.append(n.getType());
+        appendText(n.getText(), buf);
+
+        if (positions)
+        {
+            buf.append(n.getStartLine() - base);
+            buf.append(',');
+            buf.append(n.getStartColumn());
+            buf.append(',');
+            buf.append(n.getEndLine() - base);
+            buf.append(',');
+            buf.append(n.getEndColumn());
+
+            for (
+                CommonHiddenStreamToken t = n.getHiddenBefore(); t != null;
+                t = t.getHiddenBefore())
+            {
+                appendToken(t, base, buf);
+            }
+
+            buf.append(DELIMETER);
+
+            for (
+                CommonHiddenStreamToken t = n.getHiddenAfter(); t != null;
+                t = t.getHiddenAfter())
+            {
+                appendToken(t, base, buf);
+            }
+        }
+
+        for (AST child = n.getFirstChild(); child != null;
+            child = child.getNextSibling())
+        {
+            if (!appendTree(child, base, positions, out, buf))
+            {
+                return false;
+            }
+        }
+
+        buf.append(')');
+
+        return true;
+    }
+
+
+    /**
+     * Appends the given comment tree to the key.
+     *
+     * @param node root of the comment tree.
+     * @param buf the key.
+     */
+    private static void appendComment(
+        AST          node,
+        StringBuffer buf)
+    {
+        buf.append('(');
+        buf.append(node.getType());
+        appendText(node.getText(), buf);
+
+        for (AST child = node.getFirstChild(); child != null;
+            child = child.getNextSibling())
+        {
+            appendComment(child, buf);
+        }
+
+        buf.append(')');
+    }
+
+
+    /**
+     * Appends the given text to the key.
+     *
+     * @param text a text, may be <code>null</code>.
+     * @param buf the key.
+     */
+    private static void appendText(
+        String       text,
+        StringBuffer buf)
+    {
+        if (text == null)
+        {
+            buf.append(DELIMETER);
+
+            return;
+        }
+
+        // prefix with the length so texts can never run into each other
+        buf.append(':');
+        buf.append(text.length());
+        buf.append(':');
+        buf.append(text);
+    }
+
+
+    /**
+     * Appends the given hidden token to the key.
+     *
+     * @param token a hidden token.
+     * @param base the line position is stored relative to this line.
+     * @param buf the key.
+     */
+    private static void appendToken(
+        CommonHiddenStreamToken token,
+        int                     base,
+        StringBuffer            buf)
+    {
+        buf.append('[');
+        buf.append(token.getType());
+        appendText(token.getText(), buf);
+        buf.append(token.getLine() - base);
+        buf.append(',');
+        buf.append(token.getColumn());
+
+        if (token instanceof ExtendedToken)
+        {
+            AST comment = ((ExtendedToken) token).getComment();
+
+            if (comment != null)
+            {
+                appendComment(comment, buf);
+            }
+        }
+
+        buf.append(']');
+    }
+
+
+    /**
+     * Creates the key for the given member.
+     *
+     * @param node a class member.
+     * @param out the writer.
+     *
+     * @return the key or <code>null</code> if the member must not be cached.
+     */
+    private String createKey(
+        JavaNode   node,
+        NodeWriter out)
+    {
+        switch (node.getType())
+        {
+            case JavaTokenTypes.METHOD_DEF :
+            case JavaTokenTypes.CTOR_DEF :
+            case JavaTokenTypes.CLASS_DEF :
+            case JavaTokenTypes.INTERFACE_DEF :
+            case JavaTokenTypes.ENUM_DEF :
+            case JavaTokenTypes.ANNOTATION_DEF :
+            case JavaTokenTypes.STATIC_INIT :
+            case JavaTokenTypes.INSTANCE_INIT :
+                break;
+
+            default :
+
+                // fields are aligned with their neighbours
+                return null;
+        }
+
+        if ((out.mode != NodeWriter.MODE_DEFAULT) || !isClean(out))
+        {
+            return null;
+        }
+
+        StringBuffer buf = new StringBuffer(1024);
+        int[] state = out.saveState();
+
+        for (int i = 0; i < state.length; i++)
+        {
+            buf.append(state[i]);
+            buf.append(',');
+        }
+
+        buf.append(out.expression != null);
+        buf.append(DELIMETER);
+
+        // the enclosing declarations, without their bodies
+        for (JavaNode parent = node.getParent(); parent != null;
+            parent = parent.getParent())
+        {
+            buf.append(parent.getType());
+
+            switch (parent.getType())
+            {
+                case JavaTokenTypes.OBJBLOCK :
+                case JavaTokenTypes.ROOT :
+                    break;
+
+                case JavaTokenTypes.CLASS_DEF :
+                case JavaTokenTypes.INTERFACE_DEF :
+                case JavaTokenTypes.ENUM_DEF :
+                case JavaTokenTypes.ANNOTATION_DEF :
+
+                    for (AST child = parent.getFirstChild(); child != null;
+                        child = child.getNextSibling())
+                    {
+                        if (
+                            (child.getType() != JavaTokenTypes.OBJBLOCK)
+                            && !appendTree(child, 0, false, out, buf))
+                        {
+                            return null;
+                        }
+                    }
+
+                    break;
+
+                default :
+
+                    // e.g. anonymous inner classes
+                    return null;
+            }
+
+            buf.append(DELIMETER);
+        }
+
+        JavaNode prev = node.getPreviousSibling();
+        int base = node.getStartLine();
+
+        if (prev != null)
+        {
+            buf.append(prev.getType());
+            base = prev.getEndLine();
+        }
+
+        buf.append(DELIMETER);
+
+        if (!appendTree(node, base, true, out, buf))
+        {
+            return null;
+        }
+
+        return buf.toString();
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * The cached output of a member.
+     */
+    private static final class Entry
+    {
+        /** The printed output. */
+        String output;
+
+        /** Indicates whether an expression was printed before the member ended. */
+        boolean expression;
+
+        /** The writer state after the member was printed. */
+        int[] state;
+
+        /** Number of lines the member output spans. */
+        int lines;
+    }
+
+
+    /**
+     * Passes all output to another writer and keeps a copy of it.
+     */
+    private static final class Recorder
+        extends Writer
+    {
+        /** The copy of the output. */
+        final StringBuffer buffer = new StringBuffer(1024);
+
+        /** The writer to pass the output to. */
+        final Writer target;
+
+        public Recorder(Writer target)
+        {
+            this.target = target;
+        }
+
+        public void close()
+          throws IOException
+        {
+            this.target.close();
+        }
+
+
+        public void flush()
+          throws IOException
+        {
+            this.target.flush();
+        }
+
+
+        public void write(
+            char[] cbuf,
+            int    off,
+            int    len)
+          throws IOException
+        {
+            this.target.write(cbuf, off, len);
+            this.buffer.append(cbuf, off, len);
+        }
+
+
+        public void write(
+            String str,
+            int    off,
+            int    len)
+          throws IOException
+        {
+            this.target.write(str, off, len);
+            this.buffer.append(str, off, off + len);
+        }
+    }
+}
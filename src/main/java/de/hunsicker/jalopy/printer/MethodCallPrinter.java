@@ -119,10 +119,10 @@ final class MethodCallPrinter
         if (out.mode == NodeWriter.MODE_DEFAULT)
         {
             boolean wrapLines =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP);
             boolean forceWrappingForChainedCalls =
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_CHAINED_METHOD_CALL,
                     ConventionDefaults.LINE_WRAP_AFTER_CHAINED_METHOD_CALL);
 
@@ -148,11 +148,10 @@ final class MethodCallPrinter
                         // means qualified name, align under the last dot
                         case JavaTokenTypes.DOT :
                         {
-                            TestNodeWriter tester = out.testers.get();
                             AST identifier = child.getFirstChild();
-                            PrinterFactory.create(identifier, out).print(identifier, tester);
-                            scope.chainOffset = out.column - 1 + tester.length;
-                            out.testers.release(tester);
+                            scope.chainOffset =
+                                out.column - 1
+                                + out.testers.measure(identifier, out, Integer.MAX_VALUE);
 
                             break;
                         }
@@ -268,7 +267,7 @@ final class MethodCallPrinter
                         length = identifier.getFirstChild().getText().length();
 
                         if (
-                            AbstractPrinter.settings.getBoolean(
+                            out.settings.getBoolean(
                                 ConventionKeys.SPACE_BEFORE_BRACKETS_TYPES,
                                 ConventionDefaults.SPACE_BEFORE_BRACKETS_TYPES))
                         {
@@ -311,14 +310,14 @@ final class MethodCallPrinter
                 
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.PADDING_CAST, ConventionDefaults.PADDING_CAST))
                 {
                     length += 2;
                 }
 
                 if (
-                    AbstractPrinter.settings.getBoolean(
+                    out.settings.getBoolean(
                         ConventionKeys.SPACE_AFTER_CAST,
                         ConventionDefaults.SPACE_AFTER_CAST))
                 {
@@ -337,7 +336,7 @@ final class MethodCallPrinter
         PrinterFactory.create(first, out).print(first, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_METHOD_CALL_PAREN,
                 ConventionDefaults.SPACE_BEFORE_METHOD_CALL_PAREN))
         {
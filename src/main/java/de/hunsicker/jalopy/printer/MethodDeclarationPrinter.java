@@ -111,7 +111,7 @@ final class MethodDeclarationPrinter
 
         // print parameters
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_METHOD_DEF_PAREN,
                 ConventionDefaults.SPACE_BEFORE_METHOD_DEF_PAREN))
         {
@@ -93,7 +93,7 @@ final class ModifiersPrinter
       throws IOException
     {
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SORT_MODIFIERS, ConventionDefaults.SORT_MODIFIERS))
         {
             JavaNode firstModifier = (JavaNode) node.getFirstChild();
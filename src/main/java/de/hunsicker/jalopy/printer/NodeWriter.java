@@ -33,6 +33,7 @@ package de.hunsicker.jalopy.printer;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.Map;
 
 import antlr.CommonHiddenStreamToken;
@@ -40,6 +41,7 @@ import de.hunsicker.jalopy.language.CompositeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaNode;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
+import de.hunsicker.jalopy.storage.CompiledConvention;
 import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -79,6 +81,9 @@ public class NodeWriter
 
     /** Indicates that a printer is in testing mode. */
     static final int MODE_TEST = 2;
+
+    /** The number of values {@link #saveState} stores for the writer itself. */
+    private static final int SAVED_SIZE = 8;
     private static final String LCURLY = "{" /* NOI18N */.intern();
     private static final String RCURLY = "}" /* NOI18N */.intern();
     // TODO private static final String SEMI = ";" /* NOI18N */.intern();
@@ -88,7 +93,7 @@ public class NodeWriter
     //~ Instance variables ---------------------------------------------------------------
 
     /** The code convention settings that controls the output style. */
-    protected Convention settings;
+    protected CompiledConvention settings;
 
     /** The envrionment to use. */
     protected Environment environment;
@@ -158,6 +163,9 @@ public class NodeWriter
     /** The printing state. */
     PrinterState state;
 
+    /** The cache for printed class members, <code>null</code> if disabled. */
+    MemberCache members;
+
     /** The original filename of the stream we output. */
     String filename = "<unknown>" /* NOI18N */;
     WriterCache testers;
@@ -187,6 +195,12 @@ public class NodeWriter
 
     /** Used to generate the indent string. */
     private char[] _indentChars;
+
+    /** Used to write tab indentation, always as long as the indent buffer. */
+    private char[] _tabChars;
+
+    /** The indent strings handed out so far, indexed by length. */
+    private String[] _indentStrings;
     
     private CompositeFactory _factory = null;
 
@@ -213,7 +227,37 @@ public class NodeWriter
         String lineSeparator,
         String originalLineSeparator)
     {
-        this(factory);
+        this(
+            out, factory, Convention.getInstance().compile(), filename, issues,
+            lineSeparator, originalLineSeparator);
+    }
+
+
+    /**
+     * Creates a new NodeWriter object with the given file output format that uses the
+     * given code convention. Use this constructor if several writers are active in
+     * different threads; compiled conventions are immutable and may be shared.
+     *
+     * @param out the output stream to write to.
+     * @param factory the factory to create nodes with.
+     * @param settings the code convention that controls the output style.
+     * @param filename name of the parsed file.
+     * @param issues holds the issues found during a run.
+     * @param lineSeparator the lineSeparator to use.
+     * @param originalLineSeparator the original line separator of the file.
+     *
+     * @since 1.1
+     */
+    public NodeWriter(
+        Writer             out,
+        CompositeFactory   factory,
+        CompiledConvention settings,
+        String             filename,
+        Map                issues,
+        String             lineSeparator,
+        String             originalLineSeparator)
+    {
+        this(factory, settings);
         this.filename = filename;
         this.issues = issues;
         this.lineSeparator = lineSeparator;
@@ -232,49 +276,53 @@ public class NodeWriter
 
     /**
      * Creates a new NodeWriter object.
+     *
+     * @param factory the factory to create nodes with.
+     * @param settings the code convention that controls the output style.
      */
-    protected NodeWriter(CompositeFactory factory)
+    protected NodeWriter(
+        CompositeFactory   factory,
+        CompiledConvention settings)
     {
         this.state = new PrinterState(this);
         this._factory = factory;
         this.lineSeparator = File.separator;
-        this.settings = Convention.getInstance();
+        this.settings = settings;
         this.indentSize =
-            AbstractPrinter.settings.getInt(
+            this.settings.getInt(
                 ConventionKeys.INDENT_SIZE, ConventionDefaults.INDENT_SIZE);
         this.insertTrailingEmpty =
-            AbstractPrinter.settings.getBoolean(
+            this.settings.getBoolean(
                 ConventionKeys.INSERT_TRAILING_NEWLINE,
                 ConventionDefaults.INSERT_TRAILING_NEWLINE);
         this.continuationIndentSize =
-            AbstractPrinter.settings.getInt(
+            this.settings.getInt(
                 ConventionKeys.INDENT_SIZE_CONTINUATION,
                 ConventionDefaults.INDENT_SIZE_CONTINUATION);
         this.leftBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            this.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_LEFT, ConventionDefaults.BRACE_NEWLINE_LEFT);
         this.leftBraceIndent =
-            AbstractPrinter.settings.getInt(
+            this.settings.getInt(
                 ConventionKeys.INDENT_SIZE_BRACE_LEFT,
                 ConventionDefaults.INDENT_SIZE_BRACE_LEFT);
         this.leadingIndentSize =
-            AbstractPrinter.settings.getInt(
+            this.settings.getInt(
                 ConventionKeys.INDENT_SIZE_LEADING, ConventionDefaults.INDENT_SIZE_LEADING);
         this.useTabs =
-            AbstractPrinter.settings.getBoolean(
+            this.settings.getBoolean(
                 ConventionKeys.INDENT_WITH_TABS, ConventionDefaults.INDENT_WITH_TABS);
         this.useLeadingTabs =
-            AbstractPrinter.settings.getBoolean(
+            this.settings.getBoolean(
                 ConventionKeys.INDENT_WITH_TABS_ONLY_LEADING,
                 ConventionDefaults.INDENT_WITH_TABS_ONLY_LEADING);
         this.footer =
-            AbstractPrinter.settings.getBoolean(ConventionKeys.FOOTER, ConventionDefaults.FOOTER);
+            this.settings.getBoolean(ConventionKeys.FOOTER, ConventionDefaults.FOOTER);
         _indentChars = new char[150];
-
-        for (int i = 0; i < _indentChars.length; i++)
-        {
-            _indentChars[i] = ' ';
-        }
+        _tabChars = new char[150];
+        _indentStrings = new String[150];
+        Arrays.fill(_indentChars, ' ');
+        Arrays.fill(_tabChars, '\t');
 
         if (this.leadingIndentSize > 0)
         {
@@ -440,6 +488,25 @@ public class NodeWriter
     }
 
 
+    /**
+     * Sets the cache to replay unchanged class members from. Must be called after the
+     * environment has been set.
+     *
+     * @param cache the member cache, <code>null</code> to print all members.
+     *
+     * @since 1.1
+     */
+    public void setMemberCache(MemberCache cache)
+    {
+        this.members = cache;
+
+        if (cache != null)
+        {
+            cache.begin(this);
+        }
+    }
+
+
     /**
      * Returns a string of the given length.
      *
@@ -552,33 +619,19 @@ public class NodeWriter
             {
                 case JavaTokenTypes.WS :
                 {
-                    if (!useTabs)
+                    if (!this.useTabs || !this.useLeadingTabs)
                     {
-                        String s = generateIndentString(length + string.length());
-                        this.column += s.length();
-                        _out.write(s);
+                        length += string.length();
+                        this.column += length;
+                        writeIndent(length, this.useTabs);
                     }
                     else
                     {
-                        if (!this.useLeadingTabs)
-                        {
-                            String s = generateIndentString(length + string.length());
-                            this.column += s.length();
-                            s = StringHelper.replace(
-                                    s, generateIndentString(this.indentSize), TAB);
-                            _out.write(s);
-                        }
-                        else
-                        {
-                            String s = generateIndentString(length);
-                            this.column += length;
-                            s = StringHelper.replace(
-                                    s, generateIndentString(this.indentSize), TAB);
-                            _out.write(s);
-
-                            this.column += string.length();
-                            _out.write(string);
-                        }
+                        this.column += length;
+                        writeIndent(length, true);
+
+                        this.column += string.length();
+                        _out.write(string);
                     }
 
                     break;
@@ -586,17 +639,9 @@ public class NodeWriter
 
                 default :
                 {
-                    String s = generateIndentString(length);
                     offset += length;
                     this.column += (length + string.length());
-
-                    if (this.useTabs)
-                    {
-                        s = StringHelper.replace(
-                                s, generateIndentString(this.indentSize), TAB);
-                    }
-
-                    _out.write(s);
+                    writeIndent(length, this.useTabs);
                     _out.write(string);
 
                     break;
@@ -621,10 +666,7 @@ public class NodeWriter
 
                         if (spacesCount == 0)
                         {
-                            string =
-                                StringHelper.replace(
-                                    string, generateIndentString(this.indentSize), TAB);
-                            _out.write(string);
+                            writeTabbed(string, 0);
                         }
                         else
                         {
@@ -634,12 +676,7 @@ public class NodeWriter
                             }
 
                             _out.write(TAB);
-
-                            string =
-                                StringHelper.replace(
-                                    string.substring(this.indentSize - spacesCount),
-                                    generateIndentString(this.indentSize), TAB);
-                            _out.write(string);
+                            writeTabbed(string, this.indentSize - spacesCount);
                         }
 
                         break;
@@ -866,6 +903,57 @@ public class NodeWriter
     }
 
 
+    /**
+     * Restores a state captured with {@link #saveState}.
+     *
+     * @param values the saved state.
+     *
+     * @since 1.1
+     */
+    void restoreState(int[] values)
+    {
+        this.indentLevel = values[0];
+        this.column = values[1];
+        this.newline = values[2] == 1;
+        this.nextNewline = values[3] == 1;
+        this.last = values[4];
+        this.continuation = values[5] == 1;
+        this.blankLines = values[6];
+        this.javadocIndent = values[7];
+        this.state.restore(values, SAVED_SIZE);
+    }
+
+
+    /**
+     * Captures the state that carries over from one class member to the next, i.e.
+     * the position and indentation as well as the printer state. Whenever a field is
+     * added to this class or to {@link PrinterState}, it has to be handled here and in
+     * {@link #restoreState} unless it is only set during setup.
+     *
+     * @return the current state.
+     *
+     * @since 1.1
+     */
+    int[] saveState()
+    {
+        int[] values = new int[SAVED_SIZE + PrinterState.SAVED_SIZE];
+        values[0] = this.indentLevel;
+        values[1] = this.column;
+        values[2] = this.newline ? 1
+                                 : 0;
+        values[3] = this.nextNewline ? 1
+                                     : 0;
+        values[4] = this.last;
+        values[5] = this.continuation ? 1
+                                      : 0;
+        values[6] = this.blankLines;
+        values[7] = this.javadocIndent;
+        this.state.save(values, SAVED_SIZE);
+
+        return values;
+    }
+
+
     /**
      * Decreases the current indent level one level.
      */
@@ -894,6 +982,17 @@ public class NodeWriter
     }
 
 
+    /**
+     * Returns the underlying writer.
+     *
+     * @return the writer we actually write to.
+     */
+    Writer getWriter()
+    {
+        return _out;
+    }
+
+
     /**
      * Returns the closing (right) curly brace to use. The actual representation depends
      * on the code convention.
@@ -907,7 +1006,7 @@ public class NodeWriter
             StringBuffer buf = new StringBuffer(getIndentSize() + 1);
             buf.append(
                 generateIndentString(
-                    AbstractPrinter.settings.getInt(
+                    this.settings.getInt(
                         ConventionKeys.INDENT_SIZE_BRACE_RIGHT,
                         ConventionDefaults.INDENT_SIZE_BRACE_RIGHT)));
             buf.append(RCURLY);
@@ -920,7 +1019,29 @@ public class NodeWriter
 
 
     /**
-     * Generates a string only comprimised of spaces, with the given length.
+     * Makes sure the indent buffers can hold the given number of characters.
+     *
+     * @param length number of characters needed.
+     */
+    private void ensureIndentCapacity(int length)
+    {
+        if (length > _indentChars.length)
+        {
+            int size = (int) (1.4 * length);
+            String[] strings = new String[size];
+            System.arraycopy(_indentStrings, 0, strings, 0, _indentStrings.length);
+            _indentStrings = strings;
+            _indentChars = new char[size];
+            _tabChars = new char[size];
+            Arrays.fill(_indentChars, ' ');
+            Arrays.fill(_tabChars, '\t');
+        }
+    }
+
+
+    /**
+     * Generates a string only comprimised of spaces, with the given length. The strings
+     * are cached, so every length is only created once per writer.
      *
      * @param length length of the string to create.
      *
@@ -934,29 +1055,88 @@ public class NodeWriter
         }
 
         // make sure the char buffer is big enough
-        if (length > _indentChars.length)
+        ensureIndentCapacity(length);
+
+        String result = _indentStrings[length];
+
+        if (result == null)
         {
-            char[] buf = new char[(int) (1.4 * length)];
+            result = new String(_indentChars, 0, length);
+            _indentStrings[length] = result;
+        }
 
-            for (int i = 0;; i++)
-            {
-                int offset = i * _indentChars.length;
+        return result;
+    }
 
-                if ((offset + _indentChars.length) <= buf.length)
-                {
-                    System.arraycopy(_indentChars, 0, buf, offset, _indentChars.length);
-                }
-                else
-                {
-                    System.arraycopy(_indentChars, 0, buf, offset, buf.length - offset);
 
-                    break;
-                }
-            }
+    /**
+     * Writes the given number of indentation characters to the underlying writer,
+     * straight from the indent buffers.
+     *
+     * @param length number of indentation columns.
+     * @param tabs if <code>true</code> every full indent size is written as a tab;
+     *        remaining columns are filled with spaces.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void writeIndent(
+        int     length,
+        boolean tabs)
+      throws IOException
+    {
+        if (length == 0)
+        {
+            return;
+        }
+
+        ensureIndentCapacity(length);
+
+        if (tabs && (this.indentSize > 0))
+        {
+            int tabCount = length / this.indentSize;
+            _out.write(_tabChars, 0, tabCount);
+            _out.write(_indentChars, 0, length - (tabCount * this.indentSize));
+        }
+        else
+        {
+            _out.write(_indentChars, 0, length);
+        }
+    }
+
 
-            _indentChars = buf;
+    /**
+     * Writes the given whitespace string to the underlying writer, starting at the
+     * given offset. Within every run of spaces, each full indent size is written as a
+     * tab.
+     *
+     * @param string the whitespace to write.
+     * @param start offset of the first character to write.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void writeTabbed(
+        String string,
+        int    start)
+      throws IOException
+    {
+        int spaces = 0;
+
+        for (int i = start, size = string.length(); i < size; i++)
+        {
+            char c = string.charAt(i);
+
+            if (c == ' ')
+            {
+                spaces++;
+            }
+            else
+            {
+                writeIndent(spaces, true);
+                spaces = 0;
+                _out.write(c);
+            }
         }
 
-        return new String(_indentChars, 0, length).intern();
+        writeIndent(spaces, true);
     }
 }
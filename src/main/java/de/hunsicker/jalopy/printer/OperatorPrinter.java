@@ -94,7 +94,7 @@ abstract class OperatorPrinter
             }
 
             int lineLength =
-                AbstractPrinter.settings.getInt(
+                out.settings.getInt(
                     ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
             if ((out.column >= lineLength) || (offset > lineLength))
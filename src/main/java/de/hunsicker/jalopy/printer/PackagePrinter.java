@@ -97,7 +97,7 @@ final class PackagePrinter
         PrinterFactory.create(semi, out).print(semi, out);
 
         out.printBlankLines(
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.BLANK_LINES_AFTER_PACKAGE,
                 ConventionDefaults.BLANK_LINES_AFTER_PACKAGE));
         out.last = JavaTokenTypes.PACKAGE_DEF;
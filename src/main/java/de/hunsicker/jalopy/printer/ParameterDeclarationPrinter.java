@@ -86,13 +86,13 @@ final class ParameterDeclarationPrinter
         AST modifier = node.getFirstChild();
 
         if (
-            (AbstractPrinter.settings.getBoolean(
+            (out.settings.getBoolean(
                 ConventionKeys.INSERT_FINAL_MODIFIER_FOR_METHOD_PARAMETERS, 
                 ConventionDefaults.INSERT_FINAL_MODIFIER_FOR_METHOD_PARAMETERS)
                 && ((JavaNode)node).getParent().getParent().getType() == JavaTokenTypes.METHOD_DEF
                 ) ||
                 
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INSERT_FINAL_MODIFIER_FOR_PARAMETERS, 
                 ConventionDefaults.INSERT_FINAL_MODIFIER_FOR_PARAMETERS))
         {
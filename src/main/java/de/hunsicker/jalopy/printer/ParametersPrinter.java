@@ -91,7 +91,7 @@ final class ParametersPrinter extends AbstractPrinter {
             // a method or ctor declaration
             case JavaTokenTypes.PARAMETERS:
 
-                boolean newlineAfter = AbstractPrinter.settings.getBoolean(
+                boolean newlineAfter = out.settings.getBoolean(
                     ConventionKeys.LINE_WRAP_AFTER_PARAMS_METHOD_DEF,
                     ConventionDefaults.LINE_WRAP_AFTER_PARAMS_METHOD_DEF);
 
@@ -99,7 +99,7 @@ final class ParametersPrinter extends AbstractPrinter {
                  * @todo move the whole test into printImpl()?
                  */
                 if (out.mode == NodeWriter.MODE_DEFAULT) {
-                    boolean align = AbstractPrinter.settings.getBoolean(
+                    boolean align = out.settings.getBoolean(
                         ConventionKeys.ALIGN_PARAMS_METHOD_DEF,
                         ConventionDefaults.ALIGN_PARAMS_METHOD_DEF);
 
@@ -113,20 +113,15 @@ final class ParametersPrinter extends AbstractPrinter {
                             AST expr = node.getFirstChild();
 
                             if (expr != null) {
-                                TestNodeWriter tester = out.testers.get();
-
-                                PrinterFactory.create(expr, out).print(expr, tester);
-
-                                int lineLength = AbstractPrinter.settings.getInt(
+                                int lineLength = out.settings.getInt(
                                     ConventionKeys.LINE_LENGTH,
                                     ConventionDefaults.LINE_LENGTH);
+                                int length = out.testers.measure(expr, out, lineLength - out.column);
 
                                 // ... or necessary
-                                if ((out.column + tester.length) > lineLength) {
+                                if ((out.column + length) > lineLength) {
                                     setAlignOffset(node, out);
                                 } // end if
-
-                                out.testers.release(tester);
                             } // end if
                         } // end else
                     } // end if
@@ -158,14 +153,14 @@ final class ParametersPrinter extends AbstractPrinter {
 
         // wrap and align, if necessary
         if (wrapped &&
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_BEFORE_RIGHT_PAREN,
             ConventionDefaults.LINE_WRAP_BEFORE_RIGHT_PAREN)) {
             if (!out.newline) {
                 out.printNewline();
             } // end if
 
-            if (AbstractPrinter.settings.getBoolean(
+            if (out.settings.getBoolean(
                 ConventionKeys.INDENT_DEEP,
                 ConventionDefaults.INDENT_DEEP)) {
                 printIndentation(-1, out);
@@ -364,31 +359,31 @@ SEARCH:
             return false;
         } // end if
 
-        boolean wrapLines = AbstractPrinter.settings.getBoolean(
+        boolean wrapLines = out.settings.getBoolean(
             ConventionKeys.LINE_WRAP,
             ConventionDefaults.LINE_WRAP) && (out.mode == NodeWriter.MODE_DEFAULT);
-        int     lineLength = AbstractPrinter.settings.getInt(
+        int     lineLength = out.settings.getInt(
             ConventionKeys.LINE_LENGTH,
             ConventionDefaults.LINE_LENGTH);
-        boolean indentDeep = AbstractPrinter.settings.getBoolean(
+        boolean indentDeep = out.settings.getBoolean(
             ConventionKeys.INDENT_DEEP,
             ConventionDefaults.INDENT_DEEP);
-        int deepIndentSize = AbstractPrinter.settings.getInt(
+        int deepIndentSize = out.settings.getInt(
             ConventionKeys.INDENT_SIZE_DEEP,
             ConventionDefaults.INDENT_SIZE_DEEP);
-        boolean alignMethodCall = AbstractPrinter.settings.getBoolean(
+        boolean alignMethodCall = out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_AFTER_PARAMS_METHOD_CALL,
             ConventionDefaults.LINE_WRAP_AFTER_PARAMS_METHOD_CALL);
-        boolean alignMethodCallIfNested = AbstractPrinter.settings.getBoolean(
+        boolean alignMethodCallIfNested = out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_AFTER_PARAMS_METHOD_CALL_IF_NESTED,
             ConventionDefaults.LINE_WRAP_AFTER_PARAMS_METHOD_CALL_IF_NESTED);
-        boolean spaceAfterComma = AbstractPrinter.settings.getBoolean(
+        boolean spaceAfterComma = out.settings.getBoolean(
             ConventionKeys.SPACE_AFTER_COMMA,
             ConventionDefaults.SPACE_AFTER_COMMA);
-        boolean preferWrapAfterLeftParen = AbstractPrinter.settings.getBoolean(
+        boolean preferWrapAfterLeftParen = out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_AFTER_LEFT_PAREN,
             ConventionDefaults.LINE_WRAP_AFTER_LEFT_PAREN);
-        boolean wrapIfFirst = AbstractPrinter.settings.getBoolean(
+        boolean wrapIfFirst = out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_PARAMS_EXCEED,
             ConventionDefaults.LINE_WRAP_PARAMS_EXCEED);
 
@@ -489,50 +484,43 @@ SEARCH:
                                     if (preferWrapAfterLeftParen &&
                                         (paramIndex == FIRST_PARAM) &&
                                         (out.mode != NodeWriter.MODE_TEST)) {
-                                        TestNodeWriter tester = out.testers.get();
-
                                         // determine the exact space all
                                         // parameters would need
-                                        PrinterFactory.create(node, out).print(node, tester);
+                                        int length = out.testers.measure(node, out, lineLength - out.column);
 
                                         // +1 for the right parenthesis
-                                        if ((out.column + tester.length + 1) > lineLength) {
+                                        if ((out.column + length + 1) > lineLength) {
                                             firstWrapped = true;
                                         } // end if
-
-                                        out.testers.release(tester);
                                     } // end if
                                 } // end if
                                 else if (wrapLines && (out.mode != NodeWriter.MODE_TEST)) {
-                                    TestNodeWriter tester = out.testers.get();
+                                    int testLength;
 
                                     if (preferWrapAfterLeftParen && (paramIndex == FIRST_PARAM)) {
                                         // determine the exact space all
                                         // parameters would need
-                                        PrinterFactory.create(node, out).print(node, tester);
-
                                         // (+1 for the right parenthesis)
-                                        tester.length += 1;
+                                        testLength = out.testers.measure(node, out, lineLength - out.column) + 1;
                                     } // end if
                                     else {
                                         // determine the exact space this
                                         // parameter would need
-                                        PrinterFactory.create(parameter, out)
-                                                      .print(parameter, tester);
+                                        testLength = out.testers.measure(parameter, out, lineLength - out.column);
                                     } // end else
 
                                     if (!preferWrapAfterLeftParen && (next != null)) {
                                         if (spaceAfterComma) {
-                                            tester.length += 2;
+                                            testLength += 2;
                                         } // end if
                                         else {
-                                            tester.length += 1;
+                                            testLength += 1;
                                         } // end else
                                     } // end if
 
                                     // space exceeds the line length but we
                                     // have to apply further checks
-                                    if ((out.column + tester.length) > lineLength) {
+                                    if ((out.column + testLength) > lineLength) {
                                         // for the first parameter we need to determine
                                         // whether we should print it directly after
                                         // parenthesis or wrap and indent
@@ -580,12 +568,12 @@ SEARCH:
                                                             parameter);
 
                                                         if (first != null) {
-                                                            tester.reset();
-                                                            PrinterFactory.create(first, out).print(
+                                                            testLength = out.testers.measure(
                                                                 first,
-                                                                tester);
+                                                                out,
+                                                                lineLength - out.column);
 
-                                                            if ((out.column + tester.length) > lineLength) {
+                                                            if ((out.column + testLength) > lineLength) {
                                                                 result = wrapFirst(
                                                                     type,
                                                                     true,
@@ -690,8 +678,6 @@ SEARCH:
                                     else if (spaceAfterComma && (paramIndex != FIRST_PARAM)) {
                                         out.print(SPACE, JavaTokenTypes.WS);
                                     } // end else if
-
-                                    out.testers.release(tester);
                                 } // end else if
                                 else if (spaceAfterComma && (paramIndex != FIRST_PARAM)) {
                                     out.print(SPACE, JavaTokenTypes.WS);
@@ -713,14 +699,13 @@ SEARCH:
                                     } // end if
                                     else if (preferWrapAfterLeftParen || (!indentDeep)) {
                                         if (next == null) {
-                                            TestNodeWriter tester = out.testers.get();
-
-                                            PrinterFactory.create(parameter, out).print(
+                                            int length = out.testers.measure(
                                                 parameter,
-                                                tester);
+                                                out,
+                                                lineLength - out.column);
 
                                             // +1 for the right parenthesis
-                                            if ((out.column + tester.length + 1) > lineLength) {
+                                            if ((out.column + length + 1) > lineLength) {
                                                 result = wrapFirst(
                                                     type,
                                                     true,
@@ -728,8 +713,6 @@ SEARCH:
                                                     out);
                                                 firstWrapped = true;
                                             } // end if
-
-                                            out.testers.release(tester);
                                         } // end if
                                         else {
                                             result = wrapFirst(
@@ -875,7 +858,7 @@ SEARCH:
         boolean  debugmode   = false;
         JavaNode littleParam = null;
 
-        if (AbstractPrinter.settings.getBoolean(
+        if (out.settings.getBoolean(
             ConventionKeys.LINE_WRAP_PARAMS_HARD,
             ConventionDefaults.LINE_WRAP_PARAMS_HARD)) {
             if (debugmode) {
@@ -1005,7 +988,7 @@ SEARCH:
                     // Perform a small indent if tester wrapped small or 
                     // if specified in options
                     smallindent = paramTester.state.smallIndent ||
-                                  AbstractPrinter.settings.getBoolean(
+                                  out.settings.getBoolean(
                         ConventionKeys.LINE_WRAP_PARAMS_DEEP,
                         ConventionDefaults.LINE_WRAP_PARAMS_DEEP);
                     if (!smallindent) {
@@ -1237,7 +1220,7 @@ SEARCH:
                        throws IOException {
         boolean result = false;
 
-        if (!AbstractPrinter.settings.getBoolean(
+        if (!out.settings.getBoolean(
             ConventionKeys.INDENT_DEEP,
             ConventionDefaults.INDENT_DEEP) ||
             !last) {
@@ -114,7 +114,7 @@ final class PrefixOperatorPrinter
       throws IOException
     {
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_LOGICAL_NOT,
                 ConventionDefaults.SPACE_BEFORE_LOGICAL_NOT))
         {
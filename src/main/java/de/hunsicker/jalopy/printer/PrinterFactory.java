@@ -44,7 +44,7 @@ import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 public final class PrinterFactory
 {
     //~ Constructors ---------------------------------------------------------------------
-public static AST lastChild = null;
+
     /**
      * Creates a new PrinterFactory object.
      */
@@ -69,7 +69,7 @@ public static AST lastChild = null;
     {
         int type = node.getType();
         Printer result = null;
-        lastChild = node;
+
         if (out.mode == NodeWriter.MODE_DEFAULT && node instanceof JavaNode ) {
             ((JavaNode)node).newLine = out.line;
             ((JavaNode)node).newColumn = out.column;
@@ -44,6 +44,11 @@ import java.util.List;
  */
 final class PrinterState
 {
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The number of values {@link #save} stores. */
+    static final int SAVED_SIZE = 16;
+
     //~ Instance variables ---------------------------------------------------------------
 
     LinkedList parenScope;
@@ -182,6 +187,82 @@ final class PrinterState
         smallIndent=false;
 
     }
+    /**
+     * Restores a state captured with {@link #save}.
+     *
+     * @param values the saved state.
+     * @param offset position of the first value in <em>values</em>.
+     *
+     * @since 1.1
+     */
+    void restore(
+        int[] values,
+        int   offset)
+    {
+        ParenthesesScope scope = (ParenthesesScope) this.parenScope.getFirst();
+        this.anonymousInnerClass = values[offset] == 1;
+        this.expressionList = values[offset + 1] == 1;
+        this.extendsWrappedBefore = values[offset + 2] == 1;
+        this.innerClass = values[offset + 3] == 1;
+        this.newlineBeforeLeftBrace = values[offset + 4] == 1;
+        this.paramList = values[offset + 5] == 1;
+        this.parametersWrapped = values[offset + 6] == 1;
+        this.wrap = values[offset + 7] == 1;
+        this.smallIndent = values[offset + 8] == 1;
+        this.arrayBrackets = values[offset + 9];
+        this.assignOffset = values[offset + 10];
+        this.paramLevel = values[offset + 11];
+        this.paramOffset = values[offset + 12];
+        this.variableOffset = values[offset + 13];
+        scope.wrap = values[offset + 14] == 1;
+        scope.chainOffset = values[offset + 15];
+    }
+
+
+    /**
+     * Stores the scalar state values, including those of the outermost parentheses
+     * scope. Whenever a field is added to this class, it has to be handled here and in
+     * {@link #restore} as well, and {@link #SAVED_SIZE} adjusted.
+     *
+     * @param values array to store the values into.
+     * @param offset position to store the first value at.
+     *
+     * @since 1.1
+     */
+    void save(
+        int[] values,
+        int   offset)
+    {
+        ParenthesesScope scope = (ParenthesesScope) this.parenScope.getFirst();
+        values[offset] = this.anonymousInnerClass ? 1
+                                                  : 0;
+        values[offset + 1] = this.expressionList ? 1
+                                                 : 0;
+        values[offset + 2] = this.extendsWrappedBefore ? 1
+                                                       : 0;
+        values[offset + 3] = this.innerClass ? 1
+                                             : 0;
+        values[offset + 4] = this.newlineBeforeLeftBrace ? 1
+                                                         : 0;
+        values[offset + 5] = this.paramList ? 1
+                                            : 0;
+        values[offset + 6] = this.parametersWrapped ? 1
+                                                    : 0;
+        values[offset + 7] = this.wrap ? 1
+                                       : 0;
+        values[offset + 8] = this.smallIndent ? 1
+                                              : 0;
+        values[offset + 9] = this.arrayBrackets;
+        values[offset + 10] = this.assignOffset;
+        values[offset + 11] = this.paramLevel;
+        values[offset + 12] = this.paramOffset;
+        values[offset + 13] = this.variableOffset;
+        values[offset + 14] = scope.wrap ? 1
+                                         : 0;
+        values[offset + 15] = scope.chainOffset;
+    }
+
+
     public void reset(PrinterState state) {
         this.anonymousInnerClass = state.anonymousInnerClass;
         this.innerClass = state.innerClass;
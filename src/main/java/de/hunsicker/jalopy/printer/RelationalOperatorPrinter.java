@@ -30,8 +30,6 @@
  */
 package de.hunsicker.jalopy.printer;
 
-import java.io.IOException;
-
 import antlr.collections.AST;
 import de.hunsicker.jalopy.language.antlr.JavaTokenTypes;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
@@ -75,31 +73,21 @@ final class RelationalOperatorPrinter
 
 
     /**
-     * DOCUMENT ME!
-     *
-     * @param node DOCUMENT ME!
-     * @param out DOCUMENT ME!
-     *
-     * @throws IOException DOCUMENT ME!
+     * {@inheritDoc}
      */
-    public void print(
+    protected boolean isPadded(
         AST        node,
         NodeWriter out)
-      throws IOException
     {
         switch (node.getType())
         {
             case JavaTokenTypes.LITERAL_instanceof :
-                super.print(node, true, out);
-
-                break;
+                return true;
 
             default :
-                super.print(
-                    node,
-                    AbstractPrinter.settings.getBoolean(
-                        ConventionKeys.PADDING_RELATIONAL_OPERATORS,
-                        ConventionDefaults.PADDING_RELATIONAL_OPERATORS), out);
+                return out.settings.getBoolean(
+                    ConventionKeys.PADDING_RELATIONAL_OPERATORS,
+                    ConventionDefaults.PADDING_RELATIONAL_OPERATORS);
         }
     }
 }
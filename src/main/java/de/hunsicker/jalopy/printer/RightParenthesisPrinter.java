@@ -87,7 +87,7 @@ final class RightParenthesisPrinter
     {
         if (
             (out.mode == NodeWriter.MODE_DEFAULT)
-            && AbstractPrinter.settings.getBoolean(
+            && out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_PAREN_GROUPING,
                 ConventionDefaults.LINE_WRAP_PAREN_GROUPING))
         {
@@ -102,7 +102,7 @@ final class RightParenthesisPrinter
                     out.printNewline();
 
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP))
                     {
                         out.state.markers.remove(out.state.markers.getLast());
@@ -123,7 +123,7 @@ final class RightParenthesisPrinter
         printCommentsBefore(node, NodeWriter.NEWLINE_NO, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_PAREN, ConventionDefaults.PADDING_PAREN))
         {
             out.print(SPACE_RPAREN, JavaTokenTypes.RPAREN);
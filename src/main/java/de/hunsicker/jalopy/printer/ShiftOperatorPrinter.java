@@ -30,8 +30,6 @@
  */
 package de.hunsicker.jalopy.printer;
 
-import java.io.IOException;
-
 import antlr.collections.AST;
 import de.hunsicker.jalopy.storage.ConventionDefaults;
 import de.hunsicker.jalopy.storage.ConventionKeys;
@@ -74,22 +72,14 @@ final class ShiftOperatorPrinter
 
 
     /**
-     * DOCUMENT ME!
-     *
-     * @param node DOCUMENT ME!
-     * @param out DOCUMENT ME!
-     *
-     * @throws IOException DOCUMENT ME!
+     * {@inheritDoc}
      */
-    public void print(
+    protected boolean isPadded(
         AST        node,
         NodeWriter out)
-      throws IOException
     {
-        super.print(
-            node,
-            AbstractPrinter.settings.getBoolean(
-                ConventionKeys.PADDING_SHIFT_OPERATORS,
-                ConventionDefaults.PADDING_SHIFT_OPERATORS), out);
+        return out.settings.getBoolean(
+            ConventionKeys.PADDING_SHIFT_OPERATORS,
+            ConventionDefaults.PADDING_SHIFT_OPERATORS);
     }
 }
@@ -126,7 +126,7 @@ final class SwitchPrinter
         trackPosition((JavaNode) node, out.line, offset, out);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
@@ -144,7 +144,7 @@ final class SwitchPrinter
 
         AST lcurly = rparen.getNextSibling();
         boolean leftBraceNewline =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_NEWLINE_LEFT, ConventionDefaults.BRACE_NEWLINE_LEFT);
 
         boolean commentsAfter = ((JavaNode) lcurly).hasCommentsAfter();
@@ -166,7 +166,7 @@ final class SwitchPrinter
         }
 
         boolean indentCaseFromSwitch =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_CASE_FROM_SWITCH,
                 ConventionDefaults.INDENT_CASE_FROM_SWITCH);
 
@@ -193,7 +193,7 @@ LOOP:
             }
         }
         
-        if (AbstractPrinter.settings.getBoolean(
+        if (out.settings.getBoolean(
             ConventionKeys.BRACE_ADD_COMMENT, ConventionDefaults.BRACE_ADD_COMMENT))
             prepareComment((JavaNode)lcurly,rcurly,out);
 
@@ -87,7 +87,7 @@ final class SynchronizedPrinter
         out.print(SYNCHRONIZED, JavaTokenTypes.LITERAL_synchronized);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
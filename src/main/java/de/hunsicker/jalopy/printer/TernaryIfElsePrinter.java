@@ -211,11 +211,11 @@ final class TernaryIfElsePrinter
       throws IOException
     {
         boolean wrapLines =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
             && (out.mode == NodeWriter.MODE_DEFAULT);
         boolean wrapBeforeColon =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.ALIGN_TERNARY_VALUES,
                 ConventionDefaults.ALIGN_TERNARY_VALUES);
 
@@ -238,15 +238,13 @@ final class TernaryIfElsePrinter
         }
         else if (wrapLines) // check whether wrap/align necessary
         {
-            TestNodeWriter tester = out.testers.get();
-
             AST thirdOp = getNextOperand(colon.getNextSibling());
-            PrinterFactory.create(thirdOp, out).print(thirdOp, tester);
+            int lineLength =
+                out.settings.getInt(
+                    ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
             // only wrap and align if necessary
-            if (
-                (tester.length + out.column) > AbstractPrinter.settings.getInt(
-                    ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH))
+            if ((out.testers.measure(thirdOp, out, lineLength - out.column) + out.column) > lineLength)
             {
                 out.printNewline();
 
@@ -263,8 +261,6 @@ final class TernaryIfElsePrinter
             {
                 out.print(SPACE, out.last);
             }
-
-            out.testers.release(tester);
         }
         else // line wrapping disabled
         {
@@ -334,7 +330,7 @@ final class TernaryIfElsePrinter
                         PrinterFactory.create(child, out).print(child, out);
                     }
                     else if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.INSERT_EXPRESSION_PARENTHESIS,
                             ConventionDefaults.INSERT_EXPRESSION_PARENTHESIS)
                         && needParentheses((JavaNode) child))
@@ -413,11 +409,11 @@ final class TernaryIfElsePrinter
       throws IOException
     {
         boolean wrapLines =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
             && (out.mode == NodeWriter.MODE_DEFAULT);
         boolean wrapBeforeQuestion =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.ALIGN_TERNARY_EXPRESSION,
                 ConventionDefaults.ALIGN_TERNARY_EXPRESSION);
 
@@ -432,16 +428,15 @@ final class TernaryIfElsePrinter
         }
         else if (wrapLines) // check whether wrap/align necessary
         {
-            TestNodeWriter tester = out.testers.get();
-
             AST secondOp = getNextOperand(secondOperand);
-            PrinterFactory.create(secondOp, out).print(secondOp, tester);
+
+            int lineLength =
+                out.settings.getInt(
+                    ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 
             // wrap and align if necessary (+3 for the colon between the
             // second and third operator)
-            if (
-                (tester.length + out.column + 3) > AbstractPrinter.settings.getInt(
-                    ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH))
+            if ((out.testers.measure(secondOp, out, lineLength - out.column) + out.column + 3) > lineLength)
             {
                 out.printNewline();
                 printIndentation(out);
@@ -450,8 +445,6 @@ final class TernaryIfElsePrinter
             {
                 out.print(SPACE, out.last);
             }
-
-            out.testers.release(tester);
         }
         else // line wrapping disabled
         {
@@ -461,7 +454,7 @@ final class TernaryIfElsePrinter
         Marker marker = null;
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.ALIGN_TERNARY_OPERATOR,
                 ConventionDefaults.ALIGN_TERNARY_OPERATOR)
             && (wrapLines || wrapBeforeQuestion))
@@ -40,6 +40,13 @@ import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
  * NodeWriter can be used to &quot;test&quot; the output result for nodes. The class'
  * sole purpose is to determine the length of an AST tree (or portions thereof) if
  * printed.
+ * 
+ * <p>
+ * Most callers only want to know whether a node fits into the space left on the
+ * current line. For them a limit can be set via {@link #setLimit}: as soon as the
+ * output grows beyond it, printing is stopped by throwing {@link #LIMIT_EXCEEDED}, so
+ * that large trees need not be printed in full just to learn that they are too long.
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.4 $
@@ -47,10 +54,24 @@ import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 final class TestNodeWriter
     extends NodeWriter
 {
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Thrown to stop printing once the set limit has been exceeded. */
+    static final LimitExceededException LIMIT_EXCEEDED = new LimitExceededException();
+
     //~ Instance variables ---------------------------------------------------------------
 
     /** The length it would take to print the tree/node. */
     int length;
+
+    /** The maximal length before printing is stopped. */
+    private int _limitLength = Integer.MAX_VALUE;
+
+    /** The maximal column before printing is stopped. */
+    private int _limitColumn = Integer.MAX_VALUE;
+
+    /** Should printing be stopped when a newline is printed? */
+    private boolean _limitLine;
     int maxColumn;
     boolean hasIndent = false;
 
@@ -61,7 +82,7 @@ final class TestNodeWriter
      */
     TestNodeWriter(WriterCache writer,CompositeFactory factory, NodeWriter source)
     {
-        super(factory);
+        super(factory, source.settings);
         this.mode = MODE_TEST;
         this.testers = writer;
         this.filename = source.filename;
@@ -128,6 +149,11 @@ final class TestNodeWriter
         addColumn(l);
         this.last = type;
 
+        if ((this.length > _limitLength) || (this.maxColumn > _limitColumn))
+        {
+            throw LIMIT_EXCEEDED;
+        }
+
         return 1;
     }
 
@@ -138,10 +164,14 @@ final class TestNodeWriter
     public void printNewline()
       throws IOException
     {
+        if (_limitLine)
+        {
+            throw LIMIT_EXCEEDED;
+        }
+
         this.newline = true;
         this.column = 1;
         this.line++;
-        
     }
     
     /**
@@ -154,6 +184,10 @@ final class TestNodeWriter
         this.column = 1;
         this.maxColumn = 1;
         this.indentLevel=0;
+        this.newline = false;
+        _limitLength = Integer.MAX_VALUE;
+        _limitColumn = Integer.MAX_VALUE;
+        _limitLine = false;
         //this.indentSize=0;
         //this.indent();
         if (this.state!=null)
@@ -190,6 +224,29 @@ final class TestNodeWriter
         }
     }
     
+    /**
+     * Sets the limits that stop printing. Once the length of the output exceeds
+     * <em>length</em>, the largest column exceeds <em>column</em> or, if
+     * <em>singleLine</em> is <code>true</code>, a newline would be printed, {@link
+     * #LIMIT_EXCEEDED} is thrown. The limits are cleared by {@link #reset()}.
+     *
+     * @param length the maximal length.
+     * @param column the maximal column.
+     * @param singleLine if <code>true</code> printing stops at the first newline.
+     *
+     * @since 1.1
+     */
+    void setLimit(
+        int     length,
+        int     column,
+        boolean singleLine)
+    {
+        _limitLength = length;
+        _limitColumn = column;
+        _limitLine = singleLine;
+    }
+
+
     private void addColumn(int amount) {
         this.column +=amount;
         if (this.column>this.maxColumn)
@@ -203,4 +260,25 @@ final class TestNodeWriter
     public void unindent() {
     }
 
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * Signals that the output exceeded the limit set. Carries no stack trace as it is
+     * only used for control flow.
+     *
+     * @since 1.1
+     */
+    static final class LimitExceededException
+        extends RuntimeException
+    {
+        private LimitExceededException()
+        {
+            super("limit exceeded" /* NOI18N */);
+        }
+
+        public Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    }
 }
@@ -95,28 +95,28 @@ final class ThrowsPrinter
         Marker marker = null;
 
         boolean wrapLines =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP, ConventionDefaults.LINE_WRAP)
             && (out.mode == NodeWriter.MODE_DEFAULT);
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
         boolean indentDeep =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.INDENT_DEEP, ConventionDefaults.INDENT_DEEP);
         int indentLength = out.getIndentLength();
         int deepIndent =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.INDENT_SIZE_DEEP, ConventionDefaults.INDENT_SIZE_DEEP);
         int indentSize =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.INDENT_SIZE_THROWS, ConventionDefaults.INDENT_SIZE_THROWS);
         boolean indentCustom = indentSize > -1;
 
         if (
             (out.mode == NodeWriter.MODE_DEFAULT)
             && (out.newline
-            || AbstractPrinter.settings.getBoolean(
+            || out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_BEFORE_THROWS,
                 ConventionDefaults.LINE_WRAP_BEFORE_THROWS)
             || (wrapLines
@@ -164,14 +164,14 @@ final class ThrowsPrinter
         }
 
         boolean spaceAfterComma =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_COMMA, ConventionDefaults.SPACE_AFTER_COMMA);
         boolean forceWrapping =
-             AbstractPrinter.settings.getBoolean(
+             out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_AFTER_TYPES_THROWS,
                 ConventionDefaults.LINE_WRAP_AFTER_TYPES_THROWS);
         boolean wrapAll =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.LINE_WRAP_AFTER_TYPES_THROWS_EXCEED,
                 ConventionDefaults.LINE_WRAP_AFTER_TYPES_THROWS_EXCEED)
             && (out.mode == NodeWriter.MODE_DEFAULT);
@@ -308,7 +308,7 @@ final class ThrowsPrinter
         }
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_TREAT_DIFFERENT_IF_WRAPPED,
                 ConventionDefaults.BRACE_TREAT_DIFFERENT_IF_WRAPPED)
             && (wrappedBefore || wrappedAfter || out.state.parametersWrapped))
@@ -341,24 +341,12 @@ final class ThrowsPrinter
         NodeWriter out)
       throws IOException
     {
-        TestNodeWriter tester = out.testers.get();
-        PrinterFactory.create(node, out).print(node, tester);
-
         Marker marker = out.state.markers.getLast();
+        int length = out.testers.measure(node, out, lineLength - marker.column);
 
-        if (
-            ((marker.column - 7) < deepIndent)
-            && ((marker.column + tester.length) < lineLength)
-            && ((marker.column - out.getIndentLength() - 7) > 0))
-        {
-            out.testers.release(tester);
-
-            return true;
-        }
-
-        out.testers.release(tester);
-
-        return false;
+        return ((marker.column - 7) < deepIndent)
+        && ((marker.column + length) < lineLength)
+        && ((marker.column - out.getIndentLength() - 7) > 0);
     }
 
 
@@ -391,31 +379,12 @@ final class ThrowsPrinter
             return true;
         }
 
-        TestNodeWriter tester = out.testers.get();
-
-        try
-        {
-            PrinterFactory.create(node, out).print(node, tester);
-
-            if ((out.column + tester.length) > lineLength)
-            {
-                return true;
-            }
-
-            tester.reset();
-
-            PrinterFactory.create(firstType, out).print(firstType, tester);
-
-            if ((out.column + 7 + tester.length) > lineLength)
-            {
-                return true;
-            }
-
-            return false;
-        }
-        finally
+        if ((out.column + out.testers.measure(node, out, lineLength - out.column)) > lineLength)
         {
-            out.testers.release(tester);
+            return true;
         }
+
+        return (out.column + 7 + out.testers.measure(firstType, out, lineLength - out.column))
+        > lineLength;
     }
 }
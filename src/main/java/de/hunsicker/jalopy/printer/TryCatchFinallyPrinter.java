@@ -137,7 +137,7 @@ final class TryCatchFinallyPrinter
         {
             out.print(
                 out.getString(
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.INDENT_SIZE_BRACE_RIGHT_AFTER,
                         ConventionDefaults.INDENT_SIZE_BRACE_RIGHT_AFTER)),
                 JavaTokenTypes.WS);
@@ -146,7 +146,7 @@ final class TryCatchFinallyPrinter
         out.print(CATCH, JavaTokenTypes.LITERAL_catch);
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
@@ -188,7 +188,7 @@ final class TryCatchFinallyPrinter
         {
             out.print(
                 out.getString(
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.INDENT_SIZE_BRACE_RIGHT_AFTER,
                         ConventionDefaults.INDENT_SIZE_BRACE_RIGHT_AFTER)),
                 JavaTokenTypes.WS);
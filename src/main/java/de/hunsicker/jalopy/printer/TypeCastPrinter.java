@@ -85,7 +85,7 @@ final class TypeCastPrinter
         AST type = node.getFirstChild();
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.PADDING_CAST, ConventionDefaults.PADDING_CAST))
         {
             out.print(LPAREN_SPACE, JavaTokenTypes.LPAREN);
@@ -100,7 +100,7 @@ final class TypeCastPrinter
         }
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_AFTER_CAST, ConventionDefaults.SPACE_AFTER_CAST))
         {
             out.print(SPACE, out.last);
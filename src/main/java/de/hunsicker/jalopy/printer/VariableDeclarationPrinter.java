@@ -88,7 +88,7 @@ extends BasicDeclarationPrinter
       throws IOException
     {
         JavaNode n = (JavaNode) node;
-        boolean isMLaComment = AbstractPrinter.settings.getBoolean(
+        boolean isMLaComment = out.settings.getBoolean(
                 ConventionKeys.DONT_COMMENT_JAVADOC_WHEN_ML,
                 ConventionDefaults.DONT_COMMENT_JAVADOC_WHEN_ML);
 
@@ -96,7 +96,7 @@ extends BasicDeclarationPrinter
         {
             if (
                 (!out.state.innerClass
-                || AbstractPrinter.settings.getBoolean(
+                || out.settings.getBoolean(
                     ConventionKeys.COMMENT_JAVADOC_INNER_CLASS,
                     ConventionDefaults.COMMENT_JAVADOC_INNER_CLASS))
                 && !JavaNodeHelper.isLocalVariable(node))
@@ -120,7 +120,7 @@ extends BasicDeclarationPrinter
         if (out.mode == NodeWriter.MODE_DEFAULT)
         {
             if (
-                AbstractPrinter.settings.getBoolean(
+                out.settings.getBoolean(
                     ConventionKeys.ALIGN_VAR_IDENTS, ConventionDefaults.ALIGN_VAR_IDENTS)
                     && !n.hasJavadocComment(isMLaComment))
             {
@@ -214,17 +214,19 @@ extends BasicDeclarationPrinter
      *
      * @param node a VARIABLE_DEF node.
      * @param last the type of the last node printed.
+     * @param out stream to write to.
      *
      * @return <code>true</code> if the node starts a new chunk.
      */
     boolean isNewChunk(
-        AST node,
-        int last)
+        AST        node,
+        int        last,
+        NodeWriter out)
     {
         JavaNode n = (JavaNode) node;
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.CHUNKS_BY_COMMENTS, ConventionDefaults.CHUNKS_BY_COMMENTS))
         {
             if (n.hasCommentsBefore())
@@ -238,7 +240,7 @@ extends BasicDeclarationPrinter
             case JavaTokenTypes.VARIABLE_DEF :
 
                 int maxLinesBetween =
-                    AbstractPrinter.settings.getInt(
+                    out.settings.getInt(
                         ConventionKeys.BLANK_LINES_KEEP_UP_TO,
                         ConventionDefaults.BLANK_LINES_KEEP_UP_TO);
 
@@ -247,7 +249,7 @@ extends BasicDeclarationPrinter
                 if (maxLinesBetween > 0)
                 {
                     if (
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.CHUNKS_BY_BLANK_LINES,
                             ConventionDefaults.CHUNKS_BY_BLANK_LINES))
                     {
@@ -286,7 +288,7 @@ extends BasicDeclarationPrinter
         boolean result = false;
         boolean possible = false;
         int lineLength =
-            AbstractPrinter.settings.getInt(
+            out.settings.getInt(
                 ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
 LOOP: 
         for (AST child = node.getFirstChild(); child != null;
@@ -387,7 +389,7 @@ SEARCH:
                                         if (
                                             isNewChunk(
                                                 def.getNextSibling(),
-                                                JavaTokenTypes.VARIABLE_DEF))
+                                                JavaTokenTypes.VARIABLE_DEF, out))
                                         {
                                             break SEARCH;
                                         }
@@ -428,7 +430,7 @@ SEARCH:
                 {
                     case JavaTokenTypes.VARIABLE_DEF :
 
-                        if (isNewChunk(next, last))
+                        if (isNewChunk(next, last, out))
                         {
                             out.state.variableOffset = OFFSET_NONE;
                             result = true;
@@ -94,7 +94,7 @@ final class WhilePrinter
         int offset = 1;
 
         if (
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.SPACE_BEFORE_STATEMENT_PAREN,
                 ConventionDefaults.SPACE_BEFORE_STATEMENT_PAREN))
         {
@@ -108,7 +108,7 @@ final class WhilePrinter
         trackPosition((JavaNode) node, out.line, offset, out);
 
         boolean insertBraces =
-            AbstractPrinter.settings.getBoolean(
+            out.settings.getBoolean(
                 ConventionKeys.BRACE_INSERT_WHILE, ConventionDefaults.BRACE_INSERT_WHILE);
 
         AST lparen = node.getFirstChild();
@@ -129,7 +129,7 @@ final class WhilePrinter
                 if (insertBraces)
                 {
                     out.printLeftBrace(
-                        AbstractPrinter.settings.getBoolean(
+                        out.settings.getBoolean(
                             ConventionKeys.BRACE_NEWLINE_LEFT,
                             ConventionDefaults.BRACE_NEWLINE_LEFT), NodeWriter.NEWLINE_YES);
                     PrinterFactory.create(body, out).print(body, out);
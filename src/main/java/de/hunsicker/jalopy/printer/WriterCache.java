@@ -30,9 +30,12 @@
  */
 package de.hunsicker.jalopy.printer;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import antlr.collections.AST;
+
 import de.hunsicker.jalopy.language.CompositeFactory;
 import de.hunsicker.jalopy.language.antlr.JavaNodeFactory;
 
@@ -94,6 +97,107 @@ final class WriterCache
     }
 
 
+    /**
+     * Determines the length the given node would take if printed, starting on a fresh
+     * line. Printing stops as soon as the length exceeds <em>limit</em>, so the
+     * returned value is only exact if it is smaller than or equal to the limit;
+     * otherwise it is some value greater than the limit. This way the cost of a test
+     * is bounded by the space that is actually available, not by the size of the
+     * tree.
+     *
+     * @param node the node to measure.
+     * @param out the writer that requests the measurement.
+     * @param limit the maximal length of interest. Use {@link Integer#MAX_VALUE} to
+     *        always get the exact length.
+     *
+     * @return the length of the printed node, or a value greater than <em>limit</em>.
+     *
+     * @throws IOException if printing the node failed.
+     *
+     * @since 1.1
+     */
+    public int measure(
+        AST        node,
+        NodeWriter out,
+        int        limit)
+      throws IOException
+    {
+        // widths are deliberately not cached: every node is measured once per context
+        Printer printer = PrinterFactory.create(node, out);
+        TestNodeWriter tester = get();
+
+        try
+        {
+            tester.setLimit(limit, Integer.MAX_VALUE, false);
+
+            try
+            {
+                printer.print(node, tester);
+            }
+            catch (TestNodeWriter.LimitExceededException ex)
+            {
+                ;
+            }
+
+            return tester.length;
+        }
+        finally
+        {
+            release(tester);
+        }
+    }
+
+
+    /**
+     * Determines whether the given node would exceed the line when printed at the
+     * current position of the given writer, i.e. whether printing it would require a
+     * line break or reach beyond the given column. Printing stops as soon as the
+     * answer is known.
+     *
+     * @param node the node to test.
+     * @param out the writer that requests the test.
+     * @param lineLength the maximal column.
+     *
+     * @return <code>true</code> if the node does not fit into the current line.
+     *
+     * @throws IOException if printing the node failed.
+     *
+     * @since 1.1
+     */
+    public boolean exceedsLine(
+        AST        node,
+        NodeWriter out,
+        int        lineLength)
+      throws IOException
+    {
+        Printer printer = PrinterFactory.create(node, out);
+        TestNodeWriter tester = get();
+
+        try
+        {
+            tester.reset(out, false);
+
+            if (tester.maxColumn > lineLength)
+            {
+                return true;
+            }
+
+            tester.setLimit(Integer.MAX_VALUE, lineLength, true);
+            printer.print(node, tester);
+
+            return false;
+        }
+        catch (TestNodeWriter.LimitExceededException ex)
+        {
+            return true;
+        }
+        finally
+        {
+            release(tester);
+        }
+    }
+
+
     /**
      * Releases the given writer and adds it to the cache.
      *
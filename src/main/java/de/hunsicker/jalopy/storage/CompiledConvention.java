@@ -0,0 +1,479 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+
+/**
+ * An immutable, compiled snapshot of a {@link Convention}.
+ * 
+ * <p>
+ * Every value is parsed exactly once when the snapshot is created and stored in slots
+ * indexed by {@link Convention.Key}, so a lookup boils down to a few array loads.
+ * Use {@link Convention#compile} to obtain an instance. Because the snapshot never
+ * changes, it can be shared by several threads without synchronization.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @see de.hunsicker.jalopy.storage.Convention
+ * @since 1.1
+ */
+public final class CompiledConvention
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** Indicates that the value of a slot parsed as an int. */
+    private static final byte FLAG_INT = 1;
+
+    /** Indicates that the value of a slot equals &quot;true&quot;. */
+    private static final byte FLAG_TRUE = 2;
+
+    /** Indicates that the value of a slot equals &quot;false&quot;. */
+    private static final byte FLAG_FALSE = 4;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The parsed int values, valid for slots flagged with {@link #FLAG_INT}. */
+    private final int[] _ints;
+
+    /** The parse state of every slot. */
+    private final byte[] _flags;
+
+    /** The keys of the slots, <code>null</code> for slots without an associated value. */
+    private final Convention.Key[] _keys;
+
+    /** The raw values, <code>null</code> for slots without an associated value. */
+    private final String[] _values;
+
+    /** The fingerprint, computed on first request. */
+    private String _fingerprint;
+
+    /** The compiled templates, created on first request. */
+    private final Template[] _templates;
+
+    /** The names of the variables referenced by the values, computed on first request. */
+    private String[] _variableNames;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new CompiledConvention object.
+     *
+     * @param values the settings to compile (&lt;Convention.Key&gt;:&lt;String&gt;).
+     */
+    CompiledConvention(Map values)
+    {
+        int size = Convention.Key.getIndexCount();
+        _keys = new Convention.Key[size];
+        _values = new String[size];
+        _ints = new int[size];
+        _flags = new byte[size];
+        _templates = new Template[size];
+
+        for (Iterator i = values.entrySet().iterator(); i.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            if (
+                !(entry.getKey() instanceof Convention.Key)
+                || !(entry.getValue() instanceof String))
+            {
+                continue;
+            }
+
+            int index = ((Convention.Key) entry.getKey()).getIndex();
+
+            if (index >= size)
+            {
+                // key created concurrently after we sized the arrays
+                continue;
+            }
+
+            String value = (String) entry.getValue();
+            _keys[index] = (Convention.Key) entry.getKey();
+            _values[index] = value;
+
+            if (value.equalsIgnoreCase("true" /* NOI18N */))
+            {
+                _flags[index] = FLAG_TRUE;
+            }
+            else if (value.equalsIgnoreCase("false" /* NOI18N */))
+            {
+                _flags[index] = FLAG_FALSE;
+            }
+            else
+            {
+                try
+                {
+                    _ints[index] = Integer.parseInt(value);
+                    _flags[index] = FLAG_INT;
+                }
+                catch (NumberFormatException ex)
+                {
+                    ;
+                }
+            }
+        }
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Determines whether any of the values contains the given string.
+     *
+     * @param str string to search for.
+     *
+     * @return <code>true</code> if at least one value contains <em>str</em>.
+     */
+    public boolean contains(String str)
+    {
+        for (int i = 0; i < _values.length; i++)
+        {
+            if ((_values[i] != null) && (_values[i].indexOf(str) > -1))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Indicates whether some other object is &quot;equal to&quot; this one. Two
+     * snapshots are equal if they hold the same values.
+     *
+     * @param o the reference object with which to compare.
+     *
+     * @return <code>true</code> if this object is the same as the <em>o</em> argument.
+     */
+    public boolean equals(Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+
+        if (!(o instanceof CompiledConvention))
+        {
+            return false;
+        }
+
+        String[] other = ((CompiledConvention) o)._values;
+
+        for (int i = 0, size = Math.max(_values.length, other.length); i < size; i++)
+        {
+            String value = (i < _values.length) ? _values[i]
+                                                : null;
+            String otherValue = (i < other.length) ? other[i]
+                                                   : null;
+
+            if ((value == null) ? (otherValue != null)
+                                : (!value.equals(otherValue)))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param key key whose associated value is to be returned.
+     * @param def the value to be returned in the event that there is no value
+     *        associated with <em>key</em>.
+     *
+     * @return the value associated with <em>key</em>, or <em>def</em> if no value is
+     *         associated with <em>key</em>.
+     *
+     * @see Convention#get(Convention.Key,String)
+     */
+    public String get(
+        Convention.Key key,
+        String         def)
+    {
+        int index = key.getIndex();
+
+        if ((index < _values.length) && (_values[index] != null))
+        {
+            return _values[index];
+        }
+
+        return def;
+    }
+
+
+    /**
+     * Returns the boolean value associated with the specified key.
+     *
+     * @param key key whose associated value is to be returned as a boolean.
+     * @param def the value to be returned in the event that there is no value
+     *        associated with <em>key</em> or the associated value cannot be
+     *        interpreted as a boolean.
+     *
+     * @return the boolean value associated with <em>key</em>, or <em>def</em>.
+     *
+     * @see Convention#getBoolean(Convention.Key,boolean)
+     */
+    public boolean getBoolean(
+        Convention.Key key,
+        boolean        def)
+    {
+        int index = key.getIndex();
+
+        if (index < _flags.length)
+        {
+            switch (_flags[index])
+            {
+                case FLAG_TRUE :
+                    return true;
+
+                case FLAG_FALSE :
+                    return false;
+            }
+        }
+
+        return def;
+    }
+
+
+    /**
+     * Returns a fingerprint of the settings. The fingerprint is a hex encoded SHA-1
+     * digest over all key/value pairs, ordered by key name, and therefore equal for
+     * equal settings across virtual machine instances.
+     *
+     * @return the fingerprint of the settings.
+     */
+    public String getFingerprint()
+    {
+        if (_fingerprint == null)
+        {
+            List keys = new ArrayList(_keys.length);
+
+            for (int i = 0; i < _keys.length; i++)
+            {
+                if (_keys[i] != null)
+                {
+                    keys.add(_keys[i]);
+                }
+            }
+
+            Collections.sort(keys);
+
+            try
+            {
+                MessageDigest digest = MessageDigest.getInstance("SHA-1" /* NOI18N */);
+
+                for (int i = 0, size = keys.size(); i < size; i++)
+                {
+                    Convention.Key key = (Convention.Key) keys.get(i);
+                    digest.update(key.toString().getBytes("UTF-8" /* NOI18N */));
+                    digest.update((byte) '=');
+                    digest.update(
+                        _values[key.getIndex()].getBytes("UTF-8" /* NOI18N */));
+                    digest.update((byte) '\n');
+                }
+
+                _fingerprint = toHexString(digest.digest());
+            }
+            catch (NoSuchAlgorithmException ex)
+            {
+                throw new IllegalStateException(ex.getMessage());
+            }
+            catch (UnsupportedEncodingException ex)
+            {
+                throw new IllegalStateException(ex.getMessage());
+            }
+        }
+
+        return _fingerprint;
+    }
+
+
+    /**
+     * Returns the names of all environment variables the values refer to. Any value may
+     * be used as a template, so every variable expression found counts.
+     *
+     * @return the variable names, sorted and without duplicates.
+     *
+     * @see Template#getVariableNames
+     */
+    public String[] getVariableNames()
+    {
+        if (_variableNames == null)
+        {
+            TreeSet names = new TreeSet();
+
+            for (int i = 0; i < _values.length; i++)
+            {
+                if ((_values[i] != null) && (_values[i].indexOf('$') > -1))
+                {
+                    String[] referenced =
+                        Template.compile(_values[i]).getVariableNames();
+
+                    for (int j = 0; j < referenced.length; j++)
+                    {
+                        names.add(referenced[j]);
+                    }
+                }
+            }
+
+            _variableNames = (String[]) names.toArray(new String[names.size()]);
+        }
+
+        return _variableNames;
+    }
+
+
+    /**
+     * Returns the int value associated with the specified key.
+     *
+     * @param key key whose associated value is to be returned as an int.
+     * @param def the value to be returned in the event that there is no value
+     *        associated with <em>key</em> or the associated value cannot be
+     *        interpreted as an int.
+     *
+     * @return the int value associated with <em>key</em>, or <em>def</em>.
+     *
+     * @see Convention#getInt(Convention.Key,int)
+     */
+    public int getInt(
+        Convention.Key key,
+        int            def)
+    {
+        int index = key.getIndex();
+
+        if ((index < _flags.length) && (_flags[index] == FLAG_INT))
+        {
+            return _ints[index];
+        }
+
+        return def;
+    }
+
+
+    /**
+     * Returns a hash code value for this object.
+     *
+     * @return a hash code value for this object.
+     */
+    public int hashCode()
+    {
+        int result = 17;
+
+        for (int i = 0; i < _values.length; i++)
+        {
+            if (_values[i] != null)
+            {
+                result = (31 * result) + i;
+                result = (31 * result) + _values[i].hashCode();
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Returns the value associated with the specified key as a compiled template. The
+     * template is compiled on first request only.
+     *
+     * @param key key whose associated value is to be returned as a template.
+     * @param def the template text to be used in the event that there is no value
+     *        associated with <em>key</em>.
+     *
+     * @return the compiled template.
+     *
+     * @see Environment#interpolate
+     */
+    public Template getTemplate(
+        Convention.Key key,
+        String         def)
+    {
+        String text = get(key, def);
+        int index = key.getIndex();
+
+        if (index >= _templates.length)
+        {
+            return Template.compile(text);
+        }
+
+        Template template = _templates[index];
+
+        // the default text might differ between callers
+        if ((template == null) || !template.getText().equals(text))
+        {
+            // templates are immutable, so it does not hurt if several threads
+            // happen to compile the same one
+            template = Template.compile(text);
+            _templates[index] = template;
+        }
+
+        return template;
+    }
+
+
+    /**
+     * Returns the hex representation of the given bytes.
+     *
+     * @param bytes the bytes to convert.
+     *
+     * @return hex string with two characters for every byte.
+     *
+     * @since 1.1
+     */
+    static String toHexString(byte[] bytes)
+    {
+        StringBuffer buf = new StringBuffer(bytes.length * 2);
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            buf.append(Character.forDigit((bytes[i] >> 4) & 0x0F, 16));
+            buf.append(Character.forDigit(bytes[i] & 0x0F, 16));
+        }
+
+        return buf.toString();
+    }
+}
@@ -135,6 +135,9 @@ public final class Convention
     /** The filename of the history files. */
     private static final String FILENAME_HISTORY = "history.dat" /* NOI18N */;
 
+    /** The filename of the format cache files. */
+    private static final String FILENAME_FORMAT_CACHE = "format.cache" /* NOI18N */;
+
     /** The name of the backup directories. */
     private static final String NAME_BACKUP = "bak" /* NOI18N */;
 
@@ -184,6 +187,9 @@ public final class Convention
     /** The active project history file. */
     private static File _historyFile;
 
+    /** The active project format cache file. */
+    private static File _formatCacheFile;
+
     static
     {
         // TODO Change to dynamiclly specify
@@ -391,6 +397,19 @@ public final class Convention
     }
 
 
+    /**
+     * Returns the format cache backing store file.
+     *
+     * @return format cache backing store file.
+     *
+     * @since 1.1
+     */
+    public static File getFormatCacheFile()
+    {
+        return _formatCacheFile;
+    }
+
+
     /**
      * Returns the history backing store file.
      *
@@ -897,6 +916,50 @@ public final class Convention
            return false;
        }*/
 
+    /**
+     * Returns a detached copy of this code convention. Changes made to the original
+     * after the copy was taken are not reflected by the copy and vice versa, which
+     * makes the copy suitable to be used as the settings snapshot of one formatting run
+     * while the original may still be altered (e.g. by the settings dialog).
+     *
+     * @return a copy of this code convention.
+     *
+     * @since 1.1
+     */
+    public Convention copy()
+    {
+        Convention result;
+
+        synchronized (_lock)
+        {
+            result = new Convention(new HashMap(_values));
+        }
+
+        result._locale = _locale;
+
+        return result;
+    }
+
+
+    /**
+     * Compiles the current settings into an immutable snapshot. All values are
+     * parsed once up front so that lookups during printing neither hash nor parse
+     * Strings. The snapshot does not reflect later changes to this code convention
+     * and may be shared freely between threads.
+     *
+     * @return compiled snapshot of the current settings.
+     *
+     * @since 1.1
+     */
+    public CompiledConvention compile()
+    {
+        synchronized (_lock)
+        {
+            return new CompiledConvention(_values);
+        }
+    }
+
+
     /**
      * Exports the code convention to the given file. The file extension determines the
      * format in which the code convention will be written.
@@ -1183,6 +1246,7 @@ public final class Convention
         _repositoryDirectory = new File(_projectSettingsDirectory, NAME_REPOSITORY);
         _settingsFile = new File(_projectSettingsDirectory, FILENAME_PREFERENCES);
         _historyFile = new File(_projectSettingsDirectory, FILENAME_HISTORY);
+        _formatCacheFile = new File(_projectSettingsDirectory, FILENAME_FORMAT_CACHE);
     }
 
 
@@ -2689,9 +2753,15 @@ public final class Convention
         /** Our name. */
         private transient String _name;
 
+        /** Maps key names to their slot indexes (&lt;String&gt;:&lt;Integer&gt;). */
+        private static final Map _indexes = new HashMap(400);
+
         /** Pre-computed hash code value. */
         private transient int _hashCode;
 
+        /** Slot of this key in a {@link CompiledConvention}. */
+        private transient int _index;
+
         /**
          * Creates a new Key object.
          *
@@ -2701,6 +2771,60 @@ public final class Convention
         {
             _name = name.intern();
             _hashCode = _name.hashCode();
+            _index = indexOf(_name);
+        }
+
+        /**
+         * Returns the slot this key occupies in compiled code conventions.
+         *
+         * @return the slot index of the key, unique per key name.
+         *
+         * @since 1.1
+         */
+        int getIndex()
+        {
+            return _index;
+        }
+
+
+        /**
+         * Returns the number of slots handed out so far.
+         *
+         * @return number of distinct key names seen.
+         *
+         * @since 1.1
+         */
+        static int getIndexCount()
+        {
+            synchronized (_indexes)
+            {
+                return _indexes.size();
+            }
+        }
+
+
+        /**
+         * Returns the slot index for the given key name, assigning a new one if the
+         * name was not seen before.
+         *
+         * @param name the interned name of a key.
+         *
+         * @return the slot index for the name.
+         */
+        private static int indexOf(String name)
+        {
+            synchronized (_indexes)
+            {
+                Integer index = (Integer) _indexes.get(name);
+
+                if (index == null)
+                {
+                    index = new Integer(_indexes.size());
+                    _indexes.put(name, index);
+                }
+
+                return index.intValue();
+            }
         }
 
         /**
@@ -2770,6 +2894,7 @@ public final class Convention
             // able to compare two keys by identity
             _name = ((String) in.readObject()).intern();
             _hashCode = in.readInt();
+            _index = indexOf(_name);
         }
 
 
@@ -35,8 +35,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Provides access to global and local environment variables (key/value pairs).
@@ -57,26 +55,10 @@ public final class Environment
     /** Delimeter for the encoded variables string. */
     private static final String DELIMETER = "|";
 
-    /** The compiler to create pattern objects. */
-    //private static final PatternCompiler REGEXP_COMPILER = new Perl5Compiler();
-
-    /** The pattern to search for variables . */
-    private static Pattern _variablesPattern;
-
-    static
-    {
-            _variablesPattern = 
-                Pattern.compile(
-                    "\\$([a-zA-Z_][a-zA-Z0-9_.]+):?(.*?)\\$");
-    }
-
     private static final Environment INSTANCE = new Environment(true);
 
     //~ Instance variables ---------------------------------------------------------------
 
-    /** The pattern matcher. */
-    private final Matcher _matcher = _variablesPattern.matcher("");
-
     /** The current environment variables. */
     private Map _variables; // Map of <String:String>
 
@@ -147,56 +129,57 @@ public final class Environment
      * variable expressions (<code>\$[a-zA-Z_][a-zA-Z0-9_.]+\$</code>, e.g. $fileName$
      * or $author$) in the given string are replaced with their corresponding
      * environment value.
+     * 
+     * <p>
+     * The string is compiled anew for every call. Templates that are used repeatedly
+     * should be compiled once and rendered directly.
+     * </p>
      *
      * @param str string to perform variable interpolation for.
      *
      * @return The input <em>str</em> with all variables interpolated.
      *
      * @see #set
+     * @see Template#render(Environment)
      */
     public String interpolate(String str)
     {
-        Map keys = new HashMap(10);
-        
-        _matcher.reset(str);
+        return Template.compile(str).render(this);
+    }
 
-        // map all found variable expressions with their environment variable
-        while (_matcher.find()) 
-        {
-            String result = _matcher.group(1);
-            String pattern = _matcher.group(2);
-            String value = null; 
-            Variable variable = (Variable) variableMap.get(result);
-            if (variable!=null) {
-                value = variable.format(_variables.get(result),pattern);
-            }
-            else{
-                value = (String) _variables.get(result);
-            }
-                
 
-            // the value has to be set in order to be substituted
-            if ((value != null) && (value.length() > 0))
-            {
-                keys.put("\\$" + result + (pattern.length() == 0 ? "" : ":" + pattern)  + "\\$", value);
-            }
-        }
-        
-        // and finally interpolate them
-        for (Iterator i = keys.entrySet().iterator(); i.hasNext();)
+    /**
+     * Returns the formatted value of the given variable.
+     *
+     * @param name the variable name.
+     * @param pattern the formatting pattern, empty if none was given.
+     *
+     * @return the formatted value or <code>null</code> if the variable is not set.
+     *
+     * @since 1.1
+     */
+    String resolve(
+        String name,
+        String pattern)
+    {
+        Object value = _variables.get(name);
+
+        if (value == null)
         {
-            Map.Entry entry = (Map.Entry) i.next();
+            return null;
+        }
 
-            String key = (String) entry.getKey();
-            String value = (String) entry.getValue();
-            
-            str = str.replaceAll(key,value);
-            
+        Variable variable = (Variable) variableMap.get(name);
+
+        if (variable != null)
+        {
+            return variable.format(value, pattern);
         }
-        
-    return str;
+
+        return value.toString();
     }
 
+
     /**
      * Sets the given variable to the given value.
      *
@@ -226,6 +209,58 @@ public final class Environment
     }
 
 
+    /**
+     * Returns a string representation of this object that leaves out the given
+     * variable.
+     *
+     * @param excluded variable to omit.
+     *
+     * @return a string representation of this object.
+     *
+     * @see #toString()
+     * @since 1.1
+     */
+    public String toString(Variable excluded)
+    {
+        Map variables = new HashMap(_variables);
+        variables.remove(excluded.getName());
+
+        return variables.toString();
+    }
+
+
+    /**
+     * Returns a string representation of the given variables only.
+     *
+     * @param names names of the variables to include.
+     *
+     * @return a string representation of the given variables, in the given order.
+     *         Variables without value are left out.
+     *
+     * @see #toString()
+     * @since 1.1
+     */
+    public String toString(String[] names)
+    {
+        StringBuffer buf = new StringBuffer(names.length * 20);
+
+        for (int i = 0; i < names.length; i++)
+        {
+            Object value = _variables.get(names[i]);
+
+            if (value != null)
+            {
+                buf.append(names[i]);
+                buf.append('=');
+                buf.append(value);
+                buf.append('\n');
+            }
+        }
+
+        return buf.toString();
+    }
+
+
     /**
      * Unsets (removes) the given variable
      *
@@ -0,0 +1,673 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.hunsicker.io.IoHelper;
+
+
+/**
+ * A persistent, content-addressed cache of formatting results.
+ *
+ * <p>
+ * Every entry maps a key derived from the input source, the code convention, the
+ * environment and the Jalopy version (see {@link #createKey}) to a digest of the
+ * formatted output. As the key only depends on contents, identical sources are
+ * recognized no matter where they live (other branches, worktrees or machines
+ * sharing the backing store), and any change to the code convention or an update
+ * of Jalopy leads to different keys, effectively invalidating all entries.
+ * </p>
+ *
+ * <p>
+ * The backing store is a plain text file with one entry per line. New entries are
+ * only ever appended, so several processes may share a store. The store is loaded
+ * on first access, {@link #flush} appends the entries added since; normal
+ * termination of the Java Virtual Machine flushes as well.
+ * </p>
+ *
+ * <p>
+ * The cache holds a limited number of entries and drops the least recently used
+ * ones once it is full. When the backing store has grown to twice that number of
+ * lines, the next flush rewrites it with the current entries only. Entries appended
+ * by other processes in the meantime are lost then, which merely costs formatting
+ * runs.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @see de.hunsicker.jalopy.storage.History
+ * @since 1.1
+ */
+public final class FormatCache
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The digest algorithm to use. */
+    private static final String ALGORITHM = "SHA-1" /* NOI18N */;
+
+    /** The encoding of the backing store. */
+    private static final String ENCODING = "US-ASCII" /* NOI18N */;
+
+    /** Separates key and value in the backing store. */
+    private static final char DELIMETER = ' ';
+
+    /** The default maximal number of entries. */
+    private static final int DEFAULT_CAPACITY = 20000;
+
+    /** Singleton, created on first request. */
+    private static FormatCache _instance;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The backing store. */
+    private final File _file;
+
+    /** The maximal number of entries. */
+    private final int _capacity;
+
+    /** The entries not yet written to the backing store. */
+    private final List _pending = new ArrayList(); // List of <String>
+
+    /**
+     * Holds the entries in access order, <code>null</code> until the backing store was
+     * read.
+     */
+    private Map _entries; // Map of <String>:<String>
+
+    /** The number of lines in the backing store. */
+    private int _records;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new FormatCache object.
+     *
+     * @param file the backing store. Will be created if it does not exist.
+     */
+    public FormatCache(File file)
+    {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Creates a new FormatCache object.
+     *
+     * @param file the backing store. Will be created if it does not exist.
+     * @param capacity the maximal number of entries to hold.
+     *
+     * @throws IllegalArgumentException if <code>capacity &lt; 1</code>.
+     */
+    public FormatCache(
+        File file,
+        int  capacity)
+    {
+        if (file == null)
+        {
+            throw new NullPointerException();
+        }
+
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("invalid capacity -- " + capacity);
+        }
+
+        _file = file;
+        _capacity = capacity;
+        Runtime.getRuntime().addShutdownHook(new TerminationHandler());
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Returns the cache of the active project.
+     *
+     * @return the cache backed by {@link Convention#getFormatCacheFile}.
+     */
+    public static synchronized FormatCache getInstance()
+    {
+        if (_instance == null)
+        {
+            _instance = new FormatCache(Convention.getFormatCacheFile());
+        }
+
+        return _instance;
+    }
+
+
+    /**
+     * Returns the backing store.
+     *
+     * @return the file the entries are stored in.
+     */
+    public File getFile()
+    {
+        return _file;
+    }
+
+
+    /**
+     * Adds an entry to the cache.
+     *
+     * @param key key as returned by {@link #createKey}.
+     * @param digest digest of the formatted output as returned by {@link #digest} or
+     *        {@link DigestWriter#getDigest}.
+     */
+    public synchronized void add(
+        String key,
+        String digest)
+    {
+        ensureLoaded();
+
+        if (!digest.equals(_entries.put(key, digest)))
+        {
+            _pending.add(key + DELIMETER + digest);
+        }
+    }
+
+
+    /**
+     * Clears the cache, including the backing store.
+     *
+     * @throws IOException if the backing store could not be deleted.
+     */
+    public synchronized void clear()
+      throws IOException
+    {
+        _entries = createEntries();
+        _pending.clear();
+        _records = 0;
+
+        if (_file.exists() && !_file.delete())
+        {
+            throw new IOException("could not delete " + _file);
+        }
+    }
+
+
+    /**
+     * Creates the key for the given input source.
+     *
+     * @param version the version of the formatter.
+     * @param settings the code convention to format with.
+     * @param environment string representation of the environment variables that
+     *        may influence the output, see {@link Environment#toString(String[])}.
+     * @param filename name (not path) of the input source.
+     * @param content contents of the input source.
+     *
+     * @return the key.
+     */
+    public static String createKey(
+        String             version,
+        CompiledConvention settings,
+        String             environment,
+        String             filename,
+        String             content)
+    {
+        MessageDigest digest = createDigest();
+        update(digest, version);
+        update(digest, settings.getFingerprint());
+        update(digest, environment);
+        update(digest, filename);
+        update(digest, content);
+
+        return CompiledConvention.toHexString(digest.digest());
+    }
+
+
+    /**
+     * Returns the digest of the given string.
+     *
+     * @param content a string.
+     *
+     * @return hex encoded digest of <em>content</em>.
+     */
+    public static String digest(String content)
+    {
+        MessageDigest digest = createDigest();
+        update(digest, content);
+
+        return CompiledConvention.toHexString(digest.digest());
+    }
+
+
+    /**
+     * Appends all entries added since the last flush to the backing store. Rewrites the
+     * backing store instead if it has grown too large.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public synchronized void flush()
+      throws IOException
+    {
+        if (_pending.isEmpty())
+        {
+            return;
+        }
+
+        if ((_records + _pending.size()) > (2 * _capacity))
+        {
+            compact();
+
+            return;
+        }
+
+        Writer out = createWriter(_file, true);
+
+        try
+        {
+            for (int i = 0, size = _pending.size(); i < size; i++)
+            {
+                out.write((String) _pending.get(i));
+                out.write('\n');
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        _records += _pending.size();
+        _pending.clear();
+    }
+
+
+    /**
+     * Returns the output digest stored for the given key.
+     *
+     * @param key key as returned by {@link #createKey}.
+     *
+     * @return the digest of the formatted output or <code>null</code> if no entry
+     *         exists for <em>key</em>.
+     */
+    public synchronized String get(String key)
+    {
+        ensureLoaded();
+
+        return (String) _entries.get(key);
+    }
+
+
+    /**
+     * Determines whether the given input source is known to be formatted already, i.e.
+     * formatting it last time did not change anything.
+     *
+     * @param key key as returned by {@link #createKey}.
+     * @param content contents of the input source.
+     *
+     * @return <code>true</code> if formatting <em>content</em> does not change it.
+     */
+    public boolean isFormatted(
+        String key,
+        String content)
+    {
+        String digest = get(key);
+
+        return (digest != null) && digest.equals(digest(content));
+    }
+
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries currently held.
+     */
+    public synchronized int size()
+    {
+        ensureLoaded();
+
+        return _entries.size();
+    }
+
+
+    /**
+     * Rewrites the backing store so that it only contains the current entries.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void compact()
+      throws IOException
+    {
+        // write a complete copy first, so a crash never leaves a damaged store behind
+        File temp = new File(_file.getPath() + ".tmp" /* NOI18N */);
+        Writer out = createWriter(temp, false);
+
+        try
+        {
+            // least recently used entries first, so the order survives reloading
+            for (Iterator i = _entries.entrySet().iterator(); i.hasNext();)
+            {
+                Map.Entry entry = (Map.Entry) i.next();
+                out.write((String) entry.getKey());
+                out.write(DELIMETER);
+                out.write((String) entry.getValue());
+                out.write('\n');
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        Files.move(
+            temp.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        _records = _entries.size();
+        _pending.clear();
+    }
+
+
+    /**
+     * Creates a new message digest.
+     *
+     * @return a new message digest.
+     */
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance(ALGORITHM);
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new IllegalStateException(ex.getMessage());
+        }
+    }
+
+
+    /**
+     * Creates the map to hold the entries.
+     *
+     * @return a new map that drops the least recently used entry once it holds more
+     *         than {@link #_capacity} entries.
+     */
+    private Map createEntries()
+    {
+        return new LinkedHashMap(64, 0.75f, true)
+            {
+                protected boolean removeEldestEntry(Map.Entry eldest)
+                {
+                    return size() > _capacity;
+                }
+            };
+    }
+
+
+    /**
+     * Creates a writer for the given file.
+     *
+     * @param file the file to write to.
+     * @param append if <code>true</code>, output is appended to the file.
+     *
+     * @return a new buffered writer.
+     *
+     * @throws IOException if the file could not be opened.
+     */
+    private static Writer createWriter(
+        File    file,
+        boolean append)
+      throws IOException
+    {
+        File directory = file.getParentFile();
+
+        if (directory != null)
+        {
+            IoHelper.ensureDirectoryExists(directory);
+        }
+
+        return new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(file, append), ENCODING));
+    }
+
+
+    /**
+     * Loads the backing store, if not already done. Damaged lines are skipped.
+     */
+    private void ensureLoaded()
+    {
+        if (_entries != null)
+        {
+            return;
+        }
+
+        _entries = createEntries();
+        _records = 0;
+
+        if (!_file.exists())
+        {
+            return;
+        }
+
+        BufferedReader in = null;
+
+        try
+        {
+            in = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(_file), ENCODING));
+
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                int offset = line.indexOf(DELIMETER);
+
+                if ((offset > 0) && (offset < (line.length() - 1)))
+                {
+                    _entries.put(line.substring(0, offset), line.substring(offset + 1));
+                }
+
+                _records++;
+            }
+        }
+        catch (IOException ex)
+        {
+            // an unreadable store only costs us formatting runs
+            ;
+        }
+        finally
+        {
+            if (in != null)
+            {
+                try
+                {
+                    in.close();
+                }
+                catch (IOException ignored)
+                {
+                    ;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Feeds the given string into the given digest. A <code>null</code> string
+     * contributes a single marker byte.
+     *
+     * @param digest the digest to update.
+     * @param str the string.
+     */
+    private static void update(
+        MessageDigest digest,
+        String        str)
+    {
+        if (str == null)
+        {
+            digest.update((byte) 0);
+
+            return;
+        }
+
+        update(digest, str.toCharArray(), 0, str.length());
+
+        // separate from the following string
+        digest.update((byte) 1);
+    }
+
+
+    /**
+     * Feeds the given characters into the given digest.
+     *
+     * @param digest the digest to update.
+     * @param chars array of characters.
+     * @param off offset of the first character to use.
+     * @param len number of characters to use.
+     */
+    private static void update(
+        MessageDigest digest,
+        char[]        chars,
+        int           off,
+        int           len)
+    {
+        byte[] bytes = new byte[len * 2];
+
+        for (int i = 0; i < len; i++)
+        {
+            char c = chars[off + i];
+            bytes[i * 2] = (byte) (c >> 8);
+            bytes[(i * 2) + 1] = (byte) c;
+        }
+
+        digest.update(bytes);
+    }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A writer that calculates the digest of all characters written through it.
+     */
+    public static final class DigestWriter
+        extends FilterWriter
+    {
+        /** The digest of the output. */
+        private final MessageDigest _digest = createDigest();
+
+        /**
+         * Creates a new DigestWriter object.
+         *
+         * @param out the writer to pass all output to.
+         */
+        public DigestWriter(Writer out)
+        {
+            super(out);
+        }
+
+        /**
+         * Returns the digest of all characters written so far. Must only be called
+         * once.
+         *
+         * @return hex encoded digest, compatible to {@link FormatCache#digest}.
+         */
+        public String getDigest()
+        {
+            _digest.update((byte) 1);
+
+            return CompiledConvention.toHexString(_digest.digest());
+        }
+
+
+        public void write(int c)
+          throws IOException
+        {
+            this.out.write(c);
+            update(_digest, new char[] { (char) c }, 0, 1);
+        }
+
+
+        public void write(
+            char[] cbuf,
+            int    off,
+            int    len)
+          throws IOException
+        {
+            this.out.write(cbuf, off, len);
+            update(_digest, cbuf, off, len);
+        }
+
+
+        public void write(
+            String str,
+            int    off,
+            int    len)
+          throws IOException
+        {
+            this.out.write(str, off, len);
+
+            char[] chars = new char[len];
+            str.getChars(off, off + len, chars, 0);
+            update(_digest, chars, 0, len);
+        }
+    }
+
+
+    /**
+     * Executed before the JVM terminates. Flushes pending entries to disk.
+     */
+    private final class TerminationHandler
+        extends Thread
+    {
+        public void run()
+        {
+            try
+            {
+                flush();
+            }
+            catch (IOException ex)
+            {
+                /**
+                 * @todo log error message
+                 */
+            }
+        }
+    }
+}
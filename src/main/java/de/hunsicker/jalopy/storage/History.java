@@ -30,26 +30,46 @@
  */
 package de.hunsicker.jalopy.storage;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.CharArrayWriter;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
 import de.hunsicker.io.IoHelper;
 
+import org.apache.log4j.Level;
+
 
 /**
  * History serves as a tracker for file modifications.
  * 
  * <p>
+ * The history is kept in an append-only log of binary records. The log is read in
+ * one go and indexed on first access; {@link #flush} only appends the changes made
+ * since the last flush. Once the log holds considerably more records than there are
+ * entries, it is compacted. Histories written by former versions are converted on the
+ * first flush. A log of an unknown format version is left untouched, the history is
+ * only kept in memory then.
+ * </p>
+ * 
+ * <p>
  * The {@link #flush} method may be used to synchronously force updates to the backing
  * store. Normal termination of the Java Virtual Machine will <em>not</em> result in the
  * loss of pending updates - an explicit flushing is <em>not</em> required upon
@@ -57,11 +77,12 @@ import de.hunsicker.io.IoHelper;
  * </p>
  * 
  * <p>
- * This class is thread-safe.
+ * This class is thread-safe. Adding, querying and removing entries never blocks, so
+ * several formatting threads may share the history.
  * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
- * @version $Revision: 1.4 $
+ * @version $Revision: 1.5 $
  */
 public final class History
 {
@@ -70,8 +91,49 @@ public final class History
     /** Singleton. */
     private static final History INSTANCE = new History();
 
-    /** Holds the history entries. */
-    private static Map _history; // Map of <String>:<History.Entry>
+    /** Identifies a log, the characters &quot;JHST&quot;. */
+    private static final int MAGIC = 0x4A485354;
+
+    /** The version of the log format. */
+    private static final int VERSION = 1;
+
+    /** Identifies a record that adds or updates an entry. */
+    private static final byte RECORD_ADD = 1;
+
+    /** Identifies a record that removes an entry. */
+    private static final byte RECORD_REMOVE = 2;
+
+    /** The minimal number of records before compaction is considered. */
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    /** Marks a removed entry in the pending changes. */
+    private static final Entry REMOVED = new Entry(null, 0);
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** Guards loading, flushing and clearing. */
+    private final Object _lock = new Object();
+
+    /** The changes not yet written to the log (&lt;String&gt;:&lt;History.Entry&gt;). */
+    private final Map _pending = new ConcurrentHashMap();
+
+    /**
+     * Holds the history entries (&lt;String&gt;:&lt;History.Entry&gt;),
+     * <code>null</code> until the log was read.
+     */
+    private volatile Map _history;
+
+    /** The log, <code>null</code> to use the one of the active project. */
+    private final File _file;
+
+    /** Indicates whether the log has to be rewritten on the next flush. */
+    private boolean _compact;
+
+    /** Indicates whether the log must not be written, because its format is unknown. */
+    private boolean _readOnly;
+
+    /** The number of records in the log. */
+    private int _records;
 
     //~ Constructors ---------------------------------------------------------------------
 
@@ -80,7 +142,21 @@ public final class History
      */
     private History()
     {
-        initialize();
+        this(null);
+    }
+
+
+    /**
+     * Creates a new History object that uses the given log.
+     *
+     * @param file the log, <code>null</code> to use the one of the active project.
+     *
+     * @since 1.1
+     */
+    History(File file)
+    {
+        _file = file;
+        Runtime.getRuntime().addShutdownHook(new TerminationHandler());
     }
 
     //~ Methods --------------------------------------------------------------------------
@@ -96,6 +172,20 @@ public final class History
     }
 
 
+    /**
+     * Returns all entries.
+     *
+     * @return an unmodifiable snapshot of the history (&lt;String&gt;:&lt;History.Entry&gt;),
+     *         keyed by canonical path.
+     *
+     * @since 1.1
+     */
+    public Map getEntries()
+    {
+        return Collections.unmodifiableMap(new HashMap(getHistory()));
+    }
+
+
     /**
      * Adds the given file to the history. It will only be added, if it exists and indeed
      * denotes a file (not a directory).
@@ -107,7 +197,7 @@ public final class History
      * @throws IOException if an I/O error occured, which is possible because a canonical
      *         pathname will be constructed.
      */
-    public synchronized void add(
+    public void add(
         File   file,
         String packageName,
         long   modification)
@@ -115,42 +205,89 @@ public final class History
     {
         if (file.exists() && file.isFile())
         {
-            _history.put(file.getCanonicalPath(), new Entry(packageName, modification));
+            String path = file.getCanonicalPath();
+            Entry entry = new Entry(packageName, modification);
+            getHistory().put(path, entry);
+            _pending.put(path, entry);
         }
     }
 
 
     /**
-     * Clears the history.
+     * Clears the history. A log of unknown format will be replaced on the next flush.
      */
-    public synchronized void clear()
+    public void clear()
     {
-        _history.clear();
+        synchronized (_lock)
+        {
+            getHistory().clear();
+            _pending.clear();
+            _compact = true;
+            _readOnly = false;
+        }
     }
 
 
     /**
-     * Stores the history to the backing store.
+     * Stores the history to the backing store. Only appends the changes made since the
+     * last flush, unless the log needs to be compacted.
      *
      * @throws IOException if an I/O error occured.
      */
-    public synchronized void flush()
+    public void flush()
       throws IOException
     {
-        File file = Convention.getHistoryFile();
-        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file));
-        ObjectOutputStream p = new ObjectOutputStream(out);
-
-        try
+        synchronized (_lock)
         {
-            p.writeObject(_history);
-        }
-        finally
-        {
-            if (p != null)
+            // either nothing was ever loaded, so nothing can have changed, or we
+            // must not touch the log
+            if ((_history == null) || _readOnly)
+            {
+                return;
+            }
+
+            File file = getFile();
+
+            if (
+                _compact
+                || ((_records > COMPACTION_THRESHOLD)
+                && (_records > (2 * _history.size()))))
+            {
+                compact(file);
+
+                return;
+            }
+
+            if (_pending.isEmpty())
             {
-                p.close();
+                return;
             }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            int count = 0;
+
+            if (!file.exists() || (file.length() == 0))
+            {
+                writeHeader(out);
+            }
+
+            for (Iterator i = _pending.keySet().iterator(); i.hasNext();)
+            {
+                String path = (String) i.next();
+
+                // entries changed concurrently will simply be written next time
+                Entry entry = (Entry) _pending.remove(path);
+
+                if (entry != null)
+                {
+                    writeRecord(path, entry, out);
+                    count++;
+                }
+            }
+
+            append(file, bytes.toByteArray());
+            _records += count;
         }
     }
 
@@ -166,10 +303,10 @@ public final class History
      * @throws IOException if an I/O error occured, which is possible because a canonical
      *         pathname will be constructed.
      */
-    public synchronized Entry get(File file)
+    public Entry get(File file)
       throws IOException
     {
-        return (Entry) _history.get(file.getCanonicalPath());
+        return (Entry) getHistory().get(file.getCanonicalPath());
     }
 
 
@@ -181,37 +318,346 @@ public final class History
      * @throws IOException if an I/O error occured, which is possible because a canonical
      *         pathname will be constructed.
      */
-    public synchronized void remove(File file)
+    public void remove(File file)
+      throws IOException
+    {
+        String path = file.getCanonicalPath();
+
+        if (getHistory().remove(path) != null)
+        {
+            _pending.put(path, REMOVED);
+        }
+    }
+
+
+    /**
+     * Returns the history entries, reading the log on first access.
+     *
+     * @return the history entries.
+     */
+    private Map getHistory()
+    {
+        Map history = _history;
+
+        if (history == null)
+        {
+            synchronized (_lock)
+            {
+                if (_history == null)
+                {
+                    _history = load(getFile());
+                }
+
+                history = _history;
+            }
+        }
+
+        return history;
+    }
+
+
+    /**
+     * Returns the log.
+     *
+     * @return the log to use.
+     */
+    private File getFile()
+    {
+        return (_file != null) ? _file
+                               : Convention.getHistoryFile();
+    }
+
+
+    /**
+     * Appends the given bytes to the given file.
+     *
+     * @param file the file to append to.
+     * @param data the bytes to append.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void append(
+        File   file,
+        byte[] data)
+      throws IOException
+    {
+        File directory = file.getParentFile();
+
+        if (directory != null)
+        {
+            IoHelper.ensureDirectoryExists(directory);
+        }
+
+        FileOutputStream out = new FileOutputStream(file, true);
+
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+
+    /**
+     * Rewrites the log so that it only contains one record for every entry.
+     *
+     * @param file the log.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void compact(File file)
       throws IOException
     {
-        _history.remove(file.getCanonicalPath());
+        ByteArrayOutputStream bytes =
+            new ByteArrayOutputStream(64 * (_history.size() + 1));
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out);
+        _pending.clear();
+
+        for (Iterator i = _history.entrySet().iterator(); i.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+            writeRecord((String) entry.getKey(), (Entry) entry.getValue(), out);
+        }
+
+        // write a complete copy first, so a crash never leaves a damaged log behind
+        File temp = new File(file.getPath() + ".tmp" /* NOI18N */);
+
+        if (temp.exists())
+        {
+            temp.delete();
+        }
+
+        append(temp, bytes.toByteArray());
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        _records = _history.size();
+        _compact = false;
     }
 
 
     /**
-     * Initialization. Loads the history from the backing store.
+     * Reads the given log.
+     *
+     * @param file the log.
+     *
+     * @return the history entries found.
      */
-    private synchronized void initialize()
+    private Map load(File file)
     {
+        Map history = new ConcurrentHashMap();
+        _records = 0;
+
+        if (!file.exists() || (file.length() == 0))
+        {
+            return history;
+        }
+
         try
         {
-            File file = Convention.getHistoryFile();
+            ByteBuffer buffer = read(file);
 
-            if (file.exists())
+            if ((buffer.remaining() < 8) || (buffer.getInt() != MAGIC))
             {
-                _history = (Map) IoHelper.deserialize(file);
+                // written by a former version
+                _compact = true;
+                history.putAll((Map) IoHelper.deserialize(file));
+
+                return history;
             }
-            else
+
+            int version = buffer.getInt();
+
+            if (version != VERSION)
             {
-                _history = new HashMap();
+                // probably written by a later version, so leave it alone
+                _readOnly = true;
+
+                Object[] args = { file, new Integer(version) };
+                Loggers.IO.l7dlog(
+                    Level.WARN, "HISTORY_UNKNOWN_VERSION" /* NOI18N */, args, null);
+
+                return history;
+            }
+
+            while (buffer.hasRemaining())
+            {
+                byte type = buffer.get();
+                String path = readString(buffer);
+
+                switch (type)
+                {
+                    case RECORD_ADD :
+
+                        String packageName = readString(buffer);
+                        long modification = buffer.getLong();
+                        history.put(path, new Entry(packageName, modification));
+
+                        break;
+
+                    case RECORD_REMOVE :
+                        history.remove(path);
+
+                        break;
+
+                    default :
+                        throw new IOException("invalid record type -- " + type);
+                }
+
+                _records++;
             }
         }
+        catch (BufferUnderflowException ex)
+        {
+            // the last record was only partially written, rewrite the log
+            _compact = true;
+        }
         catch (Throwable ex)
         {
-            _history = new HashMap();
+            _compact = true;
         }
 
-        Runtime.getRuntime().addShutdownHook(new TerminationHandler());
+        return history;
+    }
+
+
+    /**
+     * Reads the given file into a buffer. The file is not mapped into memory, as a
+     * mapped file cannot be replaced on some platforms as long as the mapping exists.
+     *
+     * @param file the file to read.
+     *
+     * @return a buffer with the contents of the file, ready to be read.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static ByteBuffer read(File file)
+      throws IOException
+    {
+        FileInputStream in = new FileInputStream(file);
+
+        try
+        {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException("file too large -- " + file);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+            while (buffer.hasRemaining() && (channel.read(buffer) > -1))
+            {
+                ;
+            }
+
+            buffer.flip();
+
+            return buffer;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+
+    /**
+     * Reads a string from the given buffer.
+     *
+     * @param buffer the buffer to read from.
+     *
+     * @return the string read, may be <code>null</code>.
+     *
+     * @throws IOException if the string could not be decoded.
+     */
+    private static String readString(ByteBuffer buffer)
+      throws IOException
+    {
+        int length = buffer.getInt();
+
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, "UTF-8" /* NOI18N */);
+    }
+
+
+    /**
+     * Writes the log header.
+     *
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void writeHeader(DataOutputStream out)
+      throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+
+    /**
+     * Writes a record for the given entry.
+     *
+     * @param path the canonical path of the entry.
+     * @param entry the entry, {@link #REMOVED} to write a remove record.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void writeRecord(
+        String           path,
+        Entry            entry,
+        DataOutputStream out)
+      throws IOException
+    {
+        out.writeByte((entry == REMOVED) ? RECORD_REMOVE
+                                         : RECORD_ADD);
+        writeString(path, out);
+
+        if (entry != REMOVED)
+        {
+            writeString(entry.packageName, out);
+            out.writeLong(entry.lastmod);
+        }
+    }
+
+
+    /**
+     * Writes the given string.
+     *
+     * @param str the string to write, may be <code>null</code>.
+     * @param out stream to write to.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void writeString(
+        String           str,
+        DataOutputStream out)
+      throws IOException
+    {
+        if (str == null)
+        {
+            out.writeInt(-1);
+
+            return;
+        }
+
+        byte[] bytes = str.getBytes("UTF-8" /* NOI18N */);
+        out.writeInt(bytes.length);
+        out.write(bytes);
     }
 
     //~ Inner Classes --------------------------------------------------------------------
@@ -524,14 +970,11 @@ public final class History
     private final class TerminationHandler
         extends Thread
     {
-        public synchronized void run()
+        public void run()
         {
             try
             {
-                if (_history != null)
-                {
-                    flush();
-                }
+                flush();
             }
             catch (IOException ex)
             {
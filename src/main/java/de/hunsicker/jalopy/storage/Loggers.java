@@ -30,14 +30,18 @@
  */
 package de.hunsicker.jalopy.storage;
 
+import java.io.File;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 import de.hunsicker.util.ResourceBundleFactory;
@@ -46,10 +50,19 @@ import org.apache.log4j.Appender;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.log4j.Priority;
+import org.apache.log4j.spi.LoggerFactory;
 
 
 /**
  * Exposes the loggers that are used throughout the system.
+ * 
+ * <p>
+ * The loggers defer the formatting of localized messages (see {@link
+ * Logger#l7dlog(Priority,String,Object[],Throwable)}): the message is only looked up
+ * and formatted when an appender renders it, which might happen on another thread or
+ * not at all.
+ * </p>
  *
  * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
  * @version $Revision: 1.3 $
@@ -58,30 +71,34 @@ public final class Loggers
 {
     //~ Static variables/initializers ----------------------------------------------------
 
+    /** Creates loggers that format localized messages lazily. */
+    private static final LoggerFactory FACTORY = new LocalizedLoggerFactory();
+
     /** Logging category for all messages. */
-    public static final Logger ALL = Logger.getLogger("de.hunsicker.jalopy");
+    public static final Logger ALL = Logger.getLogger("de.hunsicker.jalopy", FACTORY);
 
     /** Logging category for I/O messages. */
-    public static final Logger IO = Logger.getLogger("de.hunsicker.jalopy.io");
+    public static final Logger IO = Logger.getLogger("de.hunsicker.jalopy.io", FACTORY);
 
     /** Logging category for parsing messages. */
     public static final Logger PARSER =
-        Logger.getLogger("de.hunsicker.jalopy.language.java");
+        Logger.getLogger("de.hunsicker.jalopy.language.java", FACTORY);
 
     /** Logging category for Javadoc parsing messages. */
     public static final Logger PARSER_JAVADOC =
-        Logger.getLogger("de.hunsicker.jalopy.language.javadoc");
+        Logger.getLogger("de.hunsicker.jalopy.language.javadoc", FACTORY);
 
     /** Logging category for printer messages. */
-    public static final Logger PRINTER = Logger.getLogger("de.hunsicker.jalopy.printer");
+    public static final Logger PRINTER =
+        Logger.getLogger("de.hunsicker.jalopy.printer", FACTORY);
 
     /** Logging category for Javadoc printer messages. */
     public static final Logger PRINTER_JAVADOC =
-        Logger.getLogger("de.hunsicker.jalopy.printerjavadoc");
+        Logger.getLogger("de.hunsicker.jalopy.printerjavadoc", FACTORY);
 
     /** Logging category for transformation messages. */
     public static final Logger TRANSFORM =
-        Logger.getLogger("de.hunsicker.jalopy.transform");
+        Logger.getLogger("de.hunsicker.jalopy.transform", FACTORY);
     private static Map _config;
 
     //~ Constructors ---------------------------------------------------------------------
@@ -258,4 +275,131 @@ public final class Loggers
         logger.addAppender(appender);
         logger.setLevel(Level.WARN);
     }
+
+    //~ Inner Classes --------------------------------------------------------------------
+
+    /**
+     * A logger that does not format localized messages itself, but passes them on as
+     * {@link LocalizedMessage} objects.
+     */
+    private static final class LocalizedLogger
+        extends Logger
+    {
+        private static final String FQCN = LocalizedLogger.class.getName();
+
+        public LocalizedLogger(String name)
+        {
+            super(name);
+        }
+
+        public void l7dlog(
+            Priority  priority,
+            String    key,
+            Object[]  params,
+            Throwable t)
+        {
+            if (this.repository.isDisabled(priority.toInt()))
+            {
+                return;
+            }
+
+            if (priority.isGreaterOrEqual(getEffectiveLevel()))
+            {
+                forcedLog(
+                    FQCN, priority, new LocalizedMessage(getResourceBundle(), key, params),
+                    t);
+            }
+        }
+    }
+
+
+    private static final class LocalizedLoggerFactory
+        implements LoggerFactory
+    {
+        public Logger makeNewLoggerInstance(String name)
+        {
+            return new LocalizedLogger(name);
+        }
+    }
+
+
+    /**
+     * A localized message that is looked up and formatted when first rendered. As the
+     * callers reuse their argument arrays and the arguments themselves might change,
+     * the arguments are copied and everything but immutable values is converted to
+     * a string right away.
+     */
+    private static final class LocalizedMessage
+    {
+        final Object[] params;
+        final ResourceBundle bundle;
+        final String key;
+        String message;
+
+        public LocalizedMessage(
+            ResourceBundle bundle,
+            String         key,
+            Object[]       params)
+        {
+            this.bundle = bundle;
+            this.key = key;
+
+            if (params != null)
+            {
+                this.params = new Object[params.length];
+
+                for (int i = 0; i < params.length; i++)
+                {
+                    Object param = params[i];
+
+                    if (
+                        (param == null) || param instanceof String
+                        || param instanceof Number || param instanceof File
+                        || param instanceof Boolean || param instanceof Character)
+                    {
+                        this.params[i] = param;
+                    }
+                    else if (param instanceof Date)
+                    {
+                        this.params[i] = ((Date) param).clone();
+                    }
+                    else
+                    {
+                        this.params[i] = String.valueOf(param);
+                    }
+                }
+            }
+            else
+            {
+                this.params = null;
+            }
+        }
+
+        public synchronized String toString()
+        {
+            if (this.message == null)
+            {
+                String pattern = null;
+
+                if (this.bundle != null)
+                {
+                    try
+                    {
+                        pattern = this.bundle.getString(this.key);
+                    }
+                    catch (MissingResourceException ex)
+                    {
+                        ;
+                    }
+                }
+
+                // same as Logger.l7dlog(): fall back to the key
+                this.message = (pattern == null) ? this.key
+                                                 : MessageFormat.format(
+                        pattern, this.params);
+            }
+
+            return this.message;
+        }
+    }
 }
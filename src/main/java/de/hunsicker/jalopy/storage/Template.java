@@ -0,0 +1,367 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A compiled text template with embedded environment variable expressions.
+ * 
+ * <p>
+ * The template text is parsed exactly once into literal segments and variable slots.
+ * Rendering merely concatenates the literals with the current values of the
+ * variables, no pattern matching is involved. Variable expressions have the form
+ * <code>$name$</code> or <code>$name:pattern$</code>, where the pattern is passed to
+ * the formatter of the variable (see {@link Environment.Variable#DATE}). Expressions of
+ * variables without value are left untouched.
+ * </p>
+ * 
+ * <p>
+ * Templates are immutable and can be shared by several threads.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @see de.hunsicker.jalopy.storage.Environment#interpolate
+ * @see de.hunsicker.jalopy.storage.CompiledConvention#getTemplate
+ * @since 1.1
+ */
+public final class Template
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The empty string array. */
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The literal segments, one more than there are slots. */
+    private final String[] _literals;
+
+    /** The variable names of the slots. */
+    private final String[] _names;
+
+    /** The formatting patterns of the slots, empty if no pattern was given. */
+    private final String[] _patterns;
+
+    /** The source text of the slots, printed if a variable has no value. */
+    private final String[] _sources;
+
+    /** The template text. */
+    private final String _text;
+
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new Template object.
+     *
+     * @param text the template text.
+     * @param literals the literal segments.
+     * @param names the variable names of the slots.
+     * @param patterns the formatting patterns of the slots.
+     * @param sources the source text of the slots.
+     */
+    private Template(
+        String   text,
+        String[] literals,
+        String[] names,
+        String[] patterns,
+        String[] sources)
+    {
+        _text = text;
+        _literals = literals;
+        _names = names;
+        _patterns = patterns;
+        _sources = sources;
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Compiles the given template text.
+     *
+     * @param text the template text.
+     *
+     * @return the compiled template.
+     */
+    public static Template compile(String text)
+    {
+        List literals = new ArrayList(4);
+        List names = new ArrayList(4);
+        List patterns = new ArrayList(4);
+        List sources = new ArrayList(4);
+        int start = 0;
+
+        for (int i = text.indexOf('$'); i > -1; i = text.indexOf('$', i))
+        {
+            int length = text.length();
+            int end = i + 1;
+
+            // the variable name has at least two characters
+            if (
+                (end + 1 >= length) || !isNameStart(text.charAt(end))
+                || !isNamePart(text.charAt(end + 1)))
+            {
+                i++;
+
+                continue;
+            }
+
+            for (end += 2; (end < length) && isNamePart(text.charAt(end)); end++)
+            {
+                ;
+            }
+
+            String name = text.substring(i + 1, end);
+            String pattern = "" /* NOI18N */;
+            boolean valid = true;
+
+            if ((end < length) && (text.charAt(end) != '$'))
+            {
+                boolean separator = text.charAt(end) == ':';
+
+                if (separator)
+                {
+                    end++;
+                }
+
+                int close = findClose(text, end);
+
+                if (close == -1)
+                {
+                    i++;
+
+                    continue;
+                }
+
+                if (separator)
+                {
+                    pattern = text.substring(end, close);
+                }
+                else
+                {
+                    // something like $name text$ which is never substituted
+                    valid = false;
+                }
+
+                end = close;
+            }
+            else if (end == length)
+            {
+                i++;
+
+                continue;
+            }
+
+            // end now points to the closing dollar sign
+            end++;
+
+            if (valid)
+            {
+                literals.add(text.substring(start, i));
+                names.add(name);
+                patterns.add(pattern);
+                sources.add(text.substring(i, end));
+                start = end;
+            }
+
+            i = end;
+        }
+
+        literals.add(text.substring(start));
+
+        return new Template(
+            text, (String[]) literals.toArray(EMPTY_STRING_ARRAY),
+            (String[]) names.toArray(EMPTY_STRING_ARRAY),
+            (String[]) patterns.toArray(EMPTY_STRING_ARRAY),
+            (String[]) sources.toArray(EMPTY_STRING_ARRAY));
+    }
+
+
+    /**
+     * Returns the names of the variables the template refers to.
+     *
+     * @return the variable names in order of appearance, may contain duplicates.
+     */
+    public String[] getVariableNames()
+    {
+        return (String[]) _names.clone();
+    }
+
+
+    /**
+     * Indicates whether the template contains variable expressions.
+     *
+     * @return <code>true</code> if the template does not contain any variable
+     *         expressions and therefore always renders to its text.
+     */
+    public boolean isConstant()
+    {
+        return _names.length == 0;
+    }
+
+
+    /**
+     * Returns the template text.
+     *
+     * @return the text the template was compiled from.
+     */
+    public String getText()
+    {
+        return _text;
+    }
+
+
+    /**
+     * Renders the template.
+     *
+     * @param environment the environment that provides the variable values.
+     *
+     * @return the rendered text.
+     */
+    public String render(Environment environment)
+    {
+        if (_names.length == 0)
+        {
+            return _text;
+        }
+
+        StringBuffer buf = new StringBuffer(_text.length() + 32);
+        render(environment, buf);
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Renders the template into the given buffer.
+     *
+     * @param environment the environment that provides the variable values.
+     * @param buf the buffer to append the rendered text to.
+     */
+    public void render(
+        Environment  environment,
+        StringBuffer buf)
+    {
+        buf.append(_literals[0]);
+
+        for (int i = 0; i < _names.length; i++)
+        {
+            String value = environment.resolve(_names[i], _patterns[i]);
+
+            // the value has to be set in order to be substituted
+            if ((value != null) && (value.length() > 0))
+            {
+                buf.append(value);
+            }
+            else
+            {
+                buf.append(_sources[i]);
+            }
+
+            buf.append(_literals[i + 1]);
+        }
+    }
+
+
+    /**
+     * Returns a string representation of this object.
+     *
+     * @return the template text.
+     */
+    public String toString()
+    {
+        return _text;
+    }
+
+
+    /**
+     * Returns the position of the dollar sign that closes a variable expression.
+     *
+     * @param text the template text.
+     * @param offset the position to start searching at.
+     *
+     * @return the position of the closing dollar sign or <code>-1</code> if there is
+     *         none on the same line.
+     */
+    private static int findClose(
+        String text,
+        int    offset)
+    {
+        for (int i = offset, length = text.length(); i < length; i++)
+        {
+            switch (text.charAt(i))
+            {
+                case '$' :
+                    return i;
+
+                case '\n' :
+                case '\r' :
+                case '\u0085' :
+                case '\u2028' :
+                case '\u2029' :
+                    return -1;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Indicates whether the given character may appear in a variable name.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> is a valid variable name character.
+     */
+    private static boolean isNamePart(char c)
+    {
+        return isNameStart(c) || ((c >= '0') && (c <= '9')) || (c == '.');
+    }
+
+
+    /**
+     * Indicates whether the given character may start a variable name.
+     *
+     * @param c a character.
+     *
+     * @return <code>true</code> if <em>c</em> is a valid first variable name
+     *         character.
+     */
+    private static boolean isNameStart(char c)
+    {
+        return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || (c == '_');
+    }
+}
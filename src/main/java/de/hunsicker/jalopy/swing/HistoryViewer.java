@@ -41,7 +41,6 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
@@ -61,8 +60,6 @@ import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 
-import de.hunsicker.io.IoHelper;
-import de.hunsicker.jalopy.storage.Convention;
 import de.hunsicker.jalopy.storage.History;
 import de.hunsicker.util.ResourceBundleFactory;
 
@@ -323,27 +320,7 @@ class HistoryViewer
      */
     private Map loadHistory()
     {
-        Map history = null;
-
-        try
-        {
-            File file = Convention.getHistoryFile();
-
-            if (file.exists())
-            {
-                history = new HashMap((Map) IoHelper.deserialize(file));
-            }
-            else
-            {
-                history = new HashMap();
-            }
-        }
-        catch (Throwable ex)
-        {
-            history = new HashMap();
-        }
-
-        return history;
+        return History.getInstance().getEntries();
     }
 
 
@@ -41,8 +41,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.ResourceBundle;
 
 import javax.swing.AbstractAction;
@@ -61,6 +59,7 @@ import javax.swing.WindowConstants;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.filechooser.FileFilter;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultStyledDocument;
 import javax.swing.text.Document;
 import javax.swing.text.PlainDocument;
@@ -99,6 +98,12 @@ final class PreviewFrame
     //~ Static variables/initializers ----------------------------------------------------
 
     private static final String EXT_JAVA = ".java" /* NOI18N */;
+
+    /**
+     * The delay (in milliseconds) a preview update waits for further changes before
+     * it is started.
+     */
+    private static final int DELAY = 250;
     static final String EMPTY_STRING = "" /* NOI18N */.intern();
 
     //~ Instance variables ---------------------------------------------------------------
@@ -123,8 +128,11 @@ final class PreviewFrame
     /** The Jalopy instance to format the preview files. */
     Jalopy _jalopy = new Jalopy();
 
-    /** The list of the currently running threads. */
-    List _threads = new ArrayList(3); // List of <Thread>
+    /** Formats the preview text in the background. */
+    final PreviewWorker _worker = new PreviewWorker();
+
+    /** The formatted text currently displayed. Only accessed on the EDT. */
+    String _displayed = EMPTY_STRING;
     ResourceBundle bundle;
 
     /** The associated settings dialog. */
@@ -177,6 +185,16 @@ final class PreviewFrame
     }
 
 
+    /**
+     * Release system resources. Stops the thread that formats the preview.
+     */
+    public void dispose()
+    {
+        _worker.interrupt();
+        super.dispose();
+    }
+
+
     /**
      * Sets the settings page that is currently displayed in the settings dialog.
      *
@@ -200,7 +218,8 @@ final class PreviewFrame
 
 
     /**
-     * Sets the contents of the preview.
+     * Sets the contents of the preview. The formatted preview is updated in the
+     * background, once no further changes have been requested for a short while.
      *
      * @param text contents of a valid Java source file.
      */
@@ -211,34 +230,13 @@ final class PreviewFrame
             text = _textOriginal.getText();
         }
 
-        synchronized (_threads)
+        if (!text.equals(_textOriginal.getText()))
         {
-            if (_threads.size() > 0)
-            {
-                try
-                {
-                    FormatThread thread = (FormatThread) _threads.remove(0);
-                    thread.interrupt();
-
-                    if (thread.isAlive())
-                    {
-                        thread.join(50);
-                    }
-                }
-                catch (InterruptedException ignored)
-                {
-                    ;
-                }
-
-                _jalopy.reset();
-            }
-
-            Thread thread = new FormatThread(text);
             _textOriginal.setText(text);
             ((DefaultSyntaxDocument)_textOriginal.getDocument()).tokenizeLines();
-            _threads.add(thread);
-            thread.start();
         }
+
+        _worker.request(text);
     }
 
 
@@ -552,38 +550,127 @@ final class PreviewFrame
     }
 
 
-    private class FormatThread
+    /**
+     * Formats the preview text on a dedicated thread. Requests are coalesced: a run
+     * only starts after no further request arrived for {@link #DELAY} milliseconds,
+     * and the result of a run that got superseded by a newer request is discarded.
+     *
+     * @since 1.1
+     */
+    final class PreviewWorker
         extends Thread
     {
-        String text;
+        /** The text of the latest request, <code>null</code> if none is pending. */
+        private String _pending;
 
-        public FormatThread(String text)
+        /** Counts the requests; a run is superseded when the count changes. */
+        private int _generation;
+
+        /** The time the pending request may be started. */
+        private long _due;
+
+        /** Was the thread started? */
+        private boolean _started;
+
+        public PreviewWorker()
         {
-            this.text = text;
+            super("Jalopy-Preview" /* NOI18N */);
+            setDaemon(true);
         }
 
-        public void run()
+        /**
+         * Determines whether the run for the given request has been superseded.
+         *
+         * @param generation the request count the run was started with.
+         *
+         * @return <code>true</code> if a newer request has been issued.
+         */
+        public synchronized boolean isSuperseded(int generation)
         {
-            Level ioLevel = null;
-            Level parserLevel = null;
-            Level parserJavadocLevel = null;
-            Level printerLevel = null;
-            Level printerJavadocLevel = null;
+            return generation != _generation;
+        }
 
-            try
+
+        /**
+         * Requests a preview update for the given text.
+         *
+         * @param text the text to format.
+         */
+        public synchronized void request(String text)
+        {
+            _pending = text;
+            _generation++;
+            _due = System.currentTimeMillis() + DELAY;
+
+            if (!_started)
             {
-                // the thread may be interrupted, but I don't want to introduce
-                // inconsistencies
+                _started = true;
+                start();
             }
-            finally
+
+            notifyAll();
+        }
+
+
+        public void run()
+        {
+            // an interrupt that arrives while formatting is seen here
+            while (!isInterrupted())
             {
-                ioLevel = Loggers.IO.getLevel();
-                parserLevel = Loggers.PARSER.getLevel();
-                parserJavadocLevel = Loggers.PARSER_JAVADOC.getLevel();
-                printerLevel = Loggers.PRINTER.getLevel();
-                printerJavadocLevel = Loggers.PRINTER_JAVADOC.getLevel();
-                _page.settings.snapshot();
+                String text;
+                int generation;
+
+                synchronized (this)
+                {
+                    try
+                    {
+                        while (_pending == null)
+                        {
+                            wait();
+                        }
+
+                        // wait until the requests have settled down
+                        for (
+                            long delay = _due - System.currentTimeMillis(); delay > 0;
+                            delay = _due - System.currentTimeMillis())
+                        {
+                            wait(delay);
+                        }
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        return;
+                    }
+
+                    text = _pending;
+                    generation = _generation;
+                    _pending = null;
+                }
+
+                format(text, generation);
             }
+        }
+
+
+        /**
+         * Formats the given text and hands the result over to the EDT.
+         *
+         * @param text the text to format.
+         * @param generation the request count the run was started with.
+         */
+        private void format(
+            String text,
+            int    generation)
+        {
+            Level ioLevel = Loggers.IO.getLevel();
+            Level parserLevel = Loggers.PARSER.getLevel();
+            Level parserJavadocLevel = Loggers.PARSER_JAVADOC.getLevel();
+            Level printerLevel = Loggers.PRINTER.getLevel();
+            Level printerJavadocLevel = Loggers.PRINTER_JAVADOC.getLevel();
+            _page.settings.snapshot();
+
+            String result = null;
+            Integer tabSize = null;
 
             try
             {
@@ -656,55 +743,30 @@ final class PreviewFrame
                     }
                 }
 
-                /*
-                int wrapGuideColumn =
-                    _page.settings.getInt(
-                        ConventionKeys.LINE_LENGTH, ConventionDefaults.LINE_LENGTH);
-
-                if (wrapGuideColumn != _textArea.getWrapGuideColumn())
-                {
-                    _textArea.setWrapGuideColumn(wrapGuideColumn);
-                }
-                */
-                _textArea.getDocument().putProperty(
-                    PlainDocument.tabSizeAttribute,
+                tabSize =
                     new Integer(
                         _page.settings.get(
                             ConventionKeys.INDENT_SIZE,
-                            String.valueOf(ConventionDefaults.INDENT_SIZE))));
+                            String.valueOf(ConventionDefaults.INDENT_SIZE)));
 
-                _jalopy.setForce(true);
-                
-                if (this.text.length() > 0)
+                if (text.length() == 0)
+                {
+                    result = text;
+                }
+                else if (!isSuperseded(generation))
                 {
-                    _jalopy.setInput(this.text, _page.getCategory() + EXT_JAVA);
+                    _jalopy.setForce(true);
+                    _jalopy.setInput(text, _page.getCategory() + EXT_JAVA);
 
-                    final StringBuffer buf = new StringBuffer(this.text.length());
+                    StringBuffer buf = new StringBuffer(text.length());
                     _jalopy.setOutput(buf);
                     _jalopy.setInspect(true);
                     _jalopy.format();
-                    
-                    SwingUtilities.invokeLater(
-                        new Runnable()
-                        {
-                            public void run()
-                            {
-                                int offset = _textArea.getCaretPosition();
-                                synchronized (_textArea) {
-                                    _textArea.setText(buf.toString());
-                                    ((DefaultSyntaxDocument)_textArea.getDocument()).tokenizeLines();
-                                }
-
-                                if (_textArea.getDocument().getLength() > offset)
-                                {
-                                    _textArea.setCaretPosition(offset);
-                                }
-                            }
-                        });
-                }
-                else
-                {
-                    _textArea.setText(this.text);
+
+                    if (_jalopy.getState() != Jalopy.State.ERROR)
+                    {
+                        result = buf.toString();
+                    }
                 }
             }
             catch (Throwable ignored)
@@ -718,11 +780,6 @@ final class PreviewFrame
                 // or 'Apply')
                 _page.settings.revert();
 
-                if (EMPTY_STRING.equals(_textArea.getText()))
-                {
-                    _textArea.setText(this.text);
-                }
-
                 _jalopy.reset();
 
                 Loggers.IO.setLevel(ioLevel);
@@ -730,11 +787,140 @@ final class PreviewFrame
                 Loggers.PARSER_JAVADOC.setLevel(parserJavadocLevel);
                 Loggers.PRINTER.setLevel(printerLevel);
                 Loggers.PRINTER_JAVADOC.setLevel(printerJavadocLevel);
+            }
+
+            if (!isSuperseded(generation))
+            {
+                SwingUtilities.invokeLater(
+                    new PreviewUpdate(text, result, tabSize, generation));
+            }
+        }
+    }
+
+
+    /**
+     * Displays the result of a preview run. Only the lines that actually changed are
+     * replaced, so only these need to be tokenized again.
+     *
+     * @since 1.1
+     */
+    private final class PreviewUpdate
+        implements Runnable
+    {
+        /** The formatted text, <code>null</code> if formatting failed. */
+        private final String _result;
+
+        /** The original text. */
+        private final String _text;
 
-                synchronized (_threads)
+        /** The tab size to display the text with. */
+        private final Integer _tabSize;
+
+        /** The request count the run was started with. */
+        private final int _generation;
+
+        public PreviewUpdate(
+            String  text,
+            String  result,
+            Integer tabSize,
+            int     generation)
+        {
+            _text = text;
+            _result = result;
+            _tabSize = tabSize;
+            _generation = generation;
+        }
+
+        public void run()
+        {
+            if (_worker.isSuperseded(_generation))
+            {
+                return;
+            }
+
+            String text = _result;
+
+            if (text == null)
+            {
+                // keep the last preview, but show something
+                if (_displayed.length() > 0)
                 {
-                    _threads.remove(this);
+                    return;
                 }
+
+                text = _text;
+            }
+
+            if (text.equals(_displayed))
+            {
+                return;
+            }
+
+            DefaultSyntaxDocument document =
+                (DefaultSyntaxDocument) _textArea.getDocument();
+
+            if (_tabSize != null)
+            {
+                document.putProperty(PlainDocument.tabSizeAttribute, _tabSize);
+            }
+
+            // determine the changed range, expanded to whole lines
+            int oldLength = _displayed.length();
+            int newLength = text.length();
+            int prefix = 0;
+
+            while (
+                (prefix < oldLength) && (prefix < newLength)
+                && (_displayed.charAt(prefix) == text.charAt(prefix)))
+            {
+                prefix++;
+            }
+
+            prefix = _displayed.lastIndexOf('\n', prefix - 1) + 1;
+
+            int suffix = 0;
+
+            while (
+                (suffix < (oldLength - prefix)) && (suffix < (newLength - prefix))
+                && (_displayed.charAt(oldLength - suffix - 1)
+                == text.charAt(newLength - suffix - 1)))
+            {
+                suffix++;
+            }
+
+            // only keep whole lines at the end
+            while (
+                (suffix > 0) && ((oldLength - suffix) > 0)
+                && (_displayed.charAt(oldLength - suffix - 1) != '\n'))
+            {
+                suffix--;
+            }
+
+            int offset = _textArea.getCaretPosition();
+
+            try
+            {
+                synchronized (_textArea)
+                {
+                    document.replaceLines(
+                        prefix, oldLength - prefix - suffix,
+                        text.substring(prefix, newLength - suffix));
+                }
+
+                _displayed = text;
+            }
+            catch (BadLocationException ex)
+            {
+                // should never happen as the document only changes here, but
+                // better safe than sorry
+                _textArea.setText(text);
+                document.tokenizeLines();
+                _displayed = text;
+            }
+
+            if (document.getLength() > offset)
+            {
+                _textArea.setCaretPosition(offset);
             }
         }
     }
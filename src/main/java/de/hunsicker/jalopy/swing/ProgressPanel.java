@@ -31,11 +31,14 @@
 package de.hunsicker.jalopy.swing;
 
 import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -356,11 +359,24 @@ public class ProgressPanel
     //~ Inner Classes --------------------------------------------------------------------
 
     /**
-     * Increases the warning/error count as these messages occur.
+     * Increases the warning/error count as these messages occur. The messages are
+     * counted on the logging threads, the labels are updated on the event dispatch
+     * thread, at most once per pending update no matter how many messages occured in
+     * the meantime.
      */
     private final class ProgressAppender
         extends AppenderSkeleton
+        implements Runnable
     {
+        /** Indicates whether an update of the labels is pending. */
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /** The errors not yet displayed. */
+        final AtomicInteger errors = new AtomicInteger();
+
+        /** The warnings not yet displayed. */
+        final AtomicInteger warnings = new AtomicInteger();
+
         public ProgressAppender()
         {
             // the appender depends on the enclosing class
@@ -372,15 +388,46 @@ public class ProgressPanel
             switch (ev.getLevel().toInt())
             {
                 case Priority.WARN_INT :
-                    _warnings.increase();
+                    this.warnings.incrementAndGet();
 
                     break;
 
                 case Priority.ERROR_INT :
                 case Priority.FATAL_INT :
-                    _errors.increase();
+                    this.errors.incrementAndGet();
 
                     break;
+
+                default :
+                    return;
+            }
+
+            if (this.scheduled.compareAndSet(false, true))
+            {
+                EventQueue.invokeLater(this);
+            }
+        }
+
+
+        /**
+         * Displays the messages counted since the last update.
+         */
+        public void run()
+        {
+            this.scheduled.set(false);
+
+            int count = this.warnings.getAndSet(0);
+
+            if ((count > 0) && (_warnings != null))
+            {
+                _warnings.setCount(_warnings.getCount() + count);
+            }
+
+            count = this.errors.getAndSet(0);
+
+            if ((count > 0) && (_errors != null))
+            {
+                _errors.setCount(_errors.getCount() + count);
             }
         }
 
@@ -200,6 +200,51 @@ public class DefaultSyntaxDocument
         }
     }
 
+    /**
+     * Replaces the given part of the document and reparses only the affected lines.
+     * Lines following the replaced ones are reparsed as long as their initial token
+     * type changes (e.g. because a multi-line comment was opened or closed).
+     *
+     * @param offset the offset of the text to replace.
+     * @param length the length of the text to replace.
+     * @param text the replacement text.
+     *
+     * @throws BadLocationException if the given part is not a valid part of the
+     *         document.
+     *
+     * @since 1.1
+     */
+    public void replaceLines(
+        int    offset,
+        int    length,
+        String text)
+      throws BadLocationException
+    {
+        replace(offset, length, text, null);
+
+        if (tokenMarker == null)
+        {
+            return;
+        }
+
+        Element map = getDefaultRootElement();
+        int start = map.getElementIndex(offset);
+        int end = map.getElementIndex(offset + text.length());
+        int count = map.getElementCount();
+
+        // the line following the replaced text may have taken over the line info
+        // of a replaced line, so the state of its successor is unreliable and the
+        // successor is always reparsed as well
+        tokenizeLines(start, Math.min((end - start) + 2, count - start));
+
+        for (
+            int line = end + 2; (line < count) && tokenMarker.isNextLineRequested();
+            line++)
+        {
+            tokenizeLines(line, 1);
+        }
+    }
+
     //~ Inner Classes --------------------------------------------------------------------
 
     /**
@@ -0,0 +1,287 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.util;
+
+/**
+ * Implementation of the linear space variant of Myers' <em>O(ND) Difference</em>
+ * algorithm.
+ * 
+ * <p>
+ * The sequences are given as integer arrays (usually hash or dictionary ids of
+ * lines). Rather than building the edit graph, the algorithm recursively splits the
+ * problem at the middle snake of the shortest edit script, so it only needs two
+ * vectors proportional to the length of the sequences.
+ * </p>
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ *
+ * @see <a
+ *      href="http://www.xmailserver.org/diff2.pdf">http://www.xmailserver.org/diff2.pdf</a>
+ * @since 1.1
+ */
+public final class Diff
+{
+    //~ Constructors ---------------------------------------------------------------------
+
+    /**
+     * Creates a new Diff object.
+     */
+    private Diff()
+    {
+    }
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Computes the shortest edit script that turns <em>a</em> into <em>b</em>.
+     *
+     * @param a the original sequence.
+     * @param b the revised sequence.
+     * @param deleted receives the elements of <em>a</em> that are deleted, must have
+     *        the length of <em>a</em>.
+     * @param inserted receives the elements of <em>b</em> that are inserted, must have
+     *        the length of <em>b</em>.
+     */
+    public static void compare(
+        int[]     a,
+        int[]     b,
+        boolean[] deleted,
+        boolean[] inserted)
+    {
+        int max = a.length + b.length + 1;
+        int[] down = new int[(2 * max) + 2];
+        int[] up = new int[(2 * max) + 2];
+
+        compare(a, 0, a.length, b, 0, b.length, deleted, inserted, down, up);
+    }
+
+
+    /**
+     * Marks the differences between the given ranges.
+     *
+     * @param a the original sequence.
+     * @param aLow start of the range of <em>a</em> (inclusive).
+     * @param aHigh end of the range of <em>a</em> (exclusive).
+     * @param b the revised sequence.
+     * @param bLow start of the range of <em>b</em> (inclusive).
+     * @param bHigh end of the range of <em>b</em> (exclusive).
+     * @param deleted receives the deleted elements of <em>a</em>.
+     * @param inserted receives the inserted elements of <em>b</em>.
+     * @param down vector for the forward search.
+     * @param up vector for the reverse search.
+     */
+    private static void compare(
+        int[]     a,
+        int       aLow,
+        int       aHigh,
+        int[]     b,
+        int       bLow,
+        int       bHigh,
+        boolean[] deleted,
+        boolean[] inserted,
+        int[]     down,
+        int[]     up)
+    {
+        // skip the common prefix and suffix
+        while ((aLow < aHigh) && (bLow < bHigh) && (a[aLow] == b[bLow]))
+        {
+            aLow++;
+            bLow++;
+        }
+
+        while ((aLow < aHigh) && (bLow < bHigh) && (a[aHigh - 1] == b[bHigh - 1]))
+        {
+            aHigh--;
+            bHigh--;
+        }
+
+        if (aLow == aHigh)
+        {
+            while (bLow < bHigh)
+            {
+                inserted[bLow++] = true;
+            }
+        }
+        else if (bLow == bHigh)
+        {
+            while (aLow < aHigh)
+            {
+                deleted[aLow++] = true;
+            }
+        }
+        else
+        {
+            long snake = middleSnake(a, aLow, aHigh, b, bLow, bHigh, down, up);
+            int x = (int) (snake >>> 32);
+            int y = (int) snake;
+
+            compare(a, aLow, x, b, bLow, y, deleted, inserted, down, up);
+            compare(a, x, aHigh, b, y, bHigh, deleted, inserted, down, up);
+        }
+    }
+
+
+    /**
+     * Finds the middle snake of the shortest edit script for the given ranges.
+     *
+     * @param a the original sequence.
+     * @param aLow start of the range of <em>a</em> (inclusive).
+     * @param aHigh end of the range of <em>a</em> (exclusive).
+     * @param b the revised sequence.
+     * @param bLow start of the range of <em>b</em> (inclusive).
+     * @param bHigh end of the range of <em>b</em> (exclusive).
+     * @param down vector for the forward search.
+     * @param up vector for the reverse search.
+     *
+     * @return the point where the snake starts, the position in <em>a</em> in the upper
+     *         and the position in <em>b</em> in the lower 32 bits.
+     */
+    private static long middleSnake(
+        int[] a,
+        int   aLow,
+        int   aHigh,
+        int[] b,
+        int   bLow,
+        int   bHigh,
+        int[] down,
+        int[] up)
+    {
+        int max = a.length + b.length + 1;
+        int downK = aLow - bLow;
+        int upK = aHigh - bHigh;
+        int delta = (aHigh - aLow) - (bHigh - bLow);
+        boolean odd = (delta & 1) != 0;
+        int downOffset = max - downK;
+        int upOffset = max - upK;
+        int maxD = (((aHigh - aLow) + (bHigh - bLow)) / 2) + 1;
+
+        down[downOffset + downK + 1] = aLow;
+        up[(upOffset + upK) - 1] = aHigh;
+
+        for (int d = 0; d <= maxD; d++)
+        {
+            // extend the forward path
+            for (int k = downK - d; k <= (downK + d); k += 2)
+            {
+                int x;
+
+                if (k == (downK - d))
+                {
+                    x = down[downOffset + k + 1]; // down
+                }
+                else
+                {
+                    x = down[(downOffset + k) - 1] + 1; // right
+
+                    if ((k < (downK + d)) && (down[downOffset + k + 1] >= x))
+                    {
+                        x = down[downOffset + k + 1]; // down
+                    }
+                }
+
+                int y = x - k;
+
+                while ((x < aHigh) && (y < bHigh) && (a[x] == b[y]))
+                {
+                    x++;
+                    y++;
+                }
+
+                down[downOffset + k] = x;
+
+                if (odd && ((upK - d) < k) && (k < (upK + d)))
+                {
+                    if (up[upOffset + k] <= down[downOffset + k])
+                    {
+                        return point(down[downOffset + k], down[downOffset + k] - k);
+                    }
+                }
+            }
+
+            // extend the reverse path
+            for (int k = upK - d; k <= (upK + d); k += 2)
+            {
+                int x;
+
+                if (k == (upK + d))
+                {
+                    x = up[(upOffset + k) - 1]; // up
+                }
+                else
+                {
+                    x = up[upOffset + k + 1] - 1; // left
+
+                    if ((k > (upK - d)) && (up[(upOffset + k) - 1] < x))
+                    {
+                        x = up[(upOffset + k) - 1]; // up
+                    }
+                }
+
+                int y = x - k;
+
+                while ((x > aLow) && (y > bLow) && (a[x - 1] == b[y - 1]))
+                {
+                    x--;
+                    y--;
+                }
+
+                up[upOffset + k] = x;
+
+                if (!odd && ((downK - d) <= k) && (k <= (downK + d)))
+                {
+                    if (up[upOffset + k] <= down[downOffset + k])
+                    {
+                        return point(down[downOffset + k], down[downOffset + k] - k);
+                    }
+                }
+            }
+        }
+
+        throw new IllegalStateException("no middle snake found");
+    }
+
+
+    /**
+     * Packs the given coordinates.
+     *
+     * @param x position in the original sequence.
+     * @param y position in the revised sequence.
+     *
+     * @return the packed coordinates.
+     */
+    private static long point(
+        int x,
+        int y)
+    {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -30,8 +30,20 @@
  */
 package de.hunsicker.util;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+
 /**
  * Implementation of the <em>Longest Common Subsequence</em> algorithm.
+ * 
+ * <p>
+ * The processing table is only built when the subsequence itself is requested. The
+ * length and the similarity are computed with a single, reused table row. Use a
+ * {@link Dictionary} to repeatedly search a fixed set of words for a similar one.
+ * </p>
  *
  * @author Caitlin Howell
  * @version 1.0
@@ -61,6 +73,9 @@ public final class Lcs
     /** The table we will use to determine the Lcs. */
     private Cell[][] _table;
 
+    /** The table row used to compute the length only. */
+    private int[] _row;
+
     /** Did we compute a Lcs already? */
     private boolean _done;
 
@@ -73,6 +88,9 @@ public final class Lcs
     /** The number of rows  in the table. */
     private int _rows;
 
+    /** The Lcs length, <code>-1</code> if not yet computed. */
+    private int _length = -1;
+
     //~ Constructors ---------------------------------------------------------------------
 
     /**
@@ -93,9 +111,7 @@ public final class Lcs
         String string1,
         String string2)
     {
-        _s1 = string1;
-        _s2 = string2;
-        init();
+        init(string1, string2);
     }
 
     //~ Methods --------------------------------------------------------------------------
@@ -130,14 +146,26 @@ public final class Lcs
      */
     public int getLength()
     {
-        if (!_done)
+        if (_done)
         {
-            compute();
+            return _lcs.length();
         }
 
-        return _lcs.length();
+        if (_length == -1)
+        {
+            checkStrings();
+
+            int size = Math.min(_s1.length(), _s2.length()) + 1;
 
-        // return _table[_rows - 1][_columns - 1].total();
+            if ((_row == null) || (_row.length < size))
+            {
+                _row = new int[size];
+            }
+
+            _length = computeLength(_s1, _s2, _row);
+        }
+
+        return _length;
     }
 
 
@@ -168,6 +196,27 @@ public final class Lcs
     }
 
 
+    /**
+     * Computes the length of the longest common subsequence for the two given strings.
+     * Unlike {@link #compute(String,String)}, this method does not build the
+     * processing table and allocates just a single table row.
+     *
+     * @param s1 first string.
+     * @param s2 second string.
+     *
+     * @return the longest common subsequence length.
+     *
+     * @since 1.1
+     */
+    public static int computeLength(
+        String s1,
+        String s2)
+    {
+        return computeLength(
+            s1, s2, new int[Math.min(s1.length(), s2.length()) + 1]);
+    }
+
+
     /**
      * Computes the longest common subsequence for the two given strings.
      *
@@ -206,22 +255,93 @@ public final class Lcs
     {
         _s1 = s1;
         _s2 = s2;
-        init();
+        checkStrings();
+
+        // the processing table is built on demand
+        _table = null;
+        _init = false;
+        _done = false;
+        _length = -1;
     }
 
 
     /**
-     * Initialization of the processing table.
+     * Computes the longest common subsequence length with a single table row.
+     *
+     * @param s1 first string.
+     * @param s2 second string.
+     * @param row the table row, at least as long as the shorter string plus one.
+     *
+     * @return the longest common subsequence length.
+     *
+     * @since 1.1
+     */
+    private static int computeLength(
+        String s1,
+        String s2,
+        int[]  row)
+    {
+        if (s1.length() < s2.length())
+        {
+            String temp = s1;
+            s1 = s2;
+            s2 = temp;
+        }
+
+        int columns = s2.length();
+        Arrays.fill(row, 0, columns + 1, 0);
+
+        for (int i = 0, rows = s1.length(); i < rows; i++)
+        {
+            char c = s1.charAt(i);
+
+            // the value of the previous row, one column to the left
+            int diagonal = 0;
+
+            for (int j = 1; j <= columns; j++)
+            {
+                int up = row[j];
+
+                if (s2.charAt(j - 1) == c)
+                {
+                    row[j] = diagonal + 1;
+                }
+                else if (row[j - 1] > up)
+                {
+                    row[j] = row[j - 1];
+                }
+
+                diagonal = up;
+            }
+        }
+
+        return row[columns];
+    }
+
+
+    /**
+     * Ensures that both strings are specified.
      *
      * @throws IllegalStateException if either one of the strings is <code>null</code>.
      */
-    private void init()
+    private void checkStrings()
     {
         if ((_s1 == null) || (_s2 == null))
         {
             throw new IllegalStateException(
                 "both strings must be specified and non-null");
         }
+    }
+
+
+    /**
+     * Initialization of the processing table.
+     *
+     * @throws IllegalStateException if either one of the strings is <code>null</code>.
+     */
+    private void init()
+    {
+        checkStrings();
 
         int temp1 = 0;
         int temp2 = 0;
@@ -382,4 +502,182 @@ public final class Lcs
             return _total;
         }
     }
+
+
+    /**
+     * A fixed set of words that can be searched for a word similar to a given text.
+     * The words are prepared once, so searching neither builds processing tables nor
+     * allocates any objects. Words with up to 64 characters are compared with a
+     * bit-parallel algorithm that handles all columns of a table row in a few
+     * operations.
+     * 
+     * <p>
+     * A dictionary is immutable and may be shared between threads.
+     * </p>
+     *
+     * @since 1.1
+     */
+    public static final class Dictionary
+    {
+        /** The number of bits that can be processed in parallel. */
+        private static final int MAX_BITS = 64;
+
+        /** The words in the order they are searched. */
+        private final String[] _words;
+
+        /** For every word its distinct characters (for short words only). */
+        private final char[][] _chars;
+
+        /**
+         * For every word and distinct character the bit mask of the positions the
+         * character occurs (for short words only).
+         */
+        private final long[][] _masks;
+
+        /** The words, for exact lookup. */
+        private final Set _lookup; // Set of <String>
+
+        /**
+         * Creates a new Dictionary object.
+         *
+         * @param words the words (of type String) in the order they should be searched.
+         */
+        public Dictionary(Collection words)
+        {
+            _words = (String[]) words.toArray(new String[words.size()]);
+            _lookup = new HashSet(words);
+            _chars = new char[_words.length][];
+            _masks = new long[_words.length][];
+
+            for (int i = 0; i < _words.length; i++)
+            {
+                String word = _words[i];
+
+                if (word.length() > MAX_BITS)
+                {
+                    continue;
+                }
+
+                char[] chars = new char[word.length()];
+                long[] masks = new long[word.length()];
+                int count = 0;
+
+                for (int j = 0, length = word.length(); j < length; j++)
+                {
+                    char c = word.charAt(j);
+                    int k = 0;
+
+                    while ((k < count) && (chars[k] != c))
+                    {
+                        k++;
+                    }
+
+                    if (k == count)
+                    {
+                        chars[count++] = c;
+                    }
+
+                    masks[k] |= (1L << j);
+                }
+
+                _chars[i] = new char[count];
+                _masks[i] = new long[count];
+                System.arraycopy(chars, 0, _chars[i], 0, count);
+                System.arraycopy(masks, 0, _masks[i], 0, count);
+            }
+        }
+
+        /**
+         * Searches the dictionary for a word similar to the given text.
+         *
+         * @param text the text to match.
+         * @param minimum the similarity (in percent) a word must exceed to match.
+         *
+         * @return the given text if it is contained in the dictionary. Otherwise the
+         *         first word whose similarity to the text exceeds <em>minimum</em>, or
+         *         <code>null</code> if no such word exists.
+         *
+         * @see Lcs#getPercentage
+         */
+        public String getMatch(
+            String text,
+            double minimum)
+        {
+            if (_lookup.contains(text))
+            {
+                return text;
+            }
+
+            for (int i = 0; i < _words.length; i++)
+            {
+                String word = _words[i];
+                int total = text.length() + word.length();
+
+                // the subsequence cannot be longer than the shorter string
+                if (
+                    (total == 0)
+                    || (((Math.min(text.length(), word.length()) * 200) / total) <= minimum))
+                {
+                    continue;
+                }
+
+                int length =
+                    (_chars[i] != null) ? getLength(i, text)
+                                        : computeLength(text, word);
+
+                if (((length * 200) / total) > minimum)
+                {
+                    return word;
+                }
+            }
+
+            return null;
+        }
+
+
+        /**
+         * Returns the longest common subsequence length of the given text and the word
+         * at the given index, which must not be longer than {@link #MAX_BITS}.
+         *
+         * @param index index of the word.
+         * @param text the text.
+         *
+         * @return the longest common subsequence length.
+         */
+        private int getLength(
+            int    index,
+            String text)
+        {
+            char[] chars = _chars[index];
+            long[] masks = _masks[index];
+
+            // the zero bits mark the columns where the subsequence length increases
+            long row = -1L;
+
+            for (int i = 0, length = text.length(); i < length; i++)
+            {
+                char c = text.charAt(i);
+
+                for (int j = 0; j < chars.length; j++)
+                {
+                    if (chars[j] == c)
+                    {
+                        long matches = row & masks[j];
+                        row = (row + matches) | (row - matches);
+
+                        break;
+                    }
+                }
+            }
+
+            int bits = _words[index].length();
+
+            if (bits < MAX_BITS)
+            {
+                row |= (-1L << bits);
+            }
+
+            return Long.bitCount(~row);
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.io;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link CompareWriter}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class CompareWriterTest
+    extends TestCase
+{
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Output equal to the text is reported as equal.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testEqualOutput()
+      throws IOException
+    {
+        CompareWriter out = new CompareWriter("foo\nbar\n" /* NOI18N */);
+        out.write("foo\n" /* NOI18N */);
+        out.write("bar\n" /* NOI18N */);
+        out.close();
+
+        assertTrue(out.isEqual());
+        assertEquals(3, out.getLine());
+    }
+
+
+    /**
+     * The first differing character stops the output and is reported.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testDifferenceIsReported()
+      throws IOException
+    {
+        CompareWriter out = new CompareWriter("foo\nbar\nbaz\n" /* NOI18N */);
+
+        try
+        {
+            out.write("foo\nbax\nbaz\n" /* NOI18N */);
+            fail("difference not detected" /* NOI18N */);
+        }
+        catch (CompareWriter.DifferenceException expected)
+        {
+            ;
+        }
+
+        assertFalse(out.isEqual());
+        assertEquals(2, out.getLine());
+        assertEquals(3, out.getColumn());
+        assertEquals(6, out.getOffset());
+
+        try
+        {
+            out.write('z');
+            fail("output accepted after a difference" /* NOI18N */);
+        }
+        catch (CompareWriter.DifferenceException expected)
+        {
+            ;
+        }
+    }
+
+
+    /**
+     * Output that ends early is not equal, even though no character differs.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testShorterOutput()
+      throws IOException
+    {
+        CompareWriter out = new CompareWriter("foo\nbar\n" /* NOI18N */);
+        out.write("foo\n" /* NOI18N */);
+        out.close();
+
+        assertFalse(out.isEqual());
+    }
+
+
+    /**
+     * Output that goes on after the text has ended differs.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testLongerOutput()
+      throws IOException
+    {
+        CompareWriter out = new CompareWriter("foo\n" /* NOI18N */);
+
+        try
+        {
+            out.write("foo\n\n" /* NOI18N */);
+            fail("difference not detected" /* NOI18N */);
+        }
+        catch (CompareWriter.DifferenceException expected)
+        {
+            ;
+        }
+
+        assertEquals(2, out.getLine());
+        assertEquals(1, out.getColumn());
+    }
+
+
+    /**
+     * DOS and Mac line separators count as one line each.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testLineSeparators()
+      throws IOException
+    {
+        CompareWriter out = new CompareWriter("a\r\nb\rc\nd" /* NOI18N */);
+
+        try
+        {
+            out.write("a\r\nb\rc\nx" /* NOI18N */);
+            fail("difference not detected" /* NOI18N */);
+        }
+        catch (CompareWriter.DifferenceException expected)
+        {
+            ;
+        }
+
+        assertEquals(4, out.getLine());
+        assertEquals(1, out.getColumn());
+    }
+}
@@ -0,0 +1,468 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link DiffWriter}. The diffs are checked by applying them to the original
+ * text with the <code>patch</code> utility, if available.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class DiffWriterTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The encoding of the files handed to <code>patch</code>. */
+    private static final String ENCODING = "UTF-8" /* NOI18N */;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** Directory for the files handed to <code>patch</code>. */
+    private File _dir;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Output equal to the text produces no diff at all.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testEqualOutput()
+      throws IOException
+    {
+        String text = createText(100);
+        StringWriter diff = new StringWriter();
+        DiffWriter out = new DiffWriter(diff, text, "a", "b" /* NOI18N */);
+        out.write(text);
+        out.close();
+
+        assertFalse(out.isDifferent());
+        assertEquals(0, diff.getBuffer().length());
+    }
+
+
+    /**
+     * A single changed line produces one hunk with three lines of context.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testChangedLine()
+      throws IOException
+    {
+        String text = createText(20);
+        String revised = text.replaceFirst("line 10\n", "changed 10\n" /* NOI18N */);
+        String diff = diff(text, revised, false);
+
+        assertTrue(diff.startsWith("--- a\n+++ b\n@@ -7,7 +7,7 @@\n" /* NOI18N */));
+        assertTrue(diff.indexOf("\n-line 10\n+changed 10\n" /* NOI18N */) > -1);
+        assertPatches(text, revised);
+    }
+
+
+    /**
+     * Inserted and removed lines at the start, in the middle and at the end.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testInsertedAndRemovedLines()
+      throws IOException
+    {
+        String text = createText(50);
+        String revised =
+            "first\n" + text.replaceFirst("line 20\nline 21\n", "" /* NOI18N */)
+            + "last\n" /* NOI18N */;
+        assertPatches(text, revised);
+        assertPatches(revised, text);
+    }
+
+
+    /**
+     * Changes close to each other and far apart, written in pieces of any size.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testScatteredChanges()
+      throws IOException
+    {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 20; round++)
+        {
+            String[] lines = createText(300).split("\n" /* NOI18N */);
+            StringBuffer revised = new StringBuffer();
+
+            for (int i = 0; i < lines.length; i++)
+            {
+                switch (random.nextInt(25))
+                {
+                    case 0 : // removed
+                        break;
+
+                    case 1 : // inserted
+                        revised.append("inserted\n" /* NOI18N */);
+                        revised.append(lines[i]).append('\n');
+
+                        break;
+
+                    case 2 : // changed
+                        revised.append(lines[i]).append(" changed\n" /* NOI18N */);
+
+                        break;
+
+                    case 3 : // repeated lines that match elsewhere
+                        revised.append("line 1\n" /* NOI18N */);
+
+                        break;
+
+                    default :
+                        revised.append(lines[i]).append('\n');
+                }
+            }
+
+            assertPatches(createText(300), revised.toString());
+        }
+    }
+
+
+    /**
+     * Texts and outputs without a final line separator.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testMissingFinalLineSeparator()
+      throws IOException
+    {
+        String text = createText(10);
+        String truncated = text.substring(0, text.length() - 1);
+        assertPatches(text, truncated);
+        assertPatches(truncated, text);
+        assertPatches(truncated, truncated + " changed" /* NOI18N */);
+    }
+
+
+    /**
+     * Lines with DOS line separators keep their carriage returns in the diff.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testDosLineSeparators()
+      throws IOException
+    {
+        String text = createText(20).replaceAll("\n", "\r\n" /* NOI18N */);
+        String revised =
+            text.replaceFirst("line 10\r\n", "changed 10\r\n" /* NOI18N */);
+        String diff = diff(text, revised, false);
+
+        assertTrue(
+            diff.indexOf("\n line 9\r\n-line 10\r\n+changed 10\r\n" /* NOI18N */) > -1);
+        assertPatches(text, revised);
+        assertPatches(text, revised.substring(0, revised.length() - 2));
+        assertPatches("a\r\nb\r\nc\r\nd\r\n", "a\r\nb\r\nx\r\nd\r\n" /* NOI18N */);
+    }
+
+
+    /**
+     * Converting the line separators changes every line.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testLineSeparatorConversion()
+      throws IOException
+    {
+        String text = createText(20);
+        String dos = text.replaceAll("\n", "\r\n" /* NOI18N */);
+
+        String diff = diff(dos, text, false);
+
+        assertTrue(diff.indexOf("\n-line 1\r\n" /* NOI18N */) > -1);
+        assertTrue(diff.indexOf("\n+line 1\n" /* NOI18N */) > -1);
+        assertPatches(dos, text);
+        assertPatches(text, dos);
+
+        // only some lines converted
+        assertPatches(text, text.replaceFirst("line 5\n", "line 5\r\n" /* NOI18N */));
+    }
+
+
+    /**
+     * Texts with Mac line separators are a single line, just as for <code>patch</code>.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testMacLineSeparators()
+      throws IOException
+    {
+        String text = createText(20).replaceAll("\n", "\r" /* NOI18N */);
+        assertPatches(text, text.replaceFirst("line 10\r", "changed 10\r" /* NOI18N */));
+        assertPatches(text, createText(20));
+        assertPatches(createText(20), text);
+    }
+
+
+    /**
+     * An empty text and a completely different output.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testCompletelyDifferent()
+      throws IOException
+    {
+        assertPatches("" /* NOI18N */, createText(10));
+        assertPatches(createText(10), "" /* NOI18N */);
+        assertPatches(createText(10), createText(10).toUpperCase());
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        _dir = File.createTempFile("diff" /* NOI18N */, "" /* NOI18N */);
+        _dir.delete();
+        _dir.mkdirs();
+    }
+
+
+    protected void tearDown()
+      throws Exception
+    {
+        File[] files = _dir.listFiles();
+
+        for (int i = 0; i < files.length; i++)
+        {
+            files[i].delete();
+        }
+
+        _dir.delete();
+    }
+
+
+    /**
+     * Asserts that the diff between the given text and output, applied to the text,
+     * yields the output.
+     *
+     * @param text the original text.
+     * @param revised the output.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private void assertPatches(
+        String text,
+        String revised)
+      throws IOException
+    {
+        // the result must not depend on how the output is handed to the writer
+        String diff = diff(text, revised, false);
+        assertEquals(diff, diff(text, revised, true));
+        assertEquals(!text.equals(revised), diff.length() > 0);
+
+        File original = new File(_dir, "original.txt" /* NOI18N */);
+        File patch = new File(_dir, "changes.diff" /* NOI18N */);
+        File result = new File(_dir, "result.txt" /* NOI18N */);
+        write(original, text);
+        write(patch, diff);
+        result.delete();
+
+        Process process;
+
+        try
+        {
+            process =
+                new ProcessBuilder(
+                    new String[]
+                    {
+                        "patch", "-s", "-o", result.getPath(), original.getPath(),
+                        patch.getPath()
+                    } /* NOI18N */).redirectErrorStream(true).start();
+        }
+        catch (IOException ex)
+        {
+            // no patch utility available
+            return;
+        }
+
+        String messages = read(process.getInputStream());
+
+        try
+        {
+            assertEquals(diff + messages, 0, process.waitFor());
+        }
+        catch (InterruptedException ex)
+        {
+            fail(ex.toString());
+        }
+
+        if (diff.length() > 0)
+        {
+            assertEquals(diff, revised, read(new FileInputStream(result)));
+        }
+    }
+
+
+    /**
+     * Returns the diff between the given text and output.
+     *
+     * @param text the original text.
+     * @param revised the output.
+     * @param pieces if <code>true</code> the output is written in pieces of varying
+     *        size, otherwise all at once.
+     *
+     * @return the diff.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static String diff(
+        String  text,
+        String  revised,
+        boolean pieces)
+      throws IOException
+    {
+        StringWriter diff = new StringWriter();
+        DiffWriter out = new DiffWriter(diff, text, "a", "b" /* NOI18N */);
+
+        if (pieces)
+        {
+            char[] chars = revised.toCharArray();
+
+            for (int i = 0, size = 1; i < chars.length; i += size, size = (size % 7) + 1)
+            {
+                if (size == 1)
+                {
+                    out.write(chars[i]);
+                }
+                else
+                {
+                    out.write(chars, i, Math.min(size, chars.length - i));
+                }
+            }
+        }
+        else
+        {
+            out.write(revised);
+        }
+
+        out.close();
+
+        return diff.toString();
+    }
+
+
+    /**
+     * Creates a text with the given number of numbered lines.
+     *
+     * @param lines number of lines.
+     *
+     * @return the text.
+     */
+    private static String createText(int lines)
+    {
+        StringBuffer buf = new StringBuffer(lines * 8);
+
+        for (int i = 1; i <= lines; i++)
+        {
+            buf.append("line " /* NOI18N */).append(i).append('\n');
+        }
+
+        return buf.toString();
+    }
+
+
+    /**
+     * Reads the given stream completely and closes it.
+     *
+     * @param in the stream to read.
+     *
+     * @return the contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static String read(InputStream in)
+      throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try
+        {
+            byte[] buf = new byte[4096];
+
+            for (int count = in.read(buf); count > -1; count = in.read(buf))
+            {
+                bytes.write(buf, 0, count);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return bytes.toString(ENCODING);
+    }
+
+
+    /**
+     * Writes the given contents to the given file.
+     *
+     * @param file the file to write.
+     * @param contents the contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void write(
+        File   file,
+        String contents)
+      throws IOException
+    {
+        OutputStream out = new FileOutputStream(file);
+
+        try
+        {
+            out.write(contents.getBytes(ENCODING));
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
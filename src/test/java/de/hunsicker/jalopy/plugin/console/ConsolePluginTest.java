@@ -0,0 +1,296 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.plugin.console;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import de.hunsicker.jalopy.storage.Convention;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for the check and diff modes of {@link ConsolePlugin}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class ConsolePluginTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The encoding of the source files. */
+    private static final String ENCODING = "UTF-8" /* NOI18N */;
+
+    /** A source file that needs formatting. */
+    private static final String SOURCE =
+        "package foo;\npublic class Foo {\n  int x=1;\n"
+        + "  public int bar(int y) { if (y>x) return y; return x+y; }\n\n\n"
+        + "  public void baz() { bar(2); }\n}\n" /* NOI18N */;
+
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The directory that holds the source files. */
+    private File _dir;
+
+    /** The source file processed by the tests. */
+    private File _file;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Check mode exits with {@link ConsolePlugin#EXIT_UNFORMATTED} as long as a file
+     * needs formatting and never touches the files.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testCheckMode()
+      throws IOException
+    {
+        long modified = _file.lastModified();
+
+        assertEquals(ConsolePlugin.EXIT_UNFORMATTED, run(true, false));
+        assertEquals(SOURCE, read(_file));
+        assertEquals(modified, _file.lastModified());
+
+        assertEquals(ConsolePlugin.EXIT_OK, run(false, false));
+        assertFalse(SOURCE.equals(read(_file)));
+
+        assertEquals(ConsolePlugin.EXIT_OK, run(true, false));
+    }
+
+
+    /**
+     * The diff written in diff mode turns the original file into the formatted one.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testDiffMode()
+      throws IOException
+    {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream diff = new ByteArrayOutputStream();
+        int exitCode;
+
+        System.setOut(new PrintStream(diff, true, ENCODING));
+
+        try
+        {
+            exitCode = run(false, true);
+        }
+        finally
+        {
+            System.setOut(stdout);
+        }
+
+        assertEquals(ConsolePlugin.EXIT_UNFORMATTED, exitCode);
+        assertEquals(SOURCE, read(_file));
+
+        File patch = new File(_dir, "changes.diff" /* NOI18N */);
+        write(patch, diff.toString(ENCODING));
+
+        // the formatted file to compare against
+        assertEquals(ConsolePlugin.EXIT_OK, run(false, false));
+
+        String formatted = read(_file);
+        File original = new File(_dir, "original.txt" /* NOI18N */);
+        File result = new File(_dir, "result.txt" /* NOI18N */);
+        write(original, SOURCE);
+
+        Process process;
+
+        try
+        {
+            process =
+                new ProcessBuilder(
+                    new String[]
+                    {
+                        "patch", "-s", "-o", result.getPath(), original.getPath(),
+                        patch.getPath()
+                    } /* NOI18N */).redirectErrorStream(true).start();
+        }
+        catch (IOException ex)
+        {
+            // no patch utility available
+            return;
+        }
+
+        String messages = read(process.getInputStream());
+
+        try
+        {
+            assertEquals(messages, 0, process.waitFor());
+        }
+        catch (InterruptedException ex)
+        {
+            fail(ex.toString());
+        }
+
+        assertEquals(formatted, read(new FileInputStream(result)));
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        Convention.getInstance().snapshot();
+
+        _dir = File.createTempFile("console" /* NOI18N */, "" /* NOI18N */);
+        _dir.delete();
+        _dir.mkdirs();
+        _file = new File(_dir, "Foo.java" /* NOI18N */);
+        write(_file, SOURCE);
+    }
+
+
+    protected void tearDown()
+      throws Exception
+    {
+        File[] files = _dir.listFiles();
+
+        for (int i = 0; i < files.length; i++)
+        {
+            files[i].delete();
+        }
+
+        _dir.delete();
+
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Reads the given file.
+     *
+     * @param file the file to read.
+     *
+     * @return the contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static String read(File file)
+      throws IOException
+    {
+        return read(new FileInputStream(file));
+    }
+
+
+    /**
+     * Reads the given stream completely and closes it.
+     *
+     * @param in the stream to read.
+     *
+     * @return the contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static String read(InputStream in)
+      throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try
+        {
+            byte[] buf = new byte[4096];
+
+            for (int count = in.read(buf); count > -1; count = in.read(buf))
+            {
+                bytes.write(buf, 0, count);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return bytes.toString(ENCODING);
+    }
+
+
+    /**
+     * Runs the front-end over the source file.
+     *
+     * @param check if <code>true</code> the file is only checked.
+     * @param diff if <code>true</code> a diff is written to the standard output.
+     *
+     * @return the exit code.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private int run(
+        boolean check,
+        boolean diff)
+      throws IOException
+    {
+        ConsolePlugin console = new ConsolePlugin();
+        console.setCheck(check);
+        console.setDiff(diff);
+        console.setQuiet(true);
+        console.setEncoding(ENCODING);
+        console.addTarget(_file);
+
+        return console.run();
+    }
+
+
+    /**
+     * Writes the given contents to the given file.
+     *
+     * @param file the file to write.
+     * @param contents the contents.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static void write(
+        File   file,
+        String contents)
+      throws IOException
+    {
+        OutputStream out = new FileOutputStream(file);
+
+        try
+        {
+            out.write(contents.getBytes(ENCODING));
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.printer;
+
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.hunsicker.jalopy.Jalopy;
+import de.hunsicker.jalopy.language.CompositeFactory;
+import de.hunsicker.jalopy.storage.Convention;
+import de.hunsicker.jalopy.storage.ConventionKeys;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link MemberCache}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class MemberCacheTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The source formatted by the tests. */
+    private static final String SOURCE =
+        "package foo;\n\npublic class Foo {\n    /**\n     * Does it.\n     */\n"
+        + "    public int bar(int x) { return x+1; }\n\n"
+        + "    public void baz() { if (true) { bar(2); } }\n\n"
+        + "    class Inner { void qux() {} }\n}\n" /* NOI18N */;
+
+    /**
+     * The writer fields that are only set during setup or are maintained by the cache
+     * itself, and therefore not part of the saved state.
+     */
+    private static final List SETUP_FIELDS =
+        Arrays.asList(
+            new String[]
+            {
+                "continuationIndentSize", "footer", "indentSize", "insertTrailingEmpty",
+                "leadingIndentSize", "leftBraceIndent", "leftBraceNewline", "line",
+                "mode", "tracking", "useLeadingTabs", "useTabs"
+            } /* NOI18N */);
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Formatting again with unchanged members replays them, with the same output.
+     */
+    public void testReplayedOutputEqualsPrintedOutput()
+    {
+        Jalopy jalopy = new Jalopy();
+        jalopy.setIncremental(true);
+
+        String first = format(jalopy, SOURCE);
+        String second = format(jalopy, SOURCE);
+
+        assertEquals(first, second);
+        assertTrue(jalopy.getMemberCache().getHits() > 0);
+
+        // changing a member must only affect that member
+        String changed = SOURCE.replace("x+1", "x+2" /* NOI18N */);
+        assertEquals(format(new Jalopy(), changed), format(jalopy, changed));
+    }
+
+
+    /**
+     * Members whose printing logs messages are printed every time, so the messages
+     * and the resulting state are the same for every run.
+     */
+    public void testMembersThatLogAreNotReplayed()
+    {
+        Convention settings = Convention.getInstance();
+        settings.putBoolean(ConventionKeys.COMMENT_JAVADOC_PARSE, true);
+        settings.putBoolean(ConventionKeys.COMMENT_JAVADOC_CHECK_TAGS, true);
+
+        Jalopy jalopy = new Jalopy();
+        jalopy.setIncremental(true);
+
+        format(jalopy, SOURCE);
+        assertEquals(Jalopy.State.WARN, jalopy.getState());
+
+        format(jalopy, SOURCE);
+        assertEquals(Jalopy.State.WARN, jalopy.getState());
+    }
+
+
+    /**
+     * Every field of the writer and the printer state is either saved or known to be
+     * part of the setup.
+     *
+     * @throws Exception if the fields could not be accessed.
+     */
+    public void testSaveStateCoversAllFields()
+      throws Exception
+    {
+        NodeWriter out = createWriter();
+        NodeWriter restored = createWriter();
+        List fields = new ArrayList();
+        List targets = new ArrayList();
+        collectFields(NodeWriter.class, out, fields, targets);
+        collectFields(PrinterState.class, out.state, fields, targets);
+        collectFields(
+            ParenthesesScope.class, out.state.parenScope.getFirst(), fields, targets);
+
+        for (int i = 0, size = fields.size(); i < size; i++)
+        {
+            Field field = (Field) fields.get(i);
+
+            if (field.getType() == Boolean.TYPE)
+            {
+                field.setBoolean(targets.get(i), !field.getBoolean(targets.get(i)));
+            }
+            else
+            {
+                field.setInt(targets.get(i), 100 + i);
+            }
+        }
+
+        restored.restoreState(out.saveState());
+
+        Object[] restoredTargets =
+            new Object[]
+            { restored, restored.state, restored.state.parenScope.getFirst() };
+
+        for (int i = 0, size = fields.size(); i < size; i++)
+        {
+            Field field = (Field) fields.get(i);
+            Object target = targets.get(i);
+            Object other =
+                restoredTargets[(target == out) ? 0
+                                                : ((target == out.state) ? 1
+                                                                        : 2)];
+            assertEquals(field.getName(), field.get(target), field.get(other));
+        }
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        Convention.getInstance().snapshot();
+    }
+
+
+    protected void tearDown()
+      throws Exception
+    {
+        Convention.getInstance().revert();
+    }
+
+
+    /**
+     * Adds the mutable primitive fields of the given class that are not part of the
+     * setup.
+     *
+     * @param clazz the class to examine.
+     * @param target the object that holds the fields.
+     * @param fields list to add the fields to.
+     * @param targets list to add <em>target</em> to, once for every field added.
+     */
+    private static void collectFields(
+        Class  clazz,
+        Object target,
+        List   fields,
+        List   targets)
+    {
+        Field[] declared = clazz.getDeclaredFields();
+
+        for (int i = 0; i < declared.length; i++)
+        {
+            Field field = declared[i];
+            int modifiers = field.getModifiers();
+
+            if (
+                field.getType().isPrimitive() && !Modifier.isStatic(modifiers)
+                && !Modifier.isFinal(modifiers) && !SETUP_FIELDS.contains(field.getName()))
+            {
+                field.setAccessible(true);
+                fields.add(field);
+                targets.add(target);
+            }
+        }
+    }
+
+
+    /**
+     * Creates a new writer.
+     *
+     * @return a new writer.
+     */
+    private static NodeWriter createWriter()
+    {
+        return new NodeWriter(
+            new StringWriter(), new CompositeFactory(),
+            Convention.getInstance().compile(), "Foo.java" /* NOI18N */, null,
+            "\n" /* NOI18N */, "\n" /* NOI18N */);
+    }
+
+
+    /**
+     * Formats the given source.
+     *
+     * @param jalopy the formatter to use.
+     * @param source the source to format.
+     *
+     * @return the formatted source.
+     */
+    private static String format(
+        Jalopy jalopy,
+        String source)
+    {
+        StringBuffer output = new StringBuffer();
+        jalopy.setInput(source, "Foo.java" /* NOI18N */);
+        jalopy.setOutput(output);
+        jalopy.format();
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link FormatCache}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class FormatCacheTest
+    extends TestCase
+{
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The backing store used by the tests. */
+    private File _file;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Entries survive a flush and are recognized by a new cache instance.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testEntriesArePersisted()
+      throws IOException
+    {
+        FormatCache cache = new FormatCache(_file);
+        String content = "class Foo {}\n" /* NOI18N */;
+        cache.add("key" /* NOI18N */, FormatCache.digest(content));
+        cache.flush();
+
+        FormatCache reloaded = new FormatCache(_file);
+        assertTrue(reloaded.isFormatted("key" /* NOI18N */, content));
+        assertFalse(reloaded.isFormatted("key" /* NOI18N */, content + ' '));
+        assertFalse(reloaded.isFormatted("other" /* NOI18N */, content));
+    }
+
+
+    /**
+     * The digest of a writer matches the digest of the string written through it.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testDigestWriter()
+      throws IOException
+    {
+        String content = "package foo;\n\nclass Bar {}\n" /* NOI18N */;
+        StringWriter buf = new StringWriter();
+        FormatCache.DigestWriter out = new FormatCache.DigestWriter(buf);
+        out.write(content, 0, 8);
+        out.write(content.toCharArray(), 8, 4);
+        out.write(content.charAt(12));
+        out.write(content, 13, content.length() - 13);
+
+        assertEquals(content, buf.toString());
+        assertEquals(FormatCache.digest(content), out.getDigest());
+    }
+
+
+    /**
+     * The store is rewritten once it has grown to twice the capacity and only the
+     * most recently used entries are kept.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testCompaction()
+      throws IOException
+    {
+        FormatCache cache = new FormatCache(_file, 3);
+
+        for (int i = 0; i < 20; i++)
+        {
+            cache.add("key" + i, "digest" + i);
+            cache.flush();
+            assertTrue(countLines(_file) <= 6);
+        }
+
+        assertEquals(3, cache.size());
+
+        FormatCache reloaded = new FormatCache(_file, 3);
+        assertEquals(3, reloaded.size());
+        assertEquals("digest19" /* NOI18N */, reloaded.get("key19" /* NOI18N */));
+        assertEquals("digest17" /* NOI18N */, reloaded.get("key17" /* NOI18N */));
+        assertNull(reloaded.get("key16" /* NOI18N */));
+    }
+
+
+    /**
+     * The convention reports the variables its templates refer to, and the key changes
+     * with their values.
+     */
+    public void testKeyDependsOnReferencedVariables()
+    {
+        Map values = new HashMap();
+        values.put(ConventionKeys.HEADER_TEXT, "// $author$, $date:yyyy$" /* NOI18N */);
+        values.put(ConventionKeys.FOOTER_TEXT, "// $author$ $ 10" /* NOI18N */);
+
+        CompiledConvention settings = new CompiledConvention(values);
+        String[] names = settings.getVariableNames();
+        assertEquals(2, names.length);
+        assertEquals("author" /* NOI18N */, names[0]);
+        assertEquals("date" /* NOI18N */, names[1]);
+
+        String key =
+            FormatCache.createKey(
+                "1.0" /* NOI18N */, settings, "author=John Doe\n" /* NOI18N */,
+                "Foo.java" /* NOI18N */, "class Foo {}" /* NOI18N */);
+        assertEquals(
+            key,
+            FormatCache.createKey(
+                "1.0" /* NOI18N */, new CompiledConvention(values),
+                "author=John Doe\n" /* NOI18N */, "Foo.java" /* NOI18N */,
+                "class Foo {}" /* NOI18N */));
+        assertFalse(
+            key.equals(
+                FormatCache.createKey(
+                    "1.0" /* NOI18N */, settings, "author=Jane Doe\n" /* NOI18N */,
+                    "Foo.java" /* NOI18N */, "class Foo {}" /* NOI18N */)));
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        _file = File.createTempFile("formatcache" /* NOI18N */, ".txt" /* NOI18N */);
+        _file.delete();
+    }
+
+
+    protected void tearDown()
+      throws Exception
+    {
+        _file.delete();
+    }
+
+
+    /**
+     * Returns the number of lines of the given file.
+     *
+     * @param file a text file.
+     *
+     * @return number of lines.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static int countLines(File file)
+      throws IOException
+    {
+        BufferedReader in = new BufferedReader(new FileReader(file));
+
+        try
+        {
+            int count = 0;
+
+            while (in.readLine() != null)
+            {
+                count++;
+            }
+
+            return count;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.hunsicker.io.IoHelper;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link History}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class HistoryTest
+    extends TestCase
+{
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The log used by the tests. */
+    private File _log;
+
+    /** A file to track. */
+    private File _source;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Added and removed entries survive a flush.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testEntriesArePersisted()
+      throws IOException
+    {
+        History history = new History(_log);
+        history.add(_source, "foo" /* NOI18N */, 42);
+        history.flush();
+
+        History.Entry entry = new History(_log).get(_source);
+        assertNotNull(entry);
+        assertEquals("foo" /* NOI18N */, entry.getPackageName());
+        assertEquals(42, entry.getModification());
+
+        history.remove(_source);
+        history.flush();
+        assertNull(new History(_log).get(_source));
+    }
+
+
+    /**
+     * The log is rewritten before it grows too large.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testCompaction()
+      throws IOException
+    {
+        History history = new History(_log);
+        history.add(_source, "foo" /* NOI18N */, 0);
+        history.flush();
+
+        long header = 8;
+        long record = _log.length() - header;
+
+        for (int i = 1; i < 2500; i++)
+        {
+            history.add(_source, "foo" /* NOI18N */, i);
+            history.flush();
+        }
+
+        assertTrue(_log.length() <= (header + (1001 * record)));
+        assertFalse(new File(_log.getPath() + ".tmp" /* NOI18N */).exists());
+        assertEquals(2499, new History(_log).get(_source).getModification());
+    }
+
+
+    /**
+     * A history written by a former version is converted.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testLegacyFormatIsConverted()
+      throws IOException
+    {
+        Map legacy = new HashMap();
+        legacy.put(
+            _source.getCanonicalPath(), new History.Entry("foo" /* NOI18N */, 7));
+        IoHelper.serialize(legacy, _log);
+
+        History history = new History(_log);
+        assertEquals(7, history.get(_source).getModification());
+        history.flush();
+
+        DataInputStream in = new DataInputStream(new FileInputStream(_log));
+
+        try
+        {
+            assertEquals(0x4A485354, in.readInt());
+        }
+        finally
+        {
+            in.close();
+        }
+
+        assertEquals(7, new History(_log).get(_source).getModification());
+    }
+
+
+    /**
+     * A log of unknown format version is never written.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    public void testUnknownVersionIsLeftAlone()
+      throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(_log));
+
+        try
+        {
+            out.writeInt(0x4A485354);
+            out.writeInt(99);
+            out.writeUTF("future" /* NOI18N */);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        byte[] before = read(_log);
+
+        History history = new History(_log);
+        assertNull(history.get(_source));
+        history.add(_source, "foo" /* NOI18N */, 1);
+        history.flush();
+
+        assertTrue(Arrays.equals(before, read(_log)));
+        assertEquals(1, history.get(_source).getModification());
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        _log = File.createTempFile("history" /* NOI18N */, ".dat" /* NOI18N */);
+        _log.delete();
+        _source = File.createTempFile("Foo" /* NOI18N */, ".java" /* NOI18N */);
+    }
+
+
+    protected void tearDown()
+      throws Exception
+    {
+        _log.delete();
+        _source.delete();
+    }
+
+
+    /**
+     * Reads the given file.
+     *
+     * @param file the file to read.
+     *
+     * @return the contents of the file.
+     *
+     * @throws IOException if an I/O error occured.
+     */
+    private static byte[] read(File file)
+      throws IOException
+    {
+        byte[] data = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+
+        try
+        {
+            in.readFully(data);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.jalopy.storage;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link Template}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class TemplateTest
+    extends TestCase
+{
+    //~ Instance variables ---------------------------------------------------------------
+
+    /** The environment the templates are rendered with. */
+    private Environment _environment;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * Texts without variable expressions always render to themselves.
+     */
+    public void testConstant()
+    {
+        String[] texts =
+        {
+            "", "no variables", "costs $5", "$a$ is too short", "$$", "trailing $",
+            "$author" /* NOI18N */
+        };
+
+        for (int i = 0; i < texts.length; i++)
+        {
+            Template template = Template.compile(texts[i]);
+
+            assertTrue(texts[i], template.isConstant());
+            assertEquals(texts[i], template.render(_environment));
+            assertEquals(texts[i], template.getText());
+        }
+    }
+
+
+    /**
+     * Variables are replaced with their values, in any position.
+     */
+    public void testSubstitution()
+    {
+        Template template =
+            Template.compile("$author$: $fileName$.$author$$author$" /* NOI18N */);
+
+        assertFalse(template.isConstant());
+        assertEquals(
+            "Jane: Foo.java.JaneJane" /* NOI18N */, template.render(_environment));
+        assertTrue(
+            Arrays.equals(
+                new String[] { "author", "fileName", "author", "author" } /* NOI18N */,
+                template.getVariableNames()));
+
+        StringBuffer buf = new StringBuffer("by " /* NOI18N */);
+        template.render(_environment, buf);
+        assertEquals("by Jane: Foo.java.JaneJane" /* NOI18N */, buf.toString());
+    }
+
+
+    /**
+     * Expressions of variables that are not set or have an empty value are left
+     * untouched.
+     */
+    public void testUnsetVariables()
+    {
+        _environment.set("empty" /* NOI18N */, "" /* NOI18N */);
+
+        assertEquals(
+            "$unknown$ $empty$ Jane $unknown:pattern$" /* NOI18N */,
+            Template.compile("$unknown$ $empty$ $author$ $unknown:pattern$" /* NOI18N */)
+                    .render(_environment));
+    }
+
+
+    /**
+     * Patterns are handed to the formatter of the variable.
+     */
+    public void testPattern()
+    {
+        Date date = new GregorianCalendar(2004, Calendar.MARCH, 7).getTime();
+        _environment.set(Environment.Variable.DATE.getName(), date);
+
+        assertEquals(
+            "2004-03-07" /* NOI18N */,
+            Template.compile("$date:yyyy-MM-dd$" /* NOI18N */).render(_environment));
+        assertEquals(
+            new SimpleDateFormat().format(date),
+            Template.compile("$date$" /* NOI18N */).render(_environment));
+
+        // variables without formatter ignore the pattern
+        assertEquals(
+            "Jane" /* NOI18N */,
+            Template.compile("$author:upper$" /* NOI18N */).render(_environment));
+    }
+
+
+    /**
+     * Malformed expressions are not substituted and do not affect the expressions
+     * that follow.
+     */
+    public void testMalformedExpressions()
+    {
+        assertEquals(
+            "$author text$ Jane" /* NOI18N */,
+            Template.compile("$author text$ $author$" /* NOI18N */).render(_environment));
+        assertEquals(
+            "$author:\n$ Jane" /* NOI18N */,
+            Template.compile("$author:\n$ $author$" /* NOI18N */).render(_environment));
+        assertEquals(
+            "$ Jane $" /* NOI18N */,
+            Template.compile("$ $author$ $" /* NOI18N */).render(_environment));
+    }
+
+
+    /**
+     * Variable names may contain digits, underscores and dots.
+     */
+    public void testVariableNames()
+    {
+        _environment.set("_my.var2" /* NOI18N */, "x" /* NOI18N */);
+
+        Template template = Template.compile("<$_my.var2$>" /* NOI18N */);
+
+        assertEquals("<x>" /* NOI18N */, template.render(_environment));
+        assertTrue(
+            Arrays.equals(
+                new String[] { "_my.var2" } /* NOI18N */, template.getVariableNames()));
+        assertTrue(Template.compile("$2nd$" /* NOI18N */).isConstant());
+    }
+
+
+    protected void setUp()
+      throws Exception
+    {
+        _environment = Environment.getInstance().copy();
+        _environment.set("author" /* NOI18N */, "Jane" /* NOI18N */);
+        _environment.set(
+            Environment.Variable.FILE_NAME.getName(), "Foo.java" /* NOI18N */);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * This file is part of Jalopy.
+ *
+ * Copyright (c) 2001-2004, Marco Hunsicker. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this list
+ * of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice, this
+ * list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * Neither the name of the Jalopy Group nor the names of its contributors may be
+ * used to endorse or promote products derived from this software without specific
+ * prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package de.hunsicker.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Tests for {@link Lcs} and {@link Lcs.Dictionary}.
+ *
+ * @author <a href="http://jalopy.sf.net/contact.html">Marco Hunsicker</a>
+ * @version $Revision: 1.1 $
+ */
+public class LcsTest
+    extends TestCase
+{
+    //~ Static variables/initializers ----------------------------------------------------
+
+    /** The characters of the random strings, few so that they have much in common. */
+    private static final String ALPHABET = "abcde" /* NOI18N */;
+
+    //~ Methods --------------------------------------------------------------------------
+
+    /**
+     * The length computed with a single row equals the length of the subsequence found
+     * with the full processing table.
+     */
+    public void testLengthEqualsSubsequence()
+    {
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++)
+        {
+            String s1 = createString(random, 40);
+            String s2 = createString(random, 40);
+            Lcs lcs = Lcs.compute(s1, s2);
+            int length = lcs.getLength();
+
+            assertEquals(length, Lcs.computeLength(s1, s2));
+            assertEquals(length, lcs.getString().length());
+            assertTrue(isSubsequence(lcs.getString(), s1));
+            assertTrue(isSubsequence(lcs.getString(), s2));
+        }
+
+        assertEquals(
+            "acd" /* NOI18N */, Lcs.compute("abcd", "xaycd" /* NOI18N */).getString());
+        assertEquals(0, Lcs.computeLength("abc", "" /* NOI18N */));
+    }
+
+
+    /**
+     * The dictionary returns the first word an {@link Lcs} would consider similar
+     * enough, for short words as well as for words too long to be compared in
+     * parallel.
+     */
+    public void testDictionaryEqualsLcs()
+    {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++)
+        {
+            List words = new ArrayList();
+
+            for (int i = 0; i < 10; i++)
+            {
+                words.add(createString(random, ((i % 3) == 0) ? 100
+                                                               : 30));
+            }
+
+            Lcs.Dictionary dictionary = new Lcs.Dictionary(words);
+
+            for (int i = 0; i < 20; i++)
+            {
+                String text = createString(random, ((i % 4) == 0) ? 100
+                                                                   : 30);
+                double minimum = 50 + random.nextInt(40);
+
+                assertEquals(
+                    text + ' ' + minimum, getMatch(words, text, minimum),
+                    dictionary.getMatch(text, minimum));
+            }
+        }
+    }
+
+
+    /**
+     * Words of exactly 64 characters are still compared in parallel, longer ones are
+     * not; both must give the same result as an {@link Lcs}.
+     */
+    public void testDictionaryWordLengthLimit()
+    {
+        Random random = new Random(42);
+
+        for (int length = 62; length <= 66; length++)
+        {
+            String word = createString(random, length);
+            word = word + repeat('a', length - word.length());
+
+            Lcs.Dictionary dictionary =
+                new Lcs.Dictionary(Arrays.asList(new String[] { word }));
+
+            for (int i = 0; i < 50; i++)
+            {
+                String text = createString(random, 80);
+                Lcs lcs = Lcs.compute(text, word);
+                double minimum = lcs.getPercentage();
+
+                // the boundary is exclusive
+                assertNull(dictionary.getMatch(text, minimum));
+                assertEquals(word, dictionary.getMatch(text, minimum - 1));
+            }
+        }
+    }
+
+
+    /**
+     * A contained text is always returned, even if a preceding word matches as well.
+     * Empty strings never match other than exactly.
+     */
+    public void testDictionaryExactMatch()
+    {
+        Lcs.Dictionary dictionary =
+            new Lcs.Dictionary(
+                Arrays.asList(new String[] { "param", "params", "" } /* NOI18N */));
+
+        assertEquals("params" /* NOI18N */, dictionary.getMatch("params", 50));
+        assertEquals("param" /* NOI18N */, dictionary.getMatch("parm", 50));
+        assertEquals("" /* NOI18N */, dictionary.getMatch("", 50));
+        assertNull(dictionary.getMatch("return", 50));
+        assertNull(new Lcs.Dictionary(new ArrayList()).getMatch("", 0));
+    }
+
+
+    /**
+     * Creates a random string.
+     *
+     * @param random the source of randomness.
+     * @param maxLength the maximal length.
+     *
+     * @return a random string of up to <em>maxLength</em> characters.
+     */
+    private static String createString(
+        Random random,
+        int    maxLength)
+    {
+        char[] chars = new char[random.nextInt(maxLength + 1)];
+
+        for (int i = 0; i < chars.length; i++)
+        {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+
+        return new String(chars);
+    }
+
+
+    /**
+     * Returns the first word that an {@link Lcs} considers similar to the given text.
+     *
+     * @param words the words to search.
+     * @param text the text.
+     * @param minimum the similarity a word must exceed.
+     *
+     * @return the matching word or <code>null</code>.
+     */
+    private static String getMatch(
+        List   words,
+        String text,
+        double minimum)
+    {
+        if (words.contains(text))
+        {
+            return text;
+        }
+
+        for (int i = 0, size = words.size(); i < size; i++)
+        {
+            String word = (String) words.get(i);
+
+            if (
+                ((text.length() + word.length()) > 0)
+                && (Lcs.compute(text, word).getPercentage() > minimum))
+            {
+                return word;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Determines whether the given string is a subsequence of the other one.
+     *
+     * @param sub the possible subsequence.
+     * @param str the string.
+     *
+     * @return <code>true</code> if <em>sub</em> is a subsequence of <em>str</em>.
+     */
+    private static boolean isSubsequence(
+        String sub,
+        String str)
+    {
+        int j = 0;
+
+        for (int i = 0, length = str.length(); (i < length) && (j < sub.length()); i++)
+        {
+            if (str.charAt(i) == sub.charAt(j))
+            {
+                j++;
+            }
+        }
+
+        return j == sub.length();
+    }
+
+
+    /**
+     * Returns a string of the given character.
+     *
+     * @param c the character.
+     * @param count the number of characters.
+     *
+     * @return a string of <em>count</em> times <em>c</em>.
+     */
+    private static String repeat(
+        char c,
+        int  count)
+    {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+
+        return new String(chars);
+    }
+}